@@ -0,0 +1,132 @@
+package benchmark;
+
+import java.util.function.DoubleUnaryOperator;
+
+import expressions.BytecodeCompiler;
+import expressions.CompiledExpression;
+import expressions.Dual;
+import expressions.Expression;
+import expressions.ExpressionInterner;
+import expressions.VectorBackend;
+
+/**
+ * EvalBenchmark vergleicht die Auswertung eines Syntaxbaumes mit der
+ * Auswertung der übersetzten CompiledExpression, der mit dem BytecodeCompiler
+ * erzeugten Klasse und der spaltenweisen Auswertung mit evalBatch(), skalar
+ * und über das VectorBackend. dag bezeichnet die erzeugte Klasse für den mit
+ * dem ExpressionInterner zusammengefassten Ausdruck, dual die Auswertung von
+ * Wert und Ableitung mit evalDual(). Für jede Formel wird die Zeit pro
+ * eval()-Aufruf in Nanosekunden ausgegeben.
+ */
+public class EvalBenchmark {
+	private static final String[] FORMULAS = { "x^2 + 3", "sin(8 + 3 - 5 * x)", "log(5 * (3 + x))",
+			"sin(x)*sin(x) + cos(x)*sin(x) - exp(x/10) * (x - 1) * (x + 1) / (x*x + 1)" };
+	private static final int SAMPLES = 1_000_000;
+	private static final int ROUNDS = 10;
+	private static final int BATCH_SIZE = 1024;
+
+	public static void main(String[] args) {
+		System.out.println("SIMD verfuegbar: " + VectorBackend.isAvailable());
+		for (String formula : FORMULAS) {
+			Expression tree = Expression.parseInfixString(formula);
+			CompiledExpression compiled = tree.compile();
+			DoubleUnaryOperator generated = BytecodeCompiler.compile(tree);
+			DoubleUnaryOperator dag = BytecodeCompiler.compile(new ExpressionInterner().intern(tree));
+
+			double treeSum = 0, compiledSum = 0, generatedSum = 0, batchSum = 0, dualSum = 0;
+			long treeNanos = Long.MAX_VALUE, compiledNanos = Long.MAX_VALUE, generatedNanos = Long.MAX_VALUE,
+					batchNanos = Long.MAX_VALUE, vectorNanos = Long.MAX_VALUE, dagNanos = Long.MAX_VALUE,
+					dualNanos = Long.MAX_VALUE;
+			for (int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				treeSum = run(tree);
+				treeNanos = Math.min(treeNanos, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				compiledSum = run(compiled);
+				compiledNanos = Math.min(compiledNanos, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				generatedSum = run(generated);
+				generatedNanos = Math.min(generatedNanos, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				batchSum = runBatch(tree, false);
+				batchNanos = Math.min(batchNanos, System.nanoTime() - start);
+
+				// weicht bei sin, cos, exp und log um wenige ULP ab
+				start = System.nanoTime();
+				runBatch(tree, true);
+				vectorNanos = Math.min(vectorNanos, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				run(dag);
+				dagNanos = Math.min(dagNanos, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				dualSum = runDual(tree);
+				dualNanos = Math.min(dualNanos, System.nanoTime() - start);
+			}
+			if (Double.compare(treeSum, compiledSum) != 0 || Double.compare(treeSum, generatedSum) != 0
+					|| Double.compare(treeSum, batchSum) != 0 || Double.compare(treeSum, dualSum) != 0) {
+				throw new IllegalStateException("Ergebnisse unterscheiden sich fuer " + formula);
+			}
+			System.out.printf(
+					"%-70s tree %6.2f   compiled %6.2f   bytecode %6.2f   batch %6.2f   simd %6.2f   dag %6.2f   dual %6.2f ns/eval%n",
+					formula, (double) treeNanos / SAMPLES, (double) compiledNanos / SAMPLES,
+					(double) generatedNanos / SAMPLES, (double) batchNanos / SAMPLES, (double) vectorNanos / SAMPLES,
+					(double) dagNanos / SAMPLES, (double) dualNanos / SAMPLES);
+		}
+	}
+
+	private static double run(Expression e) {
+		double sum = 0;
+		double step = 20.0 / SAMPLES;
+		for (int i = 0; i < SAMPLES; i++) {
+			sum += e.eval(-10 + i * step);
+		}
+		return sum;
+	}
+
+	private static double runDual(Expression e) {
+		Dual dual = new Dual();
+		double sum = 0;
+		double step = 20.0 / SAMPLES;
+		for (int i = 0; i < SAMPLES; i++) {
+			e.evalDual(-10 + i * step, dual);
+			sum += dual.getValue();
+		}
+		return sum;
+	}
+
+	private static double run(DoubleUnaryOperator op) {
+		double sum = 0;
+		double step = 20.0 / SAMPLES;
+		for (int i = 0; i < SAMPLES; i++) {
+			sum += op.applyAsDouble(-10 + i * step);
+		}
+		return sum;
+	}
+
+	private static double runBatch(Expression e, boolean vector) {
+		double[] xs = new double[BATCH_SIZE];
+		double[] ys = new double[BATCH_SIZE];
+		double sum = 0;
+		double step = 20.0 / SAMPLES;
+		for (int start = 0; start < SAMPLES; start += BATCH_SIZE) {
+			int n = Math.min(BATCH_SIZE, SAMPLES - start);
+			for (int i = 0; i < n; i++) {
+				xs[i] = -10 + (start + i) * step;
+			}
+			if (vector) {
+				VectorBackend.evalBatch(e, xs, 0, ys, 0, n);
+			} else {
+				e.evalBatch(xs, 0, ys, 0, n);
+			}
+			for (int i = 0; i < n; i++) {
+				sum += ys[i];
+			}
+		}
+		return sum;
+	}
+}
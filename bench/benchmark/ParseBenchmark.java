@@ -0,0 +1,42 @@
+package benchmark;
+
+import expressions.Expression;
+import parser.Parser;
+import shuntingyard.ShuntingYard;
+import tokens.Token;
+
+/**
+ * ParseBenchmark vergleicht das Einlesen von Formeln über Token.tokenize,
+ * ShuntingYard und Expression.parseRPN mit dem Parser, der den Syntaxbaum in
+ * einem Durchlauf erzeugt. Für jede Formel wird die Zeit pro Aufruf in
+ * Nanosekunden ausgegeben.
+ */
+public class ParseBenchmark {
+	private static final String[] FORMULAS = { "x^2 + 3", "sin(8 + 3 - 5 * x)", "log(5 * (3 + x))",
+			"sin(x)*sin(x) + cos(x)*sin(x) - exp(x/10) * (x - 1) * (x + 1) / (x*x + 1)" };
+	private static final int CALLS = 200_000;
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) {
+		for (String formula : FORMULAS) {
+			long rpnNanos = Long.MAX_VALUE, parserNanos = Long.MAX_VALUE;
+			int sink = 0;
+			for (int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				for (int i = 0; i < CALLS; i++) {
+					Expression e = Expression.parseRPN(ShuntingYard.convertToRPN(Token.tokenize(formula)));
+					sink += e.hashCode();
+				}
+				rpnNanos = Math.min(rpnNanos, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				for (int i = 0; i < CALLS; i++) {
+					sink += Parser.parse(formula).hashCode();
+				}
+				parserNanos = Math.min(parserNanos, System.nanoTime() - start);
+			}
+			System.out.printf("%-70s shunting-yard %8.1f   parser %8.1f ns/parse (%d)%n", formula,
+					(double) rpnNanos / CALLS, (double) parserNanos / CALLS, sink & 1);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package benchmark.jmh;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CompareResults vergleicht zwei CSV-Dateien, die JMH mit -rf csv geschrieben
+ * hat, zeilenweise: eine Baseline und die aktuellen Ergebnisse. Zeilen werden
+ * über den Namen des Benchmarks (bei Profilern mit angehängter Messgröße, z. B.
+ * gc.alloc.rate.norm) und die Parameter zugeordnet.
+ *
+ * Für Einheiten pro Operation (ns/op, B/op) ist weniger besser, für
+ * Durchsätze (ops/s) mehr. Eine Zeile gilt als Verschlechterung, wenn sie um
+ * mehr als threshold (relativ) und um mehr als die Summe beider
+ * Fehlerschranken schlechter ist; bei B/op muss es außerdem mindestens ein
+ * Byte sein. Andere Einheiten werden nur ausgegeben. Gibt es eine
+ * Verschlechterung, endet das Programm mit Exit-Code 1.
+ *
+ * Aufruf: CompareResults baseline.csv results.csv [threshold]
+ */
+public final class CompareResults {
+	private CompareResults() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Aufruf: CompareResults baseline.csv results.csv [threshold]");
+			System.exit(2);
+		}
+		Path baselinePath = Paths.get(args[0]);
+		if (!Files.exists(baselinePath)) {
+			System.err.println("Keine Baseline " + baselinePath + ", zuerst jmhBaseline ausfuehren");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+		Map<String, Row> baseline = read(baselinePath);
+		Map<String, Row> current = read(Paths.get(args[1]));
+
+		int regressions = 0;
+		System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Aktuell", "Aenderung");
+		for (Map.Entry<String, Row> entry : current.entrySet()) {
+			Row now = entry.getValue();
+			Row base = baseline.get(entry.getKey());
+			if (base == null) {
+				System.out.printf("%-90s %14s %14.3f %9s  %s%n", entry.getKey(), "-", now.score, "neu", now.unit);
+				continue;
+			}
+			String verdict = "";
+			int direction = direction(now.unit);
+			if (direction != 0 && base.unit.equals(now.unit)) {
+				double worse = direction * (now.score - base.score);
+				boolean significant = worse > threshold * Math.abs(base.score) && worse > base.error + now.error
+						&& (!now.unit.equals("B/op") || worse >= 1);
+				if (significant) {
+					verdict = "  VERSCHLECHTERT";
+					regressions++;
+				}
+			}
+			double change = base.score == 0 ? 0 : (now.score - base.score) / Math.abs(base.score);
+			System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), base.score, now.score,
+					100 * change, now.unit, verdict);
+		}
+		for (String key : baseline.keySet()) {
+			if (!current.containsKey(key)) {
+				System.out.printf("%-90s %14.3f %14s %9s%n", key, baseline.get(key).score, "-", "fehlt");
+			}
+		}
+		if (regressions > 0) {
+			System.out.println(regressions + " Verschlechterung(en) ueber " + (int) Math.round(100 * threshold) + " %");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * direction gibt 1 zurück, wenn für unit ein kleinerer Wert besser ist, -1,
+	 * wenn ein größerer besser ist, und sonst 0.
+	 */
+	private static int direction(String unit) {
+		if (unit.startsWith("ops/")) {
+			return -1;
+		}
+		return unit.endsWith("/op") ? 1 : 0;
+	}
+
+	/**
+	 * read liest eine CSV-Datei von JMH. Der Schlüssel jeder Zeile besteht aus
+	 * dem Namen des Benchmarks und den Werten der Spalten "Param: ...".
+	 */
+	private static Map<String, Row> read(Path path) throws IOException {
+		List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+		Map<String, Row> rows = new LinkedHashMap<>();
+		if (lines.isEmpty()) {
+			return rows;
+		}
+		List<String> header = split(lines.get(0));
+		int name = header.indexOf("Benchmark");
+		int score = header.indexOf("Score");
+		int error = header.indexOf("Score Error (99.9%)");
+		int unit = header.indexOf("Unit");
+		if (name < 0 || score < 0 || error < 0 || unit < 0) {
+			throw new IllegalArgumentException("Keine CSV-Datei von JMH: " + path);
+		}
+		for (String line : lines.subList(1, lines.size())) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			List<String> cells = split(line);
+			StringBuilder key = new StringBuilder(cells.get(name));
+			for (int i = 0; i < header.size(); i++) {
+				if (header.get(i).startsWith("Param: ") && !cells.get(i).isEmpty()) {
+					key.append(' ').append(header.get(i).substring(7)).append('=').append(cells.get(i));
+				}
+			}
+			rows.put(key.toString(),
+					new Row(parse(cells.get(score)), parse(cells.get(error)), cells.get(unit)));
+		}
+		return rows;
+	}
+
+	private static double parse(String s) {
+		// JMH schreibt je nach Locale ein Komma als Dezimaltrennzeichen
+		return s.isEmpty() || s.equals("NaN") ? 0 : Double.parseDouble(s.replace(',', '.'));
+	}
+
+	/**
+	 * split zerlegt eine CSV-Zeile an Kommas außerhalb von Anführungszeichen.
+	 */
+	private static List<String> split(String line) {
+		List<String> cells = new ArrayList<>();
+		StringBuilder cell = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '"') {
+				if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					cell.append('"');
+					i++;
+				} else {
+					quoted = !quoted;
+				}
+			} else if (c == ',' && !quoted) {
+				cells.add(cell.toString());
+				cell.setLength(0);
+			} else {
+				cell.append(c);
+			}
+		}
+		cells.add(cell.toString());
+		return cells;
+	}
+
+	private static final class Row {
+		private final double score;
+		private final double error;
+		private final String unit;
+
+		private Row(double score, double error, String unit) {
+			this.score = score;
+			this.error = error;
+			this.unit = unit;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package benchmark.jmh;
+
+/**
+ * Corpus erzeugt die Formeln für die JMH-Benchmarks. Jede Art von Formel
+ * wächst mit dem Parameter size, damit sich messen lässt, wie die Laufzeit
+ * von der Länge der Eingabe abhängt:
+ *
+ * realistic hängt size typische Formeln aus dem Plotter mit + aneinander.
+ * chain ist ein Polynom vom Grad size, also eine lange Kette von Operatoren.
+ * nested schachtelt size Klammerebenen, jede dritte davon in einer Funktion.
+ * functions ist eine Summe aus size verschiedenen Funktionsaufrufen.
+ *
+ * Alle Formeln kommen ohne Vorzeichen-Minus aus, damit sie auch über
+ * Token.tokenize und ShuntingYard gelesen werden können.
+ */
+public final class Corpus {
+	private static final String[] REALISTIC = { "x^2 + 3", "sin(8 + 3 - 5 * x)", "log(5 * (3 + x))",
+			"sin(x)*sin(x) + cos(x)*sin(x) - exp(x/10) * (x - 1) * (x + 1) / (x*x + 1)" };
+	private static final String[] FUNCTIONS = { "sin(x)", "cos(x / 2)", "tan(x / 4)", "exp(x / 10)",
+			"log(abs(x) + 1)", "sqrt(abs(x))", "atan(x)", "asin(x / 100)" };
+
+	private Corpus() {
+	}
+
+	/**
+	 * formula gibt die Formel der Art kind mit der Größe size zurück.
+	 *
+	 * @param kind Art der Formel (realistic, chain, nested oder functions).
+	 * @param size Größe, mindestens 1.
+	 * @return Formel in Infix-Schreibweise.
+	 * @throws IllegalArgumentException wenn kind unbekannt ist.
+	 */
+	public static String formula(String kind, int size) {
+		StringBuilder sb = new StringBuilder();
+		switch (kind) {
+		case "realistic":
+			for (int i = 0; i < size; i++) {
+				if (i > 0) {
+					sb.append(" + ");
+				}
+				sb.append(REALISTIC[i % REALISTIC.length]);
+			}
+			return sb.toString();
+		case "chain":
+			for (int i = 0; i <= size; i++) {
+				if (i > 0) {
+					sb.append(i % 2 == 0 ? " + " : " - ");
+				}
+				sb.append(0.5 + i).append(" * x^").append(i);
+			}
+			return sb.toString();
+		case "nested": {
+			String f = "x";
+			for (int i = 0; i < size; i++) {
+				f = i % 3 == 2 ? "sin(" + f + ")" : "(" + f + ") * 0.5 + " + (i + 1);
+			}
+			return f;
+		}
+		case "functions":
+			for (int i = 0; i < size; i++) {
+				if (i > 0) {
+					sb.append(" + ");
+				}
+				sb.append(FUNCTIONS[i % FUNCTIONS.length]);
+			}
+			return sb.toString();
+		default:
+			throw new IllegalArgumentException("Unbekannte Art von Formel: " + kind);
+		}
+	}
+}
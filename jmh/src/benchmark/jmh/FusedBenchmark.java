@@ -0,0 +1,73 @@
+package benchmark.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import expressions.Expression;
+import expressions.FusedEvaluator;
+
+/**
+ * FusedBenchmark vergleicht die gemeinsame Auswertung von curves Formeln mit
+ * dem FusedEvaluator mit der Auswertung jeder Formel für sich über evalBatch.
+ * Die Formeln sind die typischen aus dem Corpus mit verschiedenen
+ * Summanden, teilen sich also Teilausdrücke wie sin(x). Die Zeit gilt für
+ * alle Formeln an POINTS Stellen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FusedBenchmark {
+	private static final int POINTS = 1 << 14;
+
+	@Param({ "5", "50" })
+	public int curves;
+
+	private List<Expression> expressions;
+	private FusedEvaluator fused;
+	private double[] xs;
+	private double[][] out;
+
+	@Setup
+	public void setup() {
+		this.expressions = new ArrayList<>();
+		for (int i = 0; i < this.curves; i++) {
+			this.expressions.add(Expression.parseInfixString(Corpus.formula("realistic", i % 4 + 1) + " + " + i));
+		}
+		this.fused = new FusedEvaluator(this.expressions);
+		this.xs = new double[POINTS];
+		for (int i = 0; i < POINTS; i++) {
+			this.xs[i] = -10 + 20.0 * i / POINTS;
+		}
+		this.out = new double[this.curves][POINTS];
+	}
+
+	@Benchmark
+	public double[][] fused() {
+		this.fused.evalBatch(this.xs, 0, this.out, 0, POINTS);
+		return this.out;
+	}
+
+	@Benchmark
+	public double[][] separate() {
+		for (int k = 0; k < this.curves; k++) {
+			this.expressions.get(k).evalBatch(this.xs, 0, this.out[k], 0, POINTS);
+		}
+		return this.out;
+	}
+}
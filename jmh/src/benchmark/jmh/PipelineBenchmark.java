@@ -0,0 +1,98 @@
+package benchmark.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import expressions.Expression;
+import parser.Parser;
+import shuntingyard.ShuntingYard;
+import tokens.Token;
+
+/**
+ * PipelineBenchmark misst jede Stufe vom String bis zum Funktionswert
+ * einzeln: Token.tokenize, ShuntingYard.convertToRPN, Expression.parseRPN,
+ * Expression.parseInfixString (der Parser in einem Durchlauf) und eval. Die
+ * Eingaben jeder Stufe werden in setup() einmal vorher berechnet. Formeln
+ * kommen aus dem Corpus, geordnet nach Art und Größe.
+ *
+ * eval wird an EVAL_POINTS Stellen zwischen -10 und 10 gemessen; die Zeit
+ * gilt pro Auswertung.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PipelineBenchmark {
+	private static final int EVAL_POINTS = 1024;
+
+	@Param({ "realistic", "chain", "nested", "functions" })
+	public String kind;
+
+	@Param({ "1", "8", "64" })
+	public int size;
+
+	private String formula;
+	private Token[] tokens;
+	private Token[] rpn;
+	private Expression tree;
+	private double[] xs;
+
+	@Setup
+	public void setup() {
+		this.formula = Corpus.formula(this.kind, this.size);
+		this.tokens = Token.tokenize(this.formula);
+		this.rpn = ShuntingYard.convertToRPN(this.tokens);
+		this.tree = Expression.parseRPN(this.rpn);
+		if (!this.tree.equals(Parser.parse(this.formula))) {
+			throw new IllegalStateException("Parser und Shunting-Yard unterscheiden sich fuer " + this.formula);
+		}
+		this.xs = new double[EVAL_POINTS];
+		for (int i = 0; i < EVAL_POINTS; i++) {
+			this.xs[i] = -10 + 20.0 * i / EVAL_POINTS;
+		}
+	}
+
+	@Benchmark
+	public Token[] tokenize() {
+		return Token.tokenize(this.formula);
+	}
+
+	@Benchmark
+	public Token[] shuntingYard() {
+		return ShuntingYard.convertToRPN(this.tokens);
+	}
+
+	@Benchmark
+	public Expression parseRPN() {
+		return Expression.parseRPN(this.rpn);
+	}
+
+	@Benchmark
+	public Expression parseInfixString() {
+		return Expression.parseInfixString(this.formula);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVAL_POINTS)
+	public double eval() {
+		double sum = 0;
+		for (double x : this.xs) {
+			sum += this.tree.eval(x);
+		}
+		return sum;
+	}
+}
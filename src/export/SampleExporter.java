@@ -0,0 +1,163 @@
+package export;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import expressions.Expression;
+import expressions.ScratchPool;
+import expressions.VectorBackend;
+
+/**
+ * SampleExporter schreibt die Funktionswerte einer oder mehrerer Formeln an n
+ * gleichabständigen Stellen xMin + i * step in eine Datei, die mit SampleFile
+ * wieder gelesen werden kann.
+ *
+ * Die Datei ist spaltenweise aufgebaut und durchgehend little-endian:
+ *
+ * <pre>
+ * int    MAGIC ("FPLT")
+ * int    VERSION
+ * int    Anzahl der Formeln k
+ * int    Beginn der Daten in Bytes (Vielfaches von 8)
+ * long   Anzahl der Stellen n
+ * double xMin
+ * double step
+ * k mal  int Länge in Bytes, Formel in UTF-8
+ * Füllbytes bis zum Beginn der Daten
+ * n double  x-Werte
+ * n double  Funktionswerte der ersten Formel
+ * ...
+ * n double  Funktionswerte der k-ten Formel
+ * </pre>
+ *
+ * Geschrieben wird über Memory-Mapping in Fenstern von windowSamples Stellen
+ * pro Spalte. Innerhalb eines Fensters wird blockweise mit dem VectorBackend
+ * ausgewertet und direkt in die Datei kopiert. Der Speicherbedarf auf dem
+ * Heap hängt daher nicht von n ab; auch Milliarden von Stellen werden nie
+ * vollständig im Speicher gehalten.
+ */
+public class SampleExporter {
+	static final int MAGIC = 0x544C5046;
+	static final int VERSION = 1;
+	static final int FIXED_HEADER = 40;
+	public static final int DEFAULT_WINDOW_SAMPLES = 1 << 22;
+	private static final int BATCH_SIZE = 4096;
+
+	private final int windowSamples;
+
+	/**
+	 * Erzeugt einen Exporter mit Fenstern von 32 MiB pro Spalte.
+	 */
+	public SampleExporter() {
+		this(DEFAULT_WINDOW_SAMPLES);
+	}
+
+	/**
+	 * Erzeugt einen Exporter.
+	 *
+	 * @param windowSamples Anzahl der Stellen, die pro Spalte gleichzeitig
+	 *                      eingeblendet werden.
+	 * @throws IllegalArgumentException wenn windowSamples nicht zwischen 1 und
+	 *                                  2^28 liegt.
+	 */
+	public SampleExporter(int windowSamples) {
+		if (windowSamples < 1 || windowSamples > 1 << 28) {
+			throw new IllegalArgumentException("windowSamples muss zwischen 1 und 2^28 liegen");
+		}
+		this.windowSamples = windowSamples;
+	}
+
+	/**
+	 * export liest die Formeln ein, wertet sie an den Stellen xMin + i * step für
+	 * i = 0 bis n - 1 aus und schreibt das Ergebnis nach file. Eine vorhandene
+	 * Datei wird überschrieben.
+	 *
+	 * @param file     Zieldatei.
+	 * @param formulas Formeln in Infix-Schreibweise, mindestens eine.
+	 * @param xMin     Erste Stelle.
+	 * @param step     Abstand zwischen zwei Stellen.
+	 * @param n        Anzahl der Stellen.
+	 * @throws IllegalArgumentException wenn keine Formel angegeben ist, eine
+	 *                                  Formel ungültig ist oder n negativ ist.
+	 * @throws IOException              wenn die Datei nicht geschrieben werden
+	 *                                  kann.
+	 */
+	public void export(Path file, List<String> formulas, double xMin, double step, long n) throws IOException {
+		if (formulas.isEmpty()) {
+			throw new IllegalArgumentException("Es wird mindestens eine Formel benoetigt");
+		}
+		if (n < 0) {
+			throw new IllegalArgumentException("Negative Anzahl von Stellen");
+		}
+		List<Expression> expressions = new ArrayList<>(formulas.size());
+		List<byte[]> names = new ArrayList<>(formulas.size());
+		int headerBytes = FIXED_HEADER;
+		for (String formula : formulas) {
+			expressions.add(Expression.parseInfixString(formula));
+			byte[] name = formula.getBytes(StandardCharsets.UTF_8);
+			names.add(name);
+			headerBytes += 4 + name.length;
+		}
+		int dataOffset = (headerBytes + 7) & ~7;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataOffset);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(formulas.size()).putInt(dataOffset);
+			header.putLong(n).putDouble(xMin).putDouble(step);
+			for (byte[] name : names) {
+				header.putInt(name.length).put(name);
+			}
+			header.force();
+
+			long columnBytes = 8 * n;
+			writeColumn(channel, dataOffset, null, xMin, step, n);
+			for (int c = 0; c < expressions.size(); c++) {
+				writeColumn(channel, dataOffset + (c + 1) * columnBytes, expressions.get(c), xMin, step, n);
+			}
+		}
+	}
+
+	/**
+	 * writeColumn schreibt eine Spalte ab position, Fenster für Fenster. Für e ==
+	 * null werden die x-Werte geschrieben.
+	 */
+	private void writeColumn(FileChannel channel, long position, Expression e, double xMin, double step, long n)
+			throws IOException {
+		double[] xs = ScratchPool.take(BATCH_SIZE);
+		double[] ys = ScratchPool.take(BATCH_SIZE);
+		try {
+			for (long window = 0; window < n; window += this.windowSamples) {
+				int size = (int) Math.min(this.windowSamples, n - window);
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position + 8 * window,
+						8L * size);
+				DoubleBuffer out = buffer.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+				for (int start = 0; start < size; start += BATCH_SIZE) {
+					int len = Math.min(BATCH_SIZE, size - start);
+					for (int i = 0; i < len; i++) {
+						xs[i] = xMin + (window + start + i) * step;
+					}
+					if (e == null) {
+						out.put(xs, 0, len);
+					} else {
+						VectorBackend.evalBatch(e, xs, 0, ys, 0, len);
+						out.put(ys, 0, len);
+					}
+				}
+				buffer.force();
+			}
+		} finally {
+			ScratchPool.release(ys);
+			ScratchPool.release(xs);
+		}
+	}
+}
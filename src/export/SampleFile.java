@@ -0,0 +1,213 @@
+package export;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SampleFile liest eine mit SampleExporter geschriebene Datei. Beim Öffnen
+ * wird nur der Kopf gelesen; die Spalten werden bei Bedarf in den Speicher
+ * eingeblendet und als DoubleBuffer zurückgegeben, ohne die Werte zu
+ * kopieren.
+ *
+ * Ein einzelner DoubleBuffer kann höchstens 2^28 - 1 Werte (knapp 2 GiB)
+ * umfassen. Größere Spalten werden über getXs(from, length) und getYs(curve,
+ * from, length) abschnittsweise gelesen.
+ */
+public class SampleFile implements AutoCloseable {
+	private static final int MAX_VIEW = (Integer.MAX_VALUE >> 3);
+
+	private final FileChannel channel;
+	private final List<String> formulas;
+	private final long samples;
+	private final double xMin;
+	private final double step;
+	private final long dataOffset;
+
+	private SampleFile(FileChannel channel, List<String> formulas, long samples, double xMin, double step,
+			long dataOffset) {
+		this.channel = channel;
+		this.formulas = formulas;
+		this.samples = samples;
+		this.xMin = xMin;
+		this.step = step;
+		this.dataOffset = dataOffset;
+	}
+
+	/**
+	 * open öffnet file zum Lesen und prüft den Kopf.
+	 *
+	 * @param file Datei von SampleExporter.
+	 * @return Geöffnete Datei, die mit close() geschlossen werden muss.
+	 * @throws IllegalArgumentException wenn file keine gültige Datei von
+	 *                                  SampleExporter ist.
+	 * @throws IOException              wenn die Datei nicht gelesen werden
+	 *                                  kann.
+	 */
+	public static SampleFile open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < SampleExporter.FIXED_HEADER) {
+				throw new IllegalArgumentException("Datei zu kurz: " + file);
+			}
+			MappedByteBuffer fixed = channel.map(FileChannel.MapMode.READ_ONLY, 0, SampleExporter.FIXED_HEADER);
+			fixed.order(ByteOrder.LITTLE_ENDIAN);
+			if (fixed.getInt() != SampleExporter.MAGIC || fixed.getInt() != SampleExporter.VERSION) {
+				throw new IllegalArgumentException("Keine Datei von SampleExporter: " + file);
+			}
+			int curves = fixed.getInt();
+			int dataOffset = fixed.getInt();
+			long samples = fixed.getLong();
+			double xMin = fixed.getDouble();
+			double step = fixed.getDouble();
+			if (curves < 1 || dataOffset < SampleExporter.FIXED_HEADER || samples < 0
+					|| size != dataOffset + (curves + 1) * 8 * samples) {
+				throw new IllegalArgumentException("Beschaedigter Kopf: " + file);
+			}
+
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, dataOffset);
+			header.order(ByteOrder.LITTLE_ENDIAN).position(SampleExporter.FIXED_HEADER);
+			List<String> formulas = new ArrayList<>(curves);
+			for (int c = 0; c < curves; c++) {
+				byte[] name = new byte[header.getInt()];
+				header.get(name);
+				formulas.add(new String(name, StandardCharsets.UTF_8));
+			}
+			return new SampleFile(channel, Collections.unmodifiableList(formulas), samples, xMin, step,
+					dataOffset);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * getFormulas gibt die Formeln in der Reihenfolge ihrer Spalten zurück.
+	 *
+	 * @return Formeln.
+	 */
+	public List<String> getFormulas() {
+		return this.formulas;
+	}
+
+	/**
+	 * getSampleCount gibt die Anzahl der Stellen zurück.
+	 *
+	 * @return Anzahl der Werte pro Spalte.
+	 */
+	public long getSampleCount() {
+		return this.samples;
+	}
+
+	/**
+	 * getXMin gibt die erste Stelle zurück.
+	 *
+	 * @return xMin.
+	 */
+	public double getXMin() {
+		return this.xMin;
+	}
+
+	/**
+	 * getStep gibt den Abstand zwischen zwei Stellen zurück.
+	 *
+	 * @return step.
+	 */
+	public double getStep() {
+		return this.step;
+	}
+
+	/**
+	 * getXs blendet alle x-Werte ein.
+	 *
+	 * @return x-Werte.
+	 * @throws IllegalStateException wenn die Spalte für einen DoubleBuffer zu
+	 *                               lang ist.
+	 * @throws IOException           wenn die Datei nicht gelesen werden kann.
+	 */
+	public DoubleBuffer getXs() throws IOException {
+		return getXs(0, whole());
+	}
+
+	/**
+	 * getXs blendet die x-Werte from bis from + length - 1 ein.
+	 *
+	 * @param from   Index der ersten Stelle.
+	 * @param length Anzahl der Stellen.
+	 * @return x-Werte.
+	 * @throws IndexOutOfBoundsException wenn der Abschnitt nicht in der Spalte
+	 *                                   liegt.
+	 * @throws IOException               wenn die Datei nicht gelesen werden
+	 *                                   kann.
+	 */
+	public DoubleBuffer getXs(long from, int length) throws IOException {
+		return column(0, from, length);
+	}
+
+	/**
+	 * getYs blendet alle Funktionswerte der Formel curve ein.
+	 *
+	 * @param curve Index der Formel in getFormulas().
+	 * @return Funktionswerte.
+	 * @throws IllegalStateException wenn die Spalte für einen DoubleBuffer zu
+	 *                               lang ist.
+	 * @throws IOException           wenn die Datei nicht gelesen werden kann.
+	 */
+	public DoubleBuffer getYs(int curve) throws IOException {
+		return getYs(curve, 0, whole());
+	}
+
+	/**
+	 * getYs blendet die Funktionswerte der Formel curve an den Stellen from bis
+	 * from + length - 1 ein.
+	 *
+	 * @param curve  Index der Formel in getFormulas().
+	 * @param from   Index der ersten Stelle.
+	 * @param length Anzahl der Stellen.
+	 * @return Funktionswerte.
+	 * @throws IndexOutOfBoundsException wenn curve oder der Abschnitt ungültig
+	 *                                   ist.
+	 * @throws IOException               wenn die Datei nicht gelesen werden
+	 *                                   kann.
+	 */
+	public DoubleBuffer getYs(int curve, long from, int length) throws IOException {
+		if (curve < 0 || curve >= this.formulas.size()) {
+			throw new IndexOutOfBoundsException("Keine Formel mit Index " + curve);
+		}
+		return column(curve + 1, from, length);
+	}
+
+	/**
+	 * close schließt die Datei. Bereits zurückgegebene DoubleBuffer bleiben
+	 * gültig, bis sie nicht mehr erreichbar sind.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	private int whole() {
+		if (this.samples > MAX_VIEW) {
+			throw new IllegalStateException("Spalte zu lang fuer einen DoubleBuffer, abschnittsweise lesen");
+		}
+		return (int) this.samples;
+	}
+
+	private DoubleBuffer column(int column, long from, int length) throws IOException {
+		if (from < 0 || length < 0 || length > MAX_VIEW || from > this.samples - length) {
+			throw new IndexOutOfBoundsException("Abschnitt " + from + " + " + length + " ausserhalb der Spalte");
+		}
+		long position = this.dataOffset + 8 * (column * this.samples + from);
+		MappedByteBuffer buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * length);
+		return buffer.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+	}
+}
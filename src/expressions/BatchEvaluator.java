@@ -0,0 +1,23 @@
+package expressions;
+
+/**
+ * BatchEvaluator beschreibt ein alternatives Verfahren, um eine Expression
+ * spaltenweise für viele x-Werte auszuwerten, z. B. mit SIMD-Befehlen.
+ *
+ * @see VectorBackend
+ */
+public interface BatchEvaluator {
+
+	/**
+	 * evalBatch wertet e für die x-Werte in[inOffset] bis in[inOffset + len - 1]
+	 * aus und schreibt die Ergebnisse ab out[outOffset].
+	 *
+	 * @param e         Auszuwertender Ausdruck.
+	 * @param in        x-Werte.
+	 * @param inOffset  Index des ersten x-Wertes in in.
+	 * @param out       Array für die Ergebnisse.
+	 * @param outOffset Index, an den das erste Ergebnis geschrieben wird.
+	 * @param len       Anzahl der auszuwertenden x-Werte.
+	 */
+	void evalBatch(Expression e, double[] in, int inOffset, double[] out, int outOffset, int len);
+}
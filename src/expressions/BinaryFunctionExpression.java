@@ -0,0 +1,220 @@
+package expressions;
+
+/**
+ * BinaryFunctionExpression stellt eine eingebaute Funktion mit zwei Argumenten
+ * dar, also max(left, right), min(left, right), atan2(left, right) oder
+ * hypot(left, right). Die Werte werden wie von den gleichnamigen Methoden aus
+ * Math berechnet; atan2(y, x) erwartet wie Math.atan2 zuerst y.
+ */
+public class BinaryFunctionExpression extends Expression {
+	private final BuiltinFunction function;
+	private final Expression left;
+	private final Expression right;
+	private int hash;
+
+	/**
+	 * Erstellt eine BinaryFunctionExpression.
+	 *
+	 * @param function Eingebaute Funktion mit zwei Argumenten.
+	 * @param left     Erstes Argument.
+	 * @param right    Zweites Argument.
+	 * @throws IllegalArgumentException wenn function nur ein Argument erwartet.
+	 */
+	public BinaryFunctionExpression(BuiltinFunction function, Expression left, Expression right) {
+		if (function.getArity() != 2) {
+			throw new IllegalArgumentException(function.getName() + " erwartet ein Argument");
+		}
+		this.function = function;
+		this.left = left;
+		this.right = right;
+	}
+
+	/**
+	 * eval wertet beide Argumente aus und setzt sie in die Funktion ein.
+	 */
+	@Override
+	public double eval(double x) {
+		return this.function.apply(this.left.eval(x), this.right.eval(x));
+	}
+
+	/**
+	 * eval wertet beide Argumente mit x und y aus und setzt sie in die Funktion
+	 * ein.
+	 */
+	@Override
+	public double eval(double x, double y) {
+		return this.function.apply(this.left.eval(x, y), this.right.eval(x, y));
+	}
+
+	/**
+	 * evalBatch wertet zuerst right in ein Hilfsarray und dann left in out aus
+	 * und verknüpft beide Spalten anschließend in einer Schleife.
+	 */
+	@Override
+	public void evalBatch(double[] in, int inOffset, double[] out, int outOffset, int len) {
+		double[] r = ScratchPool.take(len);
+		try {
+			this.right.evalBatch(in, inOffset, r, 0, len);
+			this.left.evalBatch(in, inOffset, out, outOffset, len);
+			switch (this.function) {
+			case MAX:
+				for (int i = 0; i < len; i++) {
+					out[outOffset + i] = Math.max(out[outOffset + i], r[i]);
+				}
+				break;
+			case MIN:
+				for (int i = 0; i < len; i++) {
+					out[outOffset + i] = Math.min(out[outOffset + i], r[i]);
+				}
+				break;
+			case ATAN2:
+				for (int i = 0; i < len; i++) {
+					out[outOffset + i] = Math.atan2(out[outOffset + i], r[i]);
+				}
+				break;
+			case HYPOT:
+				for (int i = 0; i < len; i++) {
+					out[outOffset + i] = Math.hypot(out[outOffset + i], r[i]);
+				}
+				break;
+			default:
+				throw new IllegalStateException("Unkown function " + this.function);
+			}
+		} finally {
+			ScratchPool.release(r);
+		}
+	}
+
+	/**
+	 * evalInterval verknüpft die Intervalle von left und right mit der
+	 * Intervall-Version der Funktion.
+	 */
+	@Override
+	public Interval evalInterval(Interval x) {
+		return combine(this.left.evalInterval(x), this.right.evalInterval(x));
+	}
+
+	/**
+	 * evalInterval verknüpft die Intervalle von left und right für x und y.
+	 */
+	@Override
+	public Interval evalInterval(Interval x, Interval y) {
+		return combine(this.left.evalInterval(x, y), this.right.evalInterval(x, y));
+	}
+
+	private Interval combine(Interval left, Interval right) {
+		switch (this.function) {
+		case MAX:
+			return left.max(right);
+		case MIN:
+			return left.min(right);
+		case ATAN2:
+			return left.atan2(right);
+		case HYPOT:
+			return left.hypot(right);
+		default:
+			throw new IllegalStateException("Unkown function " + this.function);
+		}
+	}
+
+	/**
+	 * evalDual berechnet Wert und Ableitung beider Argumente. max und min
+	 * übernehmen die Ableitung des gewählten Arguments, für atan2(a, b) gilt
+	 * (b a' - a b') / (a^2 + b^2) und für hypot(a, b) gilt (a a' + b b') /
+	 * hypot(a, b).
+	 */
+	@Override
+	public void evalDual(double x, Dual result) {
+		this.left.evalDual(x, result);
+		double a = result.value;
+		double da = result.derivative;
+		this.right.evalDual(x, result);
+		double b = result.value;
+		double db = result.derivative;
+		switch (this.function) {
+		case MAX:
+			result.set(Math.max(a, b), a >= b ? da : db);
+			break;
+		case MIN:
+			result.set(Math.min(a, b), a <= b ? da : db);
+			break;
+		case ATAN2:
+			result.set(Math.atan2(a, b), (b * da - a * db) / (a * a + b * b));
+			break;
+		case HYPOT: {
+			double h = Math.hypot(a, b);
+			result.set(h, (a * da + b * db) / h);
+			break;
+		}
+		default:
+			throw new IllegalStateException("Unkown function " + this.function);
+		}
+	}
+
+	/**
+	 * getFunction gibt die dargestellte Funktion zurück.
+	 *
+	 * @return Eingebaute Funktion mit zwei Argumenten.
+	 */
+	public BuiltinFunction getFunction() {
+		return this.function;
+	}
+
+	/**
+	 * getName gibt den Namen der dargestellten Funktion zurück.
+	 *
+	 * @return Name der Funktion, z. B. max.
+	 */
+	public String getName() {
+		return this.function.getName();
+	}
+
+	/**
+	 * getLeft gibt das erste Argument zurück.
+	 *
+	 * @return Erstes Argument.
+	 */
+	public Expression getLeft() {
+		return this.left;
+	}
+
+	/**
+	 * getRight gibt das zweite Argument zurück.
+	 *
+	 * @return Zweites Argument.
+	 */
+	public Expression getRight() {
+		return this.right;
+	}
+
+	/**
+	 * equals vergleicht zwei BinaryFunctionExpressions strukturell, d. h.
+	 * Funktion und beide Argumente müssen gleich sein.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof BinaryFunctionExpression)) {
+			return false;
+		}
+		BinaryFunctionExpression other = (BinaryFunctionExpression) o;
+		return this.hashCode() == other.hashCode() && this.function == other.function
+				&& this.left.equals(other.left) && this.right.equals(other.right);
+	}
+
+	/**
+	 * hashCode wird aus Funktionsname und beiden Argumenten berechnet und beim
+	 * ersten Aufruf gespeichert.
+	 */
+	@Override
+	public int hashCode() {
+		int h = this.hash;
+		if (h == 0) {
+			h = 31 * (31 * this.function.getName().hashCode() + this.left.hashCode()) + this.right.hashCode();
+			this.hash = h;
+		}
+		return h;
+	}
+}
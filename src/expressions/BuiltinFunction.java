@@ -0,0 +1,157 @@
+package expressions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * BuiltinFunction zählt die eingebauten Funktionen auf. Der Name wird beim
+ * Lesen eines Ausdrucks einmal mit of() aufgelöst; die Knoten im Syntaxbaum
+ * speichern danach nur noch die Konstante, so dass bei der Auswertung kein
+ * Vergleich von Strings mehr stattfindet.
+ *
+ * Zu jeder Funktion gehört die Zahl ihrer Argumente und der Befehl, mit dem
+ * CompiledExpression und FusedEvaluator sie berechnen. max und min dürfen im
+ * Ausdruck auch mit mehr als zwei Argumenten aufgerufen werden, siehe
+ * parser.FunctionRegistry.
+ */
+public enum BuiltinFunction {
+	SIN("sin", 1, CompiledExpression.SIN),
+	COS("cos", 1, CompiledExpression.COS),
+	TAN("tan", 1, CompiledExpression.TAN),
+	LOG("log", 1, CompiledExpression.LOG),
+	SQRT("sqrt", 1, CompiledExpression.SQRT),
+	ASIN("asin", 1, CompiledExpression.ASIN),
+	ACOS("acos", 1, CompiledExpression.ACOS),
+	ATAN("atan", 1, CompiledExpression.ATAN),
+	ABS("abs", 1, CompiledExpression.ABS),
+	EXP("exp", 1, CompiledExpression.EXP),
+	MINUS("minus", 1, CompiledExpression.NEG),
+	MAX("max", 2, CompiledExpression.MAX),
+	MIN("min", 2, CompiledExpression.MIN),
+	ATAN2("atan2", 2, CompiledExpression.ATAN2),
+	HYPOT("hypot", 2, CompiledExpression.HYPOT);
+
+	private static final Map<String, BuiltinFunction> BY_NAME = new HashMap<>();
+
+	static {
+		for (BuiltinFunction f : values()) {
+			BY_NAME.put(f.name, f);
+		}
+	}
+
+	private final String name;
+	private final int arity;
+	final int opcode;
+
+	private BuiltinFunction(String name, int arity, int opcode) {
+		this.name = name;
+		this.arity = arity;
+		this.opcode = opcode;
+	}
+
+	/**
+	 * of gibt die eingebaute Funktion mit dem Namen name zurück.
+	 *
+	 * @param name Kleingeschriebener Funktionsname, z. B. sin.
+	 * @return Funktion oder null, wenn es keine eingebaute Funktion mit diesem
+	 *         Namen gibt.
+	 */
+	public static BuiltinFunction of(String name) {
+		return BY_NAME.get(name);
+	}
+
+	/**
+	 * getName gibt den Namen zurück, unter dem die Funktion in Ausdrücken
+	 * geschrieben wird.
+	 *
+	 * @return Funktionsname.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * getArity gibt die Anzahl der Argumente eines Knotens dieser Funktion
+	 * zurück.
+	 *
+	 * @return 1 oder 2.
+	 */
+	public int getArity() {
+		return this.arity;
+	}
+
+	/**
+	 * isVariadic gibt an, ob die Funktion im Ausdruck mit beliebig vielen (aber
+	 * mindestens zwei) Argumenten geschrieben werden darf. max(a, b, c) wird zu
+	 * max(max(a, b), c).
+	 *
+	 * @return true für max und min.
+	 */
+	public boolean isVariadic() {
+		return this == MAX || this == MIN;
+	}
+
+	/**
+	 * apply berechnet die Funktion für ein Argument.
+	 *
+	 * @param u Argument.
+	 * @return Funktionswert.
+	 * @throws IllegalStateException wenn die Funktion zwei Argumente hat.
+	 */
+	public double apply(double u) {
+		switch (this) {
+		case SIN:
+			return Math.sin(u);
+		case COS:
+			return Math.cos(u);
+		case TAN:
+			return Math.tan(u);
+		case LOG:
+			return Math.log(u);
+		case SQRT:
+			return Math.sqrt(u);
+		case ASIN:
+			return Math.asin(u);
+		case ACOS:
+			return Math.acos(u);
+		case ATAN:
+			return Math.atan(u);
+		case ABS:
+			return Math.abs(u);
+		case EXP:
+			return Math.exp(u);
+		case MINUS:
+			return -u;
+		default:
+			throw new IllegalStateException(this.name + " erwartet zwei Argumente");
+		}
+	}
+
+	/**
+	 * apply berechnet die Funktion für zwei Argumente.
+	 *
+	 * @param a Erstes Argument.
+	 * @param b Zweites Argument.
+	 * @return Funktionswert.
+	 * @throws IllegalStateException wenn die Funktion ein Argument hat.
+	 */
+	public double apply(double a, double b) {
+		switch (this) {
+		case MAX:
+			return Math.max(a, b);
+		case MIN:
+			return Math.min(a, b);
+		case ATAN2:
+			return Math.atan2(a, b);
+		case HYPOT:
+			return Math.hypot(a, b);
+		default:
+			throw new IllegalStateException(this.name + " erwartet ein Argument");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.name;
+	}
+}
@@ -0,0 +1,333 @@
+package expressions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * BytecodeCompiler übersetzt einen Syntaxbaum zur Laufzeit in eine echte
+ * JVM-Klasse, die DoubleUnaryOperator implementiert. Der Ausdruck wird dabei
+ * direkt als Bytecode der Methode applyAsDouble geschrieben, so dass der
+ * JIT-Compiler Aufrufe wie Math.sin oder Math.pow in die aufrufende Schleife
+ * inlinen kann.
+ *
+ * Die Klassen werden mit Lookup.defineHiddenClass als versteckte Klassen
+ * definiert. Sie sind nur über das zurückgegebene Objekt erreichbar und werden
+ * vom Garbage Collector zusammen mit ihm entladen, so dass auch viele
+ * übersetzte Formeln keinen Metaspace dauerhaft belegen.
+ *
+ * Mehrfach referenzierte Knoten (siehe ExpressionInterner) werden wie bei
+ * CompiledExpression nur einmal berechnet und in lokalen Variablen gehalten.
+ *
+ * Schlägt die Erzeugung fehl (z. B. weil die Methode für die JVM zu groß wird
+ * oder der Baum so tief ist, dass beim Übersetzen der Stack überläuft), wird
+ * ein DoubleUnaryOperator zurückgegeben, der den Syntaxbaum auswertet.
+ */
+public final class BytecodeCompiler {
+	private static final String CLASS_NAME = "expressions/GeneratedExpression";
+	private static final int MAX_CODE_LENGTH = 65535;
+
+	private static final int DCONST_0 = 0x0e;
+	private static final int DCONST_1 = 0x0f;
+	private static final int LDC2_W = 0x14;
+	private static final int DLOAD = 0x18;
+	private static final int DLOAD_1 = 0x27;
+	private static final int DSTORE = 0x39;
+	private static final int DUP2 = 0x5c;
+	private static final int ALOAD_0 = 0x2a;
+	private static final int DADD = 0x63;
+	private static final int DSUB = 0x67;
+	private static final int DMUL = 0x6b;
+	private static final int DDIV = 0x6f;
+	private static final int DNEG = 0x77;
+	private static final int DRETURN = 0xaf;
+	private static final int RETURN = 0xb1;
+	private static final int INVOKESPECIAL = 0xb7;
+	private static final int INVOKESTATIC = 0xb8;
+
+	private BytecodeCompiler() {
+	}
+
+	/**
+	 * compile übersetzt den Ausdruck e in eine versteckte Klasse und gibt eine
+	 * Instanz davon zurück. Die Ergebnisse sind exakt dieselben wie bei e.eval().
+	 *
+	 * @param e Zu übersetzender Ausdruck.
+	 * @return Auswerter für e. Falls keine Klasse erzeugt werden konnte, wertet
+	 *         der zurückgegebene Operator den Syntaxbaum aus.
+	 */
+	public static DoubleUnaryOperator compile(Expression e) {
+		if (e instanceof CompiledExpression) {
+			e = ((CompiledExpression) e).getSource();
+		}
+		try {
+			byte[] classFile = new ClassWriter().write(e);
+			MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+			return (DoubleUnaryOperator) lookup
+					.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+		} catch (Throwable t) {
+			if (t instanceof VirtualMachineError
+					&& !(t instanceof OutOfMemoryError || t instanceof StackOverflowError)) {
+				throw (VirtualMachineError) t;
+			}
+			final Expression tree = e;
+			return x -> tree.eval(x);
+		}
+	}
+
+	/**
+	 * ClassWriter erzeugt die Bytes einer Klassendatei mit einem Konstruktor und
+	 * der Methode applyAsDouble(double).
+	 */
+	private static final class ClassWriter {
+		private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+		private final DataOutputStream poolOut = new DataOutputStream(pool);
+		private final Map<Object, Integer> poolIndex = new HashMap<>();
+		private int poolCount = 1;
+
+		private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+		private int depth;
+		private int maxDepth;
+
+		private final Map<Expression, Integer> references = new IdentityHashMap<>();
+		private final Map<Expression, Integer> locals = new IdentityHashMap<>();
+		private int nextLocal = 3; // 0: this, 1-2: x
+
+		private byte[] write(Expression e) throws IOException {
+			int thisClass = classRef(CLASS_NAME);
+			int superClass = classRef("java/lang/Object");
+			int iface = classRef("java/util/function/DoubleUnaryOperator");
+			int codeName = utf8("Code");
+
+			// Konstruktor: super();
+			int objectInit = methodRef("java/lang/Object", "<init>", "()V");
+			byte[] initCode = { (byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectInit >> 8), (byte) objectInit,
+					(byte) RETURN };
+
+			countReferences(e);
+			emit(e);
+			code.write(DRETURN);
+			if (code.size() > MAX_CODE_LENGTH) {
+				throw new IllegalArgumentException("Ausdruck ist zu gross fuer eine Methode");
+			}
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			int initName = utf8("<init>");
+			int initDesc = utf8("()V");
+			int applyName = utf8("applyAsDouble");
+			int applyDesc = utf8("(D)D");
+			if (poolCount > 0xffff) {
+				throw new IllegalArgumentException("Zu viele Konstanten");
+			}
+
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(61); // Java 17
+			out.writeShort(poolCount);
+			pool.writeTo(out);
+			out.writeShort(0x0001 | 0x0010 | 0x0020); // public final super
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(1);
+			out.writeShort(iface);
+			out.writeShort(0); // keine Felder
+			out.writeShort(2);
+			writeMethod(out, initName, initDesc, codeName, 1, 1, initCode);
+			writeMethod(out, applyName, applyDesc, codeName, 2 * maxDepth + 2, nextLocal, code.toByteArray());
+			out.writeShort(0); // keine Attribute
+			return bytes.toByteArray();
+		}
+
+		private void writeMethod(DataOutputStream out, int name, int desc, int codeName, int maxStack,
+				int maxLocals, byte[] body) throws IOException {
+			out.writeShort(0x0001); // public
+			out.writeShort(name);
+			out.writeShort(desc);
+			out.writeShort(1);
+			out.writeShort(codeName);
+			out.writeInt(12 + body.length);
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(body.length);
+			out.write(body);
+			out.writeShort(0); // keine Exception-Tabelle
+			out.writeShort(0); // keine Attribute
+		}
+
+		private void countReferences(Expression e) {
+			if (!(e instanceof OperatorExpression || e instanceof UnaryFunctionExpression
+					|| e instanceof BinaryFunctionExpression)) {
+				return;
+			}
+			if (this.references.merge(e, 1, Integer::sum) > 1) {
+				return;
+			}
+			if (e instanceof OperatorExpression) {
+				countReferences(((OperatorExpression) e).getLeft());
+				countReferences(((OperatorExpression) e).getRight());
+			} else if (e instanceof BinaryFunctionExpression) {
+				countReferences(((BinaryFunctionExpression) e).getLeft());
+				countReferences(((BinaryFunctionExpression) e).getRight());
+			} else {
+				countReferences(((UnaryFunctionExpression) e).getArgument());
+			}
+		}
+
+		private void emit(Expression e) throws IOException {
+			Integer local = this.locals.get(e);
+			if (local != null) {
+				code.write(DLOAD);
+				code.write(local);
+				push();
+				return;
+			}
+			emitNode(e);
+			if (this.references.getOrDefault(e, 0) > 1 && this.nextLocal <= 254) {
+				local = this.nextLocal;
+				this.nextLocal += 2;
+				this.locals.put(e, local);
+				code.write(DUP2);
+				code.write(DSTORE);
+				code.write(local);
+			}
+		}
+
+		private void emitNode(Expression e) throws IOException {
+			if (e instanceof NumberExpression) {
+				double number = ((NumberExpression) e).getNumber();
+				long bits = Double.doubleToRawLongBits(number);
+				if (bits == Double.doubleToRawLongBits(0.0)) {
+					code.write(DCONST_0);
+				} else if (bits == Double.doubleToRawLongBits(1.0)) {
+					code.write(DCONST_1);
+				} else {
+					writeOp(LDC2_W, doubleConst(bits));
+				}
+				push();
+			} else if (e instanceof XExpression) {
+				code.write(DLOAD_1);
+				push();
+			} else if (e instanceof YExpression) {
+				// applyAsDouble kennt nur x, y ist wie bei eval(x) NaN
+				writeOp(LDC2_W, doubleConst(Double.doubleToRawLongBits(Double.NaN)));
+				push();
+			} else if (e instanceof OperatorExpression) {
+				OperatorExpression o = (OperatorExpression) e;
+				emit(o.getLeft());
+				emit(o.getRight());
+				switch (o.getOp().getType()) {
+				case PLUS:
+					code.write(DADD);
+					break;
+				case MINUS:
+					code.write(DSUB);
+					break;
+				case TIMES:
+					code.write(DMUL);
+					break;
+				case DIVIDE:
+					code.write(DDIV);
+					break;
+				case POWER:
+					writeOp(INVOKESTATIC, methodRef("java/lang/Math", "pow", "(DD)D"));
+					break;
+				default:
+					throw new IllegalStateException("OperatorExpression with unkown opertor");
+				}
+				depth--;
+			} else if (e instanceof UnaryFunctionExpression) {
+				UnaryFunctionExpression f = (UnaryFunctionExpression) e;
+				emit(f.getArgument());
+				if (CompiledExpression.opcode(f) == CompiledExpression.NEG) {
+					code.write(DNEG);
+				} else {
+					writeOp(INVOKESTATIC, methodRef("java/lang/Math", f.getName(), "(D)D"));
+				}
+			} else if (e instanceof BinaryFunctionExpression) {
+				// max, min, atan2 und hypot heißen in Math genauso
+				BinaryFunctionExpression f = (BinaryFunctionExpression) e;
+				emit(f.getLeft());
+				emit(f.getRight());
+				writeOp(INVOKESTATIC, methodRef("java/lang/Math", f.getName(), "(DD)D"));
+				depth--;
+			} else {
+				throw new IllegalArgumentException("Nicht uebersetzbare Expression " + e.getClass().getName());
+			}
+		}
+
+		private void writeOp(int opcode, int index) {
+			code.write(opcode);
+			code.write(index >> 8);
+			code.write(index);
+		}
+
+		private void push() {
+			depth++;
+			maxDepth = Math.max(maxDepth, depth);
+		}
+
+		private int utf8(String s) throws IOException {
+			Integer index = poolIndex.get(s);
+			if (index == null) {
+				poolOut.writeByte(1);
+				poolOut.writeUTF(s);
+				index = poolCount++;
+				poolIndex.put(s, index);
+			}
+			return index;
+		}
+
+		private int classRef(String name) throws IOException {
+			String key = "class " + name;
+			Integer index = poolIndex.get(key);
+			if (index == null) {
+				int nameIndex = utf8(name);
+				poolOut.writeByte(7);
+				poolOut.writeShort(nameIndex);
+				index = poolCount++;
+				poolIndex.put(key, index);
+			}
+			return index;
+		}
+
+		private int methodRef(String owner, String name, String desc) throws IOException {
+			String key = "method " + owner + "." + name + desc;
+			Integer index = poolIndex.get(key);
+			if (index == null) {
+				int classIndex = classRef(owner);
+				int nameIndex = utf8(name);
+				int descIndex = utf8(desc);
+				poolOut.writeByte(12);
+				poolOut.writeShort(nameIndex);
+				poolOut.writeShort(descIndex);
+				int nameAndType = poolCount++;
+				poolOut.writeByte(10);
+				poolOut.writeShort(classIndex);
+				poolOut.writeShort(nameAndType);
+				index = poolCount++;
+				poolIndex.put(key, index);
+			}
+			return index;
+		}
+
+		private int doubleConst(long bits) throws IOException {
+			Long key = bits;
+			Integer index = poolIndex.get(key);
+			if (index == null) {
+				poolOut.writeByte(6);
+				poolOut.writeLong(bits);
+				index = poolCount;
+				poolCount += 2; // double belegt zwei Eintraege
+				poolIndex.put(key, index);
+			}
+			return index;
+		}
+	}
+}
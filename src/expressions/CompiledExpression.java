@@ -0,0 +1,408 @@
+package expressions;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * CompiledExpression stellt einen Syntaxbaum als flaches Programm dar. Statt
+ * die eval()-Methoden der Knoten rekursiv aufzurufen, wird der Baum einmalig in
+ * ein Array von Befehlen (int[]) und ein Array von Konstanten (double[])
+ * übersetzt. Dieses Programm wird dann von einer einfachen Stackmaschine in
+ * einer Schleife abgearbeitet.
+ *
+ * Die Befehle werden in derselben Reihenfolge und mit denselben
+ * Rechenoperationen ausgeführt wie im Baum, die Ergebnisse sind also exakt
+ * gleich.
+ *
+ * Kommt derselbe Knoten (dasselbe Objekt) mehrfach im Baum vor, etwa nach
+ * ExpressionInterner.intern(), wird er nur beim ersten Mal berechnet und sein
+ * Wert in einem Slot gespeichert. Weitere Vorkommen laden den Wert aus dem
+ * Slot.
+ *
+ * Eine CompiledExpression benutzt für eval(x) einen eigenen Stack und ist daher
+ * nicht threadsicher. Für parallele Auswertungen sollte jeder Thread eine
+ * eigene Instanz über compile() erzeugen oder evalBatch() benutzen, das seinen
+ * Stack aus dem ScratchPool des aktuellen Threads holt.
+ */
+public final class CompiledExpression extends Expression {
+	static final int CONST = 0;
+	static final int X = 1;
+	static final int ADD = 2;
+	static final int SUB = 3;
+	static final int MUL = 4;
+	static final int DIV = 5;
+	static final int POW = 6;
+	static final int SIN = 7;
+	static final int COS = 8;
+	static final int TAN = 9;
+	static final int LOG = 10;
+	static final int SQRT = 11;
+	static final int ASIN = 12;
+	static final int ACOS = 13;
+	static final int ATAN = 14;
+	static final int ABS = 15;
+	static final int EXP = 16;
+	static final int NEG = 17;
+	static final int STORE = 18;
+	static final int LOAD = 19;
+	static final int Y = 20;
+	static final int MAX = 21;
+	static final int MIN = 22;
+	static final int ATAN2 = 23;
+	static final int HYPOT = 24;
+
+	private final Expression source;
+	private final int[] code;
+	private final double[] constants;
+	private final double[] stack;
+	private final double[] slots;
+
+	private CompiledExpression(Expression source, int[] code, double[] constants, int maxStack, int slotCount) {
+		this.source = source;
+		this.code = code;
+		this.constants = constants;
+		this.stack = new double[maxStack];
+		this.slots = new double[slotCount];
+	}
+
+	/**
+	 * compile übersetzt den Syntaxbaum e in ein flaches Programm.
+	 *
+	 * @param e Zu übersetzender Syntaxbaum.
+	 * @return Übersetzter Ausdruck.
+	 * @throws IllegalArgumentException wird geworfen, wenn der Baum eine
+	 *                                  unbekannte Funktion enthält.
+	 */
+	public static CompiledExpression compile(Expression e) {
+		if (e instanceof CompiledExpression) {
+			e = ((CompiledExpression) e).source;
+		}
+		Emitter emitter = new Emitter(e);
+		emitter.emit(e);
+		return new CompiledExpression(e, Arrays.copyOf(emitter.code, emitter.codeLength),
+				Arrays.copyOf(emitter.constants, emitter.constantCount), emitter.maxDepth, emitter.slotCount);
+	}
+
+	/**
+	 * compile gibt eine neue Instanz mit eigenem Stack zurück, die dasselbe
+	 * Programm ausführt.
+	 *
+	 * @return Neue CompiledExpression.
+	 */
+	@Override
+	public CompiledExpression compile() {
+		return new CompiledExpression(this.source, this.code, this.constants, this.stack.length, this.slots.length);
+	}
+
+	/**
+	 * eval führt das übersetzte Programm für den übergebenen Wert x aus.
+	 *
+	 * @param x Der für x einzusetzende Wert.
+	 * @return Ergebnis des Ausdrucks.
+	 */
+	@Override
+	public double eval(double x) {
+		return run(x, Double.NaN, this.stack, this.slots);
+	}
+
+	/**
+	 * eval führt das übersetzte Programm für die Werte x und y aus.
+	 *
+	 * @param x Der für x einzusetzende Wert.
+	 * @param y Der für y einzusetzende Wert.
+	 * @return Ergebnis des Ausdrucks.
+	 */
+	@Override
+	public double eval(double x, double y) {
+		return run(x, y, this.stack, this.slots);
+	}
+
+	/**
+	 * evalBatch führt das Programm nacheinander für alle x-Werte aus.
+	 */
+	@Override
+	public void evalBatch(double[] in, int inOffset, double[] out, int outOffset, int len) {
+		double[] s = ScratchPool.take(this.stack.length);
+		double[] slots = ScratchPool.take(this.slots.length);
+		try {
+			for (int i = 0; i < len; i++) {
+				out[outOffset + i] = run(in[inOffset + i], Double.NaN, s, slots);
+			}
+		} finally {
+			ScratchPool.release(slots);
+			ScratchPool.release(s);
+		}
+	}
+
+	/**
+	 * evalInterval wertet den ursprünglichen Syntaxbaum mit Intervallen aus.
+	 */
+	@Override
+	public Interval evalInterval(Interval x) {
+		return this.source.evalInterval(x);
+	}
+
+	/**
+	 * evalInterval wertet den ursprünglichen Syntaxbaum mit Intervallen für x und
+	 * y aus.
+	 */
+	@Override
+	public Interval evalInterval(Interval x, Interval y) {
+		return this.source.evalInterval(x, y);
+	}
+
+	/**
+	 * evalDual wertet den ursprünglichen Syntaxbaum mit dualen Zahlen aus.
+	 */
+	@Override
+	public void evalDual(double x, Dual result) {
+		this.source.evalDual(x, result);
+	}
+
+	private double run(double x, double y, double[] s, double[] slots) {
+		final int[] code = this.code;
+		final double[] constants = this.constants;
+		int sp = -1;
+		for (int pc = 0; pc < code.length; pc++) {
+			switch (code[pc]) {
+			case CONST:
+				s[++sp] = constants[code[++pc]];
+				break;
+			case X:
+				s[++sp] = x;
+				break;
+			case Y:
+				s[++sp] = y;
+				break;
+			case ADD:
+				s[sp - 1] = s[sp - 1] + s[sp];
+				sp--;
+				break;
+			case SUB:
+				s[sp - 1] = s[sp - 1] - s[sp];
+				sp--;
+				break;
+			case MUL:
+				s[sp - 1] = s[sp - 1] * s[sp];
+				sp--;
+				break;
+			case DIV:
+				s[sp - 1] = s[sp - 1] / s[sp];
+				sp--;
+				break;
+			case POW:
+				s[sp - 1] = Math.pow(s[sp - 1], s[sp]);
+				sp--;
+				break;
+			case MAX:
+				s[sp - 1] = Math.max(s[sp - 1], s[sp]);
+				sp--;
+				break;
+			case MIN:
+				s[sp - 1] = Math.min(s[sp - 1], s[sp]);
+				sp--;
+				break;
+			case ATAN2:
+				s[sp - 1] = Math.atan2(s[sp - 1], s[sp]);
+				sp--;
+				break;
+			case HYPOT:
+				s[sp - 1] = Math.hypot(s[sp - 1], s[sp]);
+				sp--;
+				break;
+			case SIN:
+				s[sp] = Math.sin(s[sp]);
+				break;
+			case COS:
+				s[sp] = Math.cos(s[sp]);
+				break;
+			case TAN:
+				s[sp] = Math.tan(s[sp]);
+				break;
+			case LOG:
+				s[sp] = Math.log(s[sp]);
+				break;
+			case SQRT:
+				s[sp] = Math.sqrt(s[sp]);
+				break;
+			case ASIN:
+				s[sp] = Math.asin(s[sp]);
+				break;
+			case ACOS:
+				s[sp] = Math.acos(s[sp]);
+				break;
+			case ATAN:
+				s[sp] = Math.atan(s[sp]);
+				break;
+			case ABS:
+				s[sp] = Math.abs(s[sp]);
+				break;
+			case EXP:
+				s[sp] = Math.exp(s[sp]);
+				break;
+			case NEG:
+				s[sp] = -s[sp];
+				break;
+			case STORE:
+				slots[code[++pc]] = s[sp];
+				break;
+			case LOAD:
+				s[++sp] = slots[code[++pc]];
+				break;
+			default:
+				throw new IllegalStateException("Unbekannter Befehl " + code[pc]);
+			}
+		}
+		return s[0];
+	}
+
+	/**
+	 * getSource gibt den Syntaxbaum zurück, aus dem dieses Programm übersetzt
+	 * wurde.
+	 *
+	 * @return Ursprünglicher Syntaxbaum.
+	 */
+	public Expression getSource() {
+		return this.source;
+	}
+
+	/**
+	 * opcode liefert den Befehl zur Funktion eines UnaryFunctionExpression.
+	 *
+	 * @param f Funktionsknoten.
+	 * @return Befehl, der die Funktion berechnet.
+	 * @throws IllegalArgumentException wird bei unbekannten Funktionen geworfen.
+	 */
+	static int opcode(UnaryFunctionExpression f) {
+		if (f.getFunction() == null) {
+			throw new IllegalArgumentException("Unkown function " + f.getName());
+		}
+		return f.getFunction().opcode;
+	}
+
+	/**
+	 * Emitter durchläuft den Syntaxbaum in Postorder und schreibt dabei die
+	 * Befehle in das Programm. Innere Knoten, die mehrfach referenziert werden,
+	 * bekommen einen Slot.
+	 */
+	private static final class Emitter {
+		private int[] code = new int[16];
+		private int codeLength;
+		private double[] constants = new double[4];
+		private int constantCount;
+		private int depth;
+		private int maxDepth = 1;
+		private final Map<Expression, Integer> references = new IdentityHashMap<>();
+		private final Map<Expression, Integer> slots = new IdentityHashMap<>();
+		private int slotCount;
+
+		private Emitter(Expression root) {
+			countReferences(root);
+		}
+
+		private void countReferences(Expression e) {
+			if (!(e instanceof OperatorExpression || e instanceof UnaryFunctionExpression
+					|| e instanceof BinaryFunctionExpression)) {
+				return;
+			}
+			if (this.references.merge(e, 1, Integer::sum) > 1) {
+				return;
+			}
+			if (e instanceof OperatorExpression) {
+				countReferences(((OperatorExpression) e).getLeft());
+				countReferences(((OperatorExpression) e).getRight());
+			} else if (e instanceof BinaryFunctionExpression) {
+				countReferences(((BinaryFunctionExpression) e).getLeft());
+				countReferences(((BinaryFunctionExpression) e).getRight());
+			} else {
+				countReferences(((UnaryFunctionExpression) e).getArgument());
+			}
+		}
+
+		private void emit(Expression e) {
+			Integer slot = this.slots.get(e);
+			if (slot != null) {
+				add(LOAD);
+				add(slot);
+				push();
+				return;
+			}
+			emitNode(e);
+			if (this.references.getOrDefault(e, 0) > 1) {
+				slot = this.slotCount++;
+				this.slots.put(e, slot);
+				add(STORE);
+				add(slot);
+			}
+		}
+
+		private void emitNode(Expression e) {
+			if (e instanceof NumberExpression) {
+				if (constantCount == constants.length) {
+					constants = Arrays.copyOf(constants, constantCount * 2);
+				}
+				constants[constantCount] = ((NumberExpression) e).getNumber();
+				add(CONST);
+				add(constantCount++);
+				push();
+			} else if (e instanceof XExpression) {
+				add(X);
+				push();
+			} else if (e instanceof YExpression) {
+				add(Y);
+				push();
+			} else if (e instanceof OperatorExpression) {
+				OperatorExpression o = (OperatorExpression) e;
+				emit(o.getLeft());
+				emit(o.getRight());
+				switch (o.getOp().getType()) {
+				case PLUS:
+					add(ADD);
+					break;
+				case MINUS:
+					add(SUB);
+					break;
+				case TIMES:
+					add(MUL);
+					break;
+				case DIVIDE:
+					add(DIV);
+					break;
+				case POWER:
+					add(POW);
+					break;
+				default:
+					throw new IllegalStateException("OperatorExpression with unkown opertor");
+				}
+				depth--;
+			} else if (e instanceof UnaryFunctionExpression) {
+				UnaryFunctionExpression f = (UnaryFunctionExpression) e;
+				emit(f.getArgument());
+				add(opcode(f));
+			} else if (e instanceof BinaryFunctionExpression) {
+				BinaryFunctionExpression f = (BinaryFunctionExpression) e;
+				emit(f.getLeft());
+				emit(f.getRight());
+				add(f.getFunction().opcode);
+				depth--;
+			} else if (e instanceof CompiledExpression) {
+				emit(((CompiledExpression) e).source);
+			} else {
+				throw new IllegalArgumentException("Nicht uebersetzbare Expression " + e.getClass().getName());
+			}
+		}
+
+		private void add(int instruction) {
+			if (codeLength == code.length) {
+				code = Arrays.copyOf(code, codeLength * 2);
+			}
+			code[codeLength++] = instruction;
+		}
+
+		private void push() {
+			depth++;
+			maxDepth = Math.max(maxDepth, depth);
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package expressions;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import tokens.Token;
+import tokens.TokenType;
+
+/**
+ * Derivative bildet die Ableitung eines Syntaxbaumes nach x als neuen
+ * Syntaxbaum. Es gelten die üblichen Regeln (Summen-, Produkt-, Quotienten-,
+ * Potenz- und Kettenregel); abs'(u) wird als u / abs(u) geschrieben und ist
+ * daher bei 0 NaN, wie die Ableitung dort auch nicht existiert. max und min
+ * werden über max(a, b) = (a + b + abs(a - b)) / 2 bzw. min(a, b) = (a + b -
+ * abs(a - b)) / 2 abgeleitet und sind daher bei a = b ebenfalls NaN. y wird
+ * als Konstante behandelt (partielle Ableitung).
+ *
+ * Damit die Ableitung nicht unnötig wächst, wird die Ableitung konstanter
+ * Teilbäume schon beim Aufbau als 0 erkannt und weggelassen: aus 3 * x wird 3
+ * statt 0 * x + 3 * 1. Für Potenzen mit konstantem Exponenten wird die
+ * einfache Regel b * a^(b - 1) * a' benutzt. Teilbäume des ursprünglichen
+ * Baumes werden nicht kopiert, sondern mitbenutzt. Wird ein Teilbaum mehrfach
+ * referenziert, wird auch seine Ableitung nur einmal gebildet und mehrfach
+ * benutzt. Das Ergebnis wird abschließend mit dem Optimizer vereinfacht.
+ */
+public final class Derivative {
+	private Derivative() {
+	}
+
+	/**
+	 * derive gibt die Ableitung von e nach x zurück.
+	 *
+	 * @param e Syntaxbaum.
+	 * @return Vereinfachte Ableitung.
+	 * @throws IllegalArgumentException wenn e eine unbekannte Funktion oder
+	 *                                  einen unbekannten Knoten enthält.
+	 */
+	public static Expression derive(Expression e) {
+		Expression d = d(e, new IdentityHashMap<>());
+		return new Optimizer().optimize(d == null ? new NumberExpression(0) : d);
+	}
+
+	/**
+	 * d gibt die Ableitung zurück oder null, wenn sie 0 ist. Bereits gebildete
+	 * Ableitungen stehen in done.
+	 */
+	private static Expression d(Expression e, Map<Expression, Expression> done) {
+		if (done.containsKey(e)) {
+			return done.get(e);
+		}
+		Expression result = derivative(e, done);
+		done.put(e, result);
+		return result;
+	}
+
+	private static Expression derivative(Expression e, Map<Expression, Expression> done) {
+		if (e instanceof NumberExpression || e instanceof YExpression) {
+			return null;
+		} else if (e instanceof XExpression) {
+			return number(1);
+		} else if (e instanceof CompiledExpression) {
+			return d(((CompiledExpression) e).getSource(), done);
+		} else if (e instanceof OperatorExpression) {
+			OperatorExpression o = (OperatorExpression) e;
+			Expression a = o.getLeft();
+			Expression b = o.getRight();
+			Expression da = d(a, done);
+			Expression db = d(b, done);
+			switch (o.getOp().getType()) {
+			case PLUS:
+				return plus(da, db);
+			case MINUS:
+				return minus(da, db);
+			case TIMES:
+				return plus(times(da, b), times(a, db));
+			case DIVIDE:
+				// (a' - (a / b) * b') / b
+				return divide(minus(da, times(e, db)), b);
+			case POWER:
+				if (db == null) {
+					return times(times(b, op(TokenType.POWER, a, op(TokenType.MINUS, b, number(1)))), da);
+				}
+				// a^b * (b' * log(a) + b * a' / a)
+				return times(e, plus(times(db, function(BuiltinFunction.LOG, a)), divide(times(b, da), a)));
+			default:
+				throw new IllegalStateException("OperatorExpression with unkown opertor");
+			}
+		} else if (e instanceof UnaryFunctionExpression) {
+			UnaryFunctionExpression f = (UnaryFunctionExpression) e;
+			Expression u = f.getArgument();
+			Expression du = d(u, done);
+			if (du == null) {
+				return null;
+			}
+			if (f.getFunction() == null) {
+				throw new IllegalArgumentException("Unkown function " + f.getName());
+			}
+			switch (f.getFunction()) {
+			case SIN:
+				return times(function(BuiltinFunction.COS, u), du);
+			case COS:
+				return function(BuiltinFunction.MINUS, times(function(BuiltinFunction.SIN, u), du));
+			case TAN:
+				// (1 + tan(u)^2) * u'
+				return times(op(TokenType.PLUS, number(1), op(TokenType.TIMES, e, e)), du);
+			case LOG:
+				return divide(du, u);
+			case SQRT:
+				return divide(du, op(TokenType.TIMES, number(2), e));
+			case ASIN:
+				return divide(du, function(BuiltinFunction.SQRT, op(TokenType.MINUS, number(1), op(TokenType.TIMES, u, u))));
+			case ACOS:
+				return function(BuiltinFunction.MINUS,
+						divide(du, function(BuiltinFunction.SQRT, op(TokenType.MINUS, number(1), op(TokenType.TIMES, u, u)))));
+			case ATAN:
+				return divide(du, op(TokenType.PLUS, number(1), op(TokenType.TIMES, u, u)));
+			case ABS:
+				return times(op(TokenType.DIVIDE, u, e), du);
+			case EXP:
+				return times(e, du);
+			case MINUS:
+				return function(BuiltinFunction.MINUS, du);
+			default:
+				throw new IllegalStateException("Unkown function " + f.getName());
+			}
+		} else if (e instanceof BinaryFunctionExpression) {
+			BinaryFunctionExpression f = (BinaryFunctionExpression) e;
+			Expression a = f.getLeft();
+			Expression b = f.getRight();
+			Expression da = d(a, done);
+			Expression db = d(b, done);
+			if (da == null && db == null) {
+				return null;
+			}
+			switch (f.getFunction()) {
+			case MAX:
+			case MIN: {
+				// (a' + b' +- (a - b) * (a' - b') / abs(a - b)) / 2
+				Expression difference = op(TokenType.MINUS, a, b);
+				Expression jump = divide(times(difference, minus(da, db)),
+						function(BuiltinFunction.ABS, difference));
+				Expression sum = plus(da, db);
+				return divide(f.getFunction() == BuiltinFunction.MAX ? plus(sum, jump) : minus(sum, jump),
+						number(2));
+			}
+			case ATAN2:
+				// (b * a' - a * b') / (a^2 + b^2)
+				return divide(minus(times(b, da), times(a, db)),
+						op(TokenType.PLUS, op(TokenType.TIMES, a, a), op(TokenType.TIMES, b, b)));
+			case HYPOT:
+				return divide(plus(times(a, da), times(b, db)), e);
+			default:
+				throw new IllegalStateException("Unkown function " + f.getName());
+			}
+		}
+		throw new IllegalArgumentException("Unbekannter Knoten " + e.getClass().getName());
+	}
+
+	private static Expression plus(Expression a, Expression b) {
+		if (a == null) {
+			return b;
+		}
+		return b == null ? a : op(TokenType.PLUS, a, b);
+	}
+
+	private static Expression minus(Expression a, Expression b) {
+		if (b == null) {
+			return a;
+		}
+		return a == null ? function(BuiltinFunction.MINUS, b) : op(TokenType.MINUS, a, b);
+	}
+
+	private static Expression times(Expression a, Expression b) {
+		return a == null || b == null ? null : op(TokenType.TIMES, a, b);
+	}
+
+	private static Expression divide(Expression a, Expression b) {
+		return a == null ? null : op(TokenType.DIVIDE, a, b);
+	}
+
+	private static Expression op(TokenType type, Expression left, Expression right) {
+		return new OperatorExpression(new Token(type), left, right);
+	}
+
+	private static Expression function(BuiltinFunction f, Expression argument) {
+		return new UnaryFunctionExpression(f, argument);
+	}
+
+	private static Expression number(double value) {
+		return new NumberExpression(value);
+	}
+}
@@ -0,0 +1,40 @@
+package expressions;
+
+/**
+ * Dual enthält das Ergebnis einer Auswertung mit dualen Zahlen: den
+ * Funktionswert f(x) und die Ableitung f'(x) an derselben Stelle. Ein Dual
+ * kann für beliebig viele Aufrufe von Expression.evalDual wiederverwendet
+ * werden, damit dabei keine Objekte erzeugt werden.
+ */
+public final class Dual {
+	double value;
+	double derivative;
+
+	/**
+	 * getValue gibt den Funktionswert zurück.
+	 *
+	 * @return f(x).
+	 */
+	public double getValue() {
+		return this.value;
+	}
+
+	/**
+	 * getDerivative gibt die Ableitung nach x zurück.
+	 *
+	 * @return f'(x).
+	 */
+	public double getDerivative() {
+		return this.derivative;
+	}
+
+	void set(double value, double derivative) {
+		this.value = value;
+		this.derivative = derivative;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + this.value + ", " + this.derivative + ")";
+	}
+}
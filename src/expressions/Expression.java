@@ -1,9 +1,11 @@
 package expressions;
 
-import java.util.EmptyStackException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 
-import shuntingyard.ShuntingYard;
+import parser.FunctionRegistry;
+import parser.Parser;
 import tokens.FunctionToken;
 import tokens.NumberToken;
 import tokens.Token;
@@ -11,7 +13,8 @@ import tokens.Token;
 /**
  * Expression stellt einen Ausdruck dar, der mit der eval()-Methode ausgewertet
  * werden kann. Der Ausdruck kann eine Variable x enthalten, die als Argument an
- * eval übergeben wird.
+ * eval übergeben wird. Für implizite Kurven F(x, y) = 0 kann er außerdem die
+ * Variable y enthalten, die mit eval(x, y) belegt wird.
  */
 public abstract class Expression {
 	protected Expression() {
@@ -28,6 +31,139 @@ public abstract class Expression {
 	 */
 	public abstract double eval(double x);
 
+	/**
+	 * eval wertet den Ausdruck mit den Werten x und y für die Variablen x und y
+	 * aus. Bei eval(x) ist y nicht belegt und jede YExpression ergibt NaN.
+	 *
+	 * @param x Der für x einzusetzende Wert.
+	 * @param y Der für y einzusetzende Wert.
+	 * @return Das Ergebnis des Ausdrucks.
+	 */
+	public double eval(double x, double y) {
+		return eval(x);
+	}
+
+	/**
+	 * evalBatch wertet den Ausdruck spaltenweise für viele x-Werte auf einmal
+	 * aus. Jeder Knoten berechnet dabei zuerst die Ergebnisse seiner Kinder für
+	 * alle Werte und verknüpft sie dann in einer einzigen Schleife. Die Ergebnisse
+	 * sind exakt dieselben wie bei einzelnen eval()-Aufrufen.
+	 *
+	 * @param in        x-Werte.
+	 * @param inOffset  Index des ersten x-Wertes in in.
+	 * @param out       Array für die Ergebnisse.
+	 * @param outOffset Index, an den das erste Ergebnis geschrieben wird.
+	 * @param len       Anzahl der auszuwertenden x-Werte.
+	 */
+	public abstract void evalBatch(double[] in, int inOffset, double[] out, int outOffset, int len);
+
+	/**
+	 * evalBatch wertet den Ausdruck für die x-Werte in[offset] bis in[offset +
+	 * len - 1] aus und schreibt die Ergebnisse an dieselben Stellen in out. in und
+	 * out dürfen dasselbe Array sein.
+	 *
+	 * @param in     x-Werte.
+	 * @param out    Array für die Ergebnisse.
+	 * @param offset Index des ersten auszuwertenden Wertes.
+	 * @param len    Anzahl der auszuwertenden x-Werte.
+	 */
+	public final void evalBatch(double[] in, double[] out, int offset, int len) {
+		evalBatch(in, offset, out, offset, len);
+	}
+
+	/**
+	 * evalBatch wertet den Ausdruck für alle x-Werte in xs aus.
+	 *
+	 * @param xs  x-Werte.
+	 * @param out Array für die Ergebnisse, mindestens so lang wie xs.
+	 */
+	public final void evalBatch(double[] xs, double[] out) {
+		evalBatch(xs, 0, out, 0, xs.length);
+	}
+
+	/**
+	 * evalInterval berechnet ein Intervall, das alle Werte enthält, die eval()
+	 * für x-Werte aus dem Intervall x liefert. Undefinierte Werte (NaN) werden
+	 * dabei nicht berücksichtigt.
+	 *
+	 * @param x Intervall der x-Werte.
+	 * @return Einschließung der Funktionswerte, Interval.EMPTY falls der
+	 *         Ausdruck für kein x aus dem Intervall definiert ist.
+	 * @see Interval
+	 */
+	public abstract Interval evalInterval(Interval x);
+
+	/**
+	 * evalInterval berechnet eine Einschließung der Werte von eval(x, y) für x
+	 * aus dem Intervall x und y aus dem Intervall y.
+	 *
+	 * @param x Intervall der x-Werte.
+	 * @param y Intervall der y-Werte.
+	 * @return Einschließung der Funktionswerte.
+	 */
+	public Interval evalInterval(Interval x, Interval y) {
+		return evalInterval(x);
+	}
+
+	/**
+	 * evalInterval berechnet eine Einschließung der Funktionswerte für alle x
+	 * von lo bis hi.
+	 *
+	 * @param lo Untere Grenze für x.
+	 * @param hi Obere Grenze für x.
+	 * @return Einschließung der Funktionswerte.
+	 * @throws IllegalArgumentException wenn lo größer als hi ist.
+	 */
+	public final Interval evalInterval(double lo, double hi) {
+		return evalInterval(Interval.of(lo, hi));
+	}
+
+	/**
+	 * compile übersetzt den Ausdruck in ein flaches Programm, das ohne rekursive
+	 * Methodenaufrufe ausgewertet werden kann. Die Ergebnisse von eval() sind
+	 * exakt dieselben wie beim Syntaxbaum.
+	 *
+	 * @return Übersetzter Ausdruck.
+	 * @see CompiledExpression
+	 */
+	public CompiledExpression compile() {
+		return CompiledExpression.compile(this);
+	}
+
+	/**
+	 * derive bildet die Ableitung des Ausdrucks nach x als neuen, vereinfachten
+	 * Syntaxbaum.
+	 *
+	 * @return Ableitung.
+	 * @see Derivative
+	 */
+	public Expression derive() {
+		return Derivative.derive(this);
+	}
+
+	/**
+	 * evalDual wertet den Ausdruck mit dualen Zahlen aus: in einem Durchlauf
+	 * durch den Baum werden der Funktionswert und die Ableitung nach x an der
+	 * Stelle x berechnet. Der Funktionswert ist exakt derselbe wie bei eval(x).
+	 *
+	 * @param x      Der für x einzusetzende Wert.
+	 * @param result Nimmt Funktionswert und Ableitung auf.
+	 */
+	public abstract void evalDual(double x, Dual result);
+
+	/**
+	 * evalDual wertet den Ausdruck mit dualen Zahlen aus, siehe
+	 * evalDual(double, Dual).
+	 *
+	 * @param x Der für x einzusetzende Wert.
+	 * @return Funktionswert und Ableitung.
+	 */
+	public final Dual evalDual(double x) {
+		Dual result = new Dual();
+		evalDual(x, result);
+		return result;
+	}
+
 	/**
 	 * parseRPN liest ein Array aus Tokens, die in umgekehrter polnischer Notation
 	 * sortiert sein müssen, und konstruiert daraus einen Syntaxbaum aus
@@ -36,9 +172,10 @@ public abstract class Expression {
 	 * Die Konstruktion des Syntaxbaumes funktioniert so: * Wenn in tokens eine Zahl
 	 * oder ein x angetroffen wird, wird eine NumberExpression/XExpression erzeugt
 	 * und auf den Stack gelegt. * Wenn in tokens ein FunctionToken angetroffen
-	 * wird, wird eine Expression vom Stack genommen, als Funktionsargument genutzt,
-	 * und eine UnaryFunctionExpression mit diesem Argument erzeugt und auf den
-	 * Stack gelegt. * Wenn in tokens ein Rechen-Operator angetroffen wird, werden
+	 * wird, werden so viele Expressions vom Stack genommen, wie die Funktion
+	 * Argumente hat (FunctionToken.getArity()), und der Aufruf mit der
+	 * FunctionRegistry.getDefault() aufgelöst; das Ergebnis wird auf den Stack
+	 * gelegt. * Wenn in tokens ein Rechen-Operator angetroffen wird, werden
 	 * zwei Expressions vom Stack genommen, als linke und rechte Operanden genutzt
 	 * und eine OperatorExpression mit diesen Operanden erzeugt und auf den Stack
 	 * gelegt. Durch die Wiederverwendung der Expressions auf dem Stack entsteht auf
@@ -59,14 +196,21 @@ public abstract class Expression {
 			case X:
 				stack.push(new XExpression());
 				break;
+			case Y:
+				stack.push(new YExpression());
+				break;
 			case FUNCTION:
-				try {
-					stack.push(new UnaryFunctionExpression((FunctionToken) token, stack.pop()));
-				} catch (EmptyStackException e) {
-					System.out.println(
-							"Du hast" + ((FunctionToken) token).getName() + " eingegeben. Versuch's nochmal :)");
+				FunctionToken f = (FunctionToken) token;
+				if (stack.size() < f.getArity()) {
+					System.out.println("Du hast" + f.getName() + " eingegeben. Versuch's nochmal :)");
 					throw new IllegalArgumentException("Ungueltige Funktion");
 				}
+				List<Expression> arguments = new ArrayList<>(f.getArity());
+				for (int i = stack.size() - f.getArity(); i < stack.size(); i++) {
+					arguments.add(stack.get(i));
+				}
+				stack.setSize(stack.size() - f.getArity());
+				stack.push(FunctionRegistry.getDefault().call(f.getName(), arguments));
 				break;
 			case DIVIDE:
 			case TIMES:
@@ -93,22 +237,16 @@ public abstract class Expression {
 	 * parseInfixString liest einen String, der einen mathematischen Ausdruck in
 	 * Infix-Schreibweise darstellt, und erzeugt einen Syntaxbaum daraus.
 	 *
-	 * Hierfuer wird der String zunaechst mit tokenize in Tokens zerlegt, dann mit
-	 * dem Shunting-Yard-Algorithmus in umgekehrte polnische Notation konvertiert,
-	 * und dann mit parseRPN in einen Syntaxbaum umgewandelt.
+	 * Hierfuer wird der String in einem Durchlauf vom Parser gelesen, der den
+	 * Syntaxbaum direkt aufbaut. Das Ergebnis ist dasselbe wie bei
+	 * parseRPN(ShuntingYard.convertToRPN(Token.tokenize(s))), wobei ein Minus am
+	 * Anfang eines Operanden als 0 - a gelesen wird.
 	 * 
 	 * @param s Ausdruck, der gelesen werden soll.
 	 * @return Ausdruck als Syntaxbaum.
+	 * @see parser.Parser
 	 */
 	public static Expression parseInfixString(String s) {
-		if (s.startsWith("-")) {
-			s = s.replaceFirst("-", "0-");
-		}
-		if (s.endsWith("-")) {
-			s = s + "0";
-		}
-		s = s.replaceAll("\\(-", "(0-");
-		s = s.replaceAll("-\\)", "-0)");
-		return parseRPN(ShuntingYard.convertToRPN(Token.tokenize(s)));
+		return Parser.parse(s);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,264 @@
+package expressions;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ExpressionCache merkt sich zu Formeln die bereits eingelesenen Syntaxbäume,
+ * damit dieselbe Formel nicht bei jedem Aufruf neu geparst werden muss.
+ *
+ * Als Schlüssel dient die normalisierte Formel: Groß-/Kleinschreibung und
+ * Leerzeichen spielen keine Rolle, "SIN( x )" und "sin(x)" teilen sich also
+ * einen Eintrag. Der Cache ist in der Zahl der Einträge und in der Summe ihrer
+ * Knoten (siehe Optimizer.nodeCount) beschränkt. Wird eine der Grenzen
+ * überschritten, werden Einträge nach dem CLOCK-Verfahren (Second Chance)
+ * entfernt, einer Näherung an LRU: Die Einträge stehen in der Reihenfolge des
+ * Einfügens in einer Warteschlange, ein Treffer setzt nur ein Flag. Beim
+ * Entfernen wird der älteste Eintrag genommen; ist sein Flag gesetzt, wird es
+ * gelöscht und der Eintrag stattdessen wieder hinten angestellt.
+ *
+ * Je nach Form werden der Syntaxbaum, der vereinfachte Baum oder die
+ * CompiledExpression gespeichert. Da eine CompiledExpression nicht threadsicher
+ * ist, gibt get() in diesem Fall bei jedem Aufruf eine eigene Instanz zurück,
+ * die sich das übersetzte Programm mit dem Eintrag teilt.
+ *
+ * Alle Methoden sind threadsicher. Ein Treffer kostet ein Nachschlagen in
+ * einer ConcurrentHashMap und höchstens das Setzen des Flags, ohne Sperre.
+ * Einfügen und Entfernen sind synchronisiert; ein Einfügen kostet dabei
+ * amortisiert konstant viele Schritte, unabhängig von maxEntries, da jedes
+ * Wiederanstellen durch einen vorherigen Treffer bezahlt ist. Geparst wird
+ * außerhalb der Sperre; fragen zwei Threads gleichzeitig nach einer neuen
+ * Formel, wird sie eventuell zweimal gelesen.
+ */
+public class ExpressionCache {
+	/**
+	 * Form gibt an, in welcher Form die Ausdrücke gespeichert werden.
+	 */
+	public enum Form {
+		/** Syntaxbaum, wie ihn Expression.parseInfixString liefert. */
+		RAW,
+		/** Mit dem Optimizer vereinfachter Syntaxbaum. */
+		OPTIMIZED,
+		/** Vereinfachter und in eine CompiledExpression übersetzter Baum. */
+		COMPILED
+	}
+
+	private final int maxEntries;
+	private final long maxNodes;
+	private final Form form;
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+	/** Einträge in der Reihenfolge des Einfügens, nur unter der Sperre benutzt. */
+	private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+	private long nodes;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Erzeugt einen Cache.
+	 *
+	 * @param maxEntries Höchstzahl der gespeicherten Formeln.
+	 * @param maxNodes   Höchstzahl der Knoten aller gespeicherten Syntaxbäume
+	 *                   zusammen. Größere Bäume werden nicht gespeichert.
+	 * @param form       Form, in der die Ausdrücke gespeichert werden.
+	 * @throws IllegalArgumentException wenn eine Grenze kleiner als 1 ist.
+	 */
+	public ExpressionCache(int maxEntries, long maxNodes, Form form) {
+		if (maxEntries < 1 || maxNodes < 1) {
+			throw new IllegalArgumentException("Cache muss mindestens einen Eintrag aufnehmen koennen");
+		}
+		this.maxEntries = maxEntries;
+		this.maxNodes = maxNodes;
+		this.form = form;
+	}
+
+	/**
+	 * get gibt den Ausdruck zur Formel s zurück. Ist er noch nicht im Cache, wird
+	 * er mit Expression.parseInfixString gelesen und gespeichert.
+	 *
+	 * @param s Formel in Infix-Schreibweise.
+	 * @return Ausdruck in der Form des Caches.
+	 * @throws IllegalArgumentException wie bei Expression.parseInfixString;
+	 *                                  ungültige Formeln werden nicht
+	 *                                  gespeichert.
+	 */
+	public Expression get(String s) {
+		String key = normalize(s);
+		Entry entry = this.entries.get(key);
+		if (entry != null) {
+			entry.touch();
+			this.hits.increment();
+			return share(entry.expression);
+		}
+		this.misses.increment();
+
+		Expression e = Expression.parseInfixString(key);
+		if (this.form != Form.RAW) {
+			e = new Optimizer().optimize(e);
+		}
+		int weight = Optimizer.nodeCount(e);
+		if (this.form == Form.COMPILED) {
+			e = e.compile();
+		}
+		if (weight <= this.maxNodes) {
+			synchronized (this.entries) {
+				Entry fresh = new Entry(key, e, weight);
+				Entry old = this.entries.put(key, fresh);
+				if (old != null) {
+					this.nodes -= old.weight;
+				}
+				this.nodes += weight;
+				this.queue.addLast(fresh);
+				evict(fresh);
+			}
+		}
+		return share(e);
+	}
+
+	/**
+	 * evict entfernt nach dem CLOCK-Verfahren Einträge, bis beide Grenzen
+	 * eingehalten sind. Der gerade eingefügte Eintrag keep bleibt erhalten.
+	 * Einträge, die inzwischen durch einen neueren mit demselben Schlüssel
+	 * ersetzt wurden, werden nur aus der Warteschlange genommen; sammeln sich
+	 * zu viele davon an, wird die Warteschlange auf einmal bereinigt. Muss unter
+	 * der Sperre aufgerufen werden.
+	 */
+	private void evict(Entry keep) {
+		if (this.queue.size() > 2 * this.entries.size()) {
+			this.queue.removeIf(e -> this.entries.get(e.key) != e);
+		}
+		while ((this.entries.size() > this.maxEntries || this.nodes > this.maxNodes) && this.queue.size() > 1) {
+			Entry eldest = this.queue.pollFirst();
+			if (this.entries.get(eldest.key) != eldest) {
+				continue;
+			}
+			if (eldest == keep || eldest.used) {
+				eldest.used = false;
+				this.queue.addLast(eldest);
+				continue;
+			}
+			this.entries.remove(eldest.key);
+			this.nodes -= eldest.weight;
+			this.evictions.increment();
+		}
+	}
+
+	private static Expression share(Expression e) {
+		return e instanceof CompiledExpression ? e.compile() : e;
+	}
+
+	/**
+	 * normalize wandelt die Formel in Kleinbuchstaben um und entfernt alle
+	 * Leerzeichen, die nicht zwei Zahlen oder Namen voneinander trennen.
+	 *
+	 * @param s Formel.
+	 * @return Normalisierte Formel.
+	 */
+	static String normalize(String s) {
+		StringBuilder b = new StringBuilder(s.length());
+		boolean space = false;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (Character.isWhitespace(c)) {
+				space = true;
+				continue;
+			}
+			if (space && b.length() > 0 && isWordChar(b.charAt(b.length() - 1)) && isWordChar(c)) {
+				b.append(' ');
+			}
+			space = false;
+			b.append(c);
+		}
+		return b.toString().toLowerCase(Locale.ROOT);
+	}
+
+	private static boolean isWordChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '.' || c == '_';
+	}
+
+	/**
+	 * clear entfernt alle Einträge. Die Zähler bleiben erhalten.
+	 */
+	public void clear() {
+		synchronized (this.entries) {
+			this.entries.clear();
+			this.queue.clear();
+			this.nodes = 0;
+		}
+	}
+
+	/**
+	 * size gibt die Anzahl der gespeicherten Formeln zurück.
+	 *
+	 * @return Anzahl der Einträge.
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * getNodes gibt die Summe der Knoten aller gespeicherten Syntaxbäume zurück.
+	 *
+	 * @return Anzahl der Knoten.
+	 */
+	public long getNodes() {
+		synchronized (this.entries) {
+			return this.nodes;
+		}
+	}
+
+	/**
+	 * getHits gibt an, wie oft eine Formel im Cache gefunden wurde.
+	 *
+	 * @return Anzahl der Treffer.
+	 */
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * getMisses gibt an, wie oft eine Formel neu gelesen werden musste.
+	 *
+	 * @return Anzahl der Fehlversuche.
+	 */
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * getEvictions gibt an, wie viele Einträge wegen der Grenzen entfernt wurden.
+	 *
+	 * @return Anzahl der entfernten Einträge.
+	 */
+	public long getEvictions() {
+		return this.evictions.sum();
+	}
+
+	private static final class Entry {
+		private final String key;
+		private final Expression expression;
+		private final int weight;
+		// seit dem letzten Durchlauf von evict benutzt, bewusst nicht volatile
+		private boolean used;
+
+		private Entry(String key, Expression expression, int weight) {
+			this.key = key;
+			this.expression = expression;
+			this.weight = weight;
+		}
+
+		/**
+		 * touch setzt das Flag. Geschrieben wird nur, wenn es noch nicht gesetzt
+		 * ist, damit häufige Treffer auf denselben Eintrag die Cache-Zeile nicht
+		 * zwischen den Kernen hin- und herschieben.
+		 */
+		private void touch() {
+			if (!this.used) {
+				this.used = true;
+			}
+		}
+	}
+}
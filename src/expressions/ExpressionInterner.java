@@ -0,0 +1,140 @@
+package expressions;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import tokens.FunctionToken;
+import tokens.Token;
+import tokens.TokenType;
+
+/**
+ * ExpressionInterner erzeugt Expressions so, dass strukturell gleiche Teilbäume
+ * nur einmal existieren (Hash-Consing). Aus einem Baum wie sin(x)*sin(x) +
+ * cos(x)*sin(x) wird dadurch ein gerichteter azyklischer Graph, in dem alle
+ * Vorkommen von sin(x) dasselbe Objekt sind.
+ *
+ * CompiledExpression erkennt mehrfach referenzierte Knoten und speichert deren
+ * Wert bei jeder Auswertung in einem eigenen Slot, so dass
+ * intern(e).compile() jeden gemeinsamen Teilausdruck nur einmal pro x
+ * berechnet.
+ *
+ * Ein ExpressionInterner ist nicht threadsicher.
+ */
+public class ExpressionInterner {
+	private final Map<Expression, Expression> canonical = new HashMap<>();
+	private final XExpression x = new XExpression();
+
+	/**
+	 * intern gibt den kanonischen Knoten zu e zurück. Alle Teilbäume von e werden
+	 * ebenfalls durch ihre kanonischen Knoten ersetzt. Ein mehrfach
+	 * referenzierter Teilbaum wird dabei nur einmal besucht.
+	 *
+	 * @param e Syntaxbaum.
+	 * @return Strukturell gleicher Ausdruck, dessen gleiche Teilbäume identisch
+	 *         sind.
+	 */
+	public Expression intern(Expression e) {
+		return intern(e, new IdentityHashMap<>());
+	}
+
+	private Expression intern(Expression e, Map<Expression, Expression> done) {
+		Expression result = done.get(e);
+		if (result == null) {
+			result = internNode(e, done);
+			done.put(e, result);
+		}
+		return result;
+	}
+
+	private Expression internNode(Expression e, Map<Expression, Expression> done) {
+		if (e instanceof XExpression) {
+			return this.x;
+		} else if (e instanceof NumberExpression) {
+			return canonical(e);
+		} else if (e instanceof OperatorExpression) {
+			OperatorExpression o = (OperatorExpression) e;
+			Expression left = intern(o.getLeft(), done);
+			Expression right = intern(o.getRight(), done);
+			if (left != o.getLeft() || right != o.getRight()) {
+				e = new OperatorExpression(o.getOp(), left, right);
+			}
+			return canonical(e);
+		} else if (e instanceof UnaryFunctionExpression) {
+			UnaryFunctionExpression f = (UnaryFunctionExpression) e;
+			Expression argument = intern(f.getArgument(), done);
+			if (argument != f.getArgument()) {
+				e = new UnaryFunctionExpression(new FunctionToken(f.getName()), argument);
+			}
+			return canonical(e);
+		} else if (e instanceof BinaryFunctionExpression) {
+			BinaryFunctionExpression f = (BinaryFunctionExpression) e;
+			Expression left = intern(f.getLeft(), done);
+			Expression right = intern(f.getRight(), done);
+			if (left != f.getLeft() || right != f.getRight()) {
+				e = new BinaryFunctionExpression(f.getFunction(), left, right);
+			}
+			return canonical(e);
+		} else if (e instanceof CompiledExpression) {
+			return intern(((CompiledExpression) e).getSource(), done);
+		}
+		return canonical(e);
+	}
+
+	/**
+	 * number gibt die kanonische NumberExpression für value zurück.
+	 *
+	 * @param value Zahl.
+	 * @return Kanonischer Knoten.
+	 */
+	public Expression number(double value) {
+		return canonical(new NumberExpression(value));
+	}
+
+	/**
+	 * x gibt die kanonische XExpression zurück.
+	 *
+	 * @return Kanonischer Knoten.
+	 */
+	public Expression x() {
+		return this.x;
+	}
+
+	/**
+	 * operator gibt die kanonische OperatorExpression für left (op) right zurück.
+	 *
+	 * @param op    Operator (+ - * / ^).
+	 * @param left  Linker Operand.
+	 * @param right Rechter Operand.
+	 * @return Kanonischer Knoten.
+	 */
+	public Expression operator(TokenType op, Expression left, Expression right) {
+		return canonical(new OperatorExpression(new Token(op), intern(left), intern(right)));
+	}
+
+	/**
+	 * function gibt die kanonische UnaryFunctionExpression für name(argument)
+	 * zurück.
+	 *
+	 * @param name     Funktionsname.
+	 * @param argument Funktionsargument.
+	 * @return Kanonischer Knoten.
+	 */
+	public Expression function(String name, Expression argument) {
+		return canonical(new UnaryFunctionExpression(new FunctionToken(name), intern(argument)));
+	}
+
+	/**
+	 * size gibt die Anzahl der verschiedenen bisher erzeugten Knoten zurück.
+	 *
+	 * @return Anzahl kanonischer Knoten.
+	 */
+	public int size() {
+		return this.canonical.size() + 1;
+	}
+
+	private Expression canonical(Expression e) {
+		Expression existing = this.canonical.putIfAbsent(e, e);
+		return existing != null ? existing : e;
+	}
+}
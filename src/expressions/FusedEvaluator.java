@@ -0,0 +1,338 @@
+package expressions;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FusedEvaluator wertet mehrere Expressions gemeinsam an denselben Stellen
+ * aus. Alle Ausdrücke werden mit einem gemeinsamen ExpressionInterner
+ * zusammengefasst, so dass x, Konstanten und gleiche Teilausdrücke wie sin(x)
+ * nur einmal vorkommen, auch wenn sie in verschiedenen Formeln stehen. Jeder
+ * verschiedene Knoten bekommt eine Spalte; die inneren Knoten werden in einer
+ * Reihenfolge abgearbeitet, in der jedes Argument vor seiner Verwendung
+ * berechnet ist.
+ *
+ * evalBatch teilt die Stellen in Blöcke von CHUNK Werten. Für jeden Block
+ * werden alle Spalten nacheinander berechnet, jede in einer einfachen Schleife
+ * wie bei Expression.evalBatch. Die Spalten eines Blocks passen so in den
+ * Cache, und jede Spalte wird pro Block nur einmal berechnet, egal in wie
+ * vielen Formeln sie vorkommt. Die Ergebnisse sind exakt dieselben wie die
+ * von evalBatch der einzelnen Ausdrücke.
+ *
+ * Ein FusedEvaluator ist nach dem Erzeugen unveränderlich. evalBatch holt
+ * seinen Arbeitsspeicher aus dem ScratchPool des aktuellen Threads und kann
+ * daher gleichzeitig aus mehreren Threads aufgerufen werden.
+ */
+public final class FusedEvaluator {
+	/** Anzahl der Stellen, die in einem Durchlauf durch alle Spalten berechnet werden. */
+	public static final int CHUNK = 256;
+
+	private final int count;
+	private final int columns;
+	private final int[] constantColumns;
+	private final double[] constants;
+	private final int[] code;
+	private final int[] roots;
+
+	/**
+	 * Erzeugt einen FusedEvaluator für die Ausdrücke expressions.
+	 *
+	 * @param expressions Auszuwertende Ausdrücke.
+	 * @throws IllegalArgumentException wenn ein Ausdruck einen unbekannten
+	 *                                  Knoten oder eine unbekannte Funktion
+	 *                                  enthält.
+	 */
+	public FusedEvaluator(List<Expression> expressions) {
+		ExpressionInterner interner = new ExpressionInterner();
+		Builder builder = new Builder(interner.x());
+		this.count = expressions.size();
+		this.roots = new int[this.count];
+		for (int i = 0; i < this.count; i++) {
+			this.roots[i] = builder.column(interner.intern(expressions.get(i)));
+		}
+		this.columns = builder.columns;
+		this.constantColumns = Arrays.copyOf(builder.constantColumns, builder.constantCount);
+		this.constants = Arrays.copyOf(builder.constants, builder.constantCount);
+		this.code = Arrays.copyOf(builder.code, builder.codeLength);
+	}
+
+	/**
+	 * size gibt die Anzahl der Ausdrücke zurück.
+	 *
+	 * @return Anzahl der Ergebnisspalten.
+	 */
+	public int size() {
+		return this.count;
+	}
+
+	/**
+	 * getColumnCount gibt die Anzahl der verschiedenen Knoten aller Ausdrücke
+	 * zusammen zurück, einschließlich x und Konstanten.
+	 *
+	 * @return Anzahl der Spalten pro Block.
+	 */
+	public int getColumnCount() {
+		return this.columns;
+	}
+
+	/**
+	 * evalBatch wertet alle Ausdrücke an den Stellen in[inOffset] bis
+	 * in[inOffset + len - 1] aus. Der Wert des k-ten Ausdrucks an der i-ten
+	 * Stelle wird nach out[k][outOffset + i] geschrieben.
+	 *
+	 * @param in        x-Werte.
+	 * @param inOffset  Index des ersten x-Wertes.
+	 * @param out       Ein Array pro Ausdruck.
+	 * @param outOffset Index des ersten Ergebnisses in jedem Array.
+	 * @param len       Anzahl der Stellen.
+	 * @throws IllegalArgumentException wenn out nicht ein Array pro Ausdruck
+	 *                                  enthält.
+	 */
+	public void evalBatch(double[] in, int inOffset, double[][] out, int outOffset, int len) {
+		if (out.length != this.count) {
+			throw new IllegalArgumentException("Es wird ein Ergebnisarray pro Ausdruck benoetigt");
+		}
+		double[] w = ScratchPool.take(this.columns * CHUNK);
+		try {
+			// Konstanten werden nie überschrieben und gelten für alle Blöcke
+			for (int c = 0; c < this.constants.length; c++) {
+				Arrays.fill(w, this.constantColumns[c] * CHUNK, (this.constantColumns[c] + 1) * CHUNK,
+						this.constants[c]);
+			}
+			for (int start = 0; start < len; start += CHUNK) {
+				int n = Math.min(CHUNK, len - start);
+				System.arraycopy(in, inOffset + start, w, 0, n);
+				run(w, n);
+				for (int k = 0; k < this.count; k++) {
+					System.arraycopy(w, this.roots[k] * CHUNK, out[k], outOffset + start, n);
+				}
+			}
+		} finally {
+			ScratchPool.release(w);
+		}
+	}
+
+	/**
+	 * run berechnet alle inneren Spalten für die ersten n Stellen des Blocks.
+	 * Jeder Befehl besteht aus Opcode, Zielspalte und ein oder zwei
+	 * Argumentspalten.
+	 */
+	private void run(double[] w, int n) {
+		int[] code = this.code;
+		int pc = 0;
+		while (pc < code.length) {
+			int op = code[pc];
+			int d = code[pc + 1] * CHUNK;
+			int a = code[pc + 2] * CHUNK;
+			if (op <= CompiledExpression.POW || op >= CompiledExpression.MAX) {
+				int b = code[pc + 3] * CHUNK;
+				pc += 4;
+				switch (op) {
+				case CompiledExpression.ADD:
+					for (int i = 0; i < n; i++) {
+						w[d + i] = w[a + i] + w[b + i];
+					}
+					break;
+				case CompiledExpression.SUB:
+					for (int i = 0; i < n; i++) {
+						w[d + i] = w[a + i] - w[b + i];
+					}
+					break;
+				case CompiledExpression.MUL:
+					for (int i = 0; i < n; i++) {
+						w[d + i] = w[a + i] * w[b + i];
+					}
+					break;
+				case CompiledExpression.DIV:
+					for (int i = 0; i < n; i++) {
+						w[d + i] = w[a + i] / w[b + i];
+					}
+					break;
+				case CompiledExpression.POW:
+					for (int i = 0; i < n; i++) {
+						w[d + i] = Math.pow(w[a + i], w[b + i]);
+					}
+					break;
+				case CompiledExpression.MAX:
+					for (int i = 0; i < n; i++) {
+						w[d + i] = Math.max(w[a + i], w[b + i]);
+					}
+					break;
+				case CompiledExpression.MIN:
+					for (int i = 0; i < n; i++) {
+						w[d + i] = Math.min(w[a + i], w[b + i]);
+					}
+					break;
+				case CompiledExpression.ATAN2:
+					for (int i = 0; i < n; i++) {
+						w[d + i] = Math.atan2(w[a + i], w[b + i]);
+					}
+					break;
+				default:
+					for (int i = 0; i < n; i++) {
+						w[d + i] = Math.hypot(w[a + i], w[b + i]);
+					}
+					break;
+				}
+				continue;
+			}
+			pc += 3;
+			switch (op) {
+			case CompiledExpression.SIN:
+				for (int i = 0; i < n; i++) {
+					w[d + i] = Math.sin(w[a + i]);
+				}
+				break;
+			case CompiledExpression.COS:
+				for (int i = 0; i < n; i++) {
+					w[d + i] = Math.cos(w[a + i]);
+				}
+				break;
+			case CompiledExpression.TAN:
+				for (int i = 0; i < n; i++) {
+					w[d + i] = Math.tan(w[a + i]);
+				}
+				break;
+			case CompiledExpression.LOG:
+				for (int i = 0; i < n; i++) {
+					w[d + i] = Math.log(w[a + i]);
+				}
+				break;
+			case CompiledExpression.SQRT:
+				for (int i = 0; i < n; i++) {
+					w[d + i] = Math.sqrt(w[a + i]);
+				}
+				break;
+			case CompiledExpression.ASIN:
+				for (int i = 0; i < n; i++) {
+					w[d + i] = Math.asin(w[a + i]);
+				}
+				break;
+			case CompiledExpression.ACOS:
+				for (int i = 0; i < n; i++) {
+					w[d + i] = Math.acos(w[a + i]);
+				}
+				break;
+			case CompiledExpression.ATAN:
+				for (int i = 0; i < n; i++) {
+					w[d + i] = Math.atan(w[a + i]);
+				}
+				break;
+			case CompiledExpression.ABS:
+				for (int i = 0; i < n; i++) {
+					w[d + i] = Math.abs(w[a + i]);
+				}
+				break;
+			case CompiledExpression.EXP:
+				for (int i = 0; i < n; i++) {
+					w[d + i] = Math.exp(w[a + i]);
+				}
+				break;
+			case CompiledExpression.NEG:
+				for (int i = 0; i < n; i++) {
+					w[d + i] = -w[a + i];
+				}
+				break;
+			default:
+				throw new IllegalStateException("Unbekannter Befehl " + op);
+			}
+		}
+	}
+
+	/**
+	 * Builder vergibt die Spalten in Postorder, so dass die Argumente eines
+	 * Knotens immer vor ihm berechnet werden. Spalte 0 ist x.
+	 */
+	private static final class Builder {
+		private final Map<Expression, Integer> columnOf = new IdentityHashMap<>();
+		private int columns = 1;
+		private int[] constantColumns = new int[4];
+		private double[] constants = new double[4];
+		private int constantCount;
+		private int[] code = new int[16];
+		private int codeLength;
+
+		private Builder(Expression x) {
+			this.columnOf.put(x, 0);
+		}
+
+		private int column(Expression e) {
+			Integer known = this.columnOf.get(e);
+			if (known != null) {
+				return known;
+			}
+			int column;
+			if (e instanceof NumberExpression) {
+				column = constant(((NumberExpression) e).getNumber());
+			} else if (e instanceof YExpression) {
+				// ohne y ist der Wert wie bei eval(x) NaN
+				column = constant(Double.NaN);
+			} else if (e instanceof OperatorExpression) {
+				OperatorExpression o = (OperatorExpression) e;
+				int a = column(o.getLeft());
+				int b = column(o.getRight());
+				int op;
+				switch (o.getOp().getType()) {
+				case PLUS:
+					op = CompiledExpression.ADD;
+					break;
+				case MINUS:
+					op = CompiledExpression.SUB;
+					break;
+				case TIMES:
+					op = CompiledExpression.MUL;
+					break;
+				case DIVIDE:
+					op = CompiledExpression.DIV;
+					break;
+				case POWER:
+					op = CompiledExpression.POW;
+					break;
+				default:
+					throw new IllegalStateException("OperatorExpression with unkown opertor");
+				}
+				column = this.columns++;
+				add(op, column, a, b);
+			} else if (e instanceof UnaryFunctionExpression) {
+				UnaryFunctionExpression f = (UnaryFunctionExpression) e;
+				int a = column(f.getArgument());
+				column = this.columns++;
+				add(CompiledExpression.opcode(f), column, a, -1);
+			} else if (e instanceof BinaryFunctionExpression) {
+				BinaryFunctionExpression f = (BinaryFunctionExpression) e;
+				int a = column(f.getLeft());
+				int b = column(f.getRight());
+				column = this.columns++;
+				add(f.getFunction().opcode, column, a, b);
+			} else {
+				throw new IllegalArgumentException("Nicht auswertbare Expression " + e.getClass().getName());
+			}
+			this.columnOf.put(e, column);
+			return column;
+		}
+
+		private int constant(double value) {
+			if (this.constantCount == this.constants.length) {
+				this.constants = Arrays.copyOf(this.constants, 2 * this.constantCount);
+				this.constantColumns = Arrays.copyOf(this.constantColumns, 2 * this.constantCount);
+			}
+			this.constants[this.constantCount] = value;
+			this.constantColumns[this.constantCount++] = this.columns;
+			return this.columns++;
+		}
+
+		private void add(int op, int d, int a, int b) {
+			if (this.codeLength + 4 > this.code.length) {
+				this.code = Arrays.copyOf(this.code, 2 * this.code.length);
+			}
+			this.code[this.codeLength++] = op;
+			this.code[this.codeLength++] = d;
+			this.code[this.codeLength++] = a;
+			if (b >= 0) {
+				this.code[this.codeLength++] = b;
+			}
+		}
+	}
+}
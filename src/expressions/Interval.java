@@ -0,0 +1,500 @@
+package expressions;
+
+/**
+ * Interval stellt ein abgeschlossenes Intervall [lo, hi] von double-Zahlen dar,
+ * wobei lo auch -Infinity und hi auch Infinity sein kann. Mit den Methoden
+ * dieser Klasse lässt sich für einen Ausdruck ein Intervall berechnen, das
+ * garantiert alle Werte enthält, die eval() für x-Werte aus einem
+ * Eingabeintervall liefert (siehe Expression.evalInterval).
+ *
+ * Jede Operation rundet nach außen: Die Grenzen werden aus den Randwerten
+ * berechnet und anschließend um eine Einheit in der letzten Stelle (ULP)
+ * erweitert. Da alle benutzten Math-Funktionen höchstens 1 ULP vom exakten
+ * Ergebnis abweichen und halbmonoton sind, enthält das Ergebnis sowohl die
+ * exakten als auch die mit double gerechneten Werte.
+ *
+ * NaN-Werte (z. B. log(-1)) werden nicht dargestellt, da sie nicht gezeichnet
+ * werden. Ist ein Ausdruck im ganzen Eingabeintervall undefiniert, ist das
+ * Ergebnis EMPTY.
+ */
+public final class Interval {
+	/** Leeres Intervall, z. B. für sqrt([-2, -1]). */
+	public static final Interval EMPTY = new Interval(Double.NaN, Double.NaN);
+	/** Intervall aller Zahlen. */
+	public static final Interval ENTIRE = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+	private static final double TWO_PI = 2 * Math.PI;
+	/** Oberhalb dieses Betrags wird für sin und cos [-1, 1] angenommen. */
+	private static final double MAX_REDUCTION = 1e9;
+	/** Abstand, innerhalb dessen ein Extremum als enthalten gilt. */
+	private static final double EXTREMUM_SLACK = 1e-6;
+
+	private final double lo;
+	private final double hi;
+
+	private Interval(double lo, double hi) {
+		this.lo = lo;
+		this.hi = hi;
+	}
+
+	/**
+	 * of erzeugt das Intervall [lo, hi].
+	 *
+	 * @param lo Untere Grenze.
+	 * @param hi Obere Grenze.
+	 * @return Intervall.
+	 * @throws IllegalArgumentException wenn lo größer als hi oder eine Grenze NaN
+	 *                                  ist.
+	 */
+	public static Interval of(double lo, double hi) {
+		if (!(lo <= hi)) {
+			throw new IllegalArgumentException("Ungueltiges Intervall [" + lo + ", " + hi + "]");
+		}
+		return new Interval(lo, hi);
+	}
+
+	/**
+	 * point erzeugt das Intervall, das nur die Zahl value enthält.
+	 *
+	 * @param value Zahl.
+	 * @return Intervall [value, value] oder EMPTY, falls value NaN ist.
+	 */
+	public static Interval point(double value) {
+		return Double.isNaN(value) ? EMPTY : new Interval(value, value);
+	}
+
+	/**
+	 * getLo gibt die untere Grenze zurück.
+	 *
+	 * @return Untere Grenze, NaN für EMPTY.
+	 */
+	public double getLo() {
+		return this.lo;
+	}
+
+	/**
+	 * getHi gibt die obere Grenze zurück.
+	 *
+	 * @return Obere Grenze, NaN für EMPTY.
+	 */
+	public double getHi() {
+		return this.hi;
+	}
+
+	/**
+	 * isEmpty gibt an, ob das Intervall leer ist.
+	 *
+	 * @return true für EMPTY.
+	 */
+	public boolean isEmpty() {
+		return Double.isNaN(this.lo);
+	}
+
+	/**
+	 * isBounded gibt an, ob beide Grenzen endlich sind. Ein unbeschränktes
+	 * Ergebnis deutet auf eine Polstelle oder einen Überlauf hin.
+	 *
+	 * @return true, wenn das Intervall nicht leer und beschränkt ist.
+	 */
+	public boolean isBounded() {
+		return Double.isFinite(this.lo) && Double.isFinite(this.hi);
+	}
+
+	/**
+	 * contains prüft, ob value im Intervall liegt.
+	 *
+	 * @param value Zahl.
+	 * @return true, wenn lo <= value <= hi.
+	 */
+	public boolean contains(double value) {
+		return this.lo <= value && value <= this.hi;
+	}
+
+	/**
+	 * intersects prüft, ob das Intervall einen Punkt mit [lo, hi] gemeinsam hat.
+	 *
+	 * @param lo Untere Grenze.
+	 * @param hi Obere Grenze.
+	 * @return true bei einem gemeinsamen Punkt.
+	 */
+	public boolean intersects(double lo, double hi) {
+		return this.lo <= hi && lo <= this.hi;
+	}
+
+	@Override
+	public String toString() {
+		return isEmpty() ? "[]" : "[" + this.lo + ", " + this.hi + "]";
+	}
+
+	/**
+	 * outward erzeugt [lo, hi] um je ein ULP nach außen erweitert. NaN-Grenzen
+	 * entstehen nur aus unendlichen Randwerten und werden durch unendliche
+	 * ersetzt.
+	 */
+	private static Interval outward(double lo, double hi) {
+		lo = Double.isNaN(lo) ? Double.NEGATIVE_INFINITY : Math.nextDown(lo);
+		hi = Double.isNaN(hi) ? Double.POSITIVE_INFINITY : Math.nextUp(hi);
+		return new Interval(lo, hi);
+	}
+
+	/**
+	 * hull gibt das kleinste Intervall zurück, das dieses Intervall und value
+	 * enthält.
+	 */
+	private Interval hull(double value) {
+		if (isEmpty()) {
+			return point(value);
+		}
+		return new Interval(Math.min(this.lo, value), Math.max(this.hi, value));
+	}
+
+	/**
+	 * Intervall [lo, hi] nach außen gerundet und auf [min, max] beschränkt.
+	 */
+	private static Interval outward(double lo, double hi, double min, double max) {
+		return new Interval(Math.max(min, Math.nextDown(lo)), Math.min(max, Math.nextUp(hi)));
+	}
+
+	/**
+	 * add berechnet die Summe zweier Intervalle.
+	 *
+	 * @param o Zweiter Summand.
+	 * @return Einschließung aller Summen.
+	 */
+	public Interval add(Interval o) {
+		if (isEmpty() || o.isEmpty()) {
+			return EMPTY;
+		}
+		return outward(this.lo + o.lo, this.hi + o.hi);
+	}
+
+	/**
+	 * subtract berechnet die Differenz zweier Intervalle.
+	 *
+	 * @param o Subtrahend.
+	 * @return Einschließung aller Differenzen.
+	 */
+	public Interval subtract(Interval o) {
+		if (isEmpty() || o.isEmpty()) {
+			return EMPTY;
+		}
+		return outward(this.lo - o.hi, this.hi - o.lo);
+	}
+
+	/**
+	 * multiply berechnet das Produkt zweier Intervalle.
+	 *
+	 * @param o Zweiter Faktor.
+	 * @return Einschließung aller Produkte.
+	 */
+	public Interval multiply(Interval o) {
+		if (isEmpty() || o.isEmpty()) {
+			return EMPTY;
+		}
+		double a = product(this.lo, o.lo);
+		double b = product(this.lo, o.hi);
+		double c = product(this.hi, o.lo);
+		double d = product(this.hi, o.hi);
+		return outward(Math.min(Math.min(a, b), Math.min(c, d)), Math.max(Math.max(a, b), Math.max(c, d)));
+	}
+
+	/**
+	 * 0 * Infinity ist NaN und wird nicht gezeichnet. Endliche Faktoren nahe den
+	 * Grenzen ergeben Produkte nahe 0.
+	 */
+	private static double product(double a, double b) {
+		double p = a * b;
+		return Double.isNaN(p) ? 0.0 : p;
+	}
+
+	/**
+	 * divide berechnet den Quotienten zweier Intervalle. Enthält o die 0, ist
+	 * das Ergebnis ENTIRE.
+	 *
+	 * @param o Divisor.
+	 * @return Einschließung aller Quotienten.
+	 */
+	public Interval divide(Interval o) {
+		if (isEmpty() || o.isEmpty()) {
+			return EMPTY;
+		}
+		if (o.contains(0.0)) {
+			// Polstelle, wegen -0.0 auch beim Rand 0 in beide Richtungen
+			return ENTIRE;
+		}
+		double a = this.lo / o.lo;
+		double b = this.lo / o.hi;
+		double c = this.hi / o.lo;
+		double d = this.hi / o.hi;
+		if (Double.isNaN(a) || Double.isNaN(b) || Double.isNaN(c) || Double.isNaN(d)) {
+			return ENTIRE;
+		}
+		return outward(Math.min(Math.min(a, b), Math.min(c, d)), Math.max(Math.max(a, b), Math.max(c, d)));
+	}
+
+	/**
+	 * pow berechnet das Bild von Math.pow(x, y) für x aus diesem Intervall und y
+	 * aus o. Negative Basen sind nur für ganzzahlige Exponenten definiert.
+	 *
+	 * @param o Exponent.
+	 * @return Einschließung der Potenzen.
+	 */
+	public Interval pow(Interval o) {
+		if (o.isEmpty()) {
+			return EMPTY;
+		}
+		if (isEmpty()) {
+			return o.contains(0.0) ? point(1.0) : EMPTY; // Math.pow(NaN, 0) ist 1
+		}
+		if (o.lo == o.hi && Double.isFinite(o.lo) && o.lo == Math.rint(o.lo)) {
+			return powInteger(o.lo);
+		}
+		if (this.lo < 0) {
+			if (Math.floor(o.hi) >= Math.ceil(o.lo)) {
+				return ENTIRE; // o enthält ganze Zahlen
+			}
+			// für endliche negative Basen ist das Ergebnis NaN
+			Interval result = this.hi < 0 ? EMPTY : new Interval(0.0, this.hi).pow(o);
+			if (this.lo == Double.NEGATIVE_INFINITY) {
+				// Math.pow(-Infinity, y) ist 0 oder Infinity
+				result = result.hull(Math.pow(this.lo, o.lo)).hull(Math.pow(this.lo, o.hi));
+			}
+			return result;
+		}
+		// x >= 0: log(x^y) = y * log(x) ist bilinear, Extrema liegen an den Ecken
+		double a = Math.pow(this.lo, o.lo);
+		double b = Math.pow(this.lo, o.hi);
+		double c = Math.pow(this.hi, o.lo);
+		double d = Math.pow(this.hi, o.hi);
+		if (Double.isNaN(a) || Double.isNaN(b) || Double.isNaN(c) || Double.isNaN(d)) {
+			return new Interval(0.0, Double.POSITIVE_INFINITY); // 1 hoch unendlich
+		}
+		double min = Math.min(Math.min(a, b), Math.min(c, d));
+		double max = Math.max(Math.max(a, b), Math.max(c, d));
+		if (o.contains(0.0)) {
+			min = Math.min(min, 1.0);
+			max = Math.max(max, 1.0);
+		}
+		return outward(min, max, 0.0, Double.POSITIVE_INFINITY);
+	}
+
+	private Interval powInteger(double n) {
+		if (n == 0) {
+			return point(1.0); // Math.pow(NaN, 0) ist 1
+		}
+		double a = Math.pow(this.lo, n);
+		double b = Math.pow(this.hi, n);
+		boolean even = n % 2 == 0;
+		if (n > 0) {
+			if (!even || this.lo >= 0) {
+				return outward(a, b);
+			}
+			if (this.hi <= 0) {
+				return outward(b, a);
+			}
+			return outward(0.0, Math.max(a, b), 0.0, Double.POSITIVE_INFINITY);
+		}
+		if (contains(0.0)) {
+			if (even) {
+				return new Interval(Math.max(0.0, Math.nextDown(Math.min(a, b))), Double.POSITIVE_INFINITY);
+			}
+			return ENTIRE;
+		}
+		if (even && this.hi < 0) {
+			return outward(a, b, 0.0, Double.POSITIVE_INFINITY);
+		}
+		return outward(b, a);
+	}
+
+	/**
+	 * negate berechnet [-hi, -lo].
+	 *
+	 * @return Negiertes Intervall.
+	 */
+	public Interval negate() {
+		if (isEmpty()) {
+			return EMPTY;
+		}
+		return new Interval(-this.hi, -this.lo);
+	}
+
+	/**
+	 * abs berechnet das Bild von Math.abs.
+	 *
+	 * @return Intervall der Beträge.
+	 */
+	public Interval abs() {
+		if (isEmpty() || this.lo >= 0) {
+			return this;
+		}
+		if (this.hi <= 0) {
+			return new Interval(-this.hi, -this.lo);
+		}
+		return new Interval(0.0, Math.max(-this.lo, this.hi));
+	}
+
+	/**
+	 * max berechnet das Bild von Math.max. Die Grenzen sind exakt, da max
+	 * in beiden Argumenten monoton ist und nicht rundet.
+	 *
+	 * @param o Zweites Argument.
+	 * @return Intervall der Maxima.
+	 */
+	public Interval max(Interval o) {
+		if (isEmpty() || o.isEmpty()) {
+			return EMPTY;
+		}
+		return new Interval(Math.max(this.lo, o.lo), Math.max(this.hi, o.hi));
+	}
+
+	/**
+	 * min berechnet das Bild von Math.min.
+	 *
+	 * @param o Zweites Argument.
+	 * @return Intervall der Minima.
+	 */
+	public Interval min(Interval o) {
+		if (isEmpty() || o.isEmpty()) {
+			return EMPTY;
+		}
+		return new Interval(Math.min(this.lo, o.lo), Math.min(this.hi, o.hi));
+	}
+
+	/**
+	 * atan2 berechnet das Bild von Math.atan2(y, x) für y aus diesem Intervall
+	 * und x aus o. Liegt das Rechteck ganz in einer offenen Halbebene, die die
+	 * negative x-Achse nicht berührt, wird atan2 über atan(y / x) bzw.
+	 * ±pi/2 - atan(x / y) eingeschlossen, sonst ist das Ergebnis [-pi, pi].
+	 *
+	 * @param o Intervall für x.
+	 * @return Einschließung der Winkel.
+	 */
+	public Interval atan2(Interval o) {
+		if (isEmpty() || o.isEmpty()) {
+			return EMPTY;
+		}
+		if (o.lo > 0) {
+			return divide(o).atan();
+		}
+		if (this.lo > 0) {
+			return point(Math.PI / 2).subtract(o.divide(this).atan());
+		}
+		if (this.hi < 0) {
+			return point(-Math.PI / 2).subtract(o.divide(this).atan());
+		}
+		return outward(-Math.PI, Math.PI);
+	}
+
+	/**
+	 * hypot berechnet das Bild von Math.hypot. hypot ist in den Beträgen
+	 * beider Argumente monoton.
+	 *
+	 * @param o Zweites Argument.
+	 * @return Einschließung der Längen.
+	 */
+	public Interval hypot(Interval o) {
+		if (isEmpty() || o.isEmpty()) {
+			return EMPTY;
+		}
+		Interval a = abs();
+		Interval b = o.abs();
+		return outward(Math.hypot(a.lo, b.lo), Math.hypot(a.hi, b.hi), 0.0, Double.POSITIVE_INFINITY);
+	}
+
+	/*
+	 * Die folgenden Methoden berechnen das Bild der gleichnamigen Funktion aus
+	 * Math. Werte außerhalb des Definitionsbereichs werden ignoriert.
+	 */
+
+	public Interval sqrt() {
+		if (isEmpty() || this.hi < 0) {
+			return EMPTY;
+		}
+		return outward(Math.sqrt(Math.max(this.lo, 0.0)), Math.sqrt(this.hi), 0.0, Double.POSITIVE_INFINITY);
+	}
+
+	public Interval log() {
+		if (isEmpty() || this.hi < 0) {
+			return EMPTY;
+		}
+		return outward(Math.log(Math.max(this.lo, 0.0)), Math.log(this.hi));
+	}
+
+	public Interval exp() {
+		if (isEmpty()) {
+			return EMPTY;
+		}
+		return outward(Math.exp(this.lo), Math.exp(this.hi), 0.0, Double.POSITIVE_INFINITY);
+	}
+
+	public Interval atan() {
+		if (isEmpty()) {
+			return EMPTY;
+		}
+		return outward(Math.atan(this.lo), Math.atan(this.hi), -Math.PI / 2, Math.PI / 2);
+	}
+
+	public Interval asin() {
+		if (isEmpty() || this.hi < -1 || this.lo > 1) {
+			return EMPTY;
+		}
+		return outward(Math.asin(Math.max(this.lo, -1)), Math.asin(Math.min(this.hi, 1)), -Math.PI / 2,
+				Math.PI / 2);
+	}
+
+	public Interval acos() {
+		if (isEmpty() || this.hi < -1 || this.lo > 1) {
+			return EMPTY;
+		}
+		return outward(Math.acos(Math.min(this.hi, 1)), Math.acos(Math.max(this.lo, -1)), 0.0, Math.PI);
+	}
+
+	public Interval sin() {
+		return periodic(Math.sin(this.lo), Math.sin(this.hi), Math.PI / 2, -Math.PI / 2);
+	}
+
+	public Interval cos() {
+		return periodic(Math.cos(this.lo), Math.cos(this.hi), 0.0, Math.PI);
+	}
+
+	/**
+	 * periodic berechnet das Bild von sin oder cos. max und min sind die Stellen
+	 * der Maxima und Minima in [-pi, pi]. Liegt ein Extremum (bis auf
+	 * EXTREMUM_SLACK) im Intervall, ist die Grenze 1 bzw. -1, sonst der größere
+	 * bzw. kleinere Randwert.
+	 */
+	private Interval periodic(double fLo, double fHi, double max, double min) {
+		if (isEmpty()) {
+			return EMPTY;
+		}
+		if (!isBounded() || Math.abs(this.lo) > MAX_REDUCTION || Math.abs(this.hi) > MAX_REDUCTION
+				|| this.hi - this.lo >= TWO_PI) {
+			return new Interval(-1.0, 1.0);
+		}
+		double hi = containsPeriodic(max) ? 1.0 : Math.max(fLo, fHi);
+		double lo = containsPeriodic(min) ? -1.0 : Math.min(fLo, fHi);
+		return outward(lo, hi, -1.0, 1.0);
+	}
+
+	private boolean containsPeriodic(double point) {
+		double k = Math.ceil((this.lo - EXTREMUM_SLACK - point) / TWO_PI);
+		return point + k * TWO_PI <= this.hi + EXTREMUM_SLACK;
+	}
+
+	public Interval tan() {
+		if (isEmpty()) {
+			return EMPTY;
+		}
+		if (!isBounded() || Math.abs(this.lo) > MAX_REDUCTION || Math.abs(this.hi) > MAX_REDUCTION
+				|| this.hi - this.lo >= Math.PI - EXTREMUM_SLACK) {
+			return ENTIRE;
+		}
+		double a = Math.tan(this.lo);
+		double b = Math.tan(this.hi);
+		// tan steigt zwischen zwei Polstellen, also liegt bei a > b eine dazwischen
+		if (a > b || containsPeriodic(Math.PI / 2) || containsPeriodic(-Math.PI / 2)) {
+			return ENTIRE;
+		}
+		return outward(a, b);
+	}
+}
@@ -1,5 +1,7 @@
 package expressions;
 
+import java.util.Arrays;
+
 import tokens.*;
 
 /**
@@ -18,6 +20,15 @@ public class NumberExpression extends Expression {
 		this.number = numToken.getNumber();
 	}
 
+	/**
+	 * Initialisiert die NumberExpression direkt mit einer Zahl.
+	 *
+	 * @param number Darzustellende Zahl.
+	 */
+	public NumberExpression(double number) {
+		this.number = number;
+	}
+
 	/**
 	 * eval wertet die NumberExpression aus. Die darzustellende Zahl wird
 	 * unverändert zurückgegeben.
@@ -30,4 +41,53 @@ public class NumberExpression extends Expression {
 	public double eval(double x) {
 		return this.number;
 	}
+
+	/**
+	 * evalBatch füllt die Ergebnisse mit der dargestellten Zahl.
+	 */
+	@Override
+	public void evalBatch(double[] in, int inOffset, double[] out, int outOffset, int len) {
+		Arrays.fill(out, outOffset, outOffset + len, this.number);
+	}
+
+	/**
+	 * evalInterval gibt das Intervall zurück, das nur die dargestellte Zahl
+	 * enthält.
+	 */
+	@Override
+	public Interval evalInterval(Interval x) {
+		return Interval.point(this.number);
+	}
+
+	/**
+	 * evalDual gibt die dargestellte Zahl mit der Ableitung 0 zurück.
+	 */
+	@Override
+	public void evalDual(double x, Dual result) {
+		result.set(this.number, 0);
+	}
+
+	/**
+	 * getNumber gibt die dargestellte Zahl zurück.
+	 *
+	 * @return Dargestellte Zahl.
+	 */
+	public double getNumber() {
+		return this.number;
+	}
+
+	/**
+	 * equals vergleicht die dargestellten Zahlen bitgenau. 0.0 und -0.0 sind also
+	 * verschieden, NaN ist gleich NaN.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof NumberExpression
+				&& Double.doubleToLongBits(((NumberExpression) o).number) == Double.doubleToLongBits(this.number);
+	}
+
+	@Override
+	public int hashCode() {
+		return Double.hashCode(this.number);
+	}
 }
@@ -13,6 +13,7 @@ public class OperatorExpression extends Expression {
 	private Token op;
 	private Expression left;
 	private Expression right;
+	private int hash;
 
 	/**
 	 * Erstellt eine OperatorExpression.
@@ -53,9 +54,18 @@ public class OperatorExpression extends Expression {
 	 */
 	@Override
 	public double eval(double x) {
-		double left = this.left.eval(x);
-		double right = this.right.eval(x);
+		return combine(this.left.eval(x), this.right.eval(x));
+	}
+
+	/**
+	 * eval wertet left und right mit x und y aus und verknüpft die Ergebnisse.
+	 */
+	@Override
+	public double eval(double x, double y) {
+		return combine(this.left.eval(x, y), this.right.eval(x, y));
+	}
 
+	private double combine(double left, double right) {
 		double ret = 0;
 		switch (op.getType()) {
 		case PLUS:
@@ -78,4 +88,204 @@ public class OperatorExpression extends Expression {
 		}
 		return ret;
 	}
+
+	/**
+	 * evalBatch wertet zuerst right in ein Hilfsarray und dann left in out aus
+	 * und verknüpft beide Spalten anschließend in einer Schleife.
+	 */
+	@Override
+	public void evalBatch(double[] in, int inOffset, double[] out, int outOffset, int len) {
+		double[] r = ScratchPool.take(len);
+		try {
+			this.right.evalBatch(in, inOffset, r, 0, len);
+			this.left.evalBatch(in, inOffset, out, outOffset, len);
+			switch (op.getType()) {
+			case PLUS:
+				for (int i = 0; i < len; i++) {
+					out[outOffset + i] = out[outOffset + i] + r[i];
+				}
+				break;
+			case MINUS:
+				for (int i = 0; i < len; i++) {
+					out[outOffset + i] = out[outOffset + i] - r[i];
+				}
+				break;
+			case TIMES:
+				for (int i = 0; i < len; i++) {
+					out[outOffset + i] = out[outOffset + i] * r[i];
+				}
+				break;
+			case DIVIDE:
+				for (int i = 0; i < len; i++) {
+					out[outOffset + i] = out[outOffset + i] / r[i];
+				}
+				break;
+			case POWER:
+				for (int i = 0; i < len; i++) {
+					out[outOffset + i] = Math.pow(out[outOffset + i], r[i]);
+				}
+				break;
+			default:
+				throw new IllegalStateException("OperatorExpression with unkown opertor");
+			}
+		} finally {
+			ScratchPool.release(r);
+		}
+	}
+
+	/**
+	 * evalInterval verknüpft die Intervalle von left und right mit der
+	 * Intervall-Version des Operators.
+	 */
+	@Override
+	public Interval evalInterval(Interval x) {
+		return combine(this.left.evalInterval(x), this.right.evalInterval(x));
+	}
+
+	/**
+	 * evalInterval verknüpft die Intervalle von left und right für x und y.
+	 */
+	@Override
+	public Interval evalInterval(Interval x, Interval y) {
+		return combine(this.left.evalInterval(x, y), this.right.evalInterval(x, y));
+	}
+
+	private Interval combine(Interval left, Interval right) {
+		switch (op.getType()) {
+		case PLUS:
+			return left.add(right);
+		case MINUS:
+			return left.subtract(right);
+		case TIMES:
+			return left.multiply(right);
+		case DIVIDE:
+			return left.divide(right);
+		case POWER:
+			return left.pow(right);
+		default:
+			throw new IllegalStateException("OperatorExpression with unkown opertor");
+		}
+	}
+
+	/**
+	 * evalDual berechnet Wert und Ableitung von left und right und verknüpft sie
+	 * mit der Summen-, Produkt-, Quotienten- bzw. Potenzregel. Konstante
+	 * Operanden werden direkt gelesen, ohne Aufruf und ohne Umweg über result.
+	 */
+	@Override
+	public void evalDual(double x, Dual result) {
+		double a;
+		double da;
+		double b;
+		double db;
+		if (this.left instanceof NumberExpression) {
+			a = ((NumberExpression) this.left).getNumber();
+			da = 0;
+		} else {
+			this.left.evalDual(x, result);
+			a = result.value;
+			da = result.derivative;
+		}
+		if (this.right instanceof NumberExpression) {
+			b = ((NumberExpression) this.right).getNumber();
+			db = 0;
+		} else {
+			this.right.evalDual(x, result);
+			b = result.value;
+			db = result.derivative;
+		}
+		switch (op.getType()) {
+		case PLUS:
+			result.set(a + b, da + db);
+			break;
+		case MINUS:
+			result.set(a - b, da - db);
+			break;
+		case TIMES:
+			result.set(a * b, da * b + a * db);
+			break;
+		case DIVIDE: {
+			double q = a / b;
+			result.set(q, (da - q * db) / b);
+			break;
+		}
+		case POWER: {
+			double p = Math.pow(a, b);
+			if (db == 0) {
+				// konstanter Exponent: b * a^(b - 1) * a', auch für a <= 0; das
+				// häufige Quadrat ohne zweiten Aufruf von Math.pow
+				if (da == 0) {
+					result.set(p, 0);
+				} else if (b == 2) {
+					result.set(p, 2 * a * da);
+				} else {
+					result.set(p, b * Math.pow(a, b - 1) * da);
+				}
+			} else {
+				result.set(p, p * (db * Math.log(a) + b * da / a));
+			}
+			break;
+		}
+		default:
+			throw new IllegalStateException("OperatorExpression with unkown opertor");
+		}
+	}
+
+	/**
+	 * getOp gibt den Operator-Token dieser Verknüpfung zurück.
+	 *
+	 * @return Operator (+ - * / ^) als Token.
+	 */
+	public Token getOp() {
+		return this.op;
+	}
+
+	/**
+	 * getLeft gibt den linken Operanden zurück.
+	 *
+	 * @return Expression auf der linken Seite des Operators.
+	 */
+	public Expression getLeft() {
+		return this.left;
+	}
+
+	/**
+	 * getRight gibt den rechten Operanden zurück.
+	 *
+	 * @return Expression auf der rechten Seite des Operators.
+	 */
+	public Expression getRight() {
+		return this.right;
+	}
+
+	/**
+	 * equals vergleicht zwei OperatorExpressions strukturell, d. h. Operator und
+	 * beide Teilbäume müssen gleich sein.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof OperatorExpression)) {
+			return false;
+		}
+		OperatorExpression other = (OperatorExpression) o;
+		return this.hashCode() == other.hashCode() && this.op.getType() == other.op.getType()
+				&& this.left.equals(other.left) && this.right.equals(other.right);
+	}
+
+	/**
+	 * hashCode wird aus Operator und Teilbäumen berechnet und beim ersten Aufruf
+	 * gespeichert, da sich der Baum nicht mehr ändert.
+	 */
+	@Override
+	public int hashCode() {
+		int h = this.hash;
+		if (h == 0) {
+			h = 31 * (31 * this.op.getType().hashCode() + this.left.hashCode()) + this.right.hashCode();
+			this.hash = h;
+		}
+		return h;
+	}
 }
@@ -0,0 +1,251 @@
+package expressions;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import tokens.FunctionToken;
+import tokens.Token;
+import tokens.TokenType;
+
+/**
+ * Optimizer vereinfacht einen Syntaxbaum, ohne die Ergebnisse von eval() zu
+ * verändern. Alle Umformungen gelten bitgenau für jede double-Zahl,
+ * einschließlich NaN, unendlicher Werte und -0.0:
+ * <ul>
+ * <li>Teilbäume ohne x werden zu einer NumberExpression ausgerechnet.</li>
+ * <li>x * 1, 1 * x, x / 1, x - 0, x + (-0.0), (-0.0) + x und x ^ 1 werden zu
+ * x.</li>
+ * <li>x ^ 0 wird zu 1 (Math.pow liefert hier auch für NaN 1).</li>
+ * <li>x ^ 2 wird zu x * x, wenn die Basis x oder y ist. Eine zusammengesetzte
+ * Basis wie (x + 1) ^ 2 bleibt eine Potenz, da sie sonst bei eval() und
+ * evalBatch() zweimal berechnet würde.</li>
+ * <li>minus(minus(x)) wird zu x.</li>
+ * </ul>
+ * x + 0 wird nicht vereinfacht, da -0.0 + 0 = 0.0 ist. Höhere Potenzen werden
+ * nicht in Multiplikationen umgeformt, da x * x * x anders gerundet wird als
+ * Math.pow(x, 3).
+ *
+ * Mehrfach referenzierte Teilbäume (z. B. aus ExpressionInterner oder
+ * parser.FunctionRegistry) werden nur einmal vereinfacht und bleiben im
+ * Ergebnis gemeinsam benutzt.
+ */
+public class Optimizer {
+	private int removedNodes;
+
+	/**
+	 * optimize gibt einen vereinfachten Syntaxbaum zurück. Der übergebene Baum
+	 * wird nicht verändert.
+	 *
+	 * @param e Zu vereinfachender Ausdruck.
+	 * @return Vereinfachter Ausdruck.
+	 */
+	public Expression optimize(Expression e) {
+		if (e instanceof CompiledExpression) {
+			e = ((CompiledExpression) e).getSource();
+		}
+		int before = nodeCount(e);
+		Expression result = simplify(e, new IdentityHashMap<>());
+		this.removedNodes += before - nodeCount(result);
+		return result;
+	}
+
+	/**
+	 * getRemovedNodes gibt an, wie viele Knoten optimize() bisher insgesamt
+	 * entfernt hat.
+	 *
+	 * @return Anzahl entfernter Knoten.
+	 */
+	public int getRemovedNodes() {
+		return this.removedNodes;
+	}
+
+	/**
+	 * nodeCount zählt die verschiedenen Knoten eines Syntaxbaumes. Ein Teilbaum,
+	 * der mehrfach referenziert wird, zählt nur einmal; das entspricht dem
+	 * Speicherbedarf und dem Aufwand von CompiledExpression und FusedEvaluator.
+	 *
+	 * @param e Syntaxbaum.
+	 * @return Anzahl der Knoten.
+	 */
+	public static int nodeCount(Expression e) {
+		return count(e, Collections.newSetFromMap(new IdentityHashMap<>()));
+	}
+
+	private static int count(Expression e, Set<Expression> seen) {
+		if (e instanceof CompiledExpression) {
+			return count(((CompiledExpression) e).getSource(), seen);
+		}
+		if (!seen.add(e)) {
+			return 0;
+		}
+		if (e instanceof OperatorExpression) {
+			OperatorExpression o = (OperatorExpression) e;
+			return 1 + count(o.getLeft(), seen) + count(o.getRight(), seen);
+		} else if (e instanceof UnaryFunctionExpression) {
+			return 1 + count(((UnaryFunctionExpression) e).getArgument(), seen);
+		} else if (e instanceof BinaryFunctionExpression) {
+			BinaryFunctionExpression f = (BinaryFunctionExpression) e;
+			return 1 + count(f.getLeft(), seen) + count(f.getRight(), seen);
+		}
+		return 1;
+	}
+
+	/**
+	 * treeSize zählt die Knoten eines Syntaxbaumes, wobei mehrfach referenzierte
+	 * Teilbäume so oft gezählt werden, wie sie vorkommen. Das ist die Zahl der
+	 * Knoten, die eval(), evalInterval() und evalDual() bei jeder Auswertung
+	 * besuchen. Sie kann exponentiell mit nodeCount wachsen und wird daher in
+	 * long berechnet und bei Long.MAX_VALUE abgeschnitten.
+	 *
+	 * @param e Syntaxbaum.
+	 * @return Anzahl der Knoten mit Wiederholungen.
+	 */
+	public static long treeSize(Expression e) {
+		return size(e, new IdentityHashMap<>());
+	}
+
+	private static long size(Expression e, Map<Expression, Long> sizes) {
+		if (e instanceof CompiledExpression) {
+			return size(((CompiledExpression) e).getSource(), sizes);
+		}
+		Long known = sizes.get(e);
+		if (known != null) {
+			return known;
+		}
+		long size = 1;
+		if (e instanceof OperatorExpression) {
+			OperatorExpression o = (OperatorExpression) e;
+			size = add(size, add(size(o.getLeft(), sizes), size(o.getRight(), sizes)));
+		} else if (e instanceof UnaryFunctionExpression) {
+			size = add(size, size(((UnaryFunctionExpression) e).getArgument(), sizes));
+		} else if (e instanceof BinaryFunctionExpression) {
+			BinaryFunctionExpression f = (BinaryFunctionExpression) e;
+			size = add(size, add(size(f.getLeft(), sizes), size(f.getRight(), sizes)));
+		}
+		sizes.put(e, size);
+		return size;
+	}
+
+	private static long add(long a, long b) {
+		long sum = a + b;
+		return sum < 0 ? Long.MAX_VALUE : sum;
+	}
+
+	/**
+	 * simplify vereinfacht e. Jeder Knoten wird nur einmal vereinfacht, das
+	 * Ergebnis steht in done.
+	 */
+	private Expression simplify(Expression e, Map<Expression, Expression> done) {
+		Expression result = done.get(e);
+		if (result == null) {
+			result = simplifyNode(e, done);
+			done.put(e, result);
+		}
+		return result;
+	}
+
+	private Expression simplifyNode(Expression e, Map<Expression, Expression> done) {
+		if (e instanceof OperatorExpression) {
+			OperatorExpression o = (OperatorExpression) e;
+			Expression left = simplify(o.getLeft(), done);
+			Expression right = simplify(o.getRight(), done);
+			if (left instanceof NumberExpression && right instanceof NumberExpression) {
+				return new NumberExpression(new OperatorExpression(o.getOp(), left, right).eval(0));
+			}
+			Expression identity = identity(o.getOp().getType(), left, right);
+			if (identity != null) {
+				return identity;
+			}
+			if (left == o.getLeft() && right == o.getRight()) {
+				return o;
+			}
+			return new OperatorExpression(o.getOp(), left, right);
+		} else if (e instanceof UnaryFunctionExpression) {
+			UnaryFunctionExpression f = (UnaryFunctionExpression) e;
+			Expression argument = simplify(f.getArgument(), done);
+			if (f.getFunction() == BuiltinFunction.MINUS && argument instanceof UnaryFunctionExpression
+					&& ((UnaryFunctionExpression) argument).getFunction() == BuiltinFunction.MINUS) {
+				return ((UnaryFunctionExpression) argument).getArgument();
+			}
+			UnaryFunctionExpression result = argument == f.getArgument() ? f
+					: new UnaryFunctionExpression(new FunctionToken(f.getName()), argument);
+			if (argument instanceof NumberExpression) {
+				try {
+					return new NumberExpression(result.eval(0));
+				} catch (IllegalArgumentException unknownFunction) {
+					// Fehler erst bei der Auswertung melden, wie beim
+					// unoptimierten Baum
+				}
+			}
+			return result;
+		} else if (e instanceof BinaryFunctionExpression) {
+			BinaryFunctionExpression f = (BinaryFunctionExpression) e;
+			Expression left = simplify(f.getLeft(), done);
+			Expression right = simplify(f.getRight(), done);
+			if (left instanceof NumberExpression && right instanceof NumberExpression) {
+				return new NumberExpression(f.getFunction().apply(left.eval(0), right.eval(0)));
+			}
+			if (left == f.getLeft() && right == f.getRight()) {
+				return f;
+			}
+			return new BinaryFunctionExpression(f.getFunction(), left, right);
+		}
+		return e;
+	}
+
+	private static Expression identity(TokenType op, Expression left, Expression right) {
+		switch (op) {
+		case TIMES:
+			if (isNumber(right, 1.0)) {
+				return left;
+			}
+			if (isNumber(left, 1.0)) {
+				return right;
+			}
+			break;
+		case DIVIDE:
+			if (isNumber(right, 1.0)) {
+				return left;
+			}
+			break;
+		case MINUS:
+			if (isNumber(right, 0.0)) {
+				return left;
+			}
+			break;
+		case PLUS:
+			if (isNumber(right, -0.0)) {
+				return left;
+			}
+			if (isNumber(left, -0.0)) {
+				return right;
+			}
+			break;
+		case POWER:
+			if (isNumber(right, 1.0)) {
+				return left;
+			}
+			if (isNumber(right, 0.0) || isNumber(right, -0.0)) {
+				return new NumberExpression(1.0);
+			}
+			if (isNumber(right, 2.0) && (left instanceof XExpression || left instanceof YExpression)) {
+				return new OperatorExpression(new Token(TokenType.TIMES), left, left);
+			}
+			break;
+		default:
+			break;
+		}
+		return null;
+	}
+
+	/**
+	 * isNumber prüft bitgenau, ob e die Zahl value darstellt. 0.0 und -0.0
+	 * werden also unterschieden.
+	 */
+	private static boolean isNumber(Expression e, double value) {
+		return e instanceof NumberExpression
+				&& Double.doubleToRawLongBits(((NumberExpression) e).getNumber()) == Double.doubleToRawLongBits(value);
+	}
+}
@@ -0,0 +1,52 @@
+package expressions;
+
+import java.util.Arrays;
+
+/**
+ * ScratchPool verwaltet pro Thread wiederverwendbare Hilfsarrays für die
+ * spaltenweise Auswertung mit evalBatch(). Arrays werden mit take() geholt und
+ * müssen nach Gebrauch in umgekehrter Reihenfolge mit release() zurückgegeben
+ * werden. Nach einigen Aufrufen liegen genug ausreichend große Arrays bereit,
+ * so dass keine neuen mehr erzeugt werden müssen.
+ */
+public final class ScratchPool {
+	private static final ThreadLocal<ScratchPool> POOLS = ThreadLocal.withInitial(ScratchPool::new);
+
+	private double[][] buffers = new double[8][];
+	private int size;
+
+	private ScratchPool() {
+	}
+
+	/**
+	 * take gibt ein Hilfsarray mit mindestens len Einträgen zurück. Der Inhalt
+	 * ist undefiniert.
+	 *
+	 * @param len Benötigte Länge.
+	 * @return Hilfsarray des aktuellen Threads.
+	 */
+	public static double[] take(int len) {
+		ScratchPool pool = POOLS.get();
+		if (pool.size > 0) {
+			double[] buffer = pool.buffers[--pool.size];
+			pool.buffers[pool.size] = null;
+			if (buffer.length >= len) {
+				return buffer;
+			}
+		}
+		return new double[len];
+	}
+
+	/**
+	 * release gibt ein mit take() geholtes Hilfsarray an den Pool zurück.
+	 *
+	 * @param buffer Nicht mehr benötigtes Hilfsarray.
+	 */
+	public static void release(double[] buffer) {
+		ScratchPool pool = POOLS.get();
+		if (pool.size == pool.buffers.length) {
+			pool.buffers = Arrays.copyOf(pool.buffers, pool.size * 2);
+		}
+		pool.buffers[pool.size++] = buffer;
+	}
+}
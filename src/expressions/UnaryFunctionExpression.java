@@ -3,24 +3,50 @@ package expressions;
 import tokens.FunctionToken;
 
 /**
- * UnaryFunctionExpression stellt eine unäre Funktion dar. Die Funktion wird mit
- * ihrem Namen identifiziert. Siehe switch-case in eval() für eine Liste der
- * darstellbaren Funktionen. Die Funktion enthält die Unter-Expression argument
- * als Funktionsargument und stellt somit die Funktion name(argument) dar.
+ * UnaryFunctionExpression stellt eine unäre Funktion dar. Der Name wird im
+ * Konstruktor einmal zu einer BuiltinFunction aufgelöst; eval() und die
+ * anderen Auswertungen verzweigen nur noch über diese Konstante. Die Funktion
+ * enthält die Unter-Expression argument als Funktionsargument und stellt somit
+ * die Funktion name(argument) dar.
  */
 public class UnaryFunctionExpression extends Expression {
 	private final String name;
+	private final BuiltinFunction function;
 	private final Expression argument;
+	private int hash;
 
 	/**
 	 * Initialisiert die UnaryFunctionExpression.
 	 * 
+	 * Ist der Name keine eingebaute Funktion mit einem Argument, wird der Knoten
+	 * trotzdem erzeugt; die Auswertung wirft dann eine
+	 * IllegalArgumentException.
+	 *
 	 * @param f        Name der darzustellenden Funktion (z. B. sin, cos, sqrt) als
-	 *                 Token. Siehe eval() für unterstützte Funktionen.
+	 *                 Token. Siehe BuiltinFunction für unterstützte Funktionen.
 	 * @param argument Ausdruck, der als Funktionsargument genutzt wird.
 	 */
 	public UnaryFunctionExpression(FunctionToken funToken, Expression argument) {
+		BuiltinFunction f = BuiltinFunction.of(funToken.getName());
 		this.name = funToken.getName();
+		this.function = f != null && f.getArity() == 1 ? f : null;
+		this.argument = argument;
+	}
+
+	/**
+	 * Initialisiert die UnaryFunctionExpression mit einer bereits aufgelösten
+	 * Funktion.
+	 *
+	 * @param function Eingebaute Funktion mit einem Argument.
+	 * @param argument Ausdruck, der als Funktionsargument genutzt wird.
+	 * @throws IllegalArgumentException wenn function zwei Argumente erwartet.
+	 */
+	public UnaryFunctionExpression(BuiltinFunction function, Expression argument) {
+		if (function.getArity() != 1) {
+			throw new IllegalArgumentException(function.getName() + " erwartet zwei Argumente");
+		}
+		this.name = function.getName();
+		this.function = function;
 		this.argument = argument;
 	}
 
@@ -39,44 +65,262 @@ public class UnaryFunctionExpression extends Expression {
 	 */
 	@Override
 	public double eval(double x) {
-		double ret = this.argument.eval(x);
-		switch (this.name) {
-		case "sin":
-			ret = Math.sin(ret);
+		return apply(this.argument.eval(x));
+	}
+
+	/**
+	 * eval setzt das mit x und y ausgewertete Argument in die Funktion ein.
+	 */
+	@Override
+	public double eval(double x, double y) {
+		return apply(this.argument.eval(x, y));
+	}
+
+	private double apply(double u) {
+		return resolved().apply(u);
+	}
+
+	/**
+	 * evalBatch wertet zuerst das Argument in out aus und wendet dann die
+	 * Funktion in einer Schleife auf alle Werte an.
+	 */
+	@Override
+	public void evalBatch(double[] in, int inOffset, double[] out, int outOffset, int len) {
+		this.argument.evalBatch(in, inOffset, out, outOffset, len);
+		int end = outOffset + len;
+		switch (resolved()) {
+		case SIN:
+			for (int i = outOffset; i < end; i++) {
+				out[i] = Math.sin(out[i]);
+			}
 			break;
-		case "cos":
-			ret = Math.cos(ret);
+		case COS:
+			for (int i = outOffset; i < end; i++) {
+				out[i] = Math.cos(out[i]);
+			}
 			break;
-		case "tan":
-			ret = Math.tan(ret);
+		case TAN:
+			for (int i = outOffset; i < end; i++) {
+				out[i] = Math.tan(out[i]);
+			}
 			break;
-		case "log":
-			ret = Math.log(ret);
+		case LOG:
+			for (int i = outOffset; i < end; i++) {
+				out[i] = Math.log(out[i]);
+			}
 			break;
-		case "sqrt":
-			ret = Math.sqrt(ret);
+		case SQRT:
+			for (int i = outOffset; i < end; i++) {
+				out[i] = Math.sqrt(out[i]);
+			}
 			break;
-		case "asin":
-			ret = Math.asin(ret);
+		case ASIN:
+			for (int i = outOffset; i < end; i++) {
+				out[i] = Math.asin(out[i]);
+			}
 			break;
-		case "acos":
-			ret = Math.acos(ret);
+		case ACOS:
+			for (int i = outOffset; i < end; i++) {
+				out[i] = Math.acos(out[i]);
+			}
 			break;
-		case "atan":
-			ret = Math.atan(ret);
+		case ATAN:
+			for (int i = outOffset; i < end; i++) {
+				out[i] = Math.atan(out[i]);
+			}
 			break;
-		case "abs":
-			ret = Math.abs(ret);
+		case ABS:
+			for (int i = outOffset; i < end; i++) {
+				out[i] = Math.abs(out[i]);
+			}
 			break;
-		case "exp":
-			ret = Math.exp(ret);
+		case EXP:
+			for (int i = outOffset; i < end; i++) {
+				out[i] = Math.exp(out[i]);
+			}
 			break;
-		case "minus":
-			ret = -ret;
+		case MINUS:
+			for (int i = outOffset; i < end; i++) {
+				out[i] = -out[i];
+			}
 			break;
 		default:
+			throw new IllegalStateException("Unkown function " + this.name);
+		}
+	}
+
+	/**
+	 * evalInterval setzt das Intervall des Arguments in die Intervall-Version
+	 * der Funktion ein.
+	 */
+	@Override
+	public Interval evalInterval(Interval x) {
+		return apply(this.argument.evalInterval(x));
+	}
+
+	/**
+	 * evalInterval setzt das Intervall des Arguments für x und y in die
+	 * Intervall-Version der Funktion ein.
+	 */
+	@Override
+	public Interval evalInterval(Interval x, Interval y) {
+		return apply(this.argument.evalInterval(x, y));
+	}
+
+	private Interval apply(Interval argument) {
+		switch (resolved()) {
+		case SIN:
+			return argument.sin();
+		case COS:
+			return argument.cos();
+		case TAN:
+			return argument.tan();
+		case LOG:
+			return argument.log();
+		case SQRT:
+			return argument.sqrt();
+		case ASIN:
+			return argument.asin();
+		case ACOS:
+			return argument.acos();
+		case ATAN:
+			return argument.atan();
+		case ABS:
+			return argument.abs();
+		case EXP:
+			return argument.exp();
+		case MINUS:
+			return argument.negate();
+		default:
+			throw new IllegalStateException("Unkown function " + this.name);
+		}
+	}
+
+	/**
+	 * evalDual berechnet Wert und Ableitung des Arguments und wendet die
+	 * Kettenregel an: f(u)' = f'(u) * u'.
+	 */
+	@Override
+	public void evalDual(double x, Dual result) {
+		this.argument.evalDual(x, result);
+		double u = result.value;
+		double du = result.derivative;
+		switch (resolved()) {
+		case SIN:
+			result.set(Math.sin(u), Math.cos(u) * du);
+			break;
+		case COS:
+			result.set(Math.cos(u), -(Math.sin(u) * du));
+			break;
+		case TAN: {
+			double t = Math.tan(u);
+			result.set(t, (1 + t * t) * du);
+			break;
+		}
+		case LOG:
+			result.set(Math.log(u), du / u);
+			break;
+		case SQRT: {
+			double r = Math.sqrt(u);
+			result.set(r, du / (2 * r));
+			break;
+		}
+		case ASIN:
+			result.set(Math.asin(u), du / Math.sqrt(1 - u * u));
+			break;
+		case ACOS:
+			result.set(Math.acos(u), -(du / Math.sqrt(1 - u * u)));
+			break;
+		case ATAN:
+			result.set(Math.atan(u), du / (1 + u * u));
+			break;
+		case ABS: {
+			double a = Math.abs(u);
+			result.set(a, u / a * du);
+			break;
+		}
+		case EXP: {
+			double e = Math.exp(u);
+			result.set(e, e * du);
+			break;
+		}
+		case MINUS:
+			result.set(-u, -du);
+			break;
+		default:
+			throw new IllegalStateException("Unkown function " + this.name);
+		}
+	}
+
+	/**
+	 * getName gibt den Namen der dargestellten Funktion zurück.
+	 *
+	 * @return Name der Funktion, z. B. sin.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * getFunction gibt die eingebaute Funktion zurück, die dieser Knoten
+	 * berechnet.
+	 *
+	 * @return Funktion oder null, wenn der Name keine eingebaute Funktion mit
+	 *         einem Argument ist.
+	 */
+	public BuiltinFunction getFunction() {
+		return this.function;
+	}
+
+	/**
+	 * getArgument gibt das Funktionsargument zurück.
+	 *
+	 * @return Expression, die als Funktionsargument genutzt wird.
+	 */
+	public Expression getArgument() {
+		return this.argument;
+	}
+
+	/**
+	 * equals vergleicht zwei UnaryFunctionExpressions strukturell, d. h.
+	 * Funktionsname und Argument müssen gleich sein.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof UnaryFunctionExpression)) {
+			return false;
+		}
+		UnaryFunctionExpression other = (UnaryFunctionExpression) o;
+		return this.hashCode() == other.hashCode() && this.name.equals(other.name)
+				&& this.argument.equals(other.argument);
+	}
+
+	/**
+	 * hashCode wird aus Name und Argument berechnet und beim ersten Aufruf
+	 * gespeichert.
+	 */
+	@Override
+	public int hashCode() {
+		int h = this.hash;
+		if (h == 0) {
+			h = 31 * this.name.hashCode() + this.argument.hashCode();
+			this.hash = h;
+		}
+		return h;
+	}
+
+	/**
+	 * resolved gibt die aufgelöste Funktion zurück.
+	 *
+	 * @throws IllegalArgumentException bei unbekanntem Funktionsnamen.
+	 */
+	private BuiltinFunction resolved() {
+		if (this.function == null) {
 			throw new IllegalArgumentException("Unkown function " + this.name);
 		}
-		return ret;
+		return this.function;
 	}
 }
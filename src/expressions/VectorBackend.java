@@ -0,0 +1,66 @@
+package expressions;
+
+/**
+ * VectorBackend wertet Expressions spaltenweise mit der Vector API
+ * (jdk.incubator.vector) aus, falls diese zur Laufzeit verfügbar ist und die
+ * CPU mindestens zwei double-Werte pro Vektorregister verarbeiten kann.
+ *
+ * Die Implementierung liegt im Quellordner srcVector und wird beim ersten
+ * Zugriff per Reflection geladen, damit der Rest des Projekts ohne das
+ * Inkubator-Modul übersetzt und ausgeführt werden kann. Ist das Modul nicht
+ * vorhanden (JVM ohne --add-modules jdk.incubator.vector), die Hardware zu
+ * schmal oder das System-Property plotter.vector auf false gesetzt, wird
+ * automatisch Expression.evalBatch() benutzt.
+ *
+ * Die Grundrechenarten sowie abs, sqrt und minus liefern exakt dieselben
+ * Ergebnisse wie eval(). sin, cos, exp und log werden durch Polynome
+ * angenähert und können um wenige ULP abweichen, siehe
+ * expressions.vector.VectorEvaluator.
+ */
+public final class VectorBackend {
+	private static final String IMPLEMENTATION = "expressions.vector.VectorEvaluator";
+	private static final BatchEvaluator EVALUATOR = load();
+
+	private VectorBackend() {
+	}
+
+	private static BatchEvaluator load() {
+		if (!Boolean.parseBoolean(System.getProperty("plotter.vector", "true"))) {
+			return null;
+		}
+		try {
+			return (BatchEvaluator) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * isAvailable gibt an, ob die Auswertung tatsächlich mit SIMD-Befehlen
+	 * erfolgt.
+	 *
+	 * @return true, falls die Vector API benutzt wird.
+	 */
+	public static boolean isAvailable() {
+		return EVALUATOR != null;
+	}
+
+	/**
+	 * evalBatch wertet e für len x-Werte aus. Ohne Vector API wird
+	 * e.evalBatch() aufgerufen.
+	 *
+	 * @param e         Auszuwertender Ausdruck.
+	 * @param in        x-Werte.
+	 * @param inOffset  Index des ersten x-Wertes in in.
+	 * @param out       Array für die Ergebnisse.
+	 * @param outOffset Index, an den das erste Ergebnis geschrieben wird.
+	 * @param len       Anzahl der auszuwertenden x-Werte.
+	 */
+	public static void evalBatch(Expression e, double[] in, int inOffset, double[] out, int outOffset, int len) {
+		if (EVALUATOR != null) {
+			EVALUATOR.evalBatch(e, in, inOffset, out, outOffset, len);
+		} else {
+			e.evalBatch(in, inOffset, out, outOffset, len);
+		}
+	}
+}
@@ -17,4 +17,43 @@ public class XExpression extends Expression {
 	public double eval(double x) {
 		return x;
 	}
+
+	/**
+	 * evalBatch kopiert die x-Werte unverändert in die Ergebnisse.
+	 */
+	@Override
+	public void evalBatch(double[] in, int inOffset, double[] out, int outOffset, int len) {
+		if (in != out || inOffset != outOffset) {
+			System.arraycopy(in, inOffset, out, outOffset, len);
+		}
+	}
+
+	/**
+	 * evalInterval gibt das Eingabeintervall unverändert zurück.
+	 */
+	@Override
+	public Interval evalInterval(Interval x) {
+		return x;
+	}
+
+	/**
+	 * evalDual gibt x mit der Ableitung 1 zurück.
+	 */
+	@Override
+	public void evalDual(double x, Dual result) {
+		result.set(x, 1);
+	}
+
+	/**
+	 * equals gibt true zurück, wenn o ebenfalls eine XExpression ist.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof XExpression;
+	}
+
+	@Override
+	public int hashCode() {
+		return XExpression.class.hashCode();
+	}
 }
@@ -0,0 +1,80 @@
+package expressions;
+
+import java.util.Arrays;
+
+/**
+ * YExpression stellt die Variable y als Expression dar. Sie wird für implizite
+ * Kurven F(x, y) = 0 benötigt und nur von eval(x, y) und evalInterval(x, y)
+ * belegt. Bei der Auswertung mit x allein ist y unbekannt und ergibt NaN.
+ */
+public class YExpression extends Expression {
+
+	/**
+	 * eval gibt NaN zurück, da y bei eval(x) nicht belegt ist.
+	 *
+	 * @param x Der für x einzusetzende Wert.
+	 * @return NaN.
+	 */
+	@Override
+	public double eval(double x) {
+		return Double.NaN;
+	}
+
+	/**
+	 * eval gibt den Parameter y unverändert zurück.
+	 *
+	 * @param x Der für x einzusetzende Wert.
+	 * @param y Der für y einzusetzende Wert.
+	 * @return y.
+	 */
+	@Override
+	public double eval(double x, double y) {
+		return y;
+	}
+
+	/**
+	 * evalBatch füllt die Ergebnisse mit NaN, da y nicht belegt ist.
+	 */
+	@Override
+	public void evalBatch(double[] in, int inOffset, double[] out, int outOffset, int len) {
+		Arrays.fill(out, outOffset, outOffset + len, Double.NaN);
+	}
+
+	/**
+	 * evalInterval gibt das leere Intervall zurück, da y nicht belegt ist.
+	 */
+	@Override
+	public Interval evalInterval(Interval x) {
+		return Interval.EMPTY;
+	}
+
+	/**
+	 * evalInterval gibt das Intervall der y-Werte unverändert zurück.
+	 */
+	@Override
+	public Interval evalInterval(Interval x, Interval y) {
+		return y;
+	}
+
+	/**
+	 * evalDual gibt NaN zurück, da y nicht belegt ist. Die Ableitung nach x ist
+	 * 0.
+	 */
+	@Override
+	public void evalDual(double x, Dual result) {
+		result.set(Double.NaN, 0);
+	}
+
+	/**
+	 * equals gibt true zurück, wenn o ebenfalls eine YExpression ist.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof YExpression;
+	}
+
+	@Override
+	public int hashCode() {
+		return YExpression.class.hashCode();
+	}
+}
@@ -0,0 +1,203 @@
+package grid;
+
+import expressions.Expression;
+import expressions.Interval;
+import expressions.ScratchPool;
+
+/**
+ * AdaptiveSampler wählt die Stützstellen einer Funktion abhängig von ihrem
+ * Verlauf. Der Bereich wird zunächst in gleich breite Intervalle (eines je
+ * INITIAL_PIXELS Pixel) geteilt. Jedes Intervall wird in der Mitte ausgewertet
+ * und halbiert, solange der Funktionswert in der Mitte um mehr als tolerance
+ * Pixel von der Sehne zwischen den Randpunkten abweicht. Flache Bereiche
+ * kommen so mit wenigen Auswertungen aus, stark gekrümmte oder steile Bereiche
+ * wie bei tan(x) oder log(x) nahe 0 werden fein aufgelöst.
+ *
+ * Ein Intervall wird außerdem geteilt, wenn nur ein Teil seiner Werte endlich
+ * ist, damit Definitionslücken und Polstellen genau eingegrenzt werden. Die
+ * Teilung endet spätestens nach maxDepth Halbierungen, bei Intervallen
+ * schmaler als MIN_PIXELS Pixel oder wenn maxSamples Auswertungen erreicht
+ * sind.
+ *
+ * Für die Anfangsintervalle und für Intervalle, deren Randwerte außerhalb der
+ * Ansicht liegen, wird mit Expression.evalInterval eine Einschließung der
+ * Funktionswerte berechnet. Liegt sie ganz außerhalb der Ansicht, wird das
+ * Intervall nicht weiter ausgewertet. Ist sie unbeschränkt, kann das Intervall
+ * eine Polstelle enthalten. Es wird dann bis zur kleinsten Breite geteilt und
+ * an Sprüngen von oberhalb nach unterhalb der Ansicht (oder umgekehrt) ein
+ * NaN-Wert eingefügt, damit keine senkrechte Linie gezeichnet wird.
+ */
+public class AdaptiveSampler {
+	public static final double DEFAULT_TOLERANCE = 0.5;
+	public static final int DEFAULT_MAX_DEPTH = 16;
+	public static final int DEFAULT_MAX_SAMPLES = 1 << 16;
+	private static final double INITIAL_PIXELS = 16;
+	private static final double MIN_PIXELS = 0.25;
+
+	private final double tolerance;
+	private final int maxDepth;
+	private final int maxSamples;
+
+	/**
+	 * Erzeugt einen Sampler mit einer Toleranz von einem halben Pixel.
+	 */
+	public AdaptiveSampler() {
+		this(DEFAULT_TOLERANCE, DEFAULT_MAX_DEPTH, DEFAULT_MAX_SAMPLES);
+	}
+
+	/**
+	 * Erzeugt einen Sampler.
+	 *
+	 * @param tolerance  Erlaubte Abweichung zwischen Funktion und gezeichneter
+	 *                   Linie in Pixeln.
+	 * @param maxDepth   Höchstzahl der Halbierungen eines Anfangsintervalls.
+	 * @param maxSamples Höchstzahl der Auswertungen pro Aufruf von sample().
+	 * @throws IllegalArgumentException wenn tolerance nicht positiv, maxDepth
+	 *                                  negativ oder maxSamples kleiner als 2
+	 *                                  ist.
+	 */
+	public AdaptiveSampler(double tolerance, int maxDepth, int maxSamples) {
+		if (!(tolerance > 0) || maxDepth < 0 || maxSamples < 2) {
+			throw new IllegalArgumentException("Ungueltige Parameter fuer AdaptiveSampler");
+		}
+		this.tolerance = tolerance;
+		this.maxDepth = maxDepth;
+		this.maxSamples = maxSamples;
+	}
+
+	/**
+	 * sample wertet e zwischen xMin und xMax (einschließlich) für eine Ansicht
+	 * der Größe width x height Pixel aus, die den y-Bereich yMin bis yMax zeigt.
+	 *
+	 * @param e      Auszuwertende Funktion.
+	 * @param xMin   Linker Rand.
+	 * @param xMax   Rechter Rand, größer als xMin.
+	 * @param yMin   Unterer Rand.
+	 * @param yMax   Oberer Rand, größer als yMin.
+	 * @param width  Breite der Ansicht in Pixeln.
+	 * @param height Höhe der Ansicht in Pixeln.
+	 * @return Stützstellen in aufsteigender x-Reihenfolge.
+	 * @throws IllegalArgumentException wenn ein Bereich leer ist.
+	 */
+	public Samples sample(Expression e, double xMin, double xMax, double yMin, double yMax, int width, int height) {
+		if (!(xMax > xMin) || !(yMax > yMin) || width < 1 || height < 1) {
+			throw new IllegalArgumentException("Leerer Bereich");
+		}
+		int intervals = (int) Math.min(this.maxSamples - 1, Math.max(1, Math.ceil(width / INITIAL_PIXELS)));
+		Samples samples = new Samples(4 * intervals);
+		new Run(e, xMin, (xMax - xMin) / intervals, intervals, yMin, yMax, width / (xMax - xMin),
+				height / (yMax - yMin), samples).run();
+		return samples;
+	}
+
+	/**
+	 * Run enthält den Zustand eines Aufrufs von sample().
+	 */
+	private final class Run {
+		private final Expression e;
+		private final double xMin;
+		private final double step;
+		private final int intervals;
+		private final double yMin;
+		private final double yMax;
+		private final double minWidth;
+		private final double maxError;
+		private final Samples samples;
+		private int evaluations;
+
+		private Run(Expression e, double xMin, double step, int intervals, double yMin, double yMax, double xScale,
+				double yScale, Samples samples) {
+			this.e = e;
+			this.xMin = xMin;
+			this.step = step;
+			this.intervals = intervals;
+			this.yMin = yMin;
+			this.yMax = yMax;
+			this.minWidth = MIN_PIXELS / xScale;
+			this.maxError = tolerance / yScale;
+			this.samples = samples;
+		}
+
+		private void run() {
+			int n = intervals + 1;
+			double[] xs = ScratchPool.take(n);
+			double[] ys = ScratchPool.take(n);
+			try {
+				for (int i = 0; i < n; i++) {
+					xs[i] = xMin + i * step;
+				}
+				e.evalBatch(xs, 0, ys, 0, n);
+				evaluations = n;
+				samples.add(xs[0], ys[0]);
+				for (int i = 1; i < n; i++) {
+					refine(xs[i - 1], ys[i - 1], xs[i], ys[i], 0, true);
+					samples.add(xs[i], ys[i]);
+				}
+			} finally {
+				ScratchPool.release(ys);
+				ScratchPool.release(xs);
+			}
+			samples.setEvaluations(evaluations);
+		}
+
+		/**
+		 * refine fügt die Stützstellen im Inneren von (a, b) hinzu. Bei check wird
+		 * vorher mit Intervallarithmetik geprüft, ob die Funktion in (a, b)
+		 * überhaupt sichtbar ist.
+		 */
+		private void refine(double a, double fa, double b, double fb, int depth, boolean check) {
+			if (evaluations >= maxSamples) {
+				return;
+			}
+			boolean pole = false;
+			if (check) {
+				Interval range = e.evalInterval(a, b);
+				if (!range.intersects(yMin, yMax)) {
+					return; // ganz oberhalb, unterhalb oder undefiniert
+				}
+				pole = !range.isBounded();
+			}
+			double m = 0.5 * (a + b);
+			double fm = e.eval(m);
+			evaluations++;
+			if (depth < maxDepth && b - a > minWidth && (pole || needsSplit(fa, fm, fb))) {
+				refine(a, fa, m, fm, depth + 1, pole || (!isVisible(fa) && !isVisible(fm)));
+				samples.add(m, fm);
+				refine(m, fm, b, fb, depth + 1, pole || (!isVisible(fm) && !isVisible(fb)));
+			} else if (pole) {
+				// Sprünge über die ganze Höhe an einer möglichen Polstelle werden
+				// nicht verbunden
+				if (crossesView(fa, fm)) {
+					samples.add(0.5 * (a + m), Double.NaN);
+				}
+				samples.add(m, fm);
+				if (crossesView(fm, fb)) {
+					samples.add(0.5 * (m + b), Double.NaN);
+				}
+			} else {
+				samples.add(m, fm);
+			}
+		}
+
+		private boolean crossesView(double f, double g) {
+			return (f > yMax && g < yMin) || (f < yMin && g > yMax);
+		}
+
+		private boolean isVisible(double f) {
+			return f >= yMin && f <= yMax;
+		}
+
+		private boolean needsSplit(double fa, double fm, double fb) {
+			boolean finiteA = Double.isFinite(fa);
+			boolean finiteM = Double.isFinite(fm);
+			boolean finiteB = Double.isFinite(fb);
+			if (!(finiteA && finiteM && finiteB)) {
+				return finiteA || finiteM || finiteB;
+			}
+			if ((fa > yMax && fm > yMax && fb > yMax) || (fa < yMin && fm < yMin && fb < yMin)) {
+				return false; // nicht sichtbar
+			}
+			return Math.abs(fm - 0.5 * (fa + fb)) > maxError;
+		}
+	}
+}
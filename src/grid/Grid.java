@@ -3,10 +3,16 @@ package grid;
 import javax.swing.*;
 
 import expressions.*;
+import metrics.Metrics;
+import render.PlotPainter;
+import render.RenderPipeline;
+import render.Viewport;
+import render.ViewportEngine;
 import shuntingyard.ShuntingYard;
 import tokens.*;
 
 import java.awt.*;
+import java.util.List;
 
 public class Grid extends JFrame {
 	public static int width = 1024;
@@ -16,8 +22,16 @@ public class Grid extends JFrame {
 	public static double xMin = -10.0;
 	public static double yMax = 10.0;
 	public static double yMin = -10.0;
-	public static double steps = 0.1;
 	public final static double MID = 0.0;
+	private final static ParallelSampler SAMPLER = new ParallelSampler();
+	private final static PlotPainter PAINTER = new PlotPainter();
+	private final static ExpressionCache FORMULAS = new ExpressionCache(256, 1 << 16,
+			ExpressionCache.Form.OPTIMIZED);
+	private final static List<String> CURVES = List.of("-1", "sin(8 + 3 - 5 * x)", "sin(x)", "log(5 * (3 + x))",
+			"x^2 + 3");
+	private final static List<Color> COLORS = List.of(Color.RED, Color.GREEN, Color.CYAN, Color.ORANGE,
+			Color.MAGENTA);
+	private final RenderPipeline pipeline = new RenderPipeline(new ViewportEngine(FORMULAS, PAINTER), this::repaint);
 
 	/**
 	 * Konstruktor aus der Uebung
@@ -60,6 +74,16 @@ public class Grid extends JFrame {
 		return Grid.height - (int) ((yValue - Grid.yMin) * Grid.height / (Grid.yMax - Grid.yMin));
 	}
 
+	/**
+	 * viewport gibt den aktuellen Ausschnitt xMin bis xMax, yMin bis yMax für
+	 * width x height Pixel zurück.
+	 *
+	 * @return Aktueller Ausschnitt.
+	 */
+	public static Viewport viewport() {
+		return new Viewport(Grid.xMin, Grid.xMax, Grid.yMin, Grid.yMax, Grid.width, Grid.height);
+	}
+
 	/**
 	 * drawLine nutzt die convert-Funktionen, um einen Koordinatenpunkt zu zeichnen.
 	 */
@@ -71,76 +95,61 @@ public class Grid extends JFrame {
 	 * coordinates zeichnet ein Koordinatenkreuz
 	 */
 	public void coordinates(Graphics g) {
-		g.setColor(Color.RED);
-		drawLine(g, Grid.MID, Grid.yMin, Grid.MID, Grid.yMax);// vertical
-		drawLine(g, Grid.xMin, Grid.MID, Grid.xMax, Grid.MID);// horizontal
+		PAINTER.axes(g, viewport());
 	}
 
 	/**
 	 * coordinates zeichnet ein Koordinatensystem
 	 */
 	public void coordinateSystem(Graphics g) {
-		int counter = 0;
-		for/* vertical lines */ (double xValue = Grid.MID; xValue <= Grid.xMax; xValue += 0.2, counter++) {
-			if (counter % 5 == 0) {
-				g.setColor(Color.GRAY);
-			} else {
-				g.setColor(Color.LIGHT_GRAY);
-			}
-			drawLine(g, xValue, Grid.yMin, xValue, Grid.yMax);
-			drawLine(g, -xValue, Grid.yMin, -xValue, Grid.yMax);
-		}
-		counter = 0;
-		for/* horizontal lines */ (double yValue = Grid.MID; yValue <= Grid.yMax; yValue += 0.2, counter++) {
-			if (counter % 5 == 0) {
-				g.setColor(Color.GRAY);
-			} else {
-				g.setColor(Color.LIGHT_GRAY);
-			}
-			drawLine(g, Grid.xMin, yValue, Grid.xMax, yValue);
-			drawLine(g, Grid.xMin, -yValue, Grid.xMax, -yValue);
-		}
+		PAINTER.grid(g, viewport());
 	}
 
 	/**
 	 * labels zeichnet Achsenbeschriftungen bei ganzen Zahlen.
 	 */
-	public void labels(Graphics g) {// TODO: constant for the shift
-		g.setColor(Color.BLACK);
-		g.setFont(new Font("Helvetica", Font.PLAIN, 12));
-		for/* x-axis */ (int xLabel = (int) Grid.xMin; xLabel <= (int) Grid.xMax; xLabel++) {
-			if (xLabel == 0) {
-				continue;
-			}
-			g.drawString(Integer.valueOf(xLabel).toString(), currentWidth(xLabel), currentHeight(-0.4));
-		}
-
-		for/* y-axis */ (int yLabel = (int) Grid.yMin; yLabel <= (int) Grid.xMax; yLabel++) {
-			if (yLabel == 0) {
-				continue;
-			}
-			g.drawString(Integer.valueOf(yLabel).toString(), currentWidth(-0.4), currentHeight(yLabel));
-		}
+	public void labels(Graphics g) {
+		PAINTER.labels(g, viewport());
 	}
 
 	/**
 	 * plot zeichnet die durch die Expression e angegebene Funktion in der
-	 * angegebenen Farbe in g.
+	 * angegebenen Farbe in g. Die Stützstellen wählt der AdaptiveSampler so, dass
+	 * die gezeichnete Linie höchstens einen halben Pixel von der Funktion
+	 * abweicht. Strecken mit nicht endlichen Werten werden ausgelassen.
 	 */
 	public void plot(Graphics g, Expression e, Color c) {
-		g.setColor(c);
-		double lastX, lastY;// lastX, lastY old values
-		lastX = Grid.xMin;
-		lastY = e.eval(lastX);
-
-		for (double x = Grid.xMin + steps; x <= Grid.xMax; x += Grid.steps) {
-			double y = e.eval(x);
-			drawLine(g, lastX, lastY, x, y);
+		PAINTER.plot(g, viewport(), e, c);
+	}
 
-			lastX = x;
-			lastY = y;
+	/**
+	 * plot zeichnet die Funktion e mit einer festen Anzahl von Stützstellen
+	 * zwischen xMin und xMax. Für sehr viele Stützstellen wird parallel
+	 * ausgewertet, siehe ParallelSampler. Gezeichnet werden höchstens vier Punkte
+	 * pro Pixelspalte, siehe M4Decimator.
+	 */
+	public void plot(Graphics g, Expression e, Color c, int samples) {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		g.setColor(c);
+		double[] ys = SAMPLER.sample(e, Grid.xMin, Grid.xMax, samples);
+		double step = (Grid.xMax - Grid.xMin) / (samples - 1);
+		M4Decimator lines = new M4Decimator(g, Grid.xMin, Grid.xMax, Grid.yMin, Grid.yMax, Grid.width,
+				Grid.height);
+		for (int i = 0; i < samples; i++) {
+			lines.add(Grid.xMin + i * step, ys[i]);
+		}
+		lines.endLine();
+		if (Metrics.ENABLED) {
+			Metrics.plotted("fixed", e, ys, samples, samples, start);
 		}
+	}
 
+	/**
+	 * plotImplicit zeichnet die Kurve f(x, y) = 0 in der angegebenen Farbe in g,
+	 * siehe ImplicitPlotter.
+	 */
+	public void plotImplicit(Graphics g, Expression f, Color c) {
+		PAINTER.plotImplicit(g, viewport(), f, c);
 	}
 
 	public static void setMinX(double x) {
@@ -177,9 +186,8 @@ public class Grid extends JFrame {
 	 * paint-Methode wie in der Vorlesung
 	 */
 	public void paint(Graphics g) {
-		coordinateSystem(g);
-		coordinates(g);
-		labels(g);
+		// Hintergrund und Kurven werden von pipeline außerhalb des EDT gezeichnet,
+		// siehe Part5
 
 		// Part1
 //			plot(g, new HardcodedLim(), Color.PINK);
@@ -261,21 +269,8 @@ public class Grid extends JFrame {
 		 */
 
 		// Part5
-		Expression e = Expression.parseInfixString("-1");
-		Expression f = Expression.parseInfixString("sin(8 + 3 - 5 * x)");
-		Expression h = Expression.parseInfixString("sin(x)");
-		Expression i = Expression.parseInfixString("log(5 * (3 + x))");
-		Expression j = Expression.parseInfixString("x^2 + 3");
-
-		try {
-			plot(g, e, Color.RED);
-			plot(g, f, Color.GREEN);
-			plot(g, h, Color.CYAN);
-			plot(g, i, Color.ORANGE);
-			plot(g, j, Color.MAGENTA);
-		} catch (Exception p) {
-			p.printStackTrace();
-		}
+		pipeline.request(viewport(), CURVES, COLORS);
+		pipeline.paint(g);
 
 	}
 }
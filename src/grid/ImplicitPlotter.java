@@ -0,0 +1,215 @@
+package grid;
+
+import expressions.Expression;
+import expressions.Interval;
+
+/**
+ * ImplicitPlotter berechnet die Kurve F(x, y) = 0 einer Expression mit den
+ * Variablen x und y, etwa x^2 + y^2 - 25 für einen Kreis.
+ *
+ * Die Ansicht wird in quadratische Anfangszellen von ROOT_PIXELS Pixeln
+ * geteilt. Für jede Zelle wird mit Expression.evalInterval eine Einschließung
+ * der Werte von F berechnet. Enthält sie die 0 nicht, kann die Kurve die Zelle
+ * nicht schneiden und sie wird verworfen. Andernfalls wird sie geviertelt, bis
+ * sie höchstens minCellPixels Pixel breit ist. Der Aufwand wächst so mit der
+ * Länge der Kurve und nicht mit der Fläche der Ansicht.
+ *
+ * In den kleinsten Zellen wird F an den vier Ecken ausgewertet und die Kurve
+ * mit Marching Squares als Strecke zwischen den linear interpolierten
+ * Vorzeichenwechseln der Kanten angenähert. Wechselt das Vorzeichen an allen
+ * vier Kanten, entscheidet der Wert in der Mitte, wie die Kanten verbunden
+ * werden. Zellen mit nicht endlichen Eckwerten werden ausgelassen, ebenso
+ * Berührpunkte ohne Vorzeichenwechsel wie bei (x^2 + y^2 - 1)^2.
+ */
+public class ImplicitPlotter {
+	public static final double DEFAULT_MIN_CELL_PIXELS = 2;
+	public static final int DEFAULT_MAX_CELLS = 1 << 18;
+	private static final double ROOT_PIXELS = 64;
+
+	private final double minCellPixels;
+	private final int maxCells;
+
+	/**
+	 * Erzeugt einen ImplicitPlotter mit Zellen von höchstens zwei Pixeln.
+	 */
+	public ImplicitPlotter() {
+		this(DEFAULT_MIN_CELL_PIXELS, DEFAULT_MAX_CELLS);
+	}
+
+	/**
+	 * Erzeugt einen ImplicitPlotter.
+	 *
+	 * @param minCellPixels Breite, ab der Zellen nicht weiter geteilt werden, in
+	 *                      Pixeln.
+	 * @param maxCells      Höchstzahl der geprüften Zellen pro Aufruf von
+	 *                      plot(). Ist sie erreicht, werden die übrigen Zellen
+	 *                      ohne weitere Teilung gezeichnet.
+	 * @throws IllegalArgumentException wenn minCellPixels nicht positiv oder
+	 *                                  maxCells kleiner als 1 ist.
+	 */
+	public ImplicitPlotter(double minCellPixels, int maxCells) {
+		if (!(minCellPixels > 0) || maxCells < 1) {
+			throw new IllegalArgumentException("Ungueltige Parameter fuer ImplicitPlotter");
+		}
+		this.minCellPixels = minCellPixels;
+		this.maxCells = maxCells;
+	}
+
+	/**
+	 * plot berechnet die Kurve f(x, y) = 0 im Bereich xMin bis xMax und yMin bis
+	 * yMax für eine Ansicht der Größe width x height Pixel.
+	 *
+	 * @param f      Funktion in x und y.
+	 * @param xMin   Linker Rand.
+	 * @param xMax   Rechter Rand, größer als xMin.
+	 * @param yMin   Unterer Rand.
+	 * @param yMax   Oberer Rand, größer als yMin.
+	 * @param width  Breite der Ansicht in Pixeln.
+	 * @param height Höhe der Ansicht in Pixeln.
+	 * @return Teilstrecken der Kurve.
+	 * @throws IllegalArgumentException wenn ein Bereich leer ist.
+	 */
+	public Segments plot(Expression f, double xMin, double xMax, double yMin, double yMax, int width, int height) {
+		if (!(xMax > xMin) || !(yMax > yMin) || width < 1 || height < 1) {
+			throw new IllegalArgumentException("Leerer Bereich");
+		}
+		int columns = (int) Math.ceil(width / ROOT_PIXELS);
+		int rows = (int) Math.ceil(height / ROOT_PIXELS);
+		double xStep = (xMax - xMin) / columns;
+		double yStep = (yMax - yMin) / rows;
+		// Zellen werden geteilt, solange sie in beiden Richtungen breiter als
+		// minCellPixels sind
+		double pixels = Math.min(width / (double) columns, height / (double) rows);
+		Run run = new Run(f);
+		for (int row = 0; row < rows; row++) {
+			double y0 = yMin + row * yStep;
+			double y1 = row == rows - 1 ? yMax : y0 + yStep;
+			for (int column = 0; column < columns; column++) {
+				double x0 = xMin + column * xStep;
+				double x1 = column == columns - 1 ? xMax : x0 + xStep;
+				run.cell(x0, y0, x1, y1, pixels);
+			}
+		}
+		run.segments.setEvaluations(run.evaluations);
+		run.segments.setCells(run.cells);
+		return run.segments;
+	}
+
+	/**
+	 * Run enthält den Zustand eines Aufrufs von plot().
+	 */
+	private final class Run {
+		private final Expression f;
+		private final Segments segments = new Segments(256);
+		private final double[] xs = new double[4];
+		private final double[] ys = new double[4];
+		private int evaluations;
+		private int cells;
+
+		private Run(Expression f) {
+			this.f = f;
+		}
+
+		private void cell(double x0, double y0, double x1, double y1, double pixels) {
+			this.cells++;
+			Interval range = this.f.evalInterval(Interval.of(x0, x1), Interval.of(y0, y1));
+			if (range.isEmpty() || !range.contains(0)) {
+				return;
+			}
+			if (pixels <= minCellPixels || this.cells >= maxCells) {
+				contour(x0, y0, x1, y1);
+				return;
+			}
+			double xm = 0.5 * (x0 + x1);
+			double ym = 0.5 * (y0 + y1);
+			double half = 0.5 * pixels;
+			cell(x0, y0, xm, ym, half);
+			cell(xm, y0, x1, ym, half);
+			cell(xm, ym, x1, y1, half);
+			cell(x0, ym, xm, y1, half);
+		}
+
+		/**
+		 * contour nähert die Kurve in einer Zelle mit Marching Squares an. Die
+		 * Ecken a, b, c, d liegen gegen den Uhrzeigersinn ab (x0, y0), die Kanten
+		 * 0 bis 3 beginnen jeweils an der gleichnamigen Ecke.
+		 */
+		private void contour(double x0, double y0, double x1, double y1) {
+			double a = this.f.eval(x0, y0);
+			double b = this.f.eval(x1, y0);
+			double c = this.f.eval(x1, y1);
+			double d = this.f.eval(x0, y1);
+			this.evaluations += 4;
+			if (!(Double.isFinite(a) && Double.isFinite(b) && Double.isFinite(c) && Double.isFinite(d))) {
+				return;
+			}
+			boolean pa = a > 0;
+			boolean pb = b > 0;
+			boolean pc = c > 0;
+			boolean pd = d > 0;
+			if (pa == pb && pb == pc && pc == pd) {
+				return;
+			}
+			// Schnittpunkte der Kanten; NaN, falls die Kante keinen
+			// Vorzeichenwechsel hat
+			double[] xs = this.xs;
+			double[] ys = this.ys;
+			int crossings = 0;
+			if (pa != pb) {
+				xs[0] = x0 + (x1 - x0) * (a / (a - b));
+				ys[0] = y0;
+				crossings++;
+			} else {
+				xs[0] = Double.NaN;
+			}
+			if (pb != pc) {
+				xs[1] = x1;
+				ys[1] = y0 + (y1 - y0) * (b / (b - c));
+				crossings++;
+			} else {
+				xs[1] = Double.NaN;
+			}
+			if (pc != pd) {
+				xs[2] = x1 + (x0 - x1) * (c / (c - d));
+				ys[2] = y1;
+				crossings++;
+			} else {
+				xs[2] = Double.NaN;
+			}
+			if (pd != pa) {
+				xs[3] = x0;
+				ys[3] = y1 + (y0 - y1) * (d / (d - a));
+				crossings++;
+			} else {
+				xs[3] = Double.NaN;
+			}
+
+			if (crossings == 2) {
+				int first = -1;
+				for (int i = 0; i < 4; i++) {
+					if (!Double.isNaN(xs[i])) {
+						if (first < 0) {
+							first = i;
+						} else {
+							this.segments.add(xs[first], ys[first], xs[i], ys[i]);
+						}
+					}
+				}
+				return;
+			}
+
+			// Sattelpunkt: a und c haben dasselbe Vorzeichen, b und d das andere
+			double m = this.f.eval(0.5 * (x0 + x1), 0.5 * (y0 + y1));
+			this.evaluations++;
+			if ((m > 0) == pa) {
+				// a und c sind über die Mitte verbunden, b und d werden
+				// abgetrennt
+				this.segments.add(xs[0], ys[0], xs[1], ys[1]);
+				this.segments.add(xs[2], ys[2], xs[3], ys[3]);
+			} else {
+				this.segments.add(xs[3], ys[3], xs[0], ys[0]);
+				this.segments.add(xs[1], ys[1], xs[2], ys[2]);
+			}
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package grid;
+
+import java.awt.Graphics;
+import java.util.Arrays;
+
+/**
+ * M4Decimator zeichnet sehr viele Stützstellen als Linienzug, ohne für jedes
+ * Paar drawLine aufzurufen. Die Stützstellen werden wie in Grid.currentWidth und
+ * Grid.currentHeight in Pixelkoordinaten umgerechnet. Von allen Punkten, die in
+ * dieselbe Pixelspalte fallen, werden nur der erste, der kleinste, der größte
+ * und der letzte behalten (M4). Da die Linie innerhalb einer Spalte senkrecht
+ * verläuft und zwischen den Spalten vom letzten zum ersten Punkt führt, ergibt
+ * das genau dieselben Pixel wie alle einzelnen Linien.
+ *
+ * Die verbleibenden Punkte werden mit einem einzigen drawPolyline-Aufruf pro
+ * zusammenhängendem Stück gezeichnet. Der Aufwand hängt damit von der Breite
+ * der Ansicht ab und nicht von der Anzahl der Stützstellen. An Stellen, an
+ * denen x oder y nicht endlich ist, wird die Linie unterbrochen.
+ *
+ * Die Stützstellen müssen mit aufsteigendem x übergeben werden.
+ */
+public class M4Decimator {
+	private final Graphics g;
+	private final double xMin;
+	private final double xRange;
+	private final double yMin;
+	private final double yRange;
+	private final int width;
+	private final int height;
+
+	private int[] xs = new int[256];
+	private int[] ys = new int[256];
+	private int size;
+	private int runSamples;
+	private long samples;
+	private long points;
+
+	// aktuelle Pixelspalte
+	private boolean open;
+	private int column;
+	private int first, min, max, last;
+	private int minIndex, maxIndex, columnSamples;
+
+	/**
+	 * Erzeugt einen Decimator, der in g zeichnet.
+	 *
+	 * @param g      Ziel.
+	 * @param xMin   Linker Rand der Ansicht.
+	 * @param xMax   Rechter Rand der Ansicht.
+	 * @param yMin   Unterer Rand der Ansicht.
+	 * @param yMax   Oberer Rand der Ansicht.
+	 * @param width  Breite der Ansicht in Pixeln.
+	 * @param height Höhe der Ansicht in Pixeln.
+	 */
+	public M4Decimator(Graphics g, double xMin, double xMax, double yMin, double yMax, int width, int height) {
+		this.g = g;
+		this.xMin = xMin;
+		this.xRange = xMax - xMin;
+		this.yMin = yMin;
+		this.yRange = yMax - yMin;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * add fügt die nächste Stützstelle hinzu.
+	 *
+	 * @param x x-Wert, nicht kleiner als der vorherige.
+	 * @param y Funktionswert bei x.
+	 */
+	public void add(double x, double y) {
+		this.samples++;
+		if (!Double.isFinite(x) || !Double.isFinite(y)) {
+			endLine();
+			return;
+		}
+		int px = (int) ((x - this.xMin) * this.width / this.xRange);
+		int py = this.height - (int) ((y - this.yMin) * this.height / this.yRange);
+		this.runSamples++;
+		if (this.open && px == this.column) {
+			int index = this.columnSamples++;
+			if (py < this.min) {
+				this.min = py;
+				this.minIndex = index;
+			}
+			if (py > this.max) {
+				this.max = py;
+				this.maxIndex = index;
+			}
+			this.last = py;
+			return;
+		}
+		flushColumn();
+		this.open = true;
+		this.column = px;
+		this.first = this.min = this.max = this.last = py;
+		this.minIndex = this.maxIndex = 0;
+		this.columnSamples = 1;
+	}
+
+	/**
+	 * add fügt die Stützstellen xs[i], ys[i] für i = 0 bis n - 1 hinzu.
+	 *
+	 * @param xs x-Werte in aufsteigender Reihenfolge.
+	 * @param ys Funktionswerte.
+	 * @param n  Anzahl der Stützstellen.
+	 */
+	public void add(double[] xs, double[] ys, int n) {
+		for (int i = 0; i < n; i++) {
+			add(xs[i], ys[i]);
+		}
+	}
+
+	/**
+	 * endLine zeichnet den bisherigen Linienzug. Die nächste Stützstelle wird
+	 * nicht mehr mit der letzten verbunden.
+	 */
+	public void endLine() {
+		flushColumn();
+		this.open = false;
+		if (this.runSamples > 1) {
+			if (this.size == 1) {
+				this.g.drawLine(this.xs[0], this.ys[0], this.xs[0], this.ys[0]);
+			} else {
+				this.g.drawPolyline(this.xs, this.ys, this.size);
+			}
+		}
+		this.points += this.size;
+		this.size = 0;
+		this.runSamples = 0;
+	}
+
+	/**
+	 * getSamples gibt die Anzahl der übergebenen Stützstellen zurück.
+	 *
+	 * @return Anzahl der Stützstellen.
+	 */
+	public long getSamples() {
+		return this.samples;
+	}
+
+	/**
+	 * getPoints gibt die Anzahl der bisher gezeichneten Eckpunkte zurück.
+	 *
+	 * @return Anzahl der Eckpunkte.
+	 */
+	public long getPoints() {
+		return this.points;
+	}
+
+	private void flushColumn() {
+		if (!this.open) {
+			return;
+		}
+		append(this.first);
+		if (this.minIndex <= this.maxIndex) {
+			append(this.min);
+			append(this.max);
+		} else {
+			append(this.max);
+			append(this.min);
+		}
+		append(this.last);
+	}
+
+	private void append(int py) {
+		if (this.size > 0 && this.xs[this.size - 1] == this.column && this.ys[this.size - 1] == py) {
+			return;
+		}
+		if (this.size == this.xs.length) {
+			this.xs = Arrays.copyOf(this.xs, this.size * 2);
+			this.ys = Arrays.copyOf(this.ys, this.size * 2);
+		}
+		this.xs[this.size] = this.column;
+		this.ys[this.size] = py;
+		this.size++;
+	}
+}
@@ -0,0 +1,268 @@
+package grid;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import expressions.Expression;
+import expressions.FusedEvaluator;
+import expressions.ScratchPool;
+import expressions.VectorBackend;
+
+/**
+ * ParallelSampler wertet eine Expression an sehr vielen gleichabständigen
+ * Stellen aus. Der Bereich wird in Teilstücke zerlegt, die in einem
+ * ForkJoinPool unabhängig voneinander berechnet und direkt an ihre Position in
+ * einem gemeinsamen double-Array geschrieben werden. Das fertige Array kann
+ * deshalb ohne weiteres Zusammensetzen gezeichnet werden.
+ *
+ * Die i-te Stelle ist immer xMin + i * step, unabhängig davon, wie der Bereich
+ * aufgeteilt wurde. Bis zur Schwelle threshold wird seriell im aufrufenden
+ * Thread gerechnet.
+ */
+public class ParallelSampler {
+	public static final int DEFAULT_THRESHOLD = 1 << 16;
+	private static final int BATCH_SIZE = 1024;
+
+	private final ForkJoinPool pool;
+	private final int threshold;
+	private final boolean ownPool;
+
+	/**
+	 * Erzeugt einen Sampler, der den gemeinsamen ForkJoinPool und die
+	 * Standard-Schwelle benutzt.
+	 */
+	public ParallelSampler() {
+		this.pool = ForkJoinPool.commonPool();
+		this.threshold = DEFAULT_THRESHOLD;
+		this.ownPool = false;
+	}
+
+	/**
+	 * Erzeugt einen Sampler mit eigenem ForkJoinPool.
+	 *
+	 * @param parallelism Anzahl der Threads.
+	 * @param threshold   Anzahl an Stellen, bis zu der seriell gerechnet wird.
+	 * @throws IllegalArgumentException wenn parallelism oder threshold kleiner
+	 *                                  als 1 sind.
+	 */
+	public ParallelSampler(int parallelism, int threshold) {
+		if (parallelism < 1 || threshold < 1) {
+			throw new IllegalArgumentException("parallelism und threshold muessen positiv sein");
+		}
+		this.pool = new ForkJoinPool(parallelism);
+		this.threshold = threshold;
+		this.ownPool = true;
+	}
+
+	/**
+	 * sample wertet e an n gleichabständigen Stellen von xMin bis xMax
+	 * (einschließlich) aus.
+	 *
+	 * @param e    Auszuwertende Funktion.
+	 * @param xMin Erste Stelle.
+	 * @param xMax Letzte Stelle.
+	 * @param n    Anzahl der Stellen, mindestens 2.
+	 * @return Funktionswerte, an Index i der Wert bei xMin + i * (xMax - xMin) /
+	 *         (n - 1).
+	 * @throws IllegalArgumentException wenn n kleiner als 2 ist.
+	 */
+	public double[] sample(Expression e, double xMin, double xMax, int n) {
+		if (n < 2) {
+			throw new IllegalArgumentException("Es werden mindestens zwei Stellen benoetigt");
+		}
+		double[] ys = new double[n];
+		sample(e, xMin, (xMax - xMin) / (n - 1), ys, 0, n);
+		return ys;
+	}
+
+	/**
+	 * sample wertet e an den Stellen xMin + i * step für i = 0 bis n - 1 aus und
+	 * schreibt das Ergebnis nach ys[offset + i].
+	 *
+	 * @param e      Auszuwertende Funktion.
+	 * @param xMin   Erste Stelle.
+	 * @param step   Abstand zwischen zwei Stellen.
+	 * @param ys     Array für die Funktionswerte.
+	 * @param offset Index des ersten Funktionswertes in ys.
+	 * @param n      Anzahl der Stellen.
+	 */
+	public void sample(Expression e, double xMin, double step, double[] ys, int offset, int n) {
+		if (n <= this.threshold) {
+			sampleSerial(e, xMin, step, ys, offset, 0, n);
+		} else {
+			int chunk = Math.max(this.threshold / 4, n / (4 * this.pool.getParallelism()) + 1);
+			this.pool.invoke(new Chunk(e, xMin, step, ys, offset, 0, n, chunk));
+		}
+	}
+
+	/**
+	 * sample wertet alle Ausdrücke von f an n gleichabständigen Stellen von xMin
+	 * bis xMax (einschließlich) aus. Jedes Teilstück berechnet dabei alle
+	 * Ausdrücke in einem gemeinsamen Durchlauf, siehe FusedEvaluator.
+	 *
+	 * @param f    Auszuwertende Funktionen.
+	 * @param xMin Erste Stelle.
+	 * @param xMax Letzte Stelle.
+	 * @param n    Anzahl der Stellen, mindestens 2.
+	 * @return Ein Array pro Ausdruck, an Index i der Wert bei xMin + i * (xMax -
+	 *         xMin) / (n - 1).
+	 * @throws IllegalArgumentException wenn n kleiner als 2 ist.
+	 */
+	public double[][] sample(FusedEvaluator f, double xMin, double xMax, int n) {
+		if (n < 2) {
+			throw new IllegalArgumentException("Es werden mindestens zwei Stellen benoetigt");
+		}
+		double[][] ys = new double[f.size()][n];
+		double step = (xMax - xMin) / (n - 1);
+		// die Schwelle gilt für die Summe der Auswertungen aller Ausdrücke
+		if ((long) n * f.size() <= this.threshold) {
+			sampleSerial(f, xMin, step, ys, 0, n);
+		} else {
+			int chunk = Math.max(FusedEvaluator.CHUNK, n / (4 * this.pool.getParallelism()) + 1);
+			this.pool.invoke(new FusedChunk(f, xMin, step, ys, 0, n, chunk));
+		}
+		return ys;
+	}
+
+	/**
+	 * getParallelism gibt die Anzahl der Threads im benutzten Pool zurück.
+	 *
+	 * @return Parallelität.
+	 */
+	public int getParallelism() {
+		return this.pool.getParallelism();
+	}
+
+	/**
+	 * getThreshold gibt die Anzahl an Stellen zurück, bis zu der seriell
+	 * gerechnet wird.
+	 *
+	 * @return Schwelle für die parallele Auswertung.
+	 */
+	public int getThreshold() {
+		return this.threshold;
+	}
+
+	/**
+	 * shutdown beendet den eigenen ForkJoinPool. Der gemeinsame Pool wird nicht
+	 * beendet.
+	 */
+	public void shutdown() {
+		if (this.ownPool) {
+			this.pool.shutdown();
+		}
+	}
+
+	/**
+	 * Wertet die Stellen from bis to - 1 blockweise im aktuellen Thread aus.
+	 */
+	private static void sampleSerial(Expression e, double xMin, double step, double[] ys, int offset, int from,
+			int to) {
+		double[] xs = ScratchPool.take(BATCH_SIZE);
+		try {
+			for (int start = from; start < to; start += BATCH_SIZE) {
+				int len = Math.min(BATCH_SIZE, to - start);
+				for (int i = 0; i < len; i++) {
+					xs[i] = xMin + (start + i) * step;
+				}
+				VectorBackend.evalBatch(e, xs, 0, ys, offset + start, len);
+			}
+		} finally {
+			ScratchPool.release(xs);
+		}
+	}
+
+	/**
+	 * Wertet die Stellen from bis to - 1 für alle Ausdrücke von f blockweise im
+	 * aktuellen Thread aus.
+	 */
+	private static void sampleSerial(FusedEvaluator f, double xMin, double step, double[][] ys, int from, int to) {
+		double[] xs = ScratchPool.take(BATCH_SIZE);
+		try {
+			for (int start = from; start < to; start += BATCH_SIZE) {
+				int len = Math.min(BATCH_SIZE, to - start);
+				for (int i = 0; i < len; i++) {
+					xs[i] = xMin + (start + i) * step;
+				}
+				f.evalBatch(xs, 0, ys, start, len);
+			}
+		} finally {
+			ScratchPool.release(xs);
+		}
+	}
+
+	/**
+	 * Chunk teilt den Bereich from bis to so lange in zwei Hälften, bis er
+	 * höchstens chunk Stellen enthält, und wertet ihn dann seriell aus.
+	 */
+	private static final class Chunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Expression e;
+		private final double xMin;
+		private final double step;
+		private final double[] ys;
+		private final int offset;
+		private final int from;
+		private final int to;
+		private final int chunk;
+
+		Chunk(Expression e, double xMin, double step, double[] ys, int offset, int from, int to, int chunk) {
+			this.e = e;
+			this.xMin = xMin;
+			this.step = step;
+			this.ys = ys;
+			this.offset = offset;
+			this.from = from;
+			this.to = to;
+			this.chunk = chunk;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= this.chunk) {
+				sampleSerial(this.e, this.xMin, this.step, this.ys, this.offset, this.from, this.to);
+			} else {
+				int mid = (this.from + this.to) >>> 1;
+				invokeAll(new Chunk(e, xMin, step, ys, offset, from, mid, chunk),
+						new Chunk(e, xMin, step, ys, offset, mid, to, chunk));
+			}
+		}
+	}
+
+	/**
+	 * FusedChunk entspricht Chunk für alle Ausdrücke eines FusedEvaluators.
+	 */
+	private static final class FusedChunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final FusedEvaluator f;
+		private final double xMin;
+		private final double step;
+		private final double[][] ys;
+		private final int from;
+		private final int to;
+		private final int chunk;
+
+		FusedChunk(FusedEvaluator f, double xMin, double step, double[][] ys, int from, int to, int chunk) {
+			this.f = f;
+			this.xMin = xMin;
+			this.step = step;
+			this.ys = ys;
+			this.from = from;
+			this.to = to;
+			this.chunk = chunk;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= this.chunk) {
+				sampleSerial(this.f, this.xMin, this.step, this.ys, this.from, this.to);
+			} else {
+				int mid = (this.from + this.to) >>> 1;
+				invokeAll(new FusedChunk(f, xMin, step, ys, from, mid, chunk),
+						new FusedChunk(f, xMin, step, ys, mid, to, chunk));
+			}
+		}
+	}
+}
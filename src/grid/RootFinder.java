@@ -0,0 +1,339 @@
+package grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import expressions.Dual;
+import expressions.Expression;
+import expressions.OperatorExpression;
+import expressions.ScratchPool;
+import expressions.VectorBackend;
+import tokens.Token;
+import tokens.TokenType;
+
+/**
+ * RootFinder sucht Nullstellen, Extremstellen und Schnittpunkte von
+ * Funktionen in einem x-Bereich. Der Bereich wird an samples gleichabständigen
+ * Stellen ausgewertet; jeder Vorzeichenwechsel zwischen zwei benachbarten
+ * Stellen schließt eine Nullstelle ein, die anschließend verfeinert wird.
+ * Standardmäßig geschieht das mit dem Newton-Verfahren, das mit
+ * Expression.evalDual Wert und Ableitung in einem Durchlauf berechnet und auf
+ * Bisektion zurückfällt, sobald ein Schritt die Einschließung verlassen würde
+ * oder nicht schnell genug kleiner wird. Ohne Ableitungen wird das Verfahren
+ * von Brent benutzt.
+ *
+ * Der Bereich wird in Teilstücke zerlegt, die in einem ForkJoinPool
+ * unabhängig voneinander abgetastet und verfeinert werden. Die Ergebnisse
+ * werden in x-Reihenfolge aneinandergehängt; Nullstellen, die näher als die
+ * Toleranz beieinander liegen, werden zu einer zusammengefasst.
+ *
+ * Vorzeichenwechsel an Polstellen (etwa bei tan(x)) werden verworfen: ist der
+ * Betrag des Funktionswertes an der gefundenen Stelle größer als an beiden
+ * Rändern der Einschließung, handelt es sich um keine Nullstelle. Doppelte
+ * Nullstellen ohne Vorzeichenwechsel (x^2 bei 0) und zwei Nullstellen
+ * zwischen denselben benachbarten Stellen werden nicht gefunden.
+ */
+public class RootFinder {
+	public static final int DEFAULT_SAMPLES = 1 << 16;
+	public static final double DEFAULT_TOLERANCE = 1e-12;
+	private static final int CHUNK_SIZE = 4096;
+	private static final int MAX_ITERATIONS = 100;
+	private static final Token MINUS = new Token(TokenType.MINUS);
+
+	private final ForkJoinPool pool;
+	private final boolean ownPool;
+	private final int samples;
+	private final double tolerance;
+	private final boolean derivatives;
+
+	/**
+	 * Erzeugt einen RootFinder, der den gemeinsamen ForkJoinPool, das
+	 * Newton-Verfahren und die Standardwerte benutzt.
+	 */
+	public RootFinder() {
+		this.pool = ForkJoinPool.commonPool();
+		this.ownPool = false;
+		this.samples = DEFAULT_SAMPLES;
+		this.tolerance = DEFAULT_TOLERANCE;
+		this.derivatives = true;
+	}
+
+	/**
+	 * Erzeugt einen RootFinder mit eigenem ForkJoinPool.
+	 *
+	 * @param parallelism Anzahl der Threads.
+	 * @param samples     Anzahl der Stellen, an denen der Bereich abgetastet
+	 *                    wird, mindestens 2.
+	 * @param tolerance   Relative Genauigkeit der Nullstellen.
+	 * @param derivatives true für das Newton-Verfahren mit evalDual, false für
+	 *                    das Verfahren von Brent.
+	 * @throws IllegalArgumentException wenn parallelism kleiner als 1, samples
+	 *                                  kleiner als 2 oder tolerance nicht
+	 *                                  positiv ist.
+	 */
+	public RootFinder(int parallelism, int samples, double tolerance, boolean derivatives) {
+		if (parallelism < 1 || samples < 2 || !(tolerance > 0)) {
+			throw new IllegalArgumentException("Ungueltige Parameter fuer RootFinder");
+		}
+		this.pool = new ForkJoinPool(parallelism);
+		this.ownPool = true;
+		this.samples = samples;
+		this.tolerance = tolerance;
+		this.derivatives = derivatives;
+	}
+
+	/**
+	 * roots gibt die Nullstellen von e zwischen xMin und xMax zurück.
+	 *
+	 * @param e    Funktion.
+	 * @param xMin Linker Rand.
+	 * @param xMax Rechter Rand, größer als xMin.
+	 * @return Nullstellen in aufsteigender Reihenfolge.
+	 * @throws IllegalArgumentException wenn der Bereich leer ist.
+	 */
+	public double[] roots(Expression e, double xMin, double xMax) {
+		if (!(xMax > xMin) || !Double.isFinite(xMax - xMin)) {
+			throw new IllegalArgumentException("Leerer Bereich");
+		}
+		double step = (xMax - xMin) / (this.samples - 1);
+		List<ForkJoinTask<double[]>> tasks = new ArrayList<>();
+		for (int from = 0; from < this.samples - 1; from += CHUNK_SIZE) {
+			int to = Math.min(from + CHUNK_SIZE, this.samples - 1);
+			int start = from;
+			tasks.add(this.pool.submit(() -> chunk(e, xMin, step, start, to)));
+		}
+		double[] all = new double[0];
+		int size = 0;
+		for (ForkJoinTask<double[]> task : tasks) {
+			double[] found = task.join();
+			if (size + found.length > all.length) {
+				all = Arrays.copyOf(all, Math.max(2 * all.length, size + found.length));
+			}
+			System.arraycopy(found, 0, all, size, found.length);
+			size += found.length;
+		}
+		return merge(all, size);
+	}
+
+	/**
+	 * extrema gibt die Stellen zwischen xMin und xMax zurück, an denen die
+	 * Ableitung von e das Vorzeichen wechselt, also die lokalen Minima und
+	 * Maxima.
+	 *
+	 * @param e    Funktion.
+	 * @param xMin Linker Rand.
+	 * @param xMax Rechter Rand, größer als xMin.
+	 * @return Extremstellen in aufsteigender Reihenfolge.
+	 * @throws IllegalArgumentException wenn der Bereich leer ist.
+	 */
+	public double[] extrema(Expression e, double xMin, double xMax) {
+		return roots(e.derive(), xMin, xMax);
+	}
+
+	/**
+	 * intersections gibt die Stellen zwischen xMin und xMax zurück, an denen
+	 * sich die Graphen von f und g schneiden, also die Nullstellen von f - g.
+	 *
+	 * @param f    Erste Funktion.
+	 * @param g    Zweite Funktion.
+	 * @param xMin Linker Rand.
+	 * @param xMax Rechter Rand, größer als xMin.
+	 * @return x-Werte der Schnittpunkte in aufsteigender Reihenfolge.
+	 * @throws IllegalArgumentException wenn der Bereich leer ist.
+	 */
+	public double[] intersections(Expression f, Expression g, double xMin, double xMax) {
+		return roots(new OperatorExpression(MINUS, f, g), xMin, xMax);
+	}
+
+	/**
+	 * shutdown beendet den eigenen ForkJoinPool. Der gemeinsame Pool wird nicht
+	 * beendet.
+	 */
+	public void shutdown() {
+		if (this.ownPool) {
+			this.pool.shutdown();
+		}
+	}
+
+	/**
+	 * chunk tastet die Stellen from bis to ab und gibt die Nullstellen zwischen
+	 * ihnen zurück. Eine Stelle, an der e genau 0 ist, wird nur von dem
+	 * Teilstück gemeldet, dessen Intervall [from, to) sie enthält; die letzte
+	 * Stelle des Bereichs vom letzten Teilstück.
+	 */
+	private double[] chunk(Expression e, double xMin, double step, int from, int to) {
+		int n = to - from + 1;
+		double[] xs = ScratchPool.take(n);
+		double[] ys = ScratchPool.take(n);
+		try {
+			for (int i = 0; i < n; i++) {
+				xs[i] = xMin + (from + i) * step;
+			}
+			VectorBackend.evalBatch(e, xs, 0, ys, 0, n);
+			double[] found = new double[8];
+			int size = 0;
+			Dual dual = new Dual();
+			int last = to == this.samples - 1 ? n : n - 1;
+			for (int i = 0; i < last; i++) {
+				double root;
+				if (ys[i] == 0) {
+					root = xs[i];
+				} else if (i + 1 < n && (ys[i] < 0 ? ys[i + 1] > 0 : ys[i + 1] < 0)) {
+					root = this.derivatives ? newton(e, xs[i], ys[i], xs[i + 1], ys[i + 1], dual)
+							: brent(e, xs[i], ys[i], xs[i + 1], ys[i + 1]);
+				} else {
+					continue;
+				}
+				if (Double.isNaN(root)) {
+					continue;
+				}
+				if (size == found.length) {
+					found = Arrays.copyOf(found, 2 * size);
+				}
+				found[size++] = root;
+			}
+			return Arrays.copyOf(found, size);
+		} finally {
+			ScratchPool.release(ys);
+			ScratchPool.release(xs);
+		}
+	}
+
+	/**
+	 * newton verfeinert die Nullstelle zwischen a und b (fa und fb haben
+	 * verschiedene Vorzeichen) mit Newton-Schritten, die durch Bisektion
+	 * abgesichert sind. Gibt NaN zurück, wenn die Stelle eine Polstelle ist.
+	 */
+	private double newton(Expression e, double a, double fa, double b, double fb, Dual dual) {
+		double lo = fa < 0 ? a : b;
+		double hi = fa < 0 ? b : a;
+		double x = 0.5 * (a + b);
+		double dxOld = Math.abs(b - a);
+		double dx = dxOld;
+		e.evalDual(x, dual);
+		double f = dual.getValue();
+		double df = dual.getDerivative();
+		for (int i = 0; i < MAX_ITERATIONS && f != 0; i++) {
+			// Bisektion, wenn der Newton-Schritt die Einschließung verlässt, nicht
+			// definiert ist oder die Schrittweite nicht mindestens halbiert
+			if (!(((x - hi) * df - f) * ((x - lo) * df - f) < 0) || !(Math.abs(2 * f) <= Math.abs(dxOld * df))) {
+				dxOld = dx;
+				dx = 0.5 * (hi - lo);
+				x = lo + dx;
+			} else {
+				dxOld = dx;
+				dx = f / df;
+				x -= dx;
+			}
+			if (Math.abs(dx) <= this.tolerance * Math.max(1, Math.abs(x))) {
+				break;
+			}
+			e.evalDual(x, dual);
+			f = dual.getValue();
+			df = dual.getDerivative();
+			if (f < 0) {
+				lo = x;
+			} else {
+				hi = x;
+			}
+		}
+		return accept(e.eval(x), fa, fb) ? x : Double.NaN;
+	}
+
+	/**
+	 * brent verfeinert die Nullstelle zwischen a und b (fa und fb haben
+	 * verschiedene Vorzeichen) mit dem Verfahren von Brent aus inverser
+	 * quadratischer Interpolation, Sekanten- und Bisektionsschritten. Gibt NaN
+	 * zurück, wenn die Stelle eine Polstelle ist.
+	 */
+	private double brent(Expression e, double a, double fa, double b, double fb) {
+		double fa0 = fa;
+		double fb0 = fb;
+		double c = b;
+		double fc = fb;
+		double d = b - a;
+		double step = d;
+		for (int i = 0; i < MAX_ITERATIONS; i++) {
+			if ((fb > 0) == (fc > 0)) {
+				c = a;
+				fc = fa;
+				d = b - a;
+				step = d;
+			}
+			if (Math.abs(fc) < Math.abs(fb)) {
+				a = b;
+				b = c;
+				c = a;
+				fa = fb;
+				fb = fc;
+				fc = fa;
+			}
+			double tol = 0.5 * this.tolerance * Math.max(1, Math.abs(b));
+			double m = 0.5 * (c - b);
+			if (Math.abs(m) <= tol || fb == 0) {
+				break;
+			}
+			if (Math.abs(step) >= tol && Math.abs(fa) > Math.abs(fb)) {
+				double s = fb / fa;
+				double p;
+				double q;
+				if (a == c) {
+					p = 2 * m * s;
+					q = 1 - s;
+				} else {
+					double r = fb / fc;
+					double t = fa / fc;
+					p = s * (2 * m * t * (t - r) - (b - a) * (r - 1));
+					q = (t - 1) * (r - 1) * (s - 1);
+				}
+				if (p > 0) {
+					q = -q;
+				} else {
+					p = -p;
+				}
+				if (2 * p < Math.min(3 * m * q - Math.abs(tol * q), Math.abs(step * q))) {
+					step = d;
+					d = p / q;
+				} else {
+					d = m;
+					step = d;
+				}
+			} else {
+				d = m;
+				step = d;
+			}
+			a = b;
+			fa = fb;
+			b += Math.abs(d) > tol ? d : Math.copySign(tol, m);
+			fb = e.eval(b);
+		}
+		return accept(fb, fa0, fb0) ? b : Double.NaN;
+	}
+
+	/**
+	 * accept prüft, ob f an der gefundenen Stelle betragsmäßig nicht größer ist
+	 * als an den Rändern der ursprünglichen Einschließung.
+	 */
+	private static boolean accept(double f, double fa, double fb) {
+		return Math.abs(f) <= Math.max(Math.abs(fa), Math.abs(fb));
+	}
+
+	/**
+	 * merge fasst aufeinanderfolgende Nullstellen zusammen, die näher als die
+	 * Toleranz beieinander liegen.
+	 */
+	private double[] merge(double[] roots, int size) {
+		int n = 0;
+		for (int i = 0; i < size; i++) {
+			double r = roots[i];
+			if (n > 0 && r - roots[n - 1] <= 4 * this.tolerance * Math.max(1, Math.abs(r))) {
+				continue;
+			}
+			roots[n++] = r;
+		}
+		return Arrays.copyOf(roots, n);
+	}
+}
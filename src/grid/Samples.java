@@ -0,0 +1,92 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * Samples speichert Stützstellen (x, y) einer Funktion in aufsteigender
+ * x-Reihenfolge, so wie sie gezeichnet werden. Die Werte liegen in zwei
+ * double-Arrays, von denen nur die ersten size() Einträge gültig sind. Ein
+ * y-Wert NaN unterbricht die Linie.
+ */
+public class Samples {
+	private double[] xs;
+	private double[] ys;
+	private int size;
+	private int evaluations;
+
+	/**
+	 * Erzeugt leere Samples.
+	 *
+	 * @param capacity Anfängliche Größe der Arrays.
+	 */
+	public Samples(int capacity) {
+		this.xs = new double[Math.max(capacity, 2)];
+		this.ys = new double[this.xs.length];
+	}
+
+	/**
+	 * add hängt die Stützstelle (x, y) an.
+	 *
+	 * @param x x-Wert.
+	 * @param y Funktionswert bei x.
+	 */
+	public void add(double x, double y) {
+		if (this.size == this.xs.length) {
+			this.xs = Arrays.copyOf(this.xs, this.size * 2);
+			this.ys = Arrays.copyOf(this.ys, this.size * 2);
+		}
+		this.xs[this.size] = x;
+		this.ys[this.size] = y;
+		this.size++;
+	}
+
+	/**
+	 * clear entfernt alle Stützstellen, die Arrays bleiben erhalten.
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+
+	/**
+	 * size gibt die Anzahl der Stützstellen zurück.
+	 *
+	 * @return Anzahl der Stützstellen.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * getEvaluations gibt an, wie viele eval()-Aufrufe für diese Stützstellen
+	 * nötig waren.
+	 *
+	 * @return Anzahl der Auswertungen.
+	 */
+	public int getEvaluations() {
+		return this.evaluations;
+	}
+
+	void setEvaluations(int evaluations) {
+		this.evaluations = evaluations;
+	}
+
+	/**
+	 * getXs gibt das Array der x-Werte zurück. Gültig sind die Indizes 0 bis
+	 * size() - 1.
+	 *
+	 * @return x-Werte.
+	 */
+	public double[] getXs() {
+		return this.xs;
+	}
+
+	/**
+	 * getYs gibt das Array der Funktionswerte zurück. Gültig sind die Indizes 0
+	 * bis size() - 1.
+	 *
+	 * @return Funktionswerte.
+	 */
+	public double[] getYs() {
+		return this.ys;
+	}
+}
@@ -0,0 +1,91 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * Segments speichert die Teilstrecken einer impliziten Kurve. Jede Strecke
+ * belegt vier aufeinanderfolgende Einträge (x1, y1, x2, y2) in einem
+ * double-Array, von dem nur die ersten 4 * size() Einträge gültig sind.
+ */
+public class Segments {
+	private double[] coordinates;
+	private int size;
+	private int evaluations;
+	private int cells;
+
+	/**
+	 * Erzeugt leere Segments.
+	 *
+	 * @param capacity Anfängliche Anzahl der Strecken.
+	 */
+	public Segments(int capacity) {
+		this.coordinates = new double[4 * Math.max(capacity, 1)];
+	}
+
+	/**
+	 * add hängt die Strecke von (x1, y1) nach (x2, y2) an.
+	 *
+	 * @param x1 x-Wert des Anfangspunkts.
+	 * @param y1 y-Wert des Anfangspunkts.
+	 * @param x2 x-Wert des Endpunkts.
+	 * @param y2 y-Wert des Endpunkts.
+	 */
+	public void add(double x1, double y1, double x2, double y2) {
+		int i = 4 * this.size;
+		if (i == this.coordinates.length) {
+			this.coordinates = Arrays.copyOf(this.coordinates, i * 2);
+		}
+		this.coordinates[i] = x1;
+		this.coordinates[i + 1] = y1;
+		this.coordinates[i + 2] = x2;
+		this.coordinates[i + 3] = y2;
+		this.size++;
+	}
+
+	/**
+	 * size gibt die Anzahl der Strecken zurück.
+	 *
+	 * @return Anzahl der Strecken.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * getCoordinates gibt das Array der Endpunkte zurück. Strecke i liegt in den
+	 * Indizes 4 * i bis 4 * i + 3.
+	 *
+	 * @return Endpunkte als (x1, y1, x2, y2)-Folge.
+	 */
+	public double[] getCoordinates() {
+		return this.coordinates;
+	}
+
+	/**
+	 * getEvaluations gibt an, wie viele eval()-Aufrufe für diese Strecken nötig
+	 * waren.
+	 *
+	 * @return Anzahl der Auswertungen.
+	 */
+	public int getEvaluations() {
+		return this.evaluations;
+	}
+
+	void setEvaluations(int evaluations) {
+		this.evaluations = evaluations;
+	}
+
+	/**
+	 * getCells gibt an, wie viele Zellen des Quadtrees mit evalInterval()
+	 * geprüft wurden.
+	 *
+	 * @return Anzahl der geprüften Zellen.
+	 */
+	public int getCells() {
+		return this.cells;
+	}
+
+	void setCells(int cells) {
+		this.cells = cells;
+	}
+}
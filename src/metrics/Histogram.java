@@ -0,0 +1,164 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram zählt nicht negative long-Werte (z. B. Laufzeiten in
+ * Nanosekunden) in logarithmisch-linearen Klassen wie HdrHistogram: Werte
+ * unter 2^SUB_BITS werden exakt gezählt, darüber wird jede Zweierpotenz in
+ * 2^(SUB_BITS - 1) gleich breite Klassen geteilt. Ein Perzentil weicht dadurch
+ * um höchstens 1 / 2^(SUB_BITS - 1) (etwa 1,6 %) vom echten Wert ab, und das
+ * Histogramm hat unabhängig von der Anzahl der Werte eine feste Größe.
+ *
+ * record() kommt ohne Sperren aus und kann aus beliebig vielen Threads
+ * gleichzeitig aufgerufen werden. Während gleichzeitig gezählt wird, sind die
+ * Abfragen nur eine Momentaufnahme; für zusammenpassende Werte eine Kopie mit
+ * copy() erstellen.
+ */
+public final class Histogram {
+	private static final int SUB_BITS = 7;
+	private static final int SUB = 1 << SUB_BITS;
+	private static final int HALF = SUB >> 1;
+	private static final int BUCKETS = SUB + (63 - SUB_BITS) * HALF;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * record zählt den Wert value. Negative Werte werden als 0 gezählt.
+	 *
+	 * @param value Zu zählender Wert.
+	 */
+	public void record(long value) {
+		long v = Math.max(value, 0);
+		this.counts.incrementAndGet(index(v));
+		this.count.increment();
+		this.sum.add(v);
+		this.max.accumulate(v);
+	}
+
+	/**
+	 * getCount gibt die Anzahl der gezählten Werte zurück.
+	 *
+	 * @return Anzahl.
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * getMean gibt den Mittelwert der gezählten Werte zurück.
+	 *
+	 * @return Mittelwert oder 0 ohne Werte.
+	 */
+	public double getMean() {
+		long n = getCount();
+		return n == 0 ? 0 : (double) this.sum.sum() / n;
+	}
+
+	/**
+	 * getMax gibt den größten gezählten Wert exakt zurück.
+	 *
+	 * @return Maximum oder 0 ohne Werte.
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+
+	/**
+	 * getValueAtPercentile gibt den Wert zurück, unter oder auf dem percent
+	 * Prozent der gezählten Werte liegen, genauer die obere Grenze seiner Klasse.
+	 *
+	 * @param percent Perzentil zwischen 0 und 100.
+	 * @return Wert oder 0 ohne Werte.
+	 * @throws IllegalArgumentException wenn percent nicht zwischen 0 und 100
+	 *                                  liegt.
+	 */
+	public long getValueAtPercentile(double percent) {
+		if (!(percent >= 0 && percent <= 100)) {
+			throw new IllegalArgumentException("Perzentil muss zwischen 0 und 100 liegen");
+		}
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += this.counts.get(i);
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percent / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += this.counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highest(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * copy gibt eine Kopie des aktuellen Standes zurück, die von weiteren
+	 * Aufrufen von record() nicht mehr verändert wird.
+	 *
+	 * @return Kopie.
+	 */
+	public Histogram copy() {
+		Histogram h = new Histogram();
+		for (int i = 0; i < BUCKETS; i++) {
+			long c = this.counts.get(i);
+			if (c != 0) {
+				h.counts.set(i, c);
+				h.count.add(c);
+			}
+		}
+		h.sum.add(this.sum.sum());
+		h.max.accumulate(getMax());
+		return h;
+	}
+
+	/**
+	 * reset entfernt alle gezählten Werte. Gleichzeitig gezählte Werte können
+	 * dabei teilweise erhalten bleiben.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			this.counts.set(i, 0);
+		}
+		this.count.reset();
+		this.sum.reset();
+		this.max.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + getCount() + " mean=" + Math.round(getMean()) + " p50=" + getValueAtPercentile(50)
+				+ " p99=" + getValueAtPercentile(99) + " max=" + getMax();
+	}
+
+	/**
+	 * index gibt die Klasse des Wertes v >= 0 zurück.
+	 */
+	static int index(long v) {
+		if (v < SUB) {
+			return (int) v;
+		}
+		int shift = 64 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+		return SUB + (shift - 1) * HALF + (int) (v >>> shift) - HALF;
+	}
+
+	/**
+	 * highest gibt den größten Wert der Klasse i zurück.
+	 */
+	static long highest(int i) {
+		if (i < SUB) {
+			return i;
+		}
+		int shift = (i - SUB) / HALF + 1;
+		long mantissa = (i - SUB) % HALF + HALF;
+		return ((mantissa + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,160 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import expressions.Expression;
+import expressions.Optimizer;
+
+/**
+ * Metrics sammelt Kennzahlen über das Einlesen, Auswerten und Zeichnen von
+ * Formeln: Anzahl und Dauer der Parser-Aufrufe, Stützstellen und
+ * Knotenauswertungen pro Kurve, Anteil der NaN- und unendlichen Werte sowie
+ * die Zeichendauer. Die Werte können jederzeit mit snapshot() abgefragt
+ * werden; zusätzlich wird pro Aufruf ein JFR-Ereignis (ParseEvent, PlotEvent)
+ * geschrieben, wenn eine Aufzeichnung läuft.
+ *
+ * Die Messung ist nur aktiv, wenn die JVM mit
+ * -Dfunktionsplotter.metrics=true gestartet wird. Die Aufrufer prüfen dazu
+ * vor jeder Messung das Feld ENABLED. Da es static final ist, entfernt der
+ * JIT-Compiler die Messung bei ausgeschaltetem Flag vollständig, sie kann
+ * also in den häufig durchlaufenen Pfaden bleiben:
+ *
+ * <pre>
+ * long start = Metrics.ENABLED ? System.nanoTime() : 0;
+ * ...
+ * if (Metrics.ENABLED) {
+ * 	Metrics.parsed(s, e, start);
+ * }
+ * </pre>
+ *
+ * Gezählt wird mit LongAdder und Histogram, also ohne Sperren. Knoten werden
+ * nicht in eval() selbst gezählt, sondern pro Kurve als Stützstellen mal
+ * Anzahl der Knoten des Baumes.
+ */
+public final class Metrics {
+	/** Schaltet die Messung ein, siehe Klassenbeschreibung. */
+	public static final boolean ENABLED = Boolean.getBoolean("funktionsplotter.metrics");
+
+	private static final LongAdder PARSES = new LongAdder();
+	private static final LongAdder PARSE_ERRORS = new LongAdder();
+	private static final Histogram PARSE_NANOS = new Histogram();
+	private static final LongAdder PLOTS = new LongAdder();
+	private static final LongAdder SAMPLES = new LongAdder();
+	private static final LongAdder NODE_EVALUATIONS = new LongAdder();
+	private static final LongAdder VALUES = new LongAdder();
+	private static final LongAdder NAN_VALUES = new LongAdder();
+	private static final LongAdder INFINITE_VALUES = new LongAdder();
+	private static final Histogram DRAW_NANOS = new Histogram();
+
+	private Metrics() {
+	}
+
+	/**
+	 * parsed zählt einen erfolgreichen Aufruf des Parsers.
+	 *
+	 * @param s          Eingelesene Formel.
+	 * @param e          Ergebnis.
+	 * @param startNanos Wert von System.nanoTime() vor dem Einlesen.
+	 */
+	public static void parsed(CharSequence s, Expression e, long startNanos) {
+		long nanos = System.nanoTime() - startNanos;
+		PARSES.increment();
+		PARSE_NANOS.record(nanos);
+		ParseEvent event = new ParseEvent();
+		if (event.shouldCommit()) {
+			event.formula = s.toString();
+			event.nodes = Optimizer.nodeCount(e);
+			event.nanos = nanos;
+			event.commit();
+		}
+	}
+
+	/**
+	 * parseFailed zählt einen Aufruf des Parsers, der mit einer Ausnahme
+	 * abgebrochen wurde.
+	 *
+	 * @param s          Formel.
+	 * @param startNanos Wert von System.nanoTime() vor dem Einlesen.
+	 */
+	public static void parseFailed(CharSequence s, long startNanos) {
+		long nanos = System.nanoTime() - startNanos;
+		PARSES.increment();
+		PARSE_ERRORS.increment();
+		PARSE_NANOS.record(nanos);
+		ParseEvent event = new ParseEvent();
+		if (event.shouldCommit()) {
+			event.formula = s.toString();
+			event.failed = true;
+			event.nanos = nanos;
+			event.commit();
+		}
+	}
+
+	/**
+	 * plotted zählt eine gezeichnete Kurve.
+	 *
+	 * @param source      Bezeichnung der Stelle, an der gezeichnet wurde.
+	 * @param e           Gezeichnete Funktion.
+	 * @param ys          Gezeichnete Funktionswerte.
+	 * @param n           Anzahl der gültigen Einträge in ys.
+	 * @param evaluations Anzahl der dafür neu berechneten Stützstellen.
+	 * @param startNanos  Wert von System.nanoTime() vor dem Abtasten.
+	 */
+	public static void plotted(String source, Expression e, double[] ys, int n, int evaluations, long startNanos) {
+		long nanos = System.nanoTime() - startNanos;
+		int nan = 0;
+		int infinite = 0;
+		for (int i = 0; i < n; i++) {
+			double y = ys[i];
+			if (y != y) {
+				nan++;
+			} else if (y == Double.POSITIVE_INFINITY || y == Double.NEGATIVE_INFINITY) {
+				infinite++;
+			}
+		}
+		int nodes = Optimizer.nodeCount(e);
+		PLOTS.increment();
+		SAMPLES.add(evaluations);
+		NODE_EVALUATIONS.add((long) evaluations * nodes);
+		VALUES.add(n);
+		NAN_VALUES.add(nan);
+		INFINITE_VALUES.add(infinite);
+		DRAW_NANOS.record(nanos);
+		PlotEvent event = new PlotEvent();
+		if (event.shouldCommit()) {
+			event.source = source;
+			event.nodes = nodes;
+			event.samples = evaluations;
+			event.nanSamples = nan;
+			event.infiniteSamples = infinite;
+			event.nanos = nanos;
+			event.commit();
+		}
+	}
+
+	/**
+	 * snapshot gibt den aktuellen Stand aller Kennzahlen zurück.
+	 *
+	 * @return Momentaufnahme, die sich danach nicht mehr ändert.
+	 */
+	public static MetricsSnapshot snapshot() {
+		return new MetricsSnapshot(PARSES.sum(), PARSE_ERRORS.sum(), PARSE_NANOS.copy(), PLOTS.sum(), SAMPLES.sum(),
+				NODE_EVALUATIONS.sum(), VALUES.sum(), NAN_VALUES.sum(), INFINITE_VALUES.sum(), DRAW_NANOS.copy());
+	}
+
+	/**
+	 * reset setzt alle Kennzahlen auf 0 zurück.
+	 */
+	public static void reset() {
+		PARSES.reset();
+		PARSE_ERRORS.reset();
+		PARSE_NANOS.reset();
+		PLOTS.reset();
+		SAMPLES.reset();
+		NODE_EVALUATIONS.reset();
+		VALUES.reset();
+		NAN_VALUES.reset();
+		INFINITE_VALUES.reset();
+		DRAW_NANOS.reset();
+	}
+}
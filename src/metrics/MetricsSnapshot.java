@@ -0,0 +1,140 @@
+package metrics;
+
+/**
+ * MetricsSnapshot ist eine unveränderliche Momentaufnahme der Kennzahlen aus
+ * Metrics. Zeiten sind in Nanosekunden angegeben.
+ */
+public final class MetricsSnapshot {
+	private final long parses;
+	private final long parseErrors;
+	private final Histogram parseNanos;
+	private final long plots;
+	private final long samples;
+	private final long nodeEvaluations;
+	private final long values;
+	private final long nanValues;
+	private final long infiniteValues;
+	private final Histogram drawNanos;
+
+	MetricsSnapshot(long parses, long parseErrors, Histogram parseNanos, long plots, long samples,
+			long nodeEvaluations, long values, long nanValues, long infiniteValues, Histogram drawNanos) {
+		this.parses = parses;
+		this.parseErrors = parseErrors;
+		this.parseNanos = parseNanos;
+		this.plots = plots;
+		this.samples = samples;
+		this.nodeEvaluations = nodeEvaluations;
+		this.values = values;
+		this.nanValues = nanValues;
+		this.infiniteValues = infiniteValues;
+		this.drawNanos = drawNanos;
+	}
+
+	/**
+	 * getParses gibt die Anzahl der Parser-Aufrufe zurück, einschließlich der
+	 * fehlgeschlagenen.
+	 *
+	 * @return Anzahl der Aufrufe.
+	 */
+	public long getParses() {
+		return this.parses;
+	}
+
+	/**
+	 * getParseErrors gibt die Anzahl der Parser-Aufrufe zurück, die mit einer
+	 * Ausnahme abgebrochen wurden.
+	 *
+	 * @return Anzahl der Fehler.
+	 */
+	public long getParseErrors() {
+		return this.parseErrors;
+	}
+
+	/**
+	 * getParseNanos gibt die Verteilung der Dauer der Parser-Aufrufe zurück.
+	 * Das Histogramm ist eine Kopie und darf nicht verändert werden.
+	 *
+	 * @return Dauer in Nanosekunden.
+	 */
+	public Histogram getParseNanos() {
+		return this.parseNanos;
+	}
+
+	/**
+	 * getPlots gibt die Anzahl der gezeichneten Kurven zurück.
+	 *
+	 * @return Anzahl der Kurven.
+	 */
+	public long getPlots() {
+		return this.plots;
+	}
+
+	/**
+	 * getSamples gibt die Anzahl der für die Kurven berechneten Stützstellen
+	 * zurück.
+	 *
+	 * @return Anzahl der Stützstellen.
+	 */
+	public long getSamples() {
+		return this.samples;
+	}
+
+	/**
+	 * getSamplesPerPlot gibt die mittlere Anzahl an Stützstellen pro Kurve
+	 * zurück.
+	 *
+	 * @return Stützstellen pro Kurve oder 0 ohne Kurven.
+	 */
+	public double getSamplesPerPlot() {
+		return this.plots == 0 ? 0 : (double) this.samples / this.plots;
+	}
+
+	/**
+	 * getNodeEvaluations gibt die Anzahl der Knotenauswertungen zurück, also
+	 * die Summe aus Stützstellen mal Knoten des Baumes über alle Kurven.
+	 *
+	 * @return Anzahl der Knotenauswertungen.
+	 */
+	public long getNodeEvaluations() {
+		return this.nodeEvaluations;
+	}
+
+	/**
+	 * getNanRate gibt den Anteil der gezeichneten Funktionswerte zurück, die NaN
+	 * sind.
+	 *
+	 * @return Anteil zwischen 0 und 1.
+	 */
+	public double getNanRate() {
+		return this.values == 0 ? 0 : (double) this.nanValues / this.values;
+	}
+
+	/**
+	 * getInfiniteRate gibt den Anteil der gezeichneten Funktionswerte zurück,
+	 * die unendlich sind.
+	 *
+	 * @return Anteil zwischen 0 und 1.
+	 */
+	public double getInfiniteRate() {
+		return this.values == 0 ? 0 : (double) this.infiniteValues / this.values;
+	}
+
+	/**
+	 * getDrawNanos gibt die Verteilung der Dauer für Abtasten und Zeichnen
+	 * einer Kurve zurück. Das Histogramm ist eine Kopie und darf nicht verändert
+	 * werden.
+	 *
+	 * @return Dauer in Nanosekunden.
+	 */
+	public Histogram getDrawNanos() {
+		return this.drawNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "parses=" + this.parses + " (errors=" + this.parseErrors + ") parseNanos[" + this.parseNanos
+				+ "] plots=" + this.plots + " samples=" + this.samples + " nodeEvaluations=" + this.nodeEvaluations
+				+ " nanRate=" + getNanRate() + " infiniteRate=" + getInfiniteRate() + " drawNanos[" + this.drawNanos
+				+ "]";
+	}
+}
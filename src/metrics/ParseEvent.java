@@ -0,0 +1,33 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * ParseEvent ist das JFR-Ereignis für das Einlesen einer Formel mit dem
+ * Parser. Es wird nur erzeugt, wenn Metrics.ENABLED gesetzt ist, und nur
+ * geschrieben, wenn eine JFR-Aufzeichnung läuft.
+ */
+@Name("funktionsplotter.Parse")
+@Label("Parse")
+@Category("Funktionsplotter")
+@Description("Einlesen einer Formel")
+@StackTrace(false)
+public final class ParseEvent extends jdk.jfr.Event {
+	@Label("Formel")
+	String formula;
+
+	@Label("Knoten")
+	int nodes;
+
+	@Label("Fehlgeschlagen")
+	boolean failed;
+
+	@Label("Dauer")
+	@Timespan(Timespan.NANOSECONDS)
+	long nanos;
+}
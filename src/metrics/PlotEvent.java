@@ -0,0 +1,39 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * PlotEvent ist das JFR-Ereignis für das Abtasten und Zeichnen einer Kurve.
+ * Es wird nur erzeugt, wenn Metrics.ENABLED gesetzt ist, und nur geschrieben,
+ * wenn eine JFR-Aufzeichnung läuft.
+ */
+@Name("funktionsplotter.Plot")
+@Label("Plot")
+@Category("Funktionsplotter")
+@Description("Abtasten und Zeichnen einer Kurve")
+@StackTrace(false)
+public final class PlotEvent extends jdk.jfr.Event {
+	@Label("Quelle")
+	String source;
+
+	@Label("Knoten")
+	int nodes;
+
+	@Label("Stützstellen")
+	int samples;
+
+	@Label("NaN-Werte")
+	int nanSamples;
+
+	@Label("Unendliche Werte")
+	int infiniteSamples;
+
+	@Label("Dauer")
+	@Timespan(Timespan.NANOSECONDS)
+	long nanos;
+}
@@ -0,0 +1,314 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import expressions.BinaryFunctionExpression;
+import expressions.BuiltinFunction;
+import expressions.Expression;
+import expressions.OperatorExpression;
+import expressions.Optimizer;
+import expressions.UnaryFunctionExpression;
+import expressions.XExpression;
+import tokens.Lexer;
+import tokens.TokenType;
+
+/**
+ * FunctionRegistry löst Funktionsaufrufe beim Lesen eines Ausdrucks auf. Sie
+ * kennt alle eingebauten Funktionen (siehe BuiltinFunction) und zusätzlich
+ * selbst definierte Funktionen, die mit define() angelegt werden, z. B.
+ *
+ * <pre>
+ * FunctionRegistry.getDefault().define("f(a, b) = a^2 + sin(b)");
+ * Expression e = Expression.parseInfixString("f(x, 2 * x) + max(x, 0, -x)");
+ * </pre>
+ *
+ * Eine selbst definierte Funktion ist ein Makro: Der Rumpf wird einmal bei
+ * define() gelesen, ein Aufruf wird beim Lesen der Formel durch diesen
+ * Syntaxbaum ersetzt, in dem die Parameter für die Syntaxbäume der Argumente
+ * stehen. Kommt ein Parameter mehrfach vor, wird derselbe Teilbaum
+ * mehrfach referenziert und von CompiledExpression und BytecodeCompiler nur
+ * einmal berechnet. Im Ergebnis stehen nur eingebaute Funktionen, daher
+ * funktionieren auch Intervalle, duale Zahlen, Ableitungen und alle Backends
+ * ohne Weiteres.
+ *
+ * Geschachtelte Aufrufe wie f(f(f(x))) mit f(a) = a^2 + a ergeben so einen
+ * Graphen, der als Baum exponentiell groß ist. Optimizer, Derivative,
+ * ExpressionInterner und die übersetzenden Backends besuchen jeden Knoten nur
+ * einmal, eval(), evalInterval() und evalDual() laufen aber den ganzen Baum
+ * ab. Ein Aufruf, dessen Baum mehr als MAX_TREE_SIZE Knoten hätte (siehe
+ * Optimizer.treeSize), wird daher abgelehnt.
+ *
+ * max und min dürfen mit beliebig vielen Argumenten (mindestens zwei)
+ * aufgerufen werden und werden von links zusammengefasst.
+ *
+ * Eine Funktion kann nicht umdefiniert werden, damit bereits gelesene und in
+ * einem ExpressionCache gespeicherte Ausdrücke gültig bleiben. Der Rumpf darf
+ * nur bereits bekannte Funktionen benutzen, Rekursion ist also nicht möglich.
+ * Eine FunctionRegistry ist threadsicher.
+ */
+public final class FunctionRegistry {
+	/** Höchstzahl der Knoten im Baum eines Aufrufs, Wiederholungen mitgezählt. */
+	public static final long MAX_TREE_SIZE = 1 << 20;
+
+	private static final FunctionRegistry DEFAULT = new FunctionRegistry();
+
+	private final Map<String, Macro> macros = new ConcurrentHashMap<>();
+
+	/**
+	 * Erzeugt eine FunctionRegistry, die nur die eingebauten Funktionen kennt.
+	 */
+	public FunctionRegistry() {
+	}
+
+	/**
+	 * getDefault gibt die FunctionRegistry zurück, die Parser.parse(s) und
+	 * Expression.parseInfixString benutzen.
+	 *
+	 * @return Gemeinsame FunctionRegistry.
+	 */
+	public static FunctionRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * define legt eine Funktion aus einer Definition der Form
+	 * name(parameter, ...) = rumpf an.
+	 *
+	 * @param definition Definition, z. B. "f(a, b) = a^2 + b".
+	 * @throws IllegalArgumentException wenn die Definition ungültig ist, siehe
+	 *                                  define(String, List, String).
+	 */
+	public void define(String definition) {
+		int equals = definition.indexOf('=');
+		if (equals < 0) {
+			throw new IllegalArgumentException("Definition ohne '=': " + definition);
+		}
+		Lexer lexer = new Lexer(definition.subSequence(0, equals));
+		if (lexer.getType() != TokenType.FUNCTION) {
+			throw new IllegalArgumentException("Definition muss mit einem Funktionsnamen beginnen");
+		}
+		String name = lexer.getName();
+		lexer.next();
+		if (lexer.getType() != TokenType.OPENING_PARENTHESIS) {
+			throw new IllegalArgumentException("Nach " + name + " wird '(' erwartet");
+		}
+		lexer.next();
+		List<String> parameters = new ArrayList<>();
+		while (lexer.getType() != TokenType.CLOSING_PARENTHESIS) {
+			if (!parameters.isEmpty()) {
+				if (lexer.getType() != TokenType.COMMA) {
+					throw new IllegalArgumentException("Unerwartetes Token an Position " + lexer.getPosition());
+				}
+				lexer.next();
+			}
+			parameters.add(parameter(lexer));
+			lexer.next();
+		}
+		lexer.next();
+		if (lexer.getType() != null) {
+			throw new IllegalArgumentException("Unerwartetes Token an Position " + lexer.getPosition());
+		}
+		define(name, parameters, definition.substring(equals + 1));
+	}
+
+	/**
+	 * define legt die Funktion name mit den Parametern parameters und dem Rumpf
+	 * body an. Der Rumpf wird sofort gelesen; er darf die Parameter, x, y und
+	 * alle bereits bekannten Funktionen benutzen.
+	 *
+	 * @param name       Name der Funktion, Groß-/Kleinschreibung wird wie bei
+	 *                   allen Funktionen nicht beachtet.
+	 * @param parameters Namen der Parameter.
+	 * @param body       Rumpf in Infix-Schreibweise.
+	 * @throws IllegalArgumentException wenn name kein gültiger oder ein schon
+	 *                                  vergebener Name ist, die Parameter
+	 *                                  ungültig sind oder der Rumpf nicht
+	 *                                  gelesen werden kann.
+	 */
+	public void define(String name, List<String> parameters, String body) {
+		name = functionName(name);
+		if (BuiltinFunction.of(name) != null) {
+			throw new IllegalArgumentException(name + " ist eine eingebaute Funktion");
+		}
+		Map<String, Expression> placeholders = new HashMap<>();
+		List<Expression> slots = new ArrayList<>(parameters.size());
+		for (String p : parameters) {
+			Lexer lexer = new Lexer(p);
+			String parameter = parameter(lexer);
+			lexer.next();
+			if (lexer.getType() != null) {
+				throw new IllegalArgumentException("Ungueltiger Parametername '" + p + "'");
+			}
+			// jeder Parameter bekommt einen eigenen Knoten, der beim Aufruf ersetzt
+			// wird
+			Expression slot = new XExpression();
+			if (placeholders.put(parameter, slot) != null) {
+				throw new IllegalArgumentException("Parameter " + parameter + " ist doppelt");
+			}
+			slots.add(slot);
+		}
+		// Rumpf lesen, solange name noch nicht bekannt ist
+		Expression tree = Parser.expand(body, this, placeholders);
+		if (this.macros.putIfAbsent(name, new Macro(Collections.unmodifiableList(slots), tree)) != null) {
+			throw new IllegalArgumentException("Funktion " + name + " ist bereits definiert");
+		}
+	}
+
+	/**
+	 * isDefined gibt an, ob name eine eingebaute oder selbst definierte Funktion
+	 * ist.
+	 *
+	 * @param name Kleingeschriebener Funktionsname.
+	 * @return true, wenn name aufgerufen werden kann.
+	 */
+	public boolean isDefined(String name) {
+		return BuiltinFunction.of(name) != null || this.macros.containsKey(name);
+	}
+
+	/**
+	 * call erzeugt den Syntaxbaum für den Aufruf name(arguments).
+	 *
+	 * @param name      Kleingeschriebener Funktionsname.
+	 * @param arguments Syntaxbäume der Argumente.
+	 * @return Syntaxbaum des Aufrufs.
+	 * @throws IllegalArgumentException wenn name unbekannt ist, die Anzahl der
+	 *                                  Argumente nicht passt oder der Baum
+	 *                                  mehr als MAX_TREE_SIZE Knoten hätte.
+	 */
+	public Expression call(String name, List<Expression> arguments) {
+		BuiltinFunction f = BuiltinFunction.of(name);
+		if (f != null) {
+			return builtin(f, arguments);
+		}
+		Macro macro = this.macros.get(name);
+		if (macro == null) {
+			throw new IllegalArgumentException("Unbekannte Funktion '" + name + "'");
+		}
+		if (arguments.size() != macro.parameters.size()) {
+			throw new IllegalArgumentException(
+					name + " erwartet " + macro.parameters.size() + " Argumente, nicht " + arguments.size());
+		}
+		Expression result = macro.expand(arguments);
+		long size = Optimizer.treeSize(result);
+		if (size > MAX_TREE_SIZE) {
+			throw new IllegalArgumentException(
+					"Aufruf von " + name + " ergibt " + size + " Knoten, erlaubt sind " + MAX_TREE_SIZE);
+		}
+		return result;
+	}
+
+	private static Expression builtin(BuiltinFunction f, List<Expression> arguments) {
+		int n = arguments.size();
+		if (f.getArity() == 1) {
+			if (n != 1) {
+				throw new IllegalArgumentException(f.getName() + " erwartet ein Argument, nicht " + n);
+			}
+			return new UnaryFunctionExpression(f, arguments.get(0));
+		}
+		if (f.isVariadic() ? n < 2 : n != 2) {
+			throw new IllegalArgumentException(
+					f.getName() + " erwartet " + (f.isVariadic() ? "mindestens " : "") + "zwei Argumente, nicht " + n);
+		}
+		Expression e = arguments.get(0);
+		for (int i = 1; i < n; i++) {
+			e = new BinaryFunctionExpression(f, e, arguments.get(i));
+		}
+		return e;
+	}
+
+	private static String functionName(String name) {
+		Lexer lexer = new Lexer(name);
+		if (lexer.getType() != TokenType.FUNCTION) {
+			throw new IllegalArgumentException("Ungueltiger Funktionsname '" + name + "'");
+		}
+		String result = lexer.getName();
+		lexer.next();
+		if (lexer.getType() != null) {
+			throw new IllegalArgumentException("Ungueltiger Funktionsname '" + name + "'");
+		}
+		return result;
+	}
+
+	/**
+	 * parameter gibt den Namen des aktuellen Tokens zurück. x und y sind als
+	 * Parameter erlaubt, e und pi nicht.
+	 */
+	private static String parameter(Lexer lexer) {
+		TokenType type = lexer.getType();
+		if (type == TokenType.X) {
+			return "x";
+		} else if (type == TokenType.Y) {
+			return "y";
+		} else if (type == TokenType.FUNCTION) {
+			return lexer.getName();
+		}
+		throw new IllegalArgumentException("Parametername erwartet an Position " + lexer.getPosition());
+	}
+
+	/**
+	 * Macro speichert den gelesenen Rumpf einer selbst definierten Funktion und
+	 * die Knoten, die darin für die Parameter stehen.
+	 */
+	private static final class Macro {
+		private final List<Expression> parameters;
+		private final Expression body;
+
+		private Macro(List<Expression> parameters, Expression body) {
+			this.parameters = parameters;
+			this.body = body;
+		}
+
+		/**
+		 * expand ersetzt im Rumpf jeden Parameter durch sein Argument. Teilbäume
+		 * ohne Parameter werden nicht kopiert, sondern mitbenutzt.
+		 */
+		private Expression expand(List<Expression> arguments) {
+			Map<Expression, Expression> done = new IdentityHashMap<>();
+			for (int i = 0; i < arguments.size(); i++) {
+				done.put(this.parameters.get(i), arguments.get(i));
+			}
+			return substitute(this.body, done);
+		}
+
+		/**
+		 * substitute gibt e mit ersetzten Parametern zurück. Jeder Knoten wird nur
+		 * einmal besucht, das Ergebnis steht in done.
+		 */
+		private static Expression substitute(Expression e, Map<Expression, Expression> done) {
+			Expression result = done.get(e);
+			if (result != null) {
+				return result;
+			}
+			result = e;
+			if (e instanceof OperatorExpression) {
+				OperatorExpression o = (OperatorExpression) e;
+				Expression left = substitute(o.getLeft(), done);
+				Expression right = substitute(o.getRight(), done);
+				if (left != o.getLeft() || right != o.getRight()) {
+					result = new OperatorExpression(o.getOp(), left, right);
+				}
+			} else if (e instanceof UnaryFunctionExpression) {
+				UnaryFunctionExpression f = (UnaryFunctionExpression) e;
+				Expression argument = substitute(f.getArgument(), done);
+				if (argument != f.getArgument()) {
+					result = new UnaryFunctionExpression(f.getFunction(), argument);
+				}
+			} else if (e instanceof BinaryFunctionExpression) {
+				BinaryFunctionExpression f = (BinaryFunctionExpression) e;
+				Expression left = substitute(f.getLeft(), done);
+				Expression right = substitute(f.getRight(), done);
+				if (left != f.getLeft() || right != f.getRight()) {
+					result = new BinaryFunctionExpression(f.getFunction(), left, right);
+				}
+			}
+			done.put(e, result);
+			return result;
+		}
+	}
+}
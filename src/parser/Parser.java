@@ -0,0 +1,227 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import expressions.Expression;
+import expressions.NumberExpression;
+import expressions.OperatorExpression;
+import expressions.XExpression;
+import expressions.YExpression;
+import metrics.Metrics;
+import tokens.Lexer;
+import tokens.Token;
+import tokens.TokenType;
+
+/**
+ * Parser liest einen mathematischen Ausdruck in Infix-Schreibweise in einem
+ * einzigen Durchlauf und erzeugt dabei direkt den Syntaxbaum. Anders als der
+ * Weg über Token.tokenize, ShuntingYard und Expression.parseRPN entstehen
+ * dabei weder Teilstrings noch Token-Arrays oder ein Zwischenergebnis in
+ * umgekehrter polnischer Notation.
+ *
+ * Der Parser arbeitet nach dem Prinzip der Operator-Rangfolge (Pratt-Parser):
+ * Ein Operand wird gelesen, danach werden so lange Operatoren angehängt, wie
+ * ihre Priorität (Token.ranking) mindestens der geforderten entspricht. Punkt
+ * und Strich sind linksassoziativ, Potenzierung ist rechtsassoziativ. Die
+ * erzeugten Bäume sind dieselben wie beim Shunting-Yard-Algorithmus.
+ *
+ * Ein Minus am Anfang eines Operanden wird wie bisher als 0 - a gelesen, wobei
+ * a alle folgenden Punkt- und Potenzrechnungen umfasst (-x^2 ist 0 - x^2). Ein
+ * Minus direkt vor dem Ende oder vor einer schließenden Klammer bedeutet - 0.
+ *
+ * Funktionsaufrufe wie sin(x) oder max(x, 0, y) werden beim Lesen über eine
+ * FunctionRegistry aufgelöst. Im Syntaxbaum stehen danach nur noch Knoten mit
+ * einer BuiltinFunction; unbekannte Namen und eine falsche Anzahl von
+ * Argumenten werden sofort als Fehler gemeldet.
+ */
+public class Parser {
+	private static final int PLUS_RANKING = new Token(TokenType.PLUS).ranking();
+	private static final int TIMES_RANKING = new Token(TokenType.TIMES).ranking();
+
+	private final Lexer lexer;
+	private final FunctionRegistry functions;
+	private final Map<String, Expression> variables;
+
+	private Parser(CharSequence s, FunctionRegistry functions, Map<String, Expression> variables) {
+		this.lexer = new Lexer(s);
+		this.functions = functions;
+		this.variables = variables;
+	}
+
+	/**
+	 * parse liest den Ausdruck s und gibt ihn als Syntaxbaum zurück.
+	 *
+	 * @param s Ausdruck in Infix-Schreibweise.
+	 * @return Ausdruck als Syntaxbaum.
+	 * @throws IllegalArgumentException wird bei ungültigen Ausdrücken geworfen.
+	 * @throws IllegalStateException    wird geworfen, wenn die Klammern nicht
+	 *                                  zusammenpassen.
+	 */
+	public static Expression parse(CharSequence s) {
+		return parse(s, FunctionRegistry.getDefault());
+	}
+
+	/**
+	 * parse liest den Ausdruck s und löst Funktionsnamen mit functions auf.
+	 *
+	 * @param s         Ausdruck in Infix-Schreibweise.
+	 * @param functions Eingebaute und selbst definierte Funktionen.
+	 * @return Ausdruck als Syntaxbaum.
+	 * @throws IllegalArgumentException wird bei ungültigen Ausdrücken,
+	 *                                  unbekannten Funktionen oder einer
+	 *                                  falschen Anzahl von Argumenten
+	 *                                  geworfen.
+	 * @throws IllegalStateException    wird geworfen, wenn die Klammern nicht
+	 *                                  zusammenpassen.
+	 */
+	public static Expression parse(CharSequence s, FunctionRegistry functions) {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		try {
+			Expression e = new Parser(s, functions, Collections.emptyMap()).read();
+			if (Metrics.ENABLED) {
+				Metrics.parsed(s, e, start);
+			}
+			return e;
+		} catch (RuntimeException ex) {
+			if (Metrics.ENABLED) {
+				Metrics.parseFailed(s, start);
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * expand liest den Rumpf einer selbst definierten Funktion. Namen aus
+	 * variables (auch x und y) werden durch die zugehörigen Syntaxbäume
+	 * ersetzt.
+	 */
+	static Expression expand(CharSequence body, FunctionRegistry functions, Map<String, Expression> variables) {
+		return new Parser(body, functions, variables).read();
+	}
+
+	private Expression read() {
+		Expression e = expression(PLUS_RANKING);
+		if (lexer.getType() == TokenType.CLOSING_PARENTHESIS) {
+			throw new IllegalStateException("Mismatched parentheses");
+		}
+		if (lexer.getType() != null) {
+			throw unexpected();
+		}
+		return e;
+	}
+
+	private Expression expression(int minRanking) {
+		Expression left = operand(minRanking);
+		while (true) {
+			TokenType type = lexer.getType();
+			if (!isOperator(type)) {
+				return left;
+			}
+			Token op = new Token(type);
+			if (op.ranking() < minRanking) {
+				return left;
+			}
+			lexer.next();
+			Expression right;
+			if (type == TokenType.MINUS && (lexer.getType() == null
+					|| lexer.getType() == TokenType.CLOSING_PARENTHESIS)) {
+				right = new NumberExpression(0.0);
+			} else {
+				right = expression(op.isLeftAssociative() ? op.ranking() + 1 : op.ranking());
+			}
+			left = new OperatorExpression(op, left, right);
+		}
+	}
+
+	private Expression operand(int minRanking) {
+		TokenType type = lexer.getType();
+		if (type == null) {
+			throw new IllegalArgumentException("Unerwartetes Ende des Ausdrucks");
+		}
+		switch (type) {
+		case NUMBER:
+			double number = lexer.getNumber();
+			lexer.next();
+			return new NumberExpression(number);
+		case X:
+			lexer.next();
+			Expression x = variables.get("x");
+			return x != null ? x : new XExpression();
+		case Y:
+			lexer.next();
+			Expression y = variables.get("y");
+			return y != null ? y : new YExpression();
+		case FUNCTION:
+			String name = lexer.getName();
+			int position = lexer.getPosition();
+			lexer.next();
+			if (lexer.getType() != TokenType.OPENING_PARENTHESIS) {
+				Expression bound = variables.get(name);
+				if (bound != null) {
+					return bound;
+				}
+				throw new IllegalArgumentException("Unbekannter Name '" + name + "' an Position " + position);
+			}
+			if (!functions.isDefined(name)) {
+				throw new IllegalArgumentException("Unbekannte Funktion '" + name + "' an Position " + position);
+			}
+			return functions.call(name, arguments());
+		case OPENING_PARENTHESIS:
+			return parenthesized();
+		case MINUS:
+			Token minus = new Token(TokenType.MINUS);
+			lexer.next();
+			Expression argument = expression(Math.max(TIMES_RANKING, minRanking));
+			return new OperatorExpression(minus, new NumberExpression(0.0), argument);
+		default:
+			throw unexpected();
+		}
+	}
+
+	private Expression parenthesized() {
+		lexer.next();
+		Expression e = expression(PLUS_RANKING);
+		closingParenthesis();
+		return e;
+	}
+
+	/**
+	 * arguments liest die durch Kommas getrennten Argumente eines
+	 * Funktionsaufrufs einschließlich der Klammern.
+	 */
+	private List<Expression> arguments() {
+		lexer.next();
+		List<Expression> arguments = new ArrayList<>(2);
+		if (lexer.getType() != TokenType.CLOSING_PARENTHESIS) {
+			arguments.add(expression(PLUS_RANKING));
+			while (lexer.getType() == TokenType.COMMA) {
+				lexer.next();
+				arguments.add(expression(PLUS_RANKING));
+			}
+		}
+		closingParenthesis();
+		return arguments;
+	}
+
+	private void closingParenthesis() {
+		if (lexer.getType() != TokenType.CLOSING_PARENTHESIS) {
+			if (lexer.getType() == null) {
+				throw new IllegalStateException("Mismatched parentheses");
+			}
+			throw unexpected();
+		}
+		lexer.next();
+	}
+
+	private static boolean isOperator(TokenType type) {
+		return type == TokenType.PLUS || type == TokenType.MINUS || type == TokenType.TIMES
+				|| type == TokenType.DIVIDE || type == TokenType.POWER;
+	}
+
+	private IllegalArgumentException unexpected() {
+		return new IllegalArgumentException("Unerwartetes Token an Position " + lexer.getPosition());
+	}
+}
@@ -0,0 +1,51 @@
+package render;
+
+import java.awt.Color;
+
+import expressions.Expression;
+
+/**
+ * Curve fasst eine zu zeichnende Expression und ihre Farbe zusammen. Eine
+ * Funktion y = f(x) wird mit dem AdaptiveSampler gezeichnet, eine implizite
+ * Kurve f(x, y) = 0 mit dem ImplicitPlotter.
+ */
+public final class Curve {
+	private final Expression expression;
+	private final Color color;
+	private final boolean implicit;
+
+	/**
+	 * Erzeugt die Kurve einer Funktion y = e(x).
+	 *
+	 * @param expression Funktion in x.
+	 * @param color      Farbe.
+	 */
+	public Curve(Expression expression, Color color) {
+		this(expression, color, false);
+	}
+
+	/**
+	 * Erzeugt eine Kurve.
+	 *
+	 * @param expression Funktion in x oder, falls implicit, in x und y.
+	 * @param color      Farbe.
+	 * @param implicit   true für die implizite Kurve expression(x, y) = 0.
+	 */
+	public Curve(Expression expression, Color color, boolean implicit) {
+		this.expression = expression;
+		this.color = color;
+		this.implicit = implicit;
+	}
+
+	public Expression getExpression() {
+		return this.expression;
+	}
+
+	public Color getColor() {
+		return this.color;
+	}
+
+	public boolean isImplicit() {
+		return this.implicit;
+	}
+}
@@ -0,0 +1,217 @@
+package render;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+
+import expressions.Expression;
+import grid.AdaptiveSampler;
+import grid.ImplicitPlotter;
+import grid.M4Decimator;
+import grid.Samples;
+import grid.Segments;
+import metrics.Metrics;
+
+/**
+ * PlotPainter zeichnet Koordinatensystem, Beschriftungen und Kurven für einen
+ * Viewport in ein beliebiges Graphics-Objekt, etwa in das Fenster von Grid
+ * oder in ein BufferedImage ohne Bildschirm.
+ *
+ * Die Gitterlinien liegen bei Vielfachen von MINOR_STEP, jede fünfte ist
+ * dunkler. Linien, die enger als MIN_LINE_PIXELS Pixel zusammenliegen, werden
+ * weggelassen. Beschriftet werden ganze Zahlen; liegen sie zu dicht, nur jede
+ * zweite, fünfte, zehnte usw.
+ *
+ * Beschriftungen werden auch für Zahlen knapp außerhalb des Viewports
+ * gezeichnet, damit Texte, die über den Rand einer Kachel ragen, in beiden
+ * Kacheln vollständig erscheinen.
+ *
+ * Ein PlotPainter hat keinen veränderlichen Zustand und kann gleichzeitig aus
+ * mehreren Threads benutzt werden.
+ */
+public class PlotPainter {
+	public static final double MINOR_STEP = 0.2;
+	private static final int MAJOR_EVERY = 5;
+	private static final double MIN_LINE_PIXELS = 2;
+	private static final double MIN_LABEL_PIXELS = 32;
+	private static final int LABEL_SHIFT_X = -20;
+	private static final int LABEL_SHIFT_Y = 16;
+	private static final Font LABEL_FONT = new Font("Helvetica", Font.PLAIN, 12);
+
+	private final AdaptiveSampler sampler;
+	private final ImplicitPlotter implicit;
+
+	/**
+	 * Erzeugt einen PlotPainter mit Standard-Sampler und -Plotter.
+	 */
+	public PlotPainter() {
+		this(new AdaptiveSampler(), new ImplicitPlotter());
+	}
+
+	/**
+	 * Erzeugt einen PlotPainter.
+	 *
+	 * @param sampler  Sampler für Funktionen y = f(x).
+	 * @param implicit Plotter für implizite Kurven f(x, y) = 0.
+	 */
+	public PlotPainter(AdaptiveSampler sampler, ImplicitPlotter implicit) {
+		this.sampler = sampler;
+		this.implicit = implicit;
+	}
+
+	/**
+	 * background füllt v weiß und zeichnet Gitter, Achsen und Beschriftungen.
+	 */
+	public void background(Graphics g, Viewport v) {
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, v.getWidth(), v.getHeight());
+		grid(g, v);
+		axes(g, v);
+		labels(g, v);
+	}
+
+	/**
+	 * grid zeichnet die Gitterlinien.
+	 */
+	public void grid(Graphics g, Viewport v) {
+		boolean minor = MINOR_STEP * v.getXScale() >= MIN_LINE_PIXELS;
+		boolean major = MAJOR_EVERY * MINOR_STEP * v.getXScale() >= MIN_LINE_PIXELS;
+		if (major) {
+			long from = (long) Math.ceil(v.getXMin() / MINOR_STEP);
+			long to = (long) Math.floor(v.getXMax() / MINOR_STEP);
+			for/* vertical lines */ (long k = from; k <= to; k++) {
+				boolean isMajor = k % MAJOR_EVERY == 0;
+				if (isMajor || minor) {
+					g.setColor(isMajor ? Color.GRAY : Color.LIGHT_GRAY);
+					int px = v.toPixelX(k * MINOR_STEP);
+					g.drawLine(px, 0, px, v.getHeight());
+				}
+			}
+		}
+		minor = MINOR_STEP * v.getYScale() >= MIN_LINE_PIXELS;
+		major = MAJOR_EVERY * MINOR_STEP * v.getYScale() >= MIN_LINE_PIXELS;
+		if (major) {
+			long from = (long) Math.ceil(v.getYMin() / MINOR_STEP);
+			long to = (long) Math.floor(v.getYMax() / MINOR_STEP);
+			for/* horizontal lines */ (long k = from; k <= to; k++) {
+				boolean isMajor = k % MAJOR_EVERY == 0;
+				if (isMajor || minor) {
+					g.setColor(isMajor ? Color.GRAY : Color.LIGHT_GRAY);
+					int py = v.toPixelY(k * MINOR_STEP);
+					g.drawLine(0, py, v.getWidth(), py);
+				}
+			}
+		}
+	}
+
+	/**
+	 * axes zeichnet die beiden Koordinatenachsen.
+	 */
+	public void axes(Graphics g, Viewport v) {
+		g.setColor(Color.RED);
+		if (v.getXMin() <= 0 && 0 <= v.getXMax()) {
+			int px = v.toPixelX(0);
+			g.drawLine(px, 0, px, v.getHeight());// vertical
+		}
+		if (v.getYMin() <= 0 && 0 <= v.getYMax()) {
+			int py = v.toPixelY(0);
+			g.drawLine(0, py, v.getWidth(), py);// horizontal
+		}
+	}
+
+	/**
+	 * labels beschriftet die Achsen bei ganzen Zahlen.
+	 */
+	public void labels(Graphics g, Viewport v) {
+		g.setColor(Color.BLACK);
+		g.setFont(LABEL_FONT);
+		// Texte reichen von ihrer Position aus nach rechts und oben, Zahlen knapp
+		// außerhalb des Viewports können also noch sichtbar sein
+		double xMargin = MIN_LABEL_PIXELS / v.getXScale();
+		double yMargin = MIN_LABEL_PIXELS / v.getYScale();
+		int baseline = v.toPixelY(0) + LABEL_SHIFT_Y;
+		if (baseline + MIN_LABEL_PIXELS >= 0 && baseline - MIN_LABEL_PIXELS < v.getHeight()) {
+			long step = labelStep(v.getXScale());
+			long from = (long) Math.ceil((v.getXMin() - xMargin) / step);
+			long to = (long) Math.floor((v.getXMax() + xMargin) / step);
+			for/* x-axis */ (long k = from; k <= to; k++) {
+				if (k != 0) {
+					g.drawString(Long.toString(k * step), v.toPixelX(k * step), baseline);
+				}
+			}
+		}
+		int left = v.toPixelX(0) + LABEL_SHIFT_X;
+		if (left + MIN_LABEL_PIXELS >= 0 && left - MIN_LABEL_PIXELS < v.getWidth()) {
+			long step = labelStep(v.getYScale());
+			long from = (long) Math.ceil((v.getYMin() - yMargin) / step);
+			long to = (long) Math.floor((v.getYMax() + yMargin) / step);
+			for/* y-axis */ (long k = from; k <= to; k++) {
+				if (k != 0) {
+					g.drawString(Long.toString(k * step), left, v.toPixelY(k * step));
+				}
+			}
+		}
+	}
+
+	/**
+	 * labelStep gibt den kleinsten Abstand 1, 2, 5, 10, 20, ... zurück, bei dem
+	 * Beschriftungen mindestens MIN_LABEL_PIXELS Pixel auseinanderliegen.
+	 */
+	private static long labelStep(double scale) {
+		long step = 1;
+		while (step * scale < MIN_LABEL_PIXELS && step < Long.MAX_VALUE / 10) {
+			if (2 * step * scale >= MIN_LABEL_PIXELS) {
+				return 2 * step;
+			}
+			if (5 * step * scale >= MIN_LABEL_PIXELS) {
+				return 5 * step;
+			}
+			step *= 10;
+		}
+		return step;
+	}
+
+	/**
+	 * paint zeichnet die Kurve c.
+	 */
+	public void paint(Graphics g, Viewport v, Curve c) {
+		if (c.isImplicit()) {
+			plotImplicit(g, v, c.getExpression(), c.getColor());
+		} else {
+			plot(g, v, c.getExpression(), c.getColor());
+		}
+	}
+
+	/**
+	 * plot zeichnet die Funktion e mit den Stützstellen des AdaptiveSamplers.
+	 * Gezeichnet werden höchstens vier Punkte pro Pixelspalte, siehe
+	 * M4Decimator.
+	 */
+	public void plot(Graphics g, Viewport v, Expression e, Color c) {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		g.setColor(c);
+		Samples samples = this.sampler.sample(e, v.getXMin(), v.getXMax(), v.getYMin(), v.getYMax(), v.getWidth(),
+				v.getHeight());
+		M4Decimator lines = new M4Decimator(g, v.getXMin(), v.getXMax(), v.getYMin(), v.getYMax(), v.getWidth(),
+				v.getHeight());
+		lines.add(samples.getXs(), samples.getYs(), samples.size());
+		lines.endLine();
+		if (Metrics.ENABLED) {
+			Metrics.plotted("adaptive", e, samples.getYs(), samples.size(), samples.getEvaluations(), start);
+		}
+	}
+
+	/**
+	 * plotImplicit zeichnet die Kurve f(x, y) = 0, siehe ImplicitPlotter.
+	 */
+	public void plotImplicit(Graphics g, Viewport v, Expression f, Color c) {
+		g.setColor(c);
+		Segments segments = this.implicit.plot(f, v.getXMin(), v.getXMax(), v.getYMin(), v.getYMax(), v.getWidth(),
+				v.getHeight());
+		double[] coordinates = segments.getCoordinates();
+		for (int i = 0; i < 4 * segments.size(); i += 4) {
+			g.drawLine(v.toPixelX(coordinates[i]), v.toPixelY(coordinates[i + 1]), v.toPixelX(coordinates[i + 2]),
+					v.toPixelY(coordinates[i + 3]));
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package render;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RenderPipeline zeichnet Bilder eines ViewportEngines in einem eigenen
+ * Hintergrund-Thread, damit aufwendige Formeln den Event Dispatch Thread nicht
+ * blockieren. Der EDT ruft nur request() und paint() auf; paint() kopiert das
+ * zuletzt fertiggestellte Bild.
+ *
+ * Gezeichnet wird in einen BufferedImage-Hintergrundpuffer, der nach
+ * Fertigstellung mit dem sichtbaren Puffer getauscht wird (Double Buffering).
+ * Jede Anfrage erhält eine fortlaufende Generationsnummer. Ein Bild, dessen
+ * Generation nicht mehr die neueste ist, wird nicht begonnen bzw. vor der
+ * nächsten Kurve abgebrochen und nie angezeigt. Anfragen mit unverändertem
+ * Ausschnitt und unveränderten Formeln werden ignoriert, so dass paint() nach
+ * einem fertigen Bild erneut request() aufrufen darf.
+ *
+ * Der ViewportEngine wird nur vom Hintergrund-Thread benutzt. Gemessen wird die
+ * Latenz von request() bis zum fertigen Bild.
+ */
+public class RenderPipeline {
+	private final ViewportEngine engine;
+	private final Runnable onFrame;
+	private final ExecutorService worker;
+	private final AtomicLong generation = new AtomicLong();
+	private final Object lock = new Object();
+	private Request last;
+	private BufferedImage front;
+	private BufferedImage back;
+	private volatile RuntimeException lastError;
+
+	private final LongAdder frames = new LongAdder();
+	private final LongAdder cancelledFrames = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder totalLatency = new LongAdder();
+	private final AtomicLong maxLatency = new AtomicLong();
+	private volatile long lastLatency;
+
+	/**
+	 * Erzeugt eine Pipeline mit einem eigenen Hintergrund-Thread.
+	 *
+	 * @param engine  Zeichnet die Bilder; wird danach nur noch von der Pipeline
+	 *                benutzt.
+	 * @param onFrame Wird im Hintergrund-Thread aufgerufen, sobald ein neues Bild
+	 *                fertig ist, etwa Component::repaint.
+	 */
+	public RenderPipeline(ViewportEngine engine, Runnable onFrame) {
+		this.engine = engine;
+		this.onFrame = onFrame;
+		this.worker = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "RenderPipeline");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * request fordert ein Bild des Ausschnitts v mit den angegebenen Formeln an.
+	 * Alle älteren, noch nicht fertigen Bilder werden verworfen.
+	 *
+	 * @param v        Ausschnitt.
+	 * @param formulas Formeln in Infix-Schreibweise.
+	 * @param colors   Farbe zu jeder Formel.
+	 * @return false, wenn sich gegenüber der letzten Anfrage nichts geändert hat.
+	 */
+	public boolean request(Viewport v, List<String> formulas, List<Color> colors) {
+		Request r = new Request(v, List.copyOf(formulas), List.copyOf(colors), System.nanoTime());
+		long gen;
+		synchronized (this.lock) {
+			if (r.sameFrame(this.last)) {
+				return false;
+			}
+			this.last = r;
+			gen = this.generation.incrementAndGet();
+		}
+		this.worker.execute(() -> render(r, gen));
+		return true;
+	}
+
+	private void render(Request r, long gen) {
+		if (gen != this.generation.get()) {
+			this.cancelledFrames.increment();
+			return;
+		}
+		try {
+			this.engine.setCurves(r.formulas, r.colors);
+			BufferedImage image = this.back;
+			if (image == null || image.getWidth() != r.viewport.getWidth()
+					|| image.getHeight() != r.viewport.getHeight()) {
+				image = new BufferedImage(r.viewport.getWidth(), r.viewport.getHeight(), BufferedImage.TYPE_INT_RGB);
+			}
+			Graphics2D g = image.createGraphics();
+			boolean done;
+			try {
+				done = this.engine.paint(g, r.viewport, () -> gen != this.generation.get());
+			} finally {
+				g.dispose();
+			}
+			if (!done) {
+				this.back = image;
+				this.cancelledFrames.increment();
+				return;
+			}
+			synchronized (this.lock) {
+				this.back = this.front;
+				this.front = image;
+			}
+			long latency = System.nanoTime() - r.requested;
+			this.lastLatency = latency;
+			this.totalLatency.add(latency);
+			this.maxLatency.accumulateAndGet(latency, Math::max);
+			this.frames.increment();
+		} catch (RuntimeException e) {
+			// z. B. eine ungültige Formel; das letzte Bild bleibt sichtbar
+			this.lastError = e;
+			this.errors.increment();
+			return;
+		}
+		this.onFrame.run();
+	}
+
+	/**
+	 * paint kopiert das zuletzt fertiggestellte Bild nach g.
+	 *
+	 * @param g Ziel.
+	 * @return false, wenn noch kein Bild fertig ist.
+	 */
+	public boolean paint(Graphics g) {
+		synchronized (this.lock) {
+			if (this.front == null) {
+				return false;
+			}
+			g.drawImage(this.front, 0, 0, null);
+			return true;
+		}
+	}
+
+	/**
+	 * getFrames gibt die Anzahl der fertiggestellten Bilder zurück.
+	 *
+	 * @return Anzahl der Bilder.
+	 */
+	public long getFrames() {
+		return this.frames.sum();
+	}
+
+	/**
+	 * getCancelledFrames gibt die Anzahl der verworfenen Bilder zurück.
+	 *
+	 * @return Anzahl der nicht oder nur teilweise gezeichneten Bilder.
+	 */
+	public long getCancelledFrames() {
+		return this.cancelledFrames.sum();
+	}
+
+	/**
+	 * getErrors gibt die Anzahl der Bilder zurück, die wegen einer Ausnahme
+	 * nicht fertig wurden.
+	 *
+	 * @return Anzahl der Fehler.
+	 */
+	public long getErrors() {
+		return this.errors.sum();
+	}
+
+	/**
+	 * getLastError gibt die letzte beim Zeichnen aufgetretene Ausnahme zurück.
+	 *
+	 * @return Ausnahme oder null.
+	 */
+	public RuntimeException getLastError() {
+		return this.lastError;
+	}
+
+	/**
+	 * getLastLatencyNanos gibt die Zeit von request() bis zum zuletzt
+	 * fertiggestellten Bild zurück.
+	 *
+	 * @return Latenz in Nanosekunden.
+	 */
+	public long getLastLatencyNanos() {
+		return this.lastLatency;
+	}
+
+	/**
+	 * getMeanLatencyNanos gibt die mittlere Latenz aller fertigen Bilder zurück.
+	 *
+	 * @return Latenz in Nanosekunden, 0 ohne Bilder.
+	 */
+	public long getMeanLatencyNanos() {
+		long n = this.frames.sum();
+		return n == 0 ? 0 : this.totalLatency.sum() / n;
+	}
+
+	/**
+	 * getMaxLatencyNanos gibt die größte Latenz aller fertigen Bilder zurück.
+	 *
+	 * @return Latenz in Nanosekunden.
+	 */
+	public long getMaxLatencyNanos() {
+		return this.maxLatency.get();
+	}
+
+	/**
+	 * shutdown beendet den Hintergrund-Thread. Angeforderte Bilder werden noch
+	 * fertiggestellt.
+	 */
+	public void shutdown() {
+		this.worker.shutdown();
+	}
+
+	/**
+	 * Request beschreibt ein angefordertes Bild.
+	 */
+	private static final class Request {
+		private final Viewport viewport;
+		private final List<String> formulas;
+		private final List<Color> colors;
+		private final long requested;
+
+		private Request(Viewport viewport, List<String> formulas, List<Color> colors, long requested) {
+			this.viewport = viewport;
+			this.formulas = formulas;
+			this.colors = colors;
+			this.requested = requested;
+		}
+
+		private boolean sameFrame(Request other) {
+			return other != null && this.viewport.equals(other.viewport) && this.formulas.equals(other.formulas)
+					&& this.colors.equals(other.colors);
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package render;
+
+import java.util.List;
+
+import expressions.Expression;
+import expressions.FusedEvaluator;
+import expressions.ScratchPool;
+
+/**
+ * SampleBuffer speichert die Funktionswerte einer Expression auf einem Raster
+ * x = k * 2^exponent für aufeinanderfolgende ganze Zahlen k. Da die Schrittweite
+ * eine Zweierpotenz ist, sind alle Rasterpunkte exakt darstellbar und jedes
+ * gröbere Raster ist eine Teilmenge jedes feineren.
+ *
+ * update passt das Raster an einen neuen Viewport an und wertet dabei nur die
+ * Stellen aus, die noch nicht bekannt sind: beim Verschieben die neu
+ * sichtbaren Ränder, beim Vergrößern jede zweite Stelle und beim Verkleinern
+ * gar keine, solange der neue Bereich im alten liegt. Mehrere Kurven auf
+ * demselben Raster können gemeinsam mit einem FusedEvaluator aktualisiert
+ * werden.
+ */
+final class SampleBuffer {
+	/** Stützstellen pro Pixel, mindestens. */
+	static final double SAMPLES_PER_PIXEL = 2;
+
+	private final Expression e;
+	private int exponent;
+	private long first;
+	private int size;
+	private double[] ys = new double[0];
+	private double[] spare = new double[0];
+	private int[] missing = new int[0];
+	private long evaluations;
+
+	SampleBuffer(Expression e) {
+		this.e = e;
+	}
+
+	/**
+	 * update stellt sicher, dass alle Rasterpunkte von v ausgewertet sind.
+	 *
+	 * @param v Neuer Ausschnitt.
+	 * @return Anzahl der dafür nötigen Auswertungen.
+	 */
+	int update(Viewport v) {
+		int exponent = exponent(v);
+		double step = Math.scalb(1.0, exponent);
+		long first = (long) Math.floor(v.getXMin() / step);
+		int size = (int) ((long) Math.ceil(v.getXMax() / step) - first + 1);
+
+		double[] xs = ScratchPool.take(size);
+		int count = collect(exponent, first, size, xs);
+		if (count > 0) {
+			double[] out = ScratchPool.take(count);
+			try {
+				this.e.evalBatch(xs, 0, out, 0, count);
+				scatter(out, count);
+			} finally {
+				ScratchPool.release(out);
+			}
+		}
+		ScratchPool.release(xs);
+		commit(exponent, first, size, count);
+		return count;
+	}
+
+	/**
+	 * update stellt für mehrere SampleBuffer mit demselben Raster (siehe
+	 * sameLattice) sicher, dass alle Rasterpunkte von v ausgewertet sind. Die
+	 * fehlenden Stellen sind dann für alle Kurven dieselben und werden mit fused
+	 * in einem gemeinsamen Durchlauf berechnet.
+	 *
+	 * @param buffers SampleBuffer mit demselben Raster.
+	 * @param fused   FusedEvaluator über die Ausdrücke von buffers in derselben
+	 *                Reihenfolge.
+	 * @param v       Neuer Ausschnitt.
+	 * @return Anzahl der Auswertungen pro Kurve.
+	 */
+	static int update(List<SampleBuffer> buffers, FusedEvaluator fused, Viewport v) {
+		int exponent = exponent(v);
+		double step = Math.scalb(1.0, exponent);
+		long first = (long) Math.floor(v.getXMin() / step);
+		int size = (int) ((long) Math.ceil(v.getXMax() / step) - first + 1);
+
+		double[] xs = ScratchPool.take(size);
+		int count = 0;
+		for (SampleBuffer b : buffers) {
+			// jeder Puffer übernimmt seine bekannten Werte; xs und count sind für
+			// alle gleich
+			count = b.collect(exponent, first, size, xs);
+		}
+		if (count > 0) {
+			double[][] out = new double[buffers.size()][];
+			try {
+				for (int k = 0; k < out.length; k++) {
+					out[k] = ScratchPool.take(count);
+				}
+				fused.evalBatch(xs, 0, out, 0, count);
+				for (int k = 0; k < out.length; k++) {
+					buffers.get(k).scatter(out[k], count);
+				}
+			} finally {
+				for (double[] column : out) {
+					if (column != null) {
+						ScratchPool.release(column);
+					}
+				}
+			}
+		}
+		ScratchPool.release(xs);
+		for (SampleBuffer b : buffers) {
+			b.commit(exponent, first, size, count);
+		}
+		return count;
+	}
+
+	/**
+	 * exponent gibt den Exponenten der Schrittweite für v zurück.
+	 */
+	private static int exponent(Viewport v) {
+		return Math.getExponent((v.getXMax() - v.getXMin()) / v.getWidth() / SAMPLES_PER_PIXEL);
+	}
+
+	/**
+	 * collect kopiert die bekannten Werte in das neue Raster und merkt sich die
+	 * Indizes der fehlenden Stellen, deren x-Werte nach xs geschrieben werden.
+	 *
+	 * @return Anzahl der fehlenden Stellen.
+	 */
+	private int collect(int exponent, long first, int size, double[] xs) {
+		if (this.spare.length < size) {
+			this.spare = new double[size];
+		}
+		if (this.missing.length < size) {
+			this.missing = new int[size];
+		}
+		double[] ys = this.spare;
+		int[] missing = this.missing;
+		double step = Math.scalb(1.0, exponent);
+		int count = 0;
+		int shift = exponent - this.exponent;
+		for (int i = 0; i < size; i++) {
+			long k = first + i;
+			long old = oldIndex(k, shift);
+			if (old >= 0 && old < this.size) {
+				ys[i] = this.ys[(int) old];
+			} else {
+				missing[count] = i;
+				xs[count++] = k * step;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * scatter schreibt die berechneten Werte an die fehlenden Stellen.
+	 */
+	private void scatter(double[] out, int count) {
+		for (int j = 0; j < count; j++) {
+			this.spare[this.missing[j]] = out[j];
+		}
+	}
+
+	/**
+	 * commit macht das in collect aufgebaute Raster zum aktuellen.
+	 */
+	private void commit(int exponent, long first, int size, int count) {
+		double[] ys = this.spare;
+		this.spare = this.ys;
+		this.ys = ys;
+		this.exponent = exponent;
+		this.first = first;
+		this.size = size;
+		this.evaluations += count;
+	}
+
+	/**
+	 * sameLattice gibt an, ob other dieselben Rasterpunkte gespeichert hat. Dann
+	 * fehlen bei jedem Ausschnitt dieselben Stellen, siehe
+	 * update(List, FusedEvaluator, Viewport).
+	 */
+	boolean sameLattice(SampleBuffer other) {
+		return this.exponent == other.exponent && this.first == other.first && this.size == other.size;
+	}
+
+	/**
+	 * oldIndex gibt den Index des Rasterpunkts k (neues Raster, um shift
+	 * Zweierpotenzen gröber als das alte) im alten Raster zurück oder -1, wenn
+	 * er dort nicht vorkommt.
+	 */
+	private long oldIndex(long k, int shift) {
+		if (this.size == 0 || shift >= 62 || shift <= -62) {
+			return -1;
+		} else if (shift >= 0) {
+			if (Long.numberOfLeadingZeros(Math.abs(k)) <= shift + 1) {
+				return -1;
+			}
+			return (k << shift) - this.first;
+		} else {
+			return (k & ((1L << -shift) - 1)) == 0 ? (k >> -shift) - this.first : -1;
+		}
+	}
+
+	/**
+	 * x gibt die i-te Stelle des aktuellen Rasters zurück.
+	 */
+	double x(int i) {
+		return (this.first + i) * Math.scalb(1.0, this.exponent);
+	}
+
+	double[] getYs() {
+		return this.ys;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	Expression getExpression() {
+		return this.e;
+	}
+
+	long getEvaluations() {
+		return this.evaluations;
+	}
+}
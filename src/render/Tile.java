@@ -0,0 +1,123 @@
+package render;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tile bezeichnet eine quadratische Kachel der Ebene im XYZ-Schema. Auf Stufe
+ * z ist eine Kachel EXTENT / 2^z Einheiten breit; Stufe 0 entspricht also
+ * etwa der Standardansicht von Grid. Kachel (x, y) beginnt bei x * size
+ * und reicht in y-Richtung von -y * size nach unten, y wächst wie bei
+ * Kartenkacheln nach unten. Die Kacheln um den Ursprung haben daher die
+ * Nummern -1 und 0, negative Nummern sind erlaubt.
+ */
+public final class Tile {
+	public static final double EXTENT = 20;
+	public static final int MAX_ZOOM = 40;
+
+	private final int z;
+	private final long x;
+	private final long y;
+
+	/**
+	 * Erzeugt eine Kachel.
+	 *
+	 * @param z Zoomstufe von 0 bis MAX_ZOOM.
+	 * @param x Spalte.
+	 * @param y Zeile, nach unten wachsend.
+	 * @throws IllegalArgumentException wenn z außerhalb des erlaubten Bereichs
+	 *                                  liegt.
+	 */
+	public Tile(int z, long x, long y) {
+		if (z < 0 || z > MAX_ZOOM) {
+			throw new IllegalArgumentException("Ungueltige Zoomstufe " + z);
+		}
+		this.z = z;
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * covering gibt alle Kacheln der Stufe z zurück, die den Bereich xMin bis
+	 * xMax und yMin bis yMax schneiden, zeilenweise von oben links.
+	 *
+	 * @param z    Zoomstufe.
+	 * @param xMin Linker Rand.
+	 * @param xMax Rechter Rand, größer als xMin.
+	 * @param yMin Unterer Rand.
+	 * @param yMax Oberer Rand, größer als yMin.
+	 * @return Kacheln, die den Bereich abdecken.
+	 * @throws IllegalArgumentException wenn der Bereich leer ist.
+	 */
+	public static List<Tile> covering(int z, double xMin, double xMax, double yMin, double yMax) {
+		if (!(xMax > xMin) || !(yMax > yMin)) {
+			throw new IllegalArgumentException("Leerer Bereich");
+		}
+		double size = size(z);
+		long x0 = (long) Math.floor(xMin / size);
+		long x1 = (long) Math.ceil(xMax / size) - 1;
+		long y0 = (long) Math.floor(-yMax / size);
+		long y1 = (long) Math.ceil(-yMin / size) - 1;
+		List<Tile> tiles = new ArrayList<>();
+		for (long ty = y0; ty <= y1; ty++) {
+			for (long tx = x0; tx <= x1; tx++) {
+				tiles.add(new Tile(z, tx, ty));
+			}
+		}
+		return tiles;
+	}
+
+	private static double size(int z) {
+		return Math.scalb(EXTENT, -z);
+	}
+
+	/**
+	 * viewport gibt den Ausschnitt der Kachel für ein Bild von tileSize x
+	 * tileSize Pixeln zurück.
+	 *
+	 * @param tileSize Kantenlänge in Pixeln.
+	 * @return Ausschnitt der Kachel.
+	 */
+	public Viewport viewport(int tileSize) {
+		double size = size(this.z);
+		return new Viewport(this.x * size, (this.x + 1) * size, -(this.y + 1) * size, -this.y * size, tileSize,
+				tileSize);
+	}
+
+	public int getZ() {
+		return this.z;
+	}
+
+	public long getX() {
+		return this.x;
+	}
+
+	public long getY() {
+		return this.y;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof Tile)) {
+			return false;
+		}
+		Tile other = (Tile) o;
+		return this.z == other.z && this.x == other.x && this.y == other.y;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * this.z + Long.hashCode(this.x)) + Long.hashCode(this.y);
+	}
+
+	/**
+	 * toString gibt die Kachel als Pfad "z/x/y" zurück.
+	 */
+	@Override
+	public String toString() {
+		return this.z + "/" + this.x + "/" + this.y;
+	}
+}
@@ -0,0 +1,518 @@
+package render;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import expressions.BinaryFunctionExpression;
+import expressions.CompiledExpression;
+import expressions.Expression;
+import expressions.NumberExpression;
+import expressions.OperatorExpression;
+import expressions.Optimizer;
+import expressions.UnaryFunctionExpression;
+import expressions.XExpression;
+import expressions.YExpression;
+
+/**
+ * TileCache speichert fertig gerenderte Kacheln als PNG-Bytes, damit beim
+ * Verschieben der Ansicht bereits gesehene Kacheln nicht neu gezeichnet werden
+ * müssen.
+ *
+ * Der Schlüssel (siehe Key) ist ein SHA-256-Hash über die vereinfachten
+ * Syntaxbäume, Farben und Arten der Kurven, die Kachel und ihre Größe in
+ * Pixeln. Strukturell gleiche Formeln ergeben so denselben Schlüssel, egal wie
+ * sie geschrieben wurden.
+ *
+ * Die Bytes liegen außerhalb des Java-Heaps in einem einzigen direkten
+ * ByteBuffer von maxBytes Bytes, der beim Erzeugen angelegt wird. Jede Kachel
+ * belegt darin einen zusammenhängenden Bereich (First Fit), der Speicher
+ * außerhalb des Heaps ist also fest auf maxBytes begrenzt. Wird die Grenze
+ * überschritten, werden die am längsten nicht benutzten Kacheln entfernt
+ * (LRU); findet sich trotz genug freier Bytes kein zusammenhängender Bereich,
+ * werden in derselben Reihenfolge weitere Kacheln entfernt. Ist ein spillDirectory
+ * angegeben, werden entfernte Kacheln dort als Datei abgelegt, ebenfalls
+ * begrenzt auf maxSpillBytes, und bei der nächsten Anfrage von dort in den
+ * Speicher zurückgeholt.
+ *
+ * Alle Methoden sind threadsicher. Gerendert und auf die Platte geschrieben
+ * wird außerhalb der Sperre; zwischen dem Entfernen einer Kachel und dem
+ * Schreiben ihrer Datei kann eine Anfrage sie daher verfehlen.
+ */
+public class TileCache {
+	private final long maxBytes;
+	private final Path spillDirectory;
+	private final long maxSpillBytes;
+	private final ByteBuffer slab;
+	/** Freie Bereiche von slab: Anfang auf Länge, benachbarte zusammengefasst. */
+	private final TreeMap<Integer, Integer> free = new TreeMap<>();
+	private final LinkedHashMap<Key, Slot> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final LinkedHashMap<Key, Integer> spilled = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+	private long spillBytes;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder spillHits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Erzeugt einen Cache, der nur im Speicher liegt.
+	 *
+	 * @param maxBytes Höchstzahl der gespeicherten Bytes.
+	 * @throws IllegalArgumentException wenn maxBytes kleiner als 1 oder größer
+	 *                                  als Integer.MAX_VALUE ist.
+	 */
+	public TileCache(long maxBytes) {
+		this(maxBytes, null, 0);
+	}
+
+	/**
+	 * Erzeugt einen Cache, der entfernte Kacheln in spillDirectory ablegt.
+	 *
+	 * @param maxBytes       Höchstzahl der Bytes im Speicher.
+	 * @param spillDirectory Verzeichnis für entfernte Kacheln oder null.
+	 * @param maxSpillBytes  Höchstzahl der Bytes im Verzeichnis.
+	 * @throws IllegalArgumentException wenn maxBytes kleiner als 1 oder größer
+	 *                                  als Integer.MAX_VALUE oder
+	 *                                  maxSpillBytes negativ ist.
+	 * @throws UncheckedIOException     wenn spillDirectory nicht angelegt
+	 *                                  werden kann.
+	 */
+	public TileCache(long maxBytes, Path spillDirectory, long maxSpillBytes) {
+		if (maxBytes < 1 || maxBytes > Integer.MAX_VALUE || maxSpillBytes < 0) {
+			throw new IllegalArgumentException("Ungueltige Grenzen fuer TileCache");
+		}
+		this.maxBytes = maxBytes;
+		this.slab = ByteBuffer.allocateDirect((int) maxBytes);
+		this.free.put(0, (int) maxBytes);
+		this.spillDirectory = maxSpillBytes > 0 ? spillDirectory : null;
+		this.maxSpillBytes = maxSpillBytes;
+		if (this.spillDirectory != null) {
+			try {
+				Files.createDirectories(this.spillDirectory);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * get gibt die Bytes zum Schlüssel key zurück. Fehlen sie, werden sie mit
+	 * render erzeugt und gespeichert.
+	 *
+	 * @param key    Schlüssel der Kachel.
+	 * @param render Erzeugt die PNG-Bytes der Kachel.
+	 * @return PNG-Bytes der Kachel.
+	 */
+	public byte[] get(Key key, Supplier<byte[]> render) {
+		byte[] data = get(key);
+		if (data == null) {
+			data = render.get();
+			put(key, data);
+		}
+		return data;
+	}
+
+	/**
+	 * get gibt die Bytes zum Schlüssel key zurück.
+	 *
+	 * @param key Schlüssel der Kachel.
+	 * @return Kopie der gespeicherten Bytes oder null, wenn die Kachel weder im
+	 *         Speicher noch im Verzeichnis liegt.
+	 */
+	public byte[] get(Key key) {
+		synchronized (this.entries) {
+			Slot slot = this.entries.get(key);
+			if (slot != null) {
+				this.hits.increment();
+				byte[] data = new byte[slot.length];
+				this.slab.get(slot.offset, data);
+				return data;
+			}
+		}
+		byte[] data = readSpilled(key);
+		if (data != null) {
+			this.spillHits.increment();
+			put(key, data);
+			return data;
+		}
+		this.misses.increment();
+		return null;
+	}
+
+	/**
+	 * put speichert die Bytes einer Kachel. Kacheln, die allein größer als
+	 * maxBytes sind, werden nicht gespeichert.
+	 *
+	 * @param key  Schlüssel der Kachel.
+	 * @param data PNG-Bytes der Kachel.
+	 */
+	public void put(Key key, byte[] data) {
+		if (data.length > this.maxBytes) {
+			return;
+		}
+		List<Map.Entry<Key, byte[]>> evicted = new ArrayList<>();
+		synchronized (this.entries) {
+			Slot old = this.entries.remove(key);
+			if (old != null) {
+				release(old);
+			}
+			Iterator<Map.Entry<Key, Slot>> eldest = this.entries.entrySet().iterator();
+			int offset;
+			while (this.bytes + data.length > this.maxBytes || (offset = allocate(data.length)) < 0) {
+				if (!eldest.hasNext()) {
+					throw new IllegalStateException("Kein zusammenhaengender Bereich trotz leerem Cache");
+				}
+				Map.Entry<Key, Slot> e = eldest.next();
+				Slot slot = e.getValue();
+				if (this.spillDirectory != null && slot.length <= this.maxSpillBytes) {
+					// der Bereich kann sofort wiederverwendet werden
+					byte[] copy = new byte[slot.length];
+					this.slab.get(slot.offset, copy);
+					evicted.add(Map.entry(e.getKey(), copy));
+				}
+				eldest.remove();
+				release(slot);
+				this.evictions.increment();
+			}
+			this.slab.put(offset, data);
+			this.entries.put(key, new Slot(offset, data.length));
+			this.bytes += data.length;
+		}
+		for (Map.Entry<Key, byte[]> e : evicted) {
+			spill(e.getKey(), e.getValue());
+		}
+	}
+
+	/**
+	 * allocate belegt den ersten freien Bereich mit mindestens length Bytes.
+	 * Muss unter der Sperre aufgerufen werden.
+	 *
+	 * @return Anfang des Bereichs oder -1, wenn kein Bereich groß genug ist.
+	 */
+	private int allocate(int length) {
+		for (Map.Entry<Integer, Integer> range : this.free.entrySet()) {
+			if (range.getValue() >= length) {
+				int offset = range.getKey();
+				this.free.remove(offset);
+				if (range.getValue() > length) {
+					this.free.put(offset + length, range.getValue() - length);
+				}
+				return offset;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * release gibt den Bereich von slot frei und fasst ihn mit freien Nachbarn
+	 * zusammen. Muss unter der Sperre aufgerufen werden.
+	 */
+	private void release(Slot slot) {
+		this.bytes -= slot.length;
+		int offset = slot.offset;
+		int length = slot.length;
+		Map.Entry<Integer, Integer> before = this.free.lowerEntry(offset);
+		if (before != null && before.getKey() + before.getValue() == offset) {
+			offset = before.getKey();
+			length += before.getValue();
+		}
+		Integer after = this.free.remove(slot.offset + slot.length);
+		if (after != null) {
+			length += after;
+		}
+		this.free.put(offset, length);
+	}
+
+	private void spill(Key key, byte[] data) {
+		try {
+			Files.write(file(key), data);
+		} catch (IOException e) {
+			// ohne Datei wird die Kachel beim nächsten Mal neu gezeichnet
+			return;
+		}
+		List<Key> removed = new ArrayList<>();
+		synchronized (this.spilled) {
+			Integer old = this.spilled.put(key, data.length);
+			if (old != null) {
+				this.spillBytes -= old;
+			}
+			this.spillBytes += data.length;
+			Iterator<Map.Entry<Key, Integer>> eldest = this.spilled.entrySet().iterator();
+			while (this.spillBytes > this.maxSpillBytes) {
+				Map.Entry<Key, Integer> e = eldest.next();
+				this.spillBytes -= e.getValue();
+				removed.add(e.getKey());
+				eldest.remove();
+			}
+		}
+		for (Key k : removed) {
+			try {
+				Files.deleteIfExists(file(k));
+			} catch (IOException e) {
+				// bleibt als verwaiste Datei liegen
+			}
+		}
+	}
+
+	private byte[] readSpilled(Key key) {
+		if (this.spillDirectory == null) {
+			return null;
+		}
+		synchronized (this.spilled) {
+			Integer size = this.spilled.remove(key);
+			if (size == null) {
+				return null;
+			}
+			this.spillBytes -= size;
+		}
+		try {
+			Path file = file(key);
+			byte[] data = Files.readAllBytes(file);
+			Files.deleteIfExists(file);
+			return data;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private Path file(Key key) {
+		return this.spillDirectory.resolve(key + ".png");
+	}
+
+	/**
+	 * clear entfernt alle Kacheln aus dem Speicher und dem Verzeichnis. Die
+	 * Zähler bleiben erhalten.
+	 */
+	public void clear() {
+		synchronized (this.entries) {
+			this.entries.clear();
+			this.free.clear();
+			this.free.put(0, (int) this.maxBytes);
+			this.bytes = 0;
+		}
+		List<Key> removed;
+		synchronized (this.spilled) {
+			removed = new ArrayList<>(this.spilled.keySet());
+			this.spilled.clear();
+			this.spillBytes = 0;
+		}
+		for (Key k : removed) {
+			try {
+				Files.deleteIfExists(file(k));
+			} catch (IOException e) {
+				// bleibt als verwaiste Datei liegen
+			}
+		}
+	}
+
+	/**
+	 * size gibt die Anzahl der Kacheln im Speicher zurück.
+	 *
+	 * @return Anzahl der Kacheln.
+	 */
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	/**
+	 * getBytes gibt die Summe der Bytes im Speicher zurück.
+	 *
+	 * @return Belegte Bytes, höchstens maxBytes.
+	 */
+	public long getBytes() {
+		synchronized (this.entries) {
+			return this.bytes;
+		}
+	}
+
+	/**
+	 * getSpillBytes gibt die Summe der Bytes im Verzeichnis zurück.
+	 *
+	 * @return Belegte Bytes, höchstens maxSpillBytes.
+	 */
+	public long getSpillBytes() {
+		synchronized (this.spilled) {
+			return this.spillBytes;
+		}
+	}
+
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	public long getSpillHits() {
+		return this.spillHits.sum();
+	}
+
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	public long getEvictions() {
+		return this.evictions.sum();
+	}
+
+	/**
+	 * getHitRate gibt den Anteil der Anfragen zurück, die aus dem Speicher oder
+	 * dem Verzeichnis beantwortet wurden.
+	 *
+	 * @return Trefferquote zwischen 0 und 1, NaN ohne Anfragen.
+	 */
+	public double getHitRate() {
+		long found = this.hits.sum() + this.spillHits.sum();
+		return (double) found / (found + this.misses.sum());
+	}
+
+	/**
+	 * key berechnet den Schlüssel der Kachel tile mit den Kurven curves für
+	 * Kacheln von tileSize Pixeln. Die Syntaxbäume werden vorher mit dem
+	 * Optimizer vereinfacht.
+	 *
+	 * @param tile     Kachel.
+	 * @param tileSize Kantenlänge in Pixeln.
+	 * @param curves   Kurven in der Reihenfolge, in der sie gezeichnet werden.
+	 * @return Schlüssel.
+	 * @throws IllegalArgumentException wenn ein Syntaxbaum einen unbekannten
+	 *                                  Knoten enthält.
+	 */
+	public static Key key(Tile tile, int tileSize, List<Curve> curves) {
+		MessageDigest digest = sha256();
+		ByteBuffer b = ByteBuffer.allocate(32);
+		b.putInt(tile.getZ()).putLong(tile.getX()).putLong(tile.getY()).putInt(tileSize).putInt(curves.size());
+		digest.update(b.flip());
+		Optimizer optimizer = new Optimizer();
+		Map<Expression, byte[]> hashes = new IdentityHashMap<>();
+		for (Curve c : curves) {
+			b.clear();
+			b.putInt(c.getColor().getRGB()).put((byte) (c.isImplicit() ? 1 : 0));
+			digest.update(b.flip());
+			digest.update(hash(optimizer.optimize(c.getExpression()), hashes));
+		}
+		return new Key(digest.digest());
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 nicht verfuegbar", e);
+		}
+	}
+
+	/**
+	 * hash gibt den SHA-256-Hash des Teilbaumes e zurück. Er wird aus einem
+	 * eigenen Kennbyte je Knotenart, dem Inhalt des Knotens und den Hashes der
+	 * Kinder gebildet, damit verschiedene Bäume nicht dieselbe Bytefolge
+	 * ergeben. Der Hash hängt nur von der Struktur ab; ein mehrfach
+	 * referenzierter Teilbaum wird aber nur einmal durchlaufen, sein Hash steht
+	 * danach in hashes.
+	 */
+	private static byte[] hash(Expression e, Map<Expression, byte[]> hashes) {
+		if (e instanceof CompiledExpression) {
+			return hash(((CompiledExpression) e).getSource(), hashes);
+		}
+		byte[] known = hashes.get(e);
+		if (known != null) {
+			return known;
+		}
+		MessageDigest digest = sha256();
+		if (e instanceof NumberExpression) {
+			digest.update((byte) 'n');
+			digest.update(ByteBuffer.allocate(8)
+					.putLong(Double.doubleToLongBits(((NumberExpression) e).getNumber())).flip());
+		} else if (e instanceof XExpression) {
+			digest.update((byte) 'x');
+		} else if (e instanceof YExpression) {
+			digest.update((byte) 'y');
+		} else if (e instanceof OperatorExpression) {
+			OperatorExpression o = (OperatorExpression) e;
+			digest.update((byte) 'o');
+			digest.update(ByteBuffer.allocate(4).putInt(o.getOp().getType().ordinal()).flip());
+			digest.update(hash(o.getLeft(), hashes));
+			digest.update(hash(o.getRight(), hashes));
+		} else if (e instanceof UnaryFunctionExpression) {
+			UnaryFunctionExpression f = (UnaryFunctionExpression) e;
+			digest.update((byte) 'f');
+			digest.update(f.getName().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(hash(f.getArgument(), hashes));
+		} else if (e instanceof BinaryFunctionExpression) {
+			BinaryFunctionExpression f = (BinaryFunctionExpression) e;
+			digest.update((byte) 'g');
+			digest.update(f.getName().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(hash(f.getLeft(), hashes));
+			digest.update(hash(f.getRight(), hashes));
+		} else {
+			throw new IllegalArgumentException("Unbekannter Knoten " + e.getClass().getName());
+		}
+		byte[] result = digest.digest();
+		hashes.put(e, result);
+		return result;
+	}
+
+	/**
+	 * Slot ist der Bereich einer Kachel in slab.
+	 */
+	private static final class Slot {
+		private final int offset;
+		private final int length;
+
+		private Slot(int offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * Key ist der SHA-256-Hash einer Kachel. toString gibt ihn hexadezimal
+	 * zurück.
+	 */
+	public static final class Key {
+		private final byte[] hash;
+
+		private Key(byte[] hash) {
+			this.hash = hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && Arrays.equals(this.hash, ((Key) o).hash);
+		}
+
+		@Override
+		public int hashCode() {
+			// die ersten vier Bytes eines SHA-256-Hashes sind gleichverteilt
+			return (this.hash[0] & 0xff) << 24 | (this.hash[1] & 0xff) << 16 | (this.hash[2] & 0xff) << 8
+					| (this.hash[3] & 0xff);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder s = new StringBuilder(2 * this.hash.length);
+			for (byte x : this.hash) {
+				s.append(Character.forDigit((x >> 4) & 0xf, 16)).append(Character.forDigit(x & 0xf, 16));
+			}
+			return s.toString();
+		}
+	}
+}
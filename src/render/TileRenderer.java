@@ -0,0 +1,266 @@
+package render;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.imageio.ImageIO;
+
+/**
+ * TileRenderer zeichnet Kacheln (siehe Tile) ohne Fenster in BufferedImages
+ * und schreibt sie als PNG. Es wird nur java.awt.image benutzt, der Renderer
+ * läuft daher auch mit -Djava.awt.headless=true auf Servern.
+ *
+ * Der Hintergrund einer Kachel (Gitter, Achsen, Beschriftungen) hängt nur von
+ * der Kachel ab. Er wird einmal gezeichnet und in einem LRU-Cache mit
+ * höchstens maxBackgrounds Bildern gespeichert; für jede Anfrage wird er nur
+ * noch in das neue Bild kopiert, bevor die Kurven darübergezeichnet werden.
+ *
+ * Mehrere Kacheln werden parallel in einem ForkJoinPool gezeichnet. Alle
+ * Methoden sind threadsicher.
+ */
+public class TileRenderer {
+	public static final int DEFAULT_TILE_SIZE = 256;
+	public static final int DEFAULT_MAX_BACKGROUNDS = 256;
+
+	private final int tileSize;
+	private final int maxBackgrounds;
+	private final PlotPainter painter;
+	private final ForkJoinPool pool;
+	private final boolean ownPool;
+	private final LinkedHashMap<Tile, BufferedImage> backgrounds = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final LongAdder backgroundHits = new LongAdder();
+	private final LongAdder backgroundMisses = new LongAdder();
+
+	/**
+	 * Erzeugt einen Renderer für Kacheln von 256 x 256 Pixeln, der den
+	 * gemeinsamen ForkJoinPool benutzt.
+	 */
+	public TileRenderer() {
+		this.tileSize = DEFAULT_TILE_SIZE;
+		this.maxBackgrounds = DEFAULT_MAX_BACKGROUNDS;
+		this.painter = new PlotPainter();
+		this.pool = ForkJoinPool.commonPool();
+		this.ownPool = false;
+	}
+
+	/**
+	 * Erzeugt einen Renderer mit eigenem ForkJoinPool.
+	 *
+	 * @param tileSize       Kantenlänge der Kacheln in Pixeln.
+	 * @param maxBackgrounds Höchstzahl der gespeicherten Hintergründe.
+	 * @param parallelism    Anzahl der Threads.
+	 * @param painter        Zeichnet Hintergrund und Kurven.
+	 * @throws IllegalArgumentException wenn tileSize oder parallelism kleiner
+	 *                                  als 1 oder maxBackgrounds negativ ist.
+	 */
+	public TileRenderer(int tileSize, int maxBackgrounds, int parallelism, PlotPainter painter) {
+		if (tileSize < 1 || maxBackgrounds < 0 || parallelism < 1) {
+			throw new IllegalArgumentException("Ungueltige Parameter fuer TileRenderer");
+		}
+		this.tileSize = tileSize;
+		this.maxBackgrounds = maxBackgrounds;
+		this.painter = painter;
+		this.pool = new ForkJoinPool(parallelism);
+		this.ownPool = true;
+	}
+
+	/**
+	 * render zeichnet die Kachel tile mit den Kurven curves.
+	 *
+	 * @param tile   Kachel.
+	 * @param curves Zu zeichnende Kurven in dieser Reihenfolge.
+	 * @return Neues Bild der Kachel.
+	 */
+	public BufferedImage render(Tile tile, List<Curve> curves) {
+		Viewport v = tile.viewport(this.tileSize);
+		BufferedImage image = new BufferedImage(this.tileSize, this.tileSize, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			g.drawImage(background(tile, v), 0, 0, null);
+			for (Curve c : curves) {
+				this.painter.paint(g, v, c);
+			}
+		} finally {
+			g.dispose();
+		}
+		return image;
+	}
+
+	/**
+	 * renderAll zeichnet alle Kacheln parallel.
+	 *
+	 * @param tiles  Kacheln.
+	 * @param curves Zu zeichnende Kurven.
+	 * @return Bilder in der Reihenfolge von tiles.
+	 */
+	public List<BufferedImage> renderAll(List<Tile> tiles, List<Curve> curves) {
+		List<ForkJoinTask<BufferedImage>> tasks = new ArrayList<>(tiles.size());
+		for (Tile tile : tiles) {
+			tasks.add(this.pool.submit(() -> render(tile, curves)));
+		}
+		List<BufferedImage> images = new ArrayList<>(tiles.size());
+		for (ForkJoinTask<BufferedImage> task : tasks) {
+			images.add(task.join());
+		}
+		return images;
+	}
+
+	/**
+	 * renderPng zeichnet die Kachel tile und gibt sie als PNG zurück.
+	 *
+	 * @param tile   Kachel.
+	 * @param curves Zu zeichnende Kurven.
+	 * @return PNG-Datei als Bytes.
+	 */
+	public byte[] renderPng(Tile tile, List<Curve> curves) {
+		return encodePng(render(tile, curves));
+	}
+
+	/**
+	 * renderPng gibt die Kachel tile aus dem Cache zurück oder zeichnet sie und
+	 * legt sie dort ab.
+	 *
+	 * @param tile   Kachel.
+	 * @param curves Zu zeichnende Kurven.
+	 * @param cache  Cache für fertige Kacheln.
+	 * @return PNG-Datei als Bytes.
+	 */
+	public byte[] renderPng(Tile tile, List<Curve> curves, TileCache cache) {
+		return cache.get(TileCache.key(tile, this.tileSize, curves), () -> renderPng(tile, curves));
+	}
+
+	/**
+	 * writeTiles zeichnet alle Kacheln parallel und schreibt sie als
+	 * directory/z/x/y.png.
+	 *
+	 * @param directory Zielverzeichnis.
+	 * @param tiles     Kacheln.
+	 * @param curves    Zu zeichnende Kurven.
+	 * @throws IOException wenn eine Datei nicht geschrieben werden kann.
+	 */
+	public void writeTiles(Path directory, List<Tile> tiles, List<Curve> curves) throws IOException {
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(tiles.size());
+		for (Tile tile : tiles) {
+			tasks.add(this.pool.submit(() -> {
+				Path file = directory.resolve(tile + ".png");
+				try {
+					Files.createDirectories(file.getParent());
+					Files.write(file, renderPng(tile, curves));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}));
+		}
+		try {
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * encodePng schreibt image als PNG in ein Byte-Array.
+	 *
+	 * @param image Bild.
+	 * @return PNG-Datei als Bytes.
+	 */
+	public static byte[] encodePng(BufferedImage image) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+		try {
+			ImageIO.write(image, "png", out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * background gibt den Hintergrund der Kachel aus dem Cache zurück oder
+	 * zeichnet ihn. Gezeichnet wird außerhalb der Sperre; fragen zwei Threads
+	 * gleichzeitig nach derselben neuen Kachel, wird sie eventuell zweimal
+	 * gezeichnet. Die gespeicherten Bilder werden nie verändert.
+	 */
+	private BufferedImage background(Tile tile, Viewport v) {
+		synchronized (this.backgrounds) {
+			BufferedImage image = this.backgrounds.get(tile);
+			if (image != null) {
+				this.backgroundHits.increment();
+				return image;
+			}
+		}
+		this.backgroundMisses.increment();
+		BufferedImage image = new BufferedImage(this.tileSize, this.tileSize, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			this.painter.background(g, v);
+		} finally {
+			g.dispose();
+		}
+		if (this.maxBackgrounds > 0) {
+			synchronized (this.backgrounds) {
+				this.backgrounds.put(tile, image);
+				Iterator<Map.Entry<Tile, BufferedImage>> it = this.backgrounds.entrySet().iterator();
+				while (this.backgrounds.size() > this.maxBackgrounds) {
+					it.next();
+					it.remove();
+				}
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * getTileSize gibt die Kantenlänge der Kacheln in Pixeln zurück.
+	 *
+	 * @return Kantenlänge.
+	 */
+	public int getTileSize() {
+		return this.tileSize;
+	}
+
+	/**
+	 * getBackgroundHits gibt an, wie oft ein gespeicherter Hintergrund benutzt
+	 * wurde.
+	 *
+	 * @return Anzahl der Treffer.
+	 */
+	public long getBackgroundHits() {
+		return this.backgroundHits.sum();
+	}
+
+	/**
+	 * getBackgroundMisses gibt an, wie oft ein Hintergrund gezeichnet werden
+	 * musste.
+	 *
+	 * @return Anzahl der gezeichneten Hintergründe.
+	 */
+	public long getBackgroundMisses() {
+		return this.backgroundMisses.sum();
+	}
+
+	/**
+	 * shutdown beendet den eigenen ForkJoinPool. Der gemeinsame Pool wird nicht
+	 * beendet.
+	 */
+	public void shutdown() {
+		if (this.ownPool) {
+			this.pool.shutdown();
+		}
+	}
+}
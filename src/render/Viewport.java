@@ -0,0 +1,124 @@
+package render;
+
+/**
+ * Viewport beschreibt einen rechteckigen Ausschnitt der Ebene, der auf ein
+ * Bild von width x height Pixeln abgebildet wird. Die Umrechnung in Pixel
+ * entspricht Grid.currentWidth und Grid.currentHeight; die y-Achse zeigt im
+ * Bild nach unten.
+ */
+public final class Viewport {
+	private final double xMin;
+	private final double xMax;
+	private final double yMin;
+	private final double yMax;
+	private final int width;
+	private final int height;
+
+	/**
+	 * Erzeugt einen Viewport.
+	 *
+	 * @param xMin   Linker Rand.
+	 * @param xMax   Rechter Rand, größer als xMin.
+	 * @param yMin   Unterer Rand.
+	 * @param yMax   Oberer Rand, größer als yMin.
+	 * @param width  Breite in Pixeln.
+	 * @param height Höhe in Pixeln.
+	 * @throws IllegalArgumentException wenn ein Bereich leer ist.
+	 */
+	public Viewport(double xMin, double xMax, double yMin, double yMax, int width, int height) {
+		if (!(xMax > xMin) || !(yMax > yMin) || width < 1 || height < 1) {
+			throw new IllegalArgumentException("Leerer Bereich");
+		}
+		this.xMin = xMin;
+		this.xMax = xMax;
+		this.yMin = yMin;
+		this.yMax = yMax;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * toPixelX rechnet einen x-Wert in eine Pixelspalte um.
+	 *
+	 * @param x x-Wert.
+	 * @return Pixelspalte, 0 am linken Rand.
+	 */
+	public int toPixelX(double x) {
+		return (int) ((x - this.xMin) * this.width / (this.xMax - this.xMin));
+	}
+
+	/**
+	 * toPixelY rechnet einen y-Wert in eine Pixelzeile um.
+	 *
+	 * @param y y-Wert.
+	 * @return Pixelzeile, 0 am oberen Rand.
+	 */
+	public int toPixelY(double y) {
+		return this.height - (int) ((y - this.yMin) * this.height / (this.yMax - this.yMin));
+	}
+
+	/**
+	 * getXScale gibt die Anzahl der Pixel pro Einheit in x-Richtung zurück.
+	 *
+	 * @return Pixel pro Einheit.
+	 */
+	public double getXScale() {
+		return this.width / (this.xMax - this.xMin);
+	}
+
+	/**
+	 * getYScale gibt die Anzahl der Pixel pro Einheit in y-Richtung zurück.
+	 *
+	 * @return Pixel pro Einheit.
+	 */
+	public double getYScale() {
+		return this.height / (this.yMax - this.yMin);
+	}
+
+	public double getXMin() {
+		return this.xMin;
+	}
+
+	public double getXMax() {
+		return this.xMax;
+	}
+
+	public double getYMin() {
+		return this.yMin;
+	}
+
+	public double getYMax() {
+		return this.yMax;
+	}
+
+	public int getWidth() {
+		return this.width;
+	}
+
+	public int getHeight() {
+		return this.height;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof Viewport)) {
+			return false;
+		}
+		Viewport other = (Viewport) o;
+		return Double.compare(this.xMin, other.xMin) == 0 && Double.compare(this.xMax, other.xMax) == 0
+				&& Double.compare(this.yMin, other.yMin) == 0 && Double.compare(this.yMax, other.yMax) == 0
+				&& this.width == other.width && this.height == other.height;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = Double.hashCode(this.xMin);
+		h = 31 * h + Double.hashCode(this.xMax);
+		h = 31 * h + Double.hashCode(this.yMin);
+		h = 31 * h + Double.hashCode(this.yMax);
+		return 31 * (31 * h + this.width) + this.height;
+	}
+}
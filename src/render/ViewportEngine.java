@@ -0,0 +1,260 @@
+package render;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import expressions.Expression;
+import expressions.ExpressionCache;
+import expressions.FusedEvaluator;
+import expressions.Interval;
+import grid.M4Decimator;
+import metrics.Metrics;
+
+/**
+ * ViewportEngine zeichnet dieselben Kurven für wechselnde Ausschnitte, ohne
+ * bei jedem Bild alles neu zu berechnen:
+ * <ul>
+ * <li>Eine Formel wird nur gelesen, wenn sich ihr Text ändert.</li>
+ * <li>Die Funktionswerte liegen in einem SampleBuffer auf einem Raster mit
+ * einer Zweierpotenz als Schrittweite. Beim Verschieben werden nur die neu
+ * sichtbaren Stellen ausgewertet, beim Zoomen werden alle Werte
+ * weiterverwendet, die auch auf dem neuen Raster liegen.</li>
+ * <li>Alle Kurven teilen sich das Raster. Die fehlenden Stellen werden daher
+ * mit einem FusedEvaluator in einem Durchlauf für alle Kurven berechnet,
+ * gemeinsame Teilausdrücke nur einmal.</li>
+ * <li>Der Hintergrund wird als Bild gespeichert und nur neu gezeichnet, wenn
+ * sich der Ausschnitt ändert.</li>
+ * </ul>
+ * Springt eine Kurve zwischen zwei Stützstellen von oberhalb nach unterhalb
+ * der Ansicht (oder umgekehrt), wird mit evalInterval geprüft, ob dazwischen
+ * eine Polstelle liegen kann. In diesem Fall wird die Linie unterbrochen.
+ *
+ * Ein ViewportEngine ist nicht threadsicher. Für das Zeichnen außerhalb des
+ * Event Dispatch Threads siehe RenderPipeline.
+ */
+public class ViewportEngine {
+	private final ExpressionCache formulas;
+	private final PlotPainter painter;
+	private final List<Layer> layers = new ArrayList<>();
+	// null, wenn die Ausdrücke nicht zusammengefasst werden können
+	private FusedEvaluator fused;
+	private boolean fusedStale = true;
+	private BufferedImage background;
+	private Viewport backgroundViewport;
+	private int parses;
+	private long evaluations;
+
+	/**
+	 * Erzeugt einen ViewportEngine, der Formeln mit formulas liest.
+	 *
+	 * @param formulas Cache für gelesene Formeln.
+	 * @param painter  Zeichnet den Hintergrund.
+	 */
+	public ViewportEngine(ExpressionCache formulas, PlotPainter painter) {
+		this.formulas = formulas;
+		this.painter = painter;
+	}
+
+	/**
+	 * setCurves legt die zu zeichnenden Formeln fest. Kurven, deren Text an
+	 * derselben Stelle unverändert bleibt, behalten ihre Funktionswerte.
+	 *
+	 * @param formulas Formeln in Infix-Schreibweise.
+	 * @param colors   Farbe zu jeder Formel.
+	 * @throws IllegalArgumentException wenn die Listen verschieden lang sind
+	 *                                  oder eine Formel ungültig ist.
+	 */
+	public void setCurves(List<String> formulas, List<Color> colors) {
+		if (formulas.size() != colors.size()) {
+			throw new IllegalArgumentException("Zu jeder Formel wird eine Farbe benoetigt");
+		}
+		for (int i = 0; i < formulas.size(); i++) {
+			String formula = formulas.get(i);
+			if (i < this.layers.size() && this.layers.get(i).formula.equals(formula)) {
+				this.layers.get(i).color = colors.get(i);
+				continue;
+			}
+			Layer layer = new Layer(formula, this.formulas.get(formula), colors.get(i));
+			this.parses++;
+			this.fusedStale = true;
+			if (i < this.layers.size()) {
+				this.layers.set(i, layer);
+			} else {
+				this.layers.add(layer);
+			}
+		}
+		while (this.layers.size() > formulas.size()) {
+			this.layers.remove(this.layers.size() - 1);
+			this.fusedStale = true;
+		}
+	}
+
+	/**
+	 * paint zeichnet Hintergrund und Kurven für den Ausschnitt v.
+	 *
+	 * @param g Ziel.
+	 * @param v Ausschnitt.
+	 */
+	public void paint(Graphics g, Viewport v) {
+		paint(g, v, () -> false);
+	}
+
+	/**
+	 * paint zeichnet Hintergrund und Kurven für den Ausschnitt v und bricht ab,
+	 * sobald cancelled true liefert. Geprüft wird vor dem Hintergrund, vor dem
+	 * Berechnen der Funktionswerte und vor jeder Kurve; bereits berechnete
+	 * Funktionswerte bleiben erhalten.
+	 *
+	 * @param g         Ziel.
+	 * @param v         Ausschnitt.
+	 * @param cancelled Gibt an, ob das Bild nicht mehr benötigt wird.
+	 * @return true, wenn das Bild vollständig gezeichnet wurde.
+	 */
+	public boolean paint(Graphics g, Viewport v, BooleanSupplier cancelled) {
+		if (cancelled.getAsBoolean()) {
+			return false;
+		}
+		if (!v.equals(this.backgroundViewport)) {
+			this.background = new BufferedImage(v.getWidth(), v.getHeight(), BufferedImage.TYPE_INT_RGB);
+			Graphics bg = this.background.getGraphics();
+			try {
+				this.painter.background(bg, v);
+			} finally {
+				bg.dispose();
+			}
+			this.backgroundViewport = v;
+		}
+		g.drawImage(this.background, 0, 0, null);
+		if (cancelled.getAsBoolean()) {
+			return false;
+		}
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		int[] evaluations = update(v);
+		for (int i = 0; i < this.layers.size(); i++) {
+			if (cancelled.getAsBoolean()) {
+				return false;
+			}
+			Layer layer = this.layers.get(i);
+			g.setColor(layer.color);
+			draw(g, v, layer.samples);
+			if (Metrics.ENABLED) {
+				Metrics.plotted("viewport", layer.samples.getExpression(), layer.samples.getYs(),
+						layer.samples.size(), evaluations[i], start);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * update berechnet die fehlenden Funktionswerte aller Kurven für v. Liegen
+	 * alle Kurven auf demselben Raster, geschieht das gemeinsam mit einem
+	 * FusedEvaluator; sonst (nach einer neuen Formel oder wenn der Cache
+	 * CompiledExpressions liefert) einzeln für jede Kurve.
+	 *
+	 * @return Anzahl der Auswertungen für jede Kurve.
+	 */
+	private int[] update(Viewport v) {
+		int[] evaluations = new int[this.layers.size()];
+		List<SampleBuffer> buffers = new ArrayList<>(this.layers.size());
+		boolean sameLattice = true;
+		for (Layer layer : this.layers) {
+			sameLattice &= buffers.isEmpty() || buffers.get(0).sameLattice(layer.samples);
+			buffers.add(layer.samples);
+		}
+		if (sameLattice && buffers.size() > 1 && fused(buffers)) {
+			int count = SampleBuffer.update(buffers, this.fused, v);
+			Arrays.fill(evaluations, count);
+		} else {
+			for (int i = 0; i < buffers.size(); i++) {
+				evaluations[i] = buffers.get(i).update(v);
+			}
+		}
+		for (int count : evaluations) {
+			this.evaluations += count;
+		}
+		return evaluations;
+	}
+
+	/**
+	 * fused erzeugt bei Bedarf den FusedEvaluator über die Ausdrücke aller
+	 * Kurven.
+	 *
+	 * @return false, wenn ein Ausdruck nicht zusammengefasst werden kann.
+	 */
+	private boolean fused(List<SampleBuffer> buffers) {
+		if (this.fusedStale) {
+			List<Expression> expressions = new ArrayList<>(buffers.size());
+			for (SampleBuffer b : buffers) {
+				expressions.add(b.getExpression());
+			}
+			try {
+				this.fused = new FusedEvaluator(expressions);
+			} catch (IllegalArgumentException e) {
+				this.fused = null;
+			}
+			this.fusedStale = false;
+		}
+		return this.fused != null;
+	}
+
+	private static void draw(Graphics g, Viewport v, SampleBuffer samples) {
+		M4Decimator lines = new M4Decimator(g, v.getXMin(), v.getXMax(), v.getYMin(), v.getYMax(), v.getWidth(),
+				v.getHeight());
+		Expression e = samples.getExpression();
+		double[] ys = samples.getYs();
+		double previous = Double.NaN;
+		for (int i = 0; i < samples.size(); i++) {
+			double x = samples.x(i);
+			double y = ys[i];
+			if ((previous > v.getYMax() && y < v.getYMin()) || (previous < v.getYMin() && y > v.getYMax())) {
+				Interval range = e.evalInterval(samples.x(i - 1), x);
+				if (!range.isBounded()) {
+					lines.endLine();
+				}
+			}
+			lines.add(x, y);
+			previous = y;
+		}
+		lines.endLine();
+	}
+
+	/**
+	 * getParses gibt an, wie oft eine Formel wegen eines geänderten Textes neu
+	 * angefordert wurde.
+	 *
+	 * @return Anzahl der gelesenen Formeln.
+	 */
+	public int getParses() {
+		return this.parses;
+	}
+
+	/**
+	 * getEvaluations gibt an, wie viele Funktionswerte bisher insgesamt berechnet
+	 * wurden.
+	 *
+	 * @return Anzahl der Auswertungen.
+	 */
+	public long getEvaluations() {
+		return this.evaluations;
+	}
+
+	/**
+	 * Layer enthält eine Formel mit ihrer Farbe und ihren Funktionswerten.
+	 */
+	private static final class Layer {
+		private final String formula;
+		private final SampleBuffer samples;
+		private Color color;
+
+		private Layer(String formula, Expression e, Color color) {
+			this.formula = formula;
+			this.samples = new SampleBuffer(e);
+			this.color = color;
+		}
+	}
+}
@@ -1,9 +1,8 @@
 package shuntingyard;
 
-import java.util.ArrayList;
-import java.util.EmptyStackException;
-import java.util.Stack;
+import java.util.Arrays;
 
+import tokens.FunctionToken;
 import tokens.Token;
 import tokens.TokenType;
 
@@ -11,10 +10,34 @@ import tokens.TokenType;
  * ShuntingYard stellt die Methode convertToRPN() bereit, die ein Array von
  * Tokens in Infix-Notation mithilfe des Shunting-Yard-Algorithmus von Dijkstra
  * in ein Array von Tokens in umgekehrter polnischer Notation konvertiert.
+ *
+ * Argumente einer Funktion werden durch Kommas getrennt. Für jede offene
+ * Klammer wird mitgezählt, wie viele Argumente sie enthält; der FunctionToken
+ * in der Ausgabe trägt diese Anzahl (siehe FunctionToken.getArity()), so dass
+ * Expression.parseRPN weiß, wie viele Operanden zur Funktion gehören. Leere
+ * Klammern wie in g() enthalten kein Argument.
+ *
+ * Der Zustand einer Konvertierung (Ausgabe und Operator-Stack) liegt in einer
+ * eigenen Instanz pro Aufruf. convertToRPN kann daher gleichzeitig aus
+ * mehreren Threads aufgerufen werden.
  */
 public class ShuntingYard {
-	private static final ArrayList<Token> result = new ArrayList<>();
-	private static final Stack<Token> stack = new Stack<>();
+	private final Token[] result;
+	private int resultSize;
+	private final Token[] stack;
+	private int stackSize;
+	/** Anzahl der Argumente für jede offene Klammer auf dem Stack. */
+	private final int[] arguments;
+
+	/**
+	 * Legt Ausgabe und Stack für höchstens capacity Tokens an. Beide können nie
+	 * mehr Tokens enthalten als die Eingabe.
+	 */
+	private ShuntingYard(int capacity) {
+		this.result = new Token[capacity];
+		this.stack = new Token[capacity];
+		this.arguments = new int[capacity];
+	}
 
 	/**
 	 * convertToRPN wandelt das Array tokens, das einen mathematischen Ausdruck in
@@ -26,16 +49,23 @@ public class ShuntingYard {
 	 *
 	 * @param tokens Tokens in Infix-Schreibweise.
 	 * @return Tokens in umgekehrter polnischer Notation.
+	 * @throws IllegalStateException    wird bei nicht zusammenpassenden Klammern
+	 *                                  geworfen.
+	 * @throws IllegalArgumentException wird bei einem Komma außerhalb der
+	 *                                  Klammern einer Funktion geworfen.
 	 */
 	public static Token[] convertToRPN(Token[] tokens) {
-		result.clear();
-		stack.clear();
+		return new ShuntingYard(tokens.length).convert(tokens);
+	}
 
+	private Token[] convert(Token[] tokens) {
+		TokenType previous = null;
 		for (Token token : tokens) {
 			switch (token.getType()) {
 			case X:
+			case Y:
 			case NUMBER:
-				result.add(token);
+				result[resultSize++] = token;
 				break;
 			case PLUS:
 			case MINUS:
@@ -45,18 +75,27 @@ public class ShuntingYard {
 				evaluateOperator(token);
 				break;
 			case FUNCTION:
+				stack[stackSize++] = token;
+				break;
 			case OPENING_PARENTHESIS:
-				stack.push(token);
+				arguments[stackSize] = 1;
+				stack[stackSize++] = token;
 				break;
 			case CLOSING_PARENTHESIS:
+				if (previous == TokenType.OPENING_PARENTHESIS) {
+					arguments[stackSize - 1] = 0;
+				}
 				evaluateClosingParenthesis();
 				break;
+			case COMMA:
+				evaluateComma();
+				break;
 			}
+			previous = token.getType();
 		}
 		sortToRPN();
 
-		// Hier wird die result Liste in ein Array vom Typ Token umgewandelt
-		return result.toArray(new Token[0]);
+		return resultSize == result.length ? result : Arrays.copyOf(result, resultSize);
 	}
 
 	/**
@@ -65,51 +104,68 @@ public class ShuntingYard {
 	 * 
 	 * @param token Das aktuelle Token, welches ausgewählt wurde.
 	 */
-	private static void evaluateOperator(Token token) {
-		while (!stack.empty() && (stack.peek().getType() != TokenType.OPENING_PARENTHESIS
-				&& (stack.peek().ranking() > token.ranking())
-				|| ((stack.peek().ranking() == token.ranking()) && token.isLeftAssociative()))) {
-			result.add(stack.pop());
+	private void evaluateOperator(Token token) {
+		while (stackSize > 0) {
+			Token top = stack[stackSize - 1];
+			if ((top.getType() != TokenType.OPENING_PARENTHESIS && (top.ranking() > token.ranking()))
+					|| ((top.ranking() == token.ranking()) && token.isLeftAssociative())) {
+				result[resultSize++] = top;
+				stackSize--;
+			} else {
+				break;
+			}
 		}
-		stack.push(token);
+		stack[stackSize++] = token;
 	}
 
 	/**
 	 * Wertet den Ausdruck aus bei einer geschlossenen Klammer aus.
 	 */
-	private static void evaluateClosingParenthesis() {
+	private void evaluateClosingParenthesis() {
 		Token t;
 		do {
-			try {
-				t = stack.pop();
-			} catch (EmptyStackException e) {
-				throw new IllegalStateException("Mismatched parentheses", e);
+			if (stackSize == 0) {
+				throw new IllegalStateException("Mismatched parentheses");
 			}
+			t = stack[--stackSize];
 			if (t.getType() != TokenType.OPENING_PARENTHESIS) {
-				result.add(t);
+				result[resultSize++] = t;
 			}
 		} while (t.getType() != TokenType.OPENING_PARENTHESIS);
-		if (stack.peek().getType() == TokenType.FUNCTION) {
-			result.add(stack.pop());
+		int count = arguments[stackSize];
+		if (stackSize > 0 && stack[stackSize - 1].getType() == TokenType.FUNCTION) {
+			FunctionToken f = (FunctionToken) stack[--stackSize];
+			result[resultSize++] = f.getArity() == count ? f : new FunctionToken(f.getName(), count);
+		} else if (count > 1) {
+			throw new IllegalArgumentException("Komma ausserhalb einer Funktion");
 		}
 	}
 
+	/**
+	 * Schließt bei einem Komma das aktuelle Argument ab: Alle Operatoren bis zur
+	 * öffnenden Klammer kommen in die Ausgabe, die Klammer bleibt liegen.
+	 */
+	private void evaluateComma() {
+		while (stackSize > 0 && stack[stackSize - 1].getType() != TokenType.OPENING_PARENTHESIS) {
+			result[resultSize++] = stack[--stackSize];
+		}
+		if (stackSize == 0) {
+			throw new IllegalArgumentException("Komma ausserhalb einer Funktion");
+		}
+		arguments[stackSize - 1]++;
+	}
+
 	/*
 	 * Falls noch Zeichen auf dem Stack übrig sind, werden in dem result Array
 	 * abgelegt.
 	 */
-	private static void sortToRPN() {
-		while (true) {
-			Token t;
-			try {
-				t = stack.pop();
-			} catch (EmptyStackException e) {
-				break;
-			}
+	private void sortToRPN() {
+		while (stackSize > 0) {
+			Token t = stack[--stackSize];
 			if (t.getType() == TokenType.OPENING_PARENTHESIS) {
 				throw new IllegalStateException("Mismatched parentheses");
 			}
-			result.add(t);
+			result[resultSize++] = t;
 		}
 	}
 }
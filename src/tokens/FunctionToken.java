@@ -1,19 +1,34 @@
 package tokens;
 
 /**
- * FunctionToken beschreibt den Namen einer Funktion.
+ * FunctionToken beschreibt den Namen einer Funktion und die Anzahl der
+ * Argumente, mit der sie im Ausdruck aufgerufen wird.
  */
 public class FunctionToken extends Token {
 	private final String name;
+	private final int arity;
 
 	/**
-	 * Erzeugt eine Funktion mit dem angegebenen Namen.
+	 * Erzeugt eine Funktion mit dem angegebenen Namen und einem Argument.
 	 * 
 	 * @param name Name der Funktion, z. B. sin, sqrt, ...
 	 */
 	public FunctionToken(String name) {
+		this(name, 1);
+	}
+
+	/**
+	 * Erzeugt eine Funktion mit dem angegebenen Namen, die mit arity Argumenten
+	 * aufgerufen wird. ShuntingYard zählt die Argumente beim Umwandeln in
+	 * umgekehrte polnische Notation.
+	 * 
+	 * @param name  Name der Funktion, z. B. max.
+	 * @param arity Anzahl der Argumente.
+	 */
+	public FunctionToken(String name, int arity) {
 		this.type = TokenType.FUNCTION;
 		this.name = name;
+		this.arity = arity;
 	}
 
 	/**
@@ -25,6 +40,15 @@ public class FunctionToken extends Token {
 		return this.name;
 	}
 
+	/**
+	 * getArity gibt die Anzahl der Argumente zurück.
+	 * 
+	 * @return Anzahl der Argumente.
+	 */
+	public int getArity() {
+		return this.arity;
+	}
+
 	/**
 	 * toString gibt den Namen der Funktion zurueck.
 	 * 
@@ -0,0 +1,256 @@
+package tokens;
+
+/**
+ * Lexer zerlegt einen mathematischen Ausdruck Zeichen für Zeichen in Tokens,
+ * ohne dabei Teilstrings zu erzeugen. Nach jedem Aufruf von next() beschreiben
+ * getType(), getNumber() und getName() das aktuelle Token; am Ende der Eingabe
+ * ist getType() null.
+ *
+ * Zahlen werden direkt aus den Ziffern berechnet. Nur wenn das Ergebnis nicht
+ * exakt aus einer ganzen Zahl und einer Zehnerpotenz gebildet werden kann
+ * (mehr als 15 signifikante Stellen oder sehr große Exponenten), wird
+ * Double.parseDouble benutzt, damit immer dasselbe Ergebnis entsteht.
+ *
+ * Bezeichner werden ohne Beachtung der Groß-/Kleinschreibung erkannt: x und y
+ * sind die Variablen, e und pi sind Konstanten, alle anderen Namen sind
+ * Funktionen.
+ */
+public class Lexer {
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	private static final long MAX_EXACT = 1L << 53;
+
+	/** Bekannte Funktionsnamen, damit für sie kein neuer String entsteht. */
+	private static final String[] FUNCTIONS = { "sin", "cos", "tan", "log", "sqrt", "asin", "acos", "atan", "abs",
+			"exp", "minus", "max", "min", "atan2", "hypot" };
+
+	private final CharSequence s;
+	private int pos;
+	private int start;
+	private TokenType type;
+	private double number;
+	private String name;
+
+	/**
+	 * Erzeugt einen Lexer für s und liest das erste Token.
+	 *
+	 * @param s Mathematischer Ausdruck.
+	 * @throws IllegalArgumentException wenn s ein unbekanntes Zeichen enthält.
+	 */
+	public Lexer(CharSequence s) {
+		this.s = s;
+		next();
+	}
+
+	/**
+	 * next liest das nächste Token.
+	 *
+	 * @throws IllegalArgumentException wenn ein unbekanntes Zeichen gelesen
+	 *                                  wird.
+	 */
+	public void next() {
+		int length = s.length();
+		while (pos < length && Character.isWhitespace(s.charAt(pos))) {
+			pos++;
+		}
+		start = pos;
+		name = null;
+		if (pos == length) {
+			type = null;
+			return;
+		}
+		char c = s.charAt(pos);
+		switch (c) {
+		case '+':
+			type = TokenType.PLUS;
+			pos++;
+			return;
+		case '-':
+			type = TokenType.MINUS;
+			pos++;
+			return;
+		case '*':
+			type = TokenType.TIMES;
+			pos++;
+			return;
+		case '/':
+			type = TokenType.DIVIDE;
+			pos++;
+			return;
+		case '^':
+			type = TokenType.POWER;
+			pos++;
+			return;
+		case '(':
+			type = TokenType.OPENING_PARENTHESIS;
+			pos++;
+			return;
+		case ')':
+			type = TokenType.CLOSING_PARENTHESIS;
+			pos++;
+			return;
+		case ',':
+			type = TokenType.COMMA;
+			pos++;
+			return;
+		default:
+			break;
+		}
+		if (isDigit(c) || c == '.') {
+			scanNumber();
+		} else if (Character.isLetter(c)) {
+			scanName();
+		} else {
+			throw new IllegalArgumentException("Unbekanntes Zeichen '" + c + "' an Position " + pos);
+		}
+	}
+
+	/**
+	 * getType gibt den Typ des aktuellen Tokens zurück.
+	 *
+	 * @return Tokentyp oder null am Ende der Eingabe.
+	 */
+	public TokenType getType() {
+		return this.type;
+	}
+
+	/**
+	 * getNumber gibt den Wert des aktuellen Tokens zurück, falls es eine Zahl
+	 * ist (auch für die Konstanten e und pi).
+	 *
+	 * @return Zahlenwert.
+	 */
+	public double getNumber() {
+		return this.number;
+	}
+
+	/**
+	 * getName gibt den kleingeschriebenen Funktionsnamen zurück, falls das
+	 * aktuelle Token eine Funktion ist.
+	 *
+	 * @return Funktionsname.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * getPosition gibt die Position des aktuellen Tokens in der Eingabe zurück.
+	 *
+	 * @return Index des ersten Zeichens.
+	 */
+	public int getPosition() {
+		return this.start;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private void scanNumber() {
+		int length = s.length();
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean anyDigit = false;
+		while (pos < length && isDigit(s.charAt(pos))) {
+			anyDigit = true;
+			if (mantissa != 0 || s.charAt(pos) != '0') {
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (s.charAt(pos) - '0');
+				} else {
+					exponent++;
+				}
+				digits++;
+			}
+			pos++;
+		}
+		if (pos < length && s.charAt(pos) == '.') {
+			pos++;
+			while (pos < length && isDigit(s.charAt(pos))) {
+				anyDigit = true;
+				if (mantissa != 0 || s.charAt(pos) != '0') {
+					if (digits < 18) {
+						mantissa = mantissa * 10 + (s.charAt(pos) - '0');
+						exponent--;
+					}
+					digits++;
+				} else {
+					exponent--;
+				}
+				pos++;
+			}
+		}
+		if (!anyDigit) {
+			throw new IllegalArgumentException("Ungueltige Zahl an Position " + start);
+		}
+		if (pos < length && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')) {
+			int p = pos + 1;
+			boolean negative = false;
+			if (p < length && (s.charAt(p) == '+' || s.charAt(p) == '-')) {
+				negative = s.charAt(p) == '-';
+				p++;
+			}
+			// Nur ein Exponent, wenn Ziffern folgen, sonst ist e die Konstante
+			if (p < length && isDigit(s.charAt(p))) {
+				int e = 0;
+				while (p < length && isDigit(s.charAt(p))) {
+					if (e < 100000) {
+						e = e * 10 + (s.charAt(p) - '0');
+					}
+					p++;
+				}
+				exponent += negative ? -e : e;
+				pos = p;
+			}
+		}
+
+		type = TokenType.NUMBER;
+		if (mantissa == 0) {
+			number = 0.0;
+		} else if (digits <= 15 && mantissa < MAX_EXACT && exponent >= -22 && exponent <= 22) {
+			// Mantisse und Zehnerpotenz sind exakt darstellbar, daher ist das
+			// Ergebnis der einen Rundung korrekt
+			number = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+		} else {
+			number = Double.parseDouble(s.subSequence(start, pos).toString());
+		}
+	}
+
+	private void scanName() {
+		int length = s.length();
+		while (pos < length && (Character.isLetterOrDigit(s.charAt(pos)) || s.charAt(pos) == '_')) {
+			pos++;
+		}
+		int len = pos - start;
+		if (len == 1 && (s.charAt(start) == 'x' || s.charAt(start) == 'X')) {
+			type = TokenType.X;
+		} else if (len == 1 && (s.charAt(start) == 'y' || s.charAt(start) == 'Y')) {
+			type = TokenType.Y;
+		} else if (len == 1 && (s.charAt(start) == 'e' || s.charAt(start) == 'E')) {
+			type = TokenType.NUMBER;
+			number = Math.E;
+		} else if (len == 2 && matches("pi")) {
+			type = TokenType.NUMBER;
+			number = Math.PI;
+		} else {
+			type = TokenType.FUNCTION;
+			for (String f : FUNCTIONS) {
+				if (f.length() == len && matches(f)) {
+					name = f;
+					return;
+				}
+			}
+			name = s.subSequence(start, pos).toString().toLowerCase();
+		}
+	}
+
+	private boolean matches(String word) {
+		for (int i = 0; i < word.length(); i++) {
+			if (Character.toLowerCase(s.charAt(start + i)) != word.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
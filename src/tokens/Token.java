@@ -62,6 +62,9 @@ public class Token {
 		case ')':
 			this.type = TokenType.CLOSING_PARENTHESIS;
 			break;
+		case ',':
+			this.type = TokenType.COMMA;
+			break;
 		default:
 			throw new IllegalArgumentException("Nicht bekannter Tokentype.");
 		}
@@ -85,6 +88,8 @@ public class Token {
 		switch (this.type) {
 		case X:
 			return "X";
+		case Y:
+			return "Y";
 		case PLUS:
 			return "+";
 		case MINUS:
@@ -99,6 +104,8 @@ public class Token {
 			return "(";
 		case CLOSING_PARENTHESIS:
 			return ")";
+		case COMMA:
+			return ",";
 		default:
 			throw new IllegalArgumentException("Kein toString fuer tokenType" + this.type);
 		}
@@ -149,61 +156,26 @@ public class Token {
 	/**
 	 * teilt den String s, der einen mathematischen Ausdruck enthaelt, in ein Array
 	 * von Tokens (Sinneinheiten, also z.B. Zahlen, einzelne Klammern, Operatoren,
-	 * Funktionsnamen) auf.
+	 * Funktionsnamen) auf. Die Zerlegung uebernimmt der Lexer.
 	 * 
 	 * @param s Mathematischer Ausdruck als String
 	 * @return Array von Tokens (einzelne mathematische Symbole) in dem String.
 	 */
 	public static Token[] tokenize(String s) {
-		String lastWord = "";
 		ArrayList<Token> result = new ArrayList<>();
-		int lastOperatorPosition = -1;
-		for (int i = 0; i < s.length(); i++) {
-			char b = s.charAt(i);
-			switch (b) {
-			case '+':
-			case '-':
-			case '*':
-			case '/':
-			case '^':
-			case '(':
-			case ')':
-				lastWord = s.substring(lastOperatorPosition + 1, i).trim();
-				lastOperatorPosition = i;
-				if (!("".equals(lastWord))) {
-					result.add(fromString(lastWord));
-				}
-				result.add(new Token(b));
-			}
-
-		}
-		lastWord = s.substring(lastOperatorPosition + 1).trim().toLowerCase();
-		if (!lastWord.equals("")) {
-			result.add(fromString(lastWord));
-		}
-		return result.toArray(new Token[0]);
-	}
-
-	/**
-	 * Wandelt ein String in ein Token um.
-	 * 
-	 * @param lastWord ist der String
-	 * @return ein Token zu dem der String passt
-	 */
-	private static Token fromString(String lastWord) {
-		try {
-			return new NumberToken(Double.parseDouble(lastWord));
-		} catch (NumberFormatException e) {
-			switch (lastWord) {
-			case "x":
-				return new Token(TokenType.X);
-			case "e":
-				return new NumberToken(Math.E);
-			case "pi":
-				return new NumberToken(Math.PI);
+		for (Lexer lexer = new Lexer(s); lexer.getType() != null; lexer.next()) {
+			switch (lexer.getType()) {
+			case NUMBER:
+				result.add(new NumberToken(lexer.getNumber()));
+				break;
+			case FUNCTION:
+				result.add(new FunctionToken(lexer.getName()));
+				break;
 			default:
-				return new FunctionToken(lastWord);
+				result.add(new Token(lexer.getType()));
+				break;
 			}
 		}
+		return result.toArray(new Token[0]);
 	}
 }
@@ -4,5 +4,5 @@ package tokens;
  * TokenType enthält die verschiedenen Arten von darstellbaren Tokens.
  */
 public enum TokenType {
-	FUNCTION, NUMBER, X, PLUS, MINUS, TIMES, DIVIDE, POWER, OPENING_PARENTHESIS, CLOSING_PARENTHESIS,
+	FUNCTION, NUMBER, X, Y, PLUS, MINUS, TIMES, DIVIDE, POWER, OPENING_PARENTHESIS, CLOSING_PARENTHESIS, COMMA,
 }
\ No newline at end of file
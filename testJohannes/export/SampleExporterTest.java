@@ -0,0 +1,67 @@
+package export;
+
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+
+public class SampleExporterTest {
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		Path file = Files.createTempFile("samples", ".fplt");
+		List<String> formulas = List.of("x^2 + 3", "sin(x)", "log(x)");
+		int n = 100_003;
+		try {
+			// kleine Fenster, damit über mehrere Fenster geschrieben wird
+			new SampleExporter(10_000).export(file, formulas, -5, 0.0001, n);
+			// 40 Bytes fester Kopf, 31 Bytes Formeln, aufgefüllt auf 72
+			Assertions.assertEquals(72 + 4L * 8 * n, Files.size(file));
+			try (SampleFile samples = SampleFile.open(file)) {
+				Assertions.assertEquals(formulas, samples.getFormulas());
+				Assertions.assertEquals(n, samples.getSampleCount());
+				Assertions.assertEquals(-5, samples.getXMin());
+				Assertions.assertEquals(0.0001, samples.getStep());
+				DoubleBuffer xs = samples.getXs();
+				Assertions.assertEquals(n, xs.remaining());
+				for (int c = 0; c < formulas.size(); c++) {
+					Expression e = Expression.parseInfixString(formulas.get(c));
+					DoubleBuffer ys = samples.getYs(c);
+					for (int i = 0; i < n; i += 97) {
+						Assertions.assertEquals(-5 + i * 0.0001, xs.get(i));
+						double expected = e.eval(xs.get(i));
+						if (Double.isNaN(expected)) {
+							Assertions.assertTrue(Double.isNaN(ys.get(i)));
+						} else {
+							// bei expected == 0 gilt eine absolute Abweichung
+							Assertions.assertEquals(expected, ys.get(i), Math.max(1e-14 * Math.abs(expected), 1e-15));
+						}
+					}
+				}
+				DoubleBuffer part = samples.getYs(0, 50_000, 3);
+				Assertions.assertEquals(3, part.remaining());
+				Assertions.assertEquals(samples.getYs(0).get(50_002), part.get(2));
+				Assertions.assertThrows(IndexOutOfBoundsException.class, () -> samples.getYs(3));
+				Assertions.assertThrows(IndexOutOfBoundsException.class, () -> samples.getXs(n - 2, 3));
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testRejectsOtherFiles() throws Exception {
+		Path file = Files.createTempFile("samples", ".fplt");
+		try {
+			Files.write(file, new byte[64]);
+			Assertions.assertThrows(IllegalArgumentException.class, () -> SampleFile.open(file));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
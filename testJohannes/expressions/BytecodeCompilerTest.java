@@ -0,0 +1,66 @@
+package expressions;
+
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tokens.FunctionToken;
+import tokens.Token;
+import tokens.TokenType;
+
+public class BytecodeCompilerTest {
+
+	private static final String[] FORMULAS = { "1/2 * x", "sin(x)", "5", "0", "1", "sin(x^2)", "log(3+5*x)",
+			"log(sin(x))", "-1*log(-1*x)", "x^2 + 3", "sqrt(abs(x)) - exp(x/3) + tan(x) * atan(x)",
+			"asin(x/5) + acos(x/5)", "2^x^0.5" };
+
+	@Test
+	public void testGeneratedMatchesTree() {
+		for (String formula : FORMULAS) {
+			Expression tree = Expression.parseInfixString(formula);
+			DoubleUnaryOperator generated = BytecodeCompiler.compile(tree);
+			Assertions.assertTrue(isGenerated(generated), formula);
+			for (double x = -5; x < 5; x += 0.01) {
+				Assertions.assertEquals(tree.eval(x), generated.applyAsDouble(x), formula);
+			}
+		}
+	}
+
+	@Test
+	public void testMinusFunction() {
+		Expression e = new UnaryFunctionExpression(new FunctionToken("minus"), new XExpression());
+		DoubleUnaryOperator generated = BytecodeCompiler.compile(e);
+		Assertions.assertEquals(-0.0, generated.applyAsDouble(0.0));
+		Assertions.assertEquals(-2.5, generated.applyAsDouble(2.5));
+	}
+
+	@Test
+	public void testFallbackToTree() {
+		Expression e = new UnaryFunctionExpression(new FunctionToken("thisdoesnotexist"), new XExpression());
+		DoubleUnaryOperator generated = BytecodeCompiler.compile(e);
+		Assertions.assertFalse(isGenerated(generated));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> generated.applyAsDouble(0));
+	}
+
+	@Test
+	public void testFallbackForDeepTree() throws Exception {
+		int depth = 200_000;
+		Expression e = new XExpression();
+		for (int i = 0; i < depth; i++) {
+			e = new OperatorExpression(new Token(TokenType.PLUS), e, new NumberExpression(1));
+		}
+		DoubleUnaryOperator generated = BytecodeCompiler.compile(e);
+		Assertions.assertFalse(isGenerated(generated));
+		// Auswerten des Baumes braucht selbst einen großen Stack
+		double[] result = new double[1];
+		Thread t = new Thread(null, () -> result[0] = generated.applyAsDouble(0.5), "deep", 1L << 30);
+		t.start();
+		t.join();
+		Assertions.assertEquals(depth + 0.5, result[0]);
+	}
+
+	private static boolean isGenerated(DoubleUnaryOperator op) {
+		return op.getClass().getName().startsWith("expressions.GeneratedExpression");
+	}
+}
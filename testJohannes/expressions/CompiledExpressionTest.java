@@ -0,0 +1,47 @@
+package expressions;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CompiledExpressionTest {
+
+	private static final String[] FORMULAS = { "1/2 * x", "sin(x)", "5", "sin(x^2)", "log(3+5*x)", "log(sin(x))",
+			"-1*log(-1*x)", "x^2 + 3", "sqrt(abs(x)) - exp(x/3) + tan(x) * atan(x)", "asin(x/5) + acos(x/5)",
+			"2^x^0.5" };
+
+	@Test
+	public void testCompiledMatchesTree() {
+		for (String formula : FORMULAS) {
+			Expression tree = Expression.parseInfixString(formula);
+			CompiledExpression compiled = tree.compile();
+			for (double x = -5; x < 5; x += 0.01) {
+				Assertions.assertEquals(tree.eval(x), compiled.eval(x), formula);
+			}
+		}
+	}
+
+	@Test
+	public void testMinusFunction() {
+		Expression e = new UnaryFunctionExpression(new tokens.FunctionToken("minus"),
+				new UnaryFunctionExpression(new tokens.FunctionToken("minus"), new XExpression()));
+		CompiledExpression compiled = e.compile();
+		Assertions.assertEquals(e.eval(-0.0), compiled.eval(-0.0));
+		Assertions.assertEquals(e.eval(3), compiled.eval(3));
+	}
+
+	@Test
+	public void testCompileUnknownFunction() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			new UnaryFunctionExpression(new tokens.FunctionToken("thisdoesnotexist"), new XExpression()).compile();
+		});
+	}
+
+	@Test
+	public void testRecompile() {
+		CompiledExpression compiled = Expression.parseInfixString("x*x").compile();
+		CompiledExpression copy = compiled.compile();
+		Assertions.assertNotSame(compiled, copy);
+		Assertions.assertSame(compiled.getSource(), copy.getSource());
+		Assertions.assertEquals(9, copy.eval(3), 0);
+	}
+}
@@ -0,0 +1,65 @@
+package expressions;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DerivativeTest {
+	private static final String[] FORMULAS = { "x^3 - 2*x + 1", "sin(x) * x", "cos(2*x) / (x + 3)", "tan(x/2)",
+			"log(x + 5)", "sqrt(x + 5)", "asin(x/4)", "acos(x/4)", "atan(x)", "abs(x - 0.5)", "exp(0-x*x)",
+			"-(x^2)", "2^x", "(x + 5)^(x/3)", "sin(8 + 3 - 5 * x)", "x / (1 + x^2)" };
+	private static final double[] POINTS = { -3.1, -1.2, -0.3, 0.7, 1.9, 3.3 };
+
+	private static double difference(Expression e, double x) {
+		double h = 1e-6;
+		return (e.eval(x + h) - e.eval(x - h)) / (2 * h);
+	}
+
+	@Test
+	public void testAgainstFiniteDifferences() {
+		for (String formula : FORMULAS) {
+			Expression e = Expression.parseInfixString(formula);
+			Expression d = e.derive();
+			for (double x : POINTS) {
+				double expected = difference(e, x);
+				Assertions.assertEquals(expected, d.eval(x), 1e-5 * Math.max(1, Math.abs(expected)),
+						formula + " at " + x);
+			}
+		}
+	}
+
+	@Test
+	public void testDualMatchesSymbolic() {
+		Dual dual = new Dual();
+		for (String formula : FORMULAS) {
+			Expression e = Expression.parseInfixString(formula);
+			Expression d = e.derive();
+			for (double x : POINTS) {
+				e.evalDual(x, dual);
+				Assertions.assertEquals(e.eval(x), dual.getValue(), formula);
+				Assertions.assertEquals(d.eval(x), dual.getDerivative(), 1e-12 * Math.max(1, Math.abs(d.eval(x))),
+						formula + " at " + x);
+			}
+		}
+		Assertions.assertEquals(3.0, Expression.parseInfixString("x^2 + y").compile().evalDual(1.5).getDerivative());
+	}
+
+	@Test
+	public void testConstantsAreDropped() {
+		Assertions.assertEquals(new NumberExpression(3), Expression.parseInfixString("3*x + 7").derive());
+		Assertions.assertEquals(new NumberExpression(0), Expression.parseInfixString("sin(2) * y").derive());
+		Assertions.assertEquals(Expression.parseInfixString("3 * (x * x)"),
+				Expression.parseInfixString("x^3").derive());
+	}
+
+	@Test
+	public void testSecondDerivative() {
+		Expression e = Expression.parseInfixString("sin(x)").derive().derive();
+		for (double x : POINTS) {
+			Assertions.assertEquals(-Math.sin(x), e.eval(x), 1e-15);
+		}
+		// ein Polynom vom Grad 4 hat eine kleine zweite Ableitung
+		Expression p = Expression.parseInfixString("x^4 - 3*x^3 + 2*x^2 - x + 1").derive().derive();
+		Assertions.assertTrue(Optimizer.nodeCount(p) < 30, "nodes: " + Optimizer.nodeCount(p));
+		Assertions.assertEquals(12 * 4 - 18 * 2 + 4, p.eval(2), 1e-12);
+	}
+}
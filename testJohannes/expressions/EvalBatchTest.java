@@ -0,0 +1,63 @@
+package expressions;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class EvalBatchTest {
+
+	private static final String[] FORMULAS = { "1/2 * x", "sin(x)", "5", "sin(x^2)", "log(3+5*x)", "log(sin(x))",
+			"-1*log(-1*x)", "x^2 + 3", "sqrt(abs(x)) - exp(x/3) + tan(x) * atan(x)", "asin(x/5) + acos(x/5)",
+			"2^x^0.5", "x * (x - 1) * (x + 1) / (x*x + 1)" };
+
+	private static double[] xs(int n) {
+		double[] xs = new double[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = -5 + i * 0.01;
+		}
+		return xs;
+	}
+
+	@Test
+	public void testBatchMatchesEval() {
+		double[] xs = xs(1000);
+		double[] ys = new double[xs.length];
+		for (String formula : FORMULAS) {
+			Expression e = Expression.parseInfixString(formula);
+			e.evalBatch(xs, ys);
+			for (int i = 0; i < xs.length; i++) {
+				Assertions.assertEquals(e.eval(xs[i]), ys[i], formula);
+			}
+
+			e.compile().evalBatch(xs, ys);
+			for (int i = 0; i < xs.length; i++) {
+				Assertions.assertEquals(e.eval(xs[i]), ys[i], formula);
+			}
+		}
+	}
+
+	@Test
+	public void testBatchOffsets() {
+		double[] xs = xs(100);
+		double[] ys = new double[50];
+		Expression e = Expression.parseInfixString("x^2 - sin(x)");
+		e.evalBatch(xs, 30, ys, 10, 40);
+		for (int i = 0; i < 40; i++) {
+			Assertions.assertEquals(e.eval(xs[30 + i]), ys[10 + i]);
+		}
+	}
+
+	@Test
+	public void testBatchInPlace() {
+		for (String formula : FORMULAS) {
+			Expression e = Expression.parseInfixString(formula);
+			double[] xs = xs(500);
+			double[] values = xs.clone();
+			e.evalBatch(values, values, 100, 300);
+			for (int i = 100; i < 400; i++) {
+				Assertions.assertEquals(e.eval(xs[i]), values[i], formula);
+			}
+			Assertions.assertEquals(xs[99], values[99]);
+			Assertions.assertEquals(xs[400], values[400]);
+		}
+	}
+}
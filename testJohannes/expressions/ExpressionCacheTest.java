@@ -0,0 +1,97 @@
+package expressions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ExpressionCacheTest {
+
+	@Test
+	public void testHitsForNormalizedFormulas() {
+		ExpressionCache cache = new ExpressionCache(16, 1000, ExpressionCache.Form.RAW);
+		Expression e = cache.get("sin(x) + 1");
+		Assertions.assertSame(e, cache.get("SIN( x )+1"));
+		Assertions.assertEquals(1, cache.getMisses());
+		Assertions.assertEquals(1, cache.getHits());
+		Assertions.assertEquals(Expression.parseInfixString("sin(x) + 1"), e);
+		Assertions.assertEquals("2 3*x", ExpressionCache.normalize(" 2  3 * X "));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+		ExpressionCache cache = new ExpressionCache(2, 1000, ExpressionCache.Form.RAW);
+		Expression a = cache.get("x + 1");
+		cache.get("x + 2");
+		cache.get("x + 1");
+		cache.get("x + 3");
+		Assertions.assertEquals(2, cache.size());
+		Assertions.assertEquals(1, cache.getEvictions());
+		Assertions.assertSame(a, cache.get("x + 1"));
+	}
+
+	@Test
+	public void testNodeBound() {
+		ExpressionCache cache = new ExpressionCache(100, 6, ExpressionCache.Form.RAW);
+		cache.get("x + 1");
+		cache.get("x * 2");
+		Assertions.assertEquals(6, cache.getNodes());
+		cache.get("x - 3");
+		Assertions.assertEquals(2, cache.size());
+		Assertions.assertEquals(6, cache.getNodes());
+		cache.get("sin(x) + cos(x) * 2");
+		Assertions.assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testCompiledForm() {
+		ExpressionCache cache = new ExpressionCache(16, 1000, ExpressionCache.Form.COMPILED);
+		Expression a = cache.get("x^2 + 3 * 1");
+		Expression b = cache.get("x^2 + 3 * 1");
+		Assertions.assertTrue(a instanceof CompiledExpression);
+		Assertions.assertNotSame(a, b);
+		Assertions.assertEquals(Expression.parseInfixString("x^2 + 3").eval(1.5), b.eval(1.5));
+	}
+
+	@Test
+	public void testInvalidFormulaIsNotCached() {
+		ExpressionCache cache = new ExpressionCache(16, 1000, ExpressionCache.Form.OPTIMIZED);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> cache.get("x +"));
+		Assertions.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testConcurrentHits() throws InterruptedException {
+		ExpressionCache cache = new ExpressionCache(2, 1000, ExpressionCache.Form.RAW);
+		Expression e = cache.get("x + 1");
+		List<Thread> threads = new ArrayList<>();
+		List<Expression> wrong = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					Expression hit = cache.get("x + 1");
+					if (hit != e) {
+						synchronized (wrong) {
+							wrong.add(hit);
+						}
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assertions.assertTrue(wrong.isEmpty());
+		Assertions.assertEquals(1, cache.getMisses());
+		Assertions.assertEquals(40_000, cache.getHits());
+		// x + 1 wird nach dem Einfügen von x + 2 benutzt und bleibt erhalten
+		cache.get("x + 2");
+		cache.get("x + 1");
+		cache.get("x + 3");
+		Assertions.assertSame(e, cache.get("x + 1"));
+		Assertions.assertEquals(2, cache.size());
+	}
+}
@@ -0,0 +1,68 @@
+package expressions;
+
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tokens.TokenType;
+
+public class ExpressionInternerTest {
+
+	@Test
+	public void testStructuralEquality() {
+		Expression a = Expression.parseInfixString("sin(x) * 2 + log(x)");
+		Expression b = Expression.parseInfixString("sin(x) * 2 + log(x)");
+		Expression c = Expression.parseInfixString("sin(x) * 2 + log(2)");
+		Assertions.assertNotSame(a, b);
+		Assertions.assertEquals(a, b);
+		Assertions.assertEquals(a.hashCode(), b.hashCode());
+		Assertions.assertNotEquals(a, c);
+
+		Assertions.assertEquals(new NumberExpression(Double.NaN), new NumberExpression(Double.NaN));
+		Assertions.assertNotEquals(new NumberExpression(0.0), new NumberExpression(-0.0));
+		Assertions.assertEquals(new XExpression(), new XExpression());
+	}
+
+	@Test
+	public void testInterning() {
+		ExpressionInterner interner = new ExpressionInterner();
+		Expression e = interner.intern(Expression.parseInfixString("sin(x)*sin(x) + cos(x)*sin(x)"));
+		OperatorExpression plus = (OperatorExpression) e;
+		OperatorExpression left = (OperatorExpression) plus.getLeft();
+		OperatorExpression right = (OperatorExpression) plus.getRight();
+		Assertions.assertSame(left.getLeft(), left.getRight());
+		Assertions.assertSame(left.getLeft(), right.getRight());
+		// x, sin(x), cos(x), sin*sin, cos*sin, +
+		Assertions.assertEquals(6, interner.size());
+
+		Assertions.assertSame(interner.function("sin", interner.x()), left.getLeft());
+		Assertions.assertSame(e, interner.operator(TokenType.PLUS, left, right));
+		Assertions.assertSame(interner.number(2.5), interner.number(2.5));
+	}
+
+	@Test
+	public void testSharedEvaluation() {
+		String[] formulas = { "sin(x)*sin(x) + cos(x)*sin(x)", "2*(x+1)*(x+1) - log(x+1) / (x+1)",
+				"exp(sin(x)) + exp(sin(x))^2 - sin(x)" };
+		ExpressionInterner interner = new ExpressionInterner();
+		for (String formula : formulas) {
+			Expression tree = Expression.parseInfixString(formula);
+			Expression dag = interner.intern(tree);
+			CompiledExpression compiled = dag.compile();
+			DoubleUnaryOperator generated = BytecodeCompiler.compile(dag);
+			double[] xs = new double[1000];
+			double[] ys = new double[xs.length];
+			for (int i = 0; i < xs.length; i++) {
+				xs[i] = -5 + i * 0.01;
+			}
+			compiled.evalBatch(xs, ys);
+			for (int i = 0; i < xs.length; i++) {
+				Assertions.assertEquals(tree.eval(xs[i]), dag.eval(xs[i]), formula);
+				Assertions.assertEquals(tree.eval(xs[i]), compiled.eval(xs[i]), formula);
+				Assertions.assertEquals(tree.eval(xs[i]), ys[i], formula);
+				Assertions.assertEquals(tree.eval(xs[i]), generated.applyAsDouble(xs[i]), formula);
+			}
+		}
+	}
+}
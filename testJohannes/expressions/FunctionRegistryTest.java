@@ -0,0 +1,190 @@
+package expressions;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import parser.FunctionRegistry;
+import parser.Parser;
+import shuntingyard.ShuntingYard;
+import tokens.FunctionToken;
+import tokens.Token;
+
+public class FunctionRegistryTest {
+
+	@Test
+	public void testBinaryBuiltins() {
+		Assertions.assertEquals(3.0, Parser.parse("max(x, 3)").eval(2));
+		Assertions.assertEquals(2.0, Parser.parse("min(x, 3)").eval(2));
+		Assertions.assertEquals(Math.atan2(1, -2), Parser.parse("atan2(1, x)").eval(-2));
+		Assertions.assertEquals(5.0, Parser.parse("hypot(3, x)").eval(4));
+		Assertions.assertEquals(4.0, Parser.parse("MAX(x, 0, -x, 2 * x)").eval(2));
+		Assertions.assertEquals(-2.0, Parser.parse("min(x, 0, -x, 2 * x)").eval(2));
+		Assertions.assertEquals(Math.sin(Math.max(1, 2)), Parser.parse("sin(max(1, x))").eval(2));
+	}
+
+	@Test
+	public void testSameTreeAsShuntingYard() {
+		String[] formulas = { "max(x, 1)", "atan2(x^2, 1 - x) * 2", "min(x, sin(x), max(1, x) / 2)",
+				"hypot(x, (1 + x)) - 1" };
+		for (String formula : formulas) {
+			Expression expected = Expression.parseRPN(ShuntingYard.convertToRPN(Token.tokenize(formula)));
+			Assertions.assertEquals(expected, Parser.parse(formula), formula);
+		}
+	}
+
+	@Test
+	public void testBackendsAgree() {
+		Expression e = Parser.parse("max(sin(x), 0.5 * x) + atan2(x, 1 + x^2) * hypot(x, min(x, 1))");
+		Expression compiled = e.compile();
+		FusedEvaluator fused = new FusedEvaluator(Arrays.asList(e));
+		double[] xs = new double[100];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = -5 + 0.1 * i;
+		}
+		double[] batch = new double[xs.length];
+		double[][] fusedOut = new double[1][xs.length];
+		e.evalBatch(xs, batch);
+		fused.evalBatch(xs, 0, fusedOut, 0, xs.length);
+		DoubleUnaryOperator bytecode = BytecodeCompiler.compile(e);
+		for (int i = 0; i < xs.length; i++) {
+			double expected = e.eval(xs[i]);
+			Assertions.assertEquals(expected, compiled.eval(xs[i]));
+			Assertions.assertEquals(expected, batch[i]);
+			Assertions.assertEquals(expected, fusedOut[0][i]);
+			Assertions.assertEquals(expected, bytecode.applyAsDouble(xs[i]));
+		}
+	}
+
+	@Test
+	public void testDerivativeAndDual() {
+		Expression e = Parser.parse("atan2(x, 2) + hypot(x, 3) + max(x^2, 2 - x) + min(sin(x), 0)");
+		Expression derivative = e.derive();
+		for (double x = -3; x <= 3; x += 0.37) {
+			double h = 1e-6;
+			double numeric = (e.eval(x + h) - e.eval(x - h)) / (2 * h);
+			Assertions.assertEquals(numeric, e.evalDual(x).getDerivative(), 1e-6, "x=" + x);
+			Assertions.assertEquals(numeric, derivative.eval(x), 1e-6, "x=" + x);
+		}
+	}
+
+	@Test
+	public void testInterval() {
+		Expression e = Parser.parse("max(x, 1) + atan2(1, x) + hypot(x, 2) + min(x, 0)");
+		Interval range = e.evalInterval(-3, 2);
+		for (double x = -3; x <= 2; x += 0.01) {
+			Assertions.assertTrue(range.contains(e.eval(x)), "x=" + x);
+		}
+		Assertions.assertTrue(Parser.parse("atan2(x, 1)").evalInterval(0.5, 1).getLo() > 0);
+		Assertions.assertTrue(Parser.parse("atan2(-1, x)").evalInterval(-2, 2).getHi() < 0);
+	}
+
+	@Test
+	public void testMacros() {
+		FunctionRegistry functions = new FunctionRegistry();
+		functions.define("sq(a) = a * a");
+		functions.define("f(a, B) = sq(a) + sin(b) * x");
+		functions.define("g", Arrays.asList("x", "y"), "hypot(x, y)");
+		functions.define("one() = 1");
+		Assertions.assertTrue(functions.isDefined("sq"));
+		Assertions.assertTrue(functions.isDefined("max"));
+		Assertions.assertFalse(new FunctionRegistry().isDefined("sq"));
+
+		Expression e = Parser.parse("F(x + 1, 2) + g(3, x) - one()", functions);
+		Assertions.assertEquals(Parser.parse("(x + 1) * (x + 1) + sin(2) * x + hypot(3, x) - 1"), e);
+		// gleiche Argumente sind dasselbe Objekt und werden nur einmal berechnet
+		OperatorExpression square = (OperatorExpression) Parser.parse("sq(x - 1)", functions);
+		Assertions.assertSame(square.getLeft(), square.getRight());
+		Assertions.assertEquals(16.0, square.compile().eval(5));
+		Assertions.assertEquals(8.0, square.evalDual(5).getDerivative());
+	}
+
+	@Test
+	public void testMacroErrors() {
+		FunctionRegistry functions = new FunctionRegistry();
+		functions.define("f(a) = a + 1");
+		Assertions.assertThrows(IllegalArgumentException.class, () -> functions.define("f(a) = a"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> functions.define("sin(a) = a"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> functions.define("h(a, a) = a"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> functions.define("h(e) = e"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> functions.define("h(a) = h(a)"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> functions.define("h(a) = b"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> functions.define("h(a) a"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> functions.define("x(a) = a"));
+		Assertions.assertFalse(functions.isDefined("h"));
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Parser.parse("f(1, 2)", functions));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Parser.parse("f(x)"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Parser.parse("sin(x, 1)"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Parser.parse("max(x)"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Parser.parse("atan2(x, 1, 2)"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Parser.parse("(x, 1)"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Parser.parse("thisdoesnotexist(x)"));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> ShuntingYard.convertToRPN(Token.tokenize("x, 1")));
+	}
+
+	@Test
+	public void testNestedMacros() {
+		FunctionRegistry functions = new FunctionRegistry();
+		functions.define("f(a) = a^2 + a");
+		String formula = "x";
+		for (int i = 0; i < 18; i++) {
+			formula = "f(" + formula + ")";
+		}
+		// als Baum 2^20 - 3 Knoten, als Graph nur + und ^ pro Aufruf; x und die 2
+		// aus dem einmal gelesenen Rumpf gibt es nur einmal
+		Expression e = Parser.parse(formula, functions);
+		Assertions.assertEquals((1 << 20) - 3, Optimizer.treeSize(e));
+		Assertions.assertEquals(2 * 18 + 2, Optimizer.nodeCount(e));
+		OperatorExpression outer = (OperatorExpression) e;
+		OperatorExpression inner = (OperatorExpression) outer.getRight();
+		Assertions.assertSame(((OperatorExpression) outer.getLeft()).getRight(),
+				((OperatorExpression) inner.getLeft()).getRight());
+		Expression optimized = new Optimizer().optimize(e);
+		Assertions.assertTrue(Optimizer.nodeCount(optimized) <= Optimizer.nodeCount(e));
+		Expression derivative = e.derive();
+		Assertions.assertTrue(Optimizer.nodeCount(derivative) < 10 * 18, "nodes: " + Optimizer.nodeCount(derivative));
+		Expression interned = new ExpressionInterner().intern(e);
+		Expression compiled = e.compile();
+		FusedEvaluator fused = new FusedEvaluator(Arrays.asList(e));
+		double[][] out = new double[1][1];
+		for (double x : new double[] { -0.3, 0.001, 0.01 }) {
+			double value = x;
+			double slope = 1;
+			for (int i = 0; i < 18; i++) {
+				slope = (2 * value + 1) * slope;
+				value = Math.pow(value, 2) + value;
+			}
+			Assertions.assertEquals(value, e.eval(x));
+			Assertions.assertEquals(value, optimized.eval(x), 1e-15 * Math.abs(value));
+			Assertions.assertEquals(value, interned.eval(x));
+			Assertions.assertEquals(value, compiled.eval(x));
+			fused.evalBatch(new double[] { x }, 0, out, 0, 1);
+			Assertions.assertEquals(value, out[0][0]);
+			Assertions.assertEquals(slope, e.evalDual(x).getDerivative(), 1e-12 * Math.abs(slope));
+			Assertions.assertEquals(slope, derivative.eval(x), 1e-12 * Math.abs(slope));
+		}
+
+		// eine Ebene mehr überschreitet MAX_TREE_SIZE
+		String deeper = "f(" + formula + ")";
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Parser.parse(deeper, functions));
+	}
+
+	@Test
+	public void testEmptyArgumentList() {
+		// parseRPN löst Aufrufe immer mit der gemeinsamen FunctionRegistry auf
+		if (!FunctionRegistry.getDefault().isDefined("drei")) {
+			FunctionRegistry.getDefault().define("drei() = 3");
+		}
+		String formula = "2 + drei() * max(drei(), x)";
+		Token[] rpn = ShuntingYard.convertToRPN(Token.tokenize(formula));
+		Assertions.assertEquals(0, ((FunctionToken) rpn[1]).getArity());
+		Expression shuntingYard = Expression.parseRPN(rpn);
+		Assertions.assertEquals(Parser.parse(formula), shuntingYard);
+		Assertions.assertEquals(11.0, shuntingYard.eval(1));
+		Assertions.assertEquals(14.0, Expression.parseInfixString(formula).eval(4));
+	}
+}
@@ -0,0 +1,69 @@
+package expressions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import grid.ParallelSampler;
+
+public class FusedEvaluatorTest {
+	private static final String[] FORMULAS = { "-1", "sin(8 + 3 - 5 * x)", "sin(x)", "log(5 * (3 + x))",
+			"sin(x)*sin(x) + cos(x)*sin(x) - exp(x/10) * (x - 1) * (x + 1) / (x*x + 1)", "x", "abs(x)^0.5 - y",
+			"tan(x) / sqrt(x)" };
+
+	private static List<Expression> parse() {
+		List<Expression> es = new ArrayList<>();
+		for (String f : FORMULAS) {
+			es.add(Expression.parseInfixString(f));
+		}
+		return es;
+	}
+
+	@Test
+	public void testMatchesSingleEvaluation() {
+		List<Expression> es = parse();
+		FusedEvaluator fused = new FusedEvaluator(es);
+		int n = 3 * FusedEvaluator.CHUNK + 17;
+		double[] xs = new double[n + 5];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = -10 + i * 0.013;
+		}
+		double[][] out = new double[es.size()][n + 2];
+		fused.evalBatch(xs, 5, out, 2, n);
+		for (int k = 0; k < es.size(); k++) {
+			double[] expected = new double[n];
+			es.get(k).evalBatch(xs, 5, expected, 0, n);
+			for (int i = 0; i < n; i++) {
+				Assertions.assertEquals(expected[i], out[k][i + 2], FORMULAS[k] + " bei " + xs[i + 5]);
+			}
+		}
+	}
+
+	@Test
+	public void testSharesSubtrees() {
+		// x, sin(x), 2 und sin(x) * 2 kommen nur einmal vor
+		FusedEvaluator fused = new FusedEvaluator(List.of(Expression.parseInfixString("sin(x) * 2"),
+				Expression.parseInfixString("sin(x) * 2 + cos(x)"), Expression.parseInfixString("sin(x)")));
+		Assertions.assertEquals(3, fused.size());
+		Assertions.assertEquals(6, fused.getColumnCount());
+	}
+
+	@Test
+	public void testParallelSampler() {
+		List<Expression> es = parse();
+		ParallelSampler sampler = new ParallelSampler(4, 1000);
+		try {
+			double[][] ys = sampler.sample(new FusedEvaluator(es), -10, 10, 20_001);
+			Assertions.assertEquals(es.size(), ys.length);
+			for (int k = 0; k < es.size(); k++) {
+				for (int i = 0; i < 20_001; i += 331) {
+					Assertions.assertEquals(es.get(k).eval(-10 + i * 0.001), ys[k][i], 1e-15);
+				}
+			}
+		} finally {
+			sampler.shutdown();
+		}
+	}
+}
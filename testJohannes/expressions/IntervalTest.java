@@ -0,0 +1,51 @@
+package expressions;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class IntervalTest {
+
+	@Test
+	public void testEnclosesPointValues() {
+		String[] formulas = { "x^2 + 3*x - 1", "sin(8 + 3 - 5 * x)", "log(5 * (3 + x))", "cos(x) * exp(0-x/4)",
+				"sqrt(abs(x)) - atan(x)", "x^3 - x^-2", "tan(x) / 10", "(x - 1)^0.5", "asin(x / 10) + acos(x / 20)",
+				"1 / (x - 0.3)" };
+		double[][] ranges = { { -10, 10 }, { -0.1, 0.2 }, { 0.5, 0.6 }, { -3.2, -1.4 }, { 1e-9, 2e-9 } };
+		for (String formula : formulas) {
+			Expression e = Expression.parseInfixString(formula);
+			for (double[] range : ranges) {
+				Interval result = e.evalInterval(range[0], range[1]);
+				for (int i = 0; i <= 1000; i++) {
+					double x = range[0] + i * (range[1] - range[0]) / 1000;
+					double y = e.eval(Math.min(x, range[1]));
+					if (!Double.isNaN(y)) {
+						Assertions.assertTrue(result.contains(y), formula + " bei " + x + ": " + y + " " + result);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTightBounds() {
+		Interval sin = Expression.parseInfixString("sin(x)").evalInterval(0, Math.PI);
+		Assertions.assertEquals(0, sin.getLo(), 1e-15);
+		Assertions.assertEquals(1, sin.getHi(), 1e-15);
+		Interval square = Expression.parseInfixString("x^2").evalInterval(-2, 3);
+		Assertions.assertEquals(0, square.getLo());
+		Assertions.assertEquals(9, square.getHi(), 1e-14);
+		Assertions.assertTrue(square.isBounded());
+	}
+
+	@Test
+	public void testPolesAndDomains() {
+		Assertions.assertFalse(Expression.parseInfixString("tan(x)").evalInterval(1, 2).isBounded());
+		Assertions.assertTrue(Expression.parseInfixString("tan(x)").evalInterval(-1, 1).isBounded());
+		Assertions.assertFalse(Expression.parseInfixString("1/x").evalInterval(-1, 1).isBounded());
+		Assertions.assertFalse(Expression.parseInfixString("x^-2").evalInterval(-1, 1).isBounded());
+		Assertions.assertTrue(Expression.parseInfixString("sqrt(x)").evalInterval(-2, -1).isEmpty());
+		Assertions.assertTrue(Expression.parseInfixString("log(x)").evalInterval(-2, -1).isEmpty());
+		Assertions.assertTrue(Expression.parseInfixString("x^0.5").evalInterval(-2, -1).isEmpty());
+		Assertions.assertEquals(0, Expression.parseInfixString("sqrt(x)").evalInterval(-2, 4).getLo());
+	}
+}
@@ -0,0 +1,88 @@
+package expressions;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tokens.FunctionToken;
+import tokens.Token;
+import tokens.TokenType;
+
+public class OptimizerTest {
+
+	private static final double[] SPECIAL = { 0.0, -0.0, 1.0, -1.0, 2.5, -3.75, 1e-310, 1e300, Double.NaN,
+			Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+
+	private static void assertSameValues(Expression expected, Expression actual) {
+		for (double x : SPECIAL) {
+			Assertions.assertEquals(expected.eval(x), actual.eval(x), "x = " + x);
+		}
+		for (double x = -5; x < 5; x += 0.01) {
+			Assertions.assertEquals(expected.eval(x), actual.eval(x), "x = " + x);
+		}
+	}
+
+	@Test
+	public void testConstantFolding() {
+		Optimizer optimizer = new Optimizer();
+		Expression e = Expression.parseInfixString("sin(8 + 3 - 5 * x)");
+		Expression optimized = optimizer.optimize(e);
+		Assertions.assertEquals(2, optimizer.getRemovedNodes());
+		Assertions.assertEquals(6, Optimizer.nodeCount(optimized));
+		assertSameValues(e, optimized);
+
+		Expression constant = optimizer.optimize(Expression.parseInfixString("log(2^10) * sqrt(16)"));
+		Assertions.assertTrue(constant instanceof NumberExpression);
+		Assertions.assertEquals(Math.log(1024) * 4, constant.eval(0));
+	}
+
+	@Test
+	public void testIdentities() {
+		String[] formulas = { "x*1", "1*x", "x/1", "x-0", "x^1", "x^0", "x^2", "sin(x)^2 + 0*x", "x + 0",
+				"2*(x+1)^(3-1)", "2^x^0.5" };
+		for (String formula : formulas) {
+			Expression e = Expression.parseInfixString(formula);
+			assertSameValues(e, new Optimizer().optimize(e));
+		}
+
+		Optimizer optimizer = new Optimizer();
+		Assertions.assertTrue(optimizer.optimize(Expression.parseInfixString("x*1")) instanceof XExpression);
+		Assertions.assertTrue(optimizer.optimize(Expression.parseInfixString("x^1")) instanceof XExpression);
+		Assertions.assertEquals(4, optimizer.getRemovedNodes());
+		// x + 0 darf wegen -0.0 nicht vereinfacht werden
+		Assertions.assertEquals(3, Optimizer.nodeCount(optimizer.optimize(Expression.parseInfixString("x + 0"))));
+	}
+
+	@Test
+	public void testPowerStrengthReduction() {
+		Expression e = Expression.parseInfixString("x^2");
+		Expression optimized = new Optimizer().optimize(e);
+		Assertions.assertTrue(optimized instanceof OperatorExpression);
+		Assertions.assertEquals(TokenType.TIMES, ((OperatorExpression) optimized).getOp().getType());
+		assertSameValues(e, optimized);
+
+		// eine zusammengesetzte Basis würde als Faktor doppelt ausgewertet
+		Expression compound = Expression.parseInfixString("(exp(sin(x)) + log(abs(x)+1))^2");
+		Expression kept = new Optimizer().optimize(compound);
+		Assertions.assertEquals(TokenType.POWER, ((OperatorExpression) kept).getOp().getType());
+		Assertions.assertEquals(Optimizer.nodeCount(compound), Optimizer.nodeCount(kept));
+	}
+
+	@Test
+	public void testDoubleNegation() {
+		Expression e = new UnaryFunctionExpression(new FunctionToken("minus"),
+				new UnaryFunctionExpression(new FunctionToken("minus"), new OperatorExpression(
+						new Token(TokenType.PLUS), new XExpression(), new NumberExpression(-0.0))));
+		Optimizer optimizer = new Optimizer();
+		Expression optimized = optimizer.optimize(e);
+		Assertions.assertTrue(optimized instanceof XExpression);
+		Assertions.assertEquals(4, optimizer.getRemovedNodes());
+		assertSameValues(e, optimized);
+	}
+
+	@Test
+	public void testUnknownFunctionIsKept() {
+		Expression e = new UnaryFunctionExpression(new FunctionToken("thisdoesnotexist"), new NumberExpression(1));
+		Expression optimized = new Optimizer().optimize(e);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> optimized.eval(0));
+	}
+}
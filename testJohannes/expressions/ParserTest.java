@@ -0,0 +1,69 @@
+package expressions;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import parser.Parser;
+import shuntingyard.ShuntingYard;
+import tokens.Lexer;
+import tokens.Token;
+import tokens.TokenType;
+
+public class ParserTest {
+
+	@Test
+	public void testSameTreeAsShuntingYard() {
+		String[] formulas = { "1/2 * x", "x^2 + 3*x - 1", "2^3^2", "x/2/3 - 1 - 2", "sin(x)^2",
+				"exp(0-x*x/2)/sqrt(2*pi)", "log(3+5*x) * e", "(x - 1) * (x + 1)" };
+		for (String formula : formulas) {
+			Expression expected = Expression.parseRPN(ShuntingYard.convertToRPN(Token.tokenize(formula)));
+			Assertions.assertEquals(expected, Parser.parse(formula), formula);
+		}
+	}
+
+	@Test
+	public void testUnaryMinus() {
+		Assertions.assertEquals(-0.25, Parser.parse("-x^2").eval(0.5));
+		Assertions.assertEquals(0.0, Parser.parse("-2*x+1").eval(0.5));
+		Assertions.assertEquals(2.0, Parser.parse("x^-1").eval(0.5));
+		Assertions.assertEquals(-1.0, Parser.parse("2*(-x)").eval(0.5));
+		Assertions.assertEquals(1.0, Parser.parse("(x-)*2").eval(0.5));
+	}
+
+	@Test
+	public void testCaseInsensitiveNames() {
+		Assertions.assertEquals(Parser.parse("sin(x) + pi"), Parser.parse("SIN(X) + Pi"));
+	}
+
+	@Test
+	public void testVariableY() {
+		Expression e = Parser.parse("x^2 + Y^2 - 25");
+		Assertions.assertEquals(Expression.parseRPN(ShuntingYard.convertToRPN(Token.tokenize("x^2 + y^2 - 25"))), e);
+		Assertions.assertEquals(0.0, e.eval(3, 4));
+		Assertions.assertEquals(0.0, e.compile().eval(3, 4));
+		Assertions.assertTrue(Double.isNaN(e.eval(3)));
+		Assertions.assertTrue(e.evalInterval(Interval.of(2, 3), Interval.of(3, 4)).contains(0));
+		Assertions.assertTrue(e.evalInterval(Interval.of(-1, 1), Interval.of(-1, 1)).getHi() < 0);
+	}
+
+	@Test
+	public void testNumbers() {
+		String[] numbers = { "0.1", "3.5e2", ".5", "5.", "1e-3", "4.9e-324", "1e308", "123456789012345678901234567890",
+				"0.30000000000000004" };
+		for (String number : numbers) {
+			Lexer lexer = new Lexer(number);
+			Assertions.assertEquals(TokenType.NUMBER, lexer.getType());
+			Assertions.assertEquals(Double.parseDouble(number), lexer.getNumber(), number);
+		}
+	}
+
+	@Test
+	public void testErrors() {
+		Assertions.assertThrows(IllegalStateException.class, () -> Parser.parse("(x + 1"));
+		Assertions.assertThrows(IllegalStateException.class, () -> Parser.parse("x + 1)"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Parser.parse("x +"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Parser.parse("2 3"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Parser.parse("foo + 1"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Parser.parse("x $ 2"));
+	}
+}
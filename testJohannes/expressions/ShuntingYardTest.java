@@ -1,5 +1,12 @@
 package expressions;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -72,4 +79,53 @@ public class ShuntingYardTest {
 			Assertions.assertEquals(e6.eval(x), Math.log(Math.sin(x)), epsilon);
 		}
 	}
+
+	@Test
+	public void testLeadingParenthesis() {
+		Expression e = Expression.parseInfixString("(x - 1) * (x + 1)");
+		Assertions.assertEquals(e.eval(3), 8, 0);
+		Assertions.assertThrows(IllegalStateException.class, () -> Expression.parseInfixString("x + 1)"));
+		Assertions.assertThrows(IllegalStateException.class, () -> Expression.parseInfixString("(x + 1"));
+	}
+
+	private static String rpn(String formula) {
+		StringBuilder sb = new StringBuilder();
+		for (Token t : ShuntingYard.convertToRPN(Token.tokenize(formula))) {
+			sb.append(t).append(' ');
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testConcurrentConversion() throws Exception {
+		String[] formulas = { "1/2 * x", "sin(x^2)", "log(3+5*x)", "log(sin(x))", "2^x^3 - x*(x+1)/(x-1)",
+				"exp(x) + cos(x) * tan(x - 4) ^ 2", "((x))", "x" };
+		String[] expected = new String[formulas.length];
+		for (int i = 0; i < formulas.length; i++) {
+			expected[i] = rpn(formulas[i]);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				final int offset = t;
+				Callable<Boolean> task = () -> {
+					for (int i = 0; i < 5000; i++) {
+						int k = (i + offset) % formulas.length;
+						if (!expected[k].equals(rpn(formulas[k]))) {
+							return false;
+						}
+					}
+					return true;
+				};
+				results.add(executor.submit(task));
+			}
+			for (Future<Boolean> result : results) {
+				Assertions.assertTrue(result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
 }
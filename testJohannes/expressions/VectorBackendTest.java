@@ -0,0 +1,77 @@
+package expressions;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import jdk.incubator.vector.DoubleVector;
+
+public class VectorBackendTest {
+
+	private static double[] xs(int n) {
+		double[] xs = new double[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = -50 + i * 0.0137;
+		}
+		return xs;
+	}
+
+	@Test
+	public void testVectorApiIsUsed() {
+		// Ohne diese Prüfung würden die übrigen Tests bei einem fehlgeschlagenen
+		// Laden von srcVector nur die skalare Auswertung mit sich selbst
+		// vergleichen.
+		Assumptions.assumeTrue(Boolean.parseBoolean(System.getProperty("plotter.vector", "true")));
+		Assumptions.assumeTrue(DoubleVector.SPECIES_PREFERRED.length() >= 2, "Keine SIMD-Register fuer double");
+		Assertions.assertTrue(VectorBackend.isAvailable());
+	}
+
+	@Test
+	public void testExactOperations() {
+		String[] formulas = { "x", "3", "1/2 * x", "x^2 + 3", "sqrt(abs(x)) - x/3 * x", "-1*x",
+				"x * (x - 1) * (x + 1) / (x*x + 1)", "tan(x) + atan(x)", "asin(x/50) + acos(x/50)",
+				"max(x, -x/2, 0) - min(x, 1)", "atan2(x, 1 - x) + hypot(x, 3)" };
+		double[] xs = xs(7001);
+		double[] ys = new double[xs.length];
+		for (String formula : formulas) {
+			Expression e = Expression.parseInfixString(formula);
+			VectorBackend.evalBatch(e, xs, 0, ys, 0, xs.length);
+			for (int i = 0; i < xs.length; i++) {
+				Assertions.assertEquals(e.eval(xs[i]), ys[i], formula);
+			}
+		}
+	}
+
+	@Test
+	public void testTranscendentalFunctions() {
+		String[] formulas = { "sin(x)", "cos(x)", "exp(x)", "log(x)", "sin(x^3)", "cos(1000*x)", "exp(-1*x^2)",
+				"log(abs(x))" };
+		double[] xs = xs(7001);
+		double[] ys = new double[xs.length];
+		for (String formula : formulas) {
+			Expression e = Expression.parseInfixString(formula);
+			VectorBackend.evalBatch(e, xs, 0, ys, 0, xs.length);
+			for (int i = 0; i < xs.length; i++) {
+				double expected = e.eval(xs[i]);
+				if (Double.isNaN(expected) || Double.isInfinite(expected)) {
+					Assertions.assertEquals(expected, ys[i], formula);
+				} else {
+					Assertions.assertEquals(expected, ys[i], Math.max(2.5e-16, 2 * Math.ulp(expected)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testOffsetsAndTail() {
+		double[] xs = xs(100);
+		double[] ys = new double[60];
+		Expression e = Expression.parseInfixString("abs(x) * 2 - 1");
+		VectorBackend.evalBatch(e, xs, 13, ys, 7, 37);
+		for (int i = 0; i < 37; i++) {
+			Assertions.assertEquals(e.eval(xs[13 + i]), ys[7 + i]);
+		}
+		Assertions.assertEquals(0, ys[6]);
+		Assertions.assertEquals(0, ys[44]);
+	}
+}
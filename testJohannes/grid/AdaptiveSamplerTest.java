@@ -0,0 +1,86 @@
+package grid;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+
+public class AdaptiveSamplerTest {
+
+	@Test
+	public void testWithinTolerance() {
+		Expression e = Expression.parseInfixString("sin(8 + 3 - 5 * x)");
+		Samples samples = new AdaptiveSampler().sample(e, -10, 10, -10, 10, 1024, 786);
+		double[] xs = samples.getXs();
+		double[] ys = samples.getYs();
+		double yScale = 786 / 20.0;
+		for (int i = 1; i < samples.size(); i++) {
+			Assertions.assertTrue(xs[i] > xs[i - 1]);
+			double m = 0.5 * (xs[i - 1] + xs[i]);
+			Assertions.assertEquals(e.eval(m), 0.5 * (ys[i - 1] + ys[i]), 0.5 / yScale);
+		}
+		// ein gleichmäßiges Raster bräuchte für dieselbe Genauigkeit etwa 1600
+		// Stützstellen
+		Assertions.assertTrue(samples.size() < 1000);
+	}
+
+	@Test
+	public void testFlatFunctionNeedsFewSamples() {
+		Samples samples = new AdaptiveSampler().sample(Expression.parseInfixString("x/4 + 1"), -10, 10, -10, 10,
+				1024, 786);
+		Assertions.assertEquals(129, samples.size());
+		Assertions.assertEquals(129, samples.getEvaluations());
+		Assertions.assertEquals(-10, samples.getXs()[0]);
+		Assertions.assertEquals(10, samples.getXs()[samples.size() - 1], 1e-12);
+	}
+
+	@Test
+	public void testSampleLimit() {
+		AdaptiveSampler sampler = new AdaptiveSampler(0.01, 30, 500);
+		Samples samples = sampler.sample(Expression.parseInfixString("sin(1/x)"), -1, 1, -1, 1, 1024, 786);
+		Assertions.assertTrue(samples.getEvaluations() <= 500);
+	}
+
+	@Test
+	public void testDomainBoundaryIsRefined() {
+		Samples samples = new AdaptiveSampler().sample(Expression.parseInfixString("sqrt(x)"), -10, 10, -10, 10,
+				1024, 786);
+		double firstFinite = Double.NaN;
+		for (int i = 0; i < samples.size(); i++) {
+			if (Double.isFinite(samples.getYs()[i])) {
+				firstFinite = samples.getXs()[i];
+				break;
+			}
+		}
+		Assertions.assertTrue(firstFinite >= 0 && firstFinite < 20.0 / 1024);
+	}
+
+	@Test
+	public void testInvisibleRangesAreCulled() {
+		AdaptiveSampler sampler = new AdaptiveSampler();
+		Samples samples = sampler.sample(Expression.parseInfixString("sin(30*x) + 20"), -10, 10, -10, 10, 1024,
+				786);
+		Assertions.assertEquals(65, samples.getEvaluations());
+		samples = sampler.sample(Expression.parseInfixString("sqrt(0-1-x^2)"), -10, 10, -10, 10, 1024, 786);
+		Assertions.assertEquals(65, samples.getEvaluations());
+	}
+
+	@Test
+	public void testPolesAreNotConnected() {
+		Samples samples = new AdaptiveSampler().sample(Expression.parseInfixString("tan(x)"), -10, 10, -10, 10,
+				1024, 786);
+		double[] xs = samples.getXs();
+		double[] ys = samples.getYs();
+		int breaks = 0;
+		for (int i = 1; i < samples.size(); i++) {
+			if (Double.isNaN(ys[i])) {
+				breaks++;
+				double pole = Math.PI / 2 + Math.round((xs[i] - Math.PI / 2) / Math.PI) * Math.PI;
+				Assertions.assertEquals(pole, xs[i], 20.0 / 1024);
+			} else if (!Double.isNaN(ys[i - 1])) {
+				Assertions.assertTrue(Math.abs(ys[i] - ys[i - 1]) <= 20 || ys[i] * ys[i - 1] > 0);
+			}
+		}
+		Assertions.assertEquals(6, breaks);
+	}
+}
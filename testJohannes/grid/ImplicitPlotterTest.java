@@ -0,0 +1,65 @@
+package grid;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+
+public class ImplicitPlotterTest {
+
+	@Test
+	public void testCircle() {
+		Segments segments = new ImplicitPlotter().plot(Expression.parseInfixString("x^2 + y^2 - 25"), -10, 10, -10,
+				10, 1024, 786);
+		double[] c = segments.getCoordinates();
+		double pixel = 20.0 / 786;
+		double length = 0;
+		for (int i = 0; i < 4 * segments.size(); i += 4) {
+			Assertions.assertEquals(5, Math.hypot(c[i], c[i + 1]), pixel);
+			Assertions.assertEquals(5, Math.hypot(c[i + 2], c[i + 3]), pixel);
+			length += Math.hypot(c[i + 2] - c[i], c[i + 3] - c[i + 1]);
+		}
+		Assertions.assertEquals(2 * Math.PI * 5, length, 0.01);
+		// der Aufwand richtet sich nach der Länge der Kurve, nicht nach der
+		// Fläche von 1024 x 786 Pixeln
+		Assertions.assertTrue(segments.getCells() < 20000);
+		Assertions.assertTrue(segments.getEvaluations() < 20000);
+	}
+
+	@Test
+	public void testLemniscate() {
+		Segments segments = new ImplicitPlotter().plot(Expression.parseInfixString("(x^2 + y^2)^2 - 8*(x^2 - y^2)"),
+				-5, 5, -5, 5, 800, 800);
+		double[] c = segments.getCoordinates();
+		boolean left = false;
+		boolean right = false;
+		for (int i = 0; i < 4 * segments.size(); i += 2) {
+			double x = c[i];
+			double y = c[i + 1];
+			double r2 = x * x + y * y;
+			Assertions.assertEquals(r2 * r2, 8 * (x * x - y * y), 0.2);
+			left |= x < -2.8;
+			right |= x > 2.8;
+		}
+		Assertions.assertTrue(left && right);
+	}
+
+	@Test
+	public void testNoCurve() {
+		Segments segments = new ImplicitPlotter().plot(Expression.parseInfixString("x^2 + y^2 + 1"), -10, 10, -10, 10,
+				1024, 786);
+		Assertions.assertEquals(0, segments.size());
+		Assertions.assertEquals(0, segments.getEvaluations());
+	}
+
+	@Test
+	public void testLevelSet() {
+		Segments segments = new ImplicitPlotter().plot(Expression.parseInfixString("sin(x) * cos(y) - 0.5"), -10, 10,
+				-10, 10, 1024, 786);
+		Assertions.assertTrue(segments.size() > 0);
+		double[] c = segments.getCoordinates();
+		for (int i = 0; i < 4 * segments.size(); i += 2) {
+			Assertions.assertEquals(0.5, Math.sin(c[i]) * Math.cos(c[i + 1]), 0.02);
+		}
+	}
+}
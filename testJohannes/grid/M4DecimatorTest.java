@@ -0,0 +1,94 @@
+package grid;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+
+public class M4DecimatorTest {
+	private static final int WIDTH = 300;
+	private static final int HEIGHT = 200;
+
+	@Test
+	public void testPixelIdentical() {
+		String[] formulas = { "sin(40*x) * 5", "x^2 - 8", "sqrt(x) * 3", "tan(x)", "log(x)" };
+		for (String formula : formulas) {
+			Expression e = Expression.parseInfixString(formula);
+			int n = 100_000;
+			double[] xs = new double[n];
+			double[] ys = new double[n];
+			for (int i = 0; i < n; i++) {
+				xs[i] = -10 + i * 20.0 / (n - 1);
+				ys[i] = e.eval(xs[i]);
+			}
+
+			BufferedImage expected = image();
+			Graphics g = graphics(expected);
+			for (int i = 1; i < n; i++) {
+				if (Double.isFinite(ys[i - 1]) && Double.isFinite(ys[i])) {
+					g.drawLine(px(xs[i - 1]), py(ys[i - 1]), px(xs[i]), py(ys[i]));
+				}
+			}
+
+			BufferedImage actual = image();
+			M4Decimator lines = new M4Decimator(graphics(actual), -10, 10, -10, 10, WIDTH, HEIGHT);
+			lines.add(xs, ys, n);
+			lines.endLine();
+
+			Assertions.assertEquals(n, lines.getSamples());
+			Assertions.assertTrue(lines.getPoints() <= 4 * (WIDTH + 1), formula);
+			int black = 0;
+			for (int y = 0; y < HEIGHT; y++) {
+				for (int x = 0; x < WIDTH; x++) {
+					Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), formula);
+					if (actual.getRGB(x, y) == Color.BLACK.getRGB()) {
+						black++;
+					}
+				}
+			}
+			Assertions.assertTrue(black > WIDTH / 2, formula);
+		}
+	}
+
+	@Test
+	public void testSingleSampleIsNotDrawn() {
+		BufferedImage image = image();
+		M4Decimator lines = new M4Decimator(graphics(image), -10, 10, -10, 10, WIDTH, HEIGHT);
+		lines.add(0, Double.NaN);
+		lines.add(1, 1);
+		lines.add(2, Double.NaN);
+		lines.endLine();
+		Assertions.assertEquals(1, lines.getPoints());
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				Assertions.assertEquals(Color.WHITE.getRGB(), image.getRGB(x, y));
+			}
+		}
+	}
+
+	private static BufferedImage image() {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics g = image.getGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+		return image;
+	}
+
+	private static Graphics graphics(BufferedImage image) {
+		Graphics g = image.getGraphics();
+		g.setColor(Color.BLACK);
+		return g;
+	}
+
+	private static int px(double x) {
+		return (int) ((x + 10) * WIDTH / 20.0);
+	}
+
+	private static int py(double y) {
+		return HEIGHT - (int) ((y + 10) * HEIGHT / 20.0);
+	}
+}
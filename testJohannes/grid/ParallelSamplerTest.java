@@ -0,0 +1,51 @@
+package grid;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+
+public class ParallelSamplerTest {
+
+	@Test
+	public void testParallelMatchesSerial() {
+		Expression e = Expression.parseInfixString("x^2 + 3*x - 1");
+		ParallelSampler parallel = new ParallelSampler(4, 1000);
+		ParallelSampler serial = new ParallelSampler(1, Integer.MAX_VALUE);
+		try {
+			double[] p = parallel.sample(e, -10, 10, 100_001);
+			double[] s = serial.sample(e, -10, 10, 100_001);
+			Assertions.assertArrayEquals(s, p);
+			double step = 20.0 / 100_000;
+			for (int i = 0; i < p.length; i += 997) {
+				Assertions.assertEquals(e.eval(-10 + i * step), p[i]);
+			}
+		} finally {
+			parallel.shutdown();
+			serial.shutdown();
+		}
+	}
+
+	@Test
+	public void testOffset() {
+		Expression e = Expression.parseInfixString("2*x");
+		ParallelSampler sampler = new ParallelSampler(3, 10);
+		try {
+			double[] ys = new double[120];
+			sampler.sample(e, 0, 0.5, ys, 10, 100);
+			Assertions.assertEquals(0, ys[9]);
+			Assertions.assertEquals(0, ys[10]);
+			Assertions.assertEquals(99, ys[109]);
+			Assertions.assertEquals(0, ys[110]);
+		} finally {
+			sampler.shutdown();
+		}
+	}
+
+	@Test
+	public void testInvalidArguments() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new ParallelSampler(0, 10));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> new ParallelSampler().sample(Expression.parseInfixString("x"), 0, 1, 1));
+	}
+}
@@ -0,0 +1,84 @@
+package grid;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+
+public class RootFinderTest {
+
+	@Test
+	public void testManyRoots() {
+		// Nullstellen bei x = (11 - k * pi) / 5
+		Expression e = Expression.parseInfixString("sin(8 + 3 - 5*x)");
+		RootFinder finder = new RootFinder();
+		double[] roots = finder.roots(e, -1000, 1000);
+		int kMin = (int) Math.ceil((11 - 5000) / Math.PI);
+		int kMax = (int) Math.floor((11 + 5000) / Math.PI);
+		Assertions.assertEquals(kMax - kMin + 1, roots.length);
+		for (int i = 0; i < roots.length; i++) {
+			double expected = (11 - (kMax - i) * Math.PI) / 5;
+			Assertions.assertEquals(expected, roots[i], 1e-9);
+		}
+	}
+
+	@Test
+	public void testBrentMatchesNewton() {
+		Expression e = Expression.parseInfixString("x^3 - 2*x - 5");
+		RootFinder newton = new RootFinder(2, 1000, 1e-14, true);
+		RootFinder brent = new RootFinder(2, 1000, 1e-14, false);
+		try {
+			double[] n = newton.roots(e, -10, 10);
+			double[] b = brent.roots(e, -10, 10);
+			Assertions.assertEquals(1, n.length);
+			Assertions.assertEquals(1, b.length);
+			Assertions.assertEquals(2.0945514815423265, n[0], 1e-13);
+			Assertions.assertEquals(n[0], b[0], 1e-13);
+		} finally {
+			newton.shutdown();
+			brent.shutdown();
+		}
+	}
+
+	@Test
+	public void testPolesAreNotRoots() {
+		Expression e = Expression.parseInfixString("tan(x)");
+		RootFinder finder = new RootFinder(3, 1001, 1e-12, false);
+		try {
+			double[] roots = finder.roots(e, -5, 5);
+			Assertions.assertEquals(3, roots.length);
+			Assertions.assertEquals(-Math.PI, roots[0], 1e-10);
+			Assertions.assertEquals(0, roots[1], 1e-10);
+			Assertions.assertEquals(Math.PI, roots[2], 1e-10);
+		} finally {
+			finder.shutdown();
+		}
+	}
+
+	@Test
+	public void testRootOnSampleIsReportedOnce() {
+		// 0 und die Ränder liegen genau auf Stellen des Rasters
+		Expression e = Expression.parseInfixString("x * (x - 1) * (x + 1)");
+		RootFinder finder = new RootFinder(4, 9, 1e-12, true);
+		try {
+			Assertions.assertArrayEquals(new double[] { -1, 0, 1 }, finder.roots(e, -1, 1));
+		} finally {
+			finder.shutdown();
+		}
+	}
+
+	@Test
+	public void testExtremaAndIntersections() {
+		RootFinder finder = new RootFinder();
+		double[] extrema = finder.extrema(Expression.parseInfixString("sin(x)"), 0, 10);
+		Assertions.assertEquals(3, extrema.length);
+		for (int i = 0; i < extrema.length; i++) {
+			Assertions.assertEquals((2 * i + 1) * Math.PI / 2, extrema[i], 1e-10);
+		}
+		double[] cuts = finder.intersections(Expression.parseInfixString("sin(x)"),
+				Expression.parseInfixString("cos(x)"), 0, 7);
+		Assertions.assertEquals(2, cuts.length);
+		Assertions.assertEquals(Math.PI / 4, cuts[0], 1e-10);
+		Assertions.assertEquals(5 * Math.PI / 4, cuts[1], 1e-10);
+	}
+}
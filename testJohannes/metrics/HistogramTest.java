@@ -0,0 +1,57 @@
+package metrics;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HistogramTest {
+
+	@Test
+	public void testBucketsCoverValues() {
+		long[] values = { 0, 1, 127, 128, 129, 255, 256, 1000, 123_456_789, Long.MAX_VALUE };
+		for (long v : values) {
+			int i = Histogram.index(v);
+			Assertions.assertTrue(v <= Histogram.highest(i), "obere Grenze fuer " + v);
+			Assertions.assertTrue(i == 0 || v > Histogram.highest(i - 1), "untere Grenze fuer " + v);
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		Histogram h = new Histogram();
+		for (int i = 1; i <= 100_000; i++) {
+			h.record(i);
+		}
+		Assertions.assertEquals(100_000, h.getCount());
+		Assertions.assertEquals(50_000.5, h.getMean(), 1e-9);
+		Assertions.assertEquals(100_000, h.getMax());
+		Assertions.assertEquals(50_000, h.getValueAtPercentile(50), 50_000 / 64.0);
+		Assertions.assertEquals(99_000, h.getValueAtPercentile(99), 99_000 / 64.0);
+		Assertions.assertEquals(100_000, h.getValueAtPercentile(100));
+		Assertions.assertEquals(1, h.getValueAtPercentile(0));
+	}
+
+	@Test
+	public void testConcurrentRecordAndCopy() throws InterruptedException {
+		Histogram h = new Histogram();
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		for (int t = 0; t < 4; t++) {
+			pool.execute(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					h.record(i % 500);
+				}
+			});
+		}
+		pool.shutdown();
+		Assertions.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+		Histogram copy = h.copy();
+		h.reset();
+		Assertions.assertEquals(0, h.getCount());
+		Assertions.assertEquals(40_000, copy.getCount());
+		Assertions.assertEquals(499, copy.getMax());
+		Assertions.assertEquals(249.5, copy.getMean(), 1e-9);
+	}
+}
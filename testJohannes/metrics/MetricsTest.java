@@ -0,0 +1,70 @@
+package metrics;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class MetricsTest {
+
+	@Test
+	public void testSnapshot() {
+		Metrics.reset();
+		Expression e = Expression.parseInfixString("log(x)");
+		long start = System.nanoTime();
+		Metrics.parsed("log(x)", e, start);
+		Metrics.parseFailed("sin(", start);
+		double[] ys = { Double.NaN, Double.NEGATIVE_INFINITY, 0, 1 };
+		Metrics.plotted("test", e, ys, 4, 3, start);
+
+		MetricsSnapshot s = Metrics.snapshot();
+		Assertions.assertEquals(2, s.getParses());
+		Assertions.assertEquals(1, s.getParseErrors());
+		Assertions.assertEquals(2, s.getParseNanos().getCount());
+		Assertions.assertEquals(1, s.getPlots());
+		Assertions.assertEquals(3, s.getSamples());
+		Assertions.assertEquals(6, s.getNodeEvaluations());
+		Assertions.assertEquals(0.25, s.getNanRate());
+		Assertions.assertEquals(0.25, s.getInfiniteRate());
+		Assertions.assertEquals(1, s.getDrawNanos().getCount());
+
+		// die Momentaufnahme ändert sich nicht mehr
+		Metrics.reset();
+		Assertions.assertEquals(2, s.getParseNanos().getCount());
+		Assertions.assertEquals(0, Metrics.snapshot().getParses());
+	}
+
+	@Test
+	public void testJfrEvents() throws Exception {
+		Path file = Files.createTempFile("metrics", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("funktionsplotter.Parse");
+			recording.enable("funktionsplotter.Plot");
+			recording.start();
+			Expression e = Expression.parseInfixString("x^2");
+			Metrics.parsed("x^2", e, System.nanoTime());
+			Metrics.plotted("test", e, new double[] { 1, Double.NaN }, 2, 2, System.nanoTime());
+			recording.stop();
+			recording.dump(file);
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+			RecordedEvent parse = events.stream()
+					.filter(ev -> ev.getEventType().getName().equals("funktionsplotter.Parse")).findFirst().get();
+			Assertions.assertEquals("x^2", parse.getString("formula"));
+			Assertions.assertEquals(3, parse.getInt("nodes"));
+			RecordedEvent plot = events.stream()
+					.filter(ev -> ev.getEventType().getName().equals("funktionsplotter.Plot")).findFirst().get();
+			Assertions.assertEquals(2, plot.getInt("samples"));
+			Assertions.assertEquals(1, plot.getInt("nanSamples"));
+		} finally {
+			Files.deleteIfExists(file);
+			Metrics.reset();
+		}
+	}
+}
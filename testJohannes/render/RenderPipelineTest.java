@@ -0,0 +1,106 @@
+package render;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import expressions.ExpressionCache;
+
+public class RenderPipelineTest {
+
+	private static ViewportEngine engine() {
+		return new ViewportEngine(new ExpressionCache(64, 1 << 16, ExpressionCache.Form.OPTIMIZED),
+				new PlotPainter());
+	}
+
+	@Test
+	public void testFrameMatchesDirectPaint() throws InterruptedException {
+		Semaphore ready = new Semaphore(0);
+		RenderPipeline pipeline = new RenderPipeline(engine(), ready::release);
+		try {
+			Viewport v = new Viewport(-10, 10, -10, 10, 320, 240);
+			List<String> formulas = List.of("sin(x)", "x^2 + 3");
+			List<Color> colors = List.of(Color.CYAN, Color.MAGENTA);
+			BufferedImage shown = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+			Assertions.assertFalse(pipeline.paint(shown.createGraphics()));
+
+			Assertions.assertTrue(pipeline.request(v, formulas, colors));
+			Assertions.assertFalse(pipeline.request(v, formulas, colors));
+			Assertions.assertTrue(ready.tryAcquire(10, TimeUnit.SECONDS));
+			Assertions.assertTrue(pipeline.paint(shown.createGraphics()));
+
+			ViewportEngine direct = engine();
+			direct.setCurves(formulas, colors);
+			BufferedImage expected = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = expected.createGraphics();
+			direct.paint(g, v);
+			g.dispose();
+			for (int y = 0; y < 240; y++) {
+				for (int x = 0; x < 320; x++) {
+					Assertions.assertEquals(expected.getRGB(x, y), shown.getRGB(x, y));
+				}
+			}
+			Assertions.assertEquals(1, pipeline.getFrames());
+			Assertions.assertTrue(pipeline.getLastLatencyNanos() > 0);
+			Assertions.assertEquals(pipeline.getLastLatencyNanos(), pipeline.getMaxLatencyNanos());
+		} finally {
+			pipeline.shutdown();
+		}
+	}
+
+	@Test
+	public void testStaleFramesAreCancelled() throws InterruptedException {
+		Semaphore ready = new Semaphore(0);
+		RenderPipeline pipeline = new RenderPipeline(engine(), ready::release);
+		try {
+			List<String> formulas = new ArrayList<>();
+			List<Color> colors = new ArrayList<>();
+			for (int i = 1; i <= 40; i++) {
+				formulas.add("sin(" + i + "*x) * exp(0-x*x/" + i + ")");
+				colors.add(Color.BLUE);
+			}
+			// ein aufwendiges Bild, danach mehrere schnelle Verschiebungen
+			pipeline.request(new Viewport(-1000, 1000, -2, 2, 4000, 400), formulas, colors);
+			for (int i = 1; i <= 5; i++) {
+				pipeline.request(new Viewport(-10 + i, 10 + i, -2, 2, 400, 300), formulas, colors);
+			}
+			Assertions.assertTrue(ready.tryAcquire(30, TimeUnit.SECONDS));
+			pipeline.shutdown();
+			Thread.sleep(100);
+			Assertions.assertFalse(ready.tryAcquire());
+			Assertions.assertEquals(1, pipeline.getFrames());
+			Assertions.assertEquals(5, pipeline.getCancelledFrames());
+			BufferedImage shown = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+			Assertions.assertTrue(pipeline.paint(shown.createGraphics()));
+		} finally {
+			pipeline.shutdown();
+		}
+	}
+
+	@Test
+	public void testErrorsKeepLastFrame() throws InterruptedException {
+		Semaphore ready = new Semaphore(0);
+		RenderPipeline pipeline = new RenderPipeline(engine(), ready::release);
+		try {
+			Viewport v = new Viewport(-10, 10, -10, 10, 100, 100);
+			pipeline.request(v, List.of("x"), List.of(Color.BLUE));
+			Assertions.assertTrue(ready.tryAcquire(10, TimeUnit.SECONDS));
+			pipeline.request(v, List.of("x +"), List.of(Color.BLUE));
+			pipeline.shutdown();
+			while (pipeline.getErrors() == 0) {
+				Thread.sleep(1);
+			}
+			Assertions.assertTrue(pipeline.getLastError() instanceof IllegalArgumentException);
+			Assertions.assertEquals(1, pipeline.getFrames());
+		} finally {
+			pipeline.shutdown();
+		}
+	}
+}
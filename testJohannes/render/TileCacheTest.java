@@ -0,0 +1,127 @@
+package render;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+
+public class TileCacheTest {
+
+	private static TileCache.Key key(String formula, int x) {
+		return TileCache.key(new Tile(2, x, 0), 256,
+				List.of(new Curve(Expression.parseInfixString(formula), Color.BLUE)));
+	}
+
+	@Test
+	public void testKeys() {
+		Assertions.assertEquals(key("x^2 + 3", 0), key("X ^ 2+3", 0));
+		// der Optimizer formt x^2 in x*x und 2*3 in 6 um
+		Assertions.assertEquals(key("x^2 + 2*3", 0), key("x*x + 6", 0));
+		Assertions.assertNotEquals(key("x^2 + 3", 0), key("x^2 + 3", 1));
+		Assertions.assertNotEquals(key("x^2 + 3", 0), key("x^2 + 4", 0));
+		Assertions.assertNotEquals(key("x + y", 0), key("y + x", 0));
+		Assertions.assertNotEquals(TileCache.key(new Tile(2, 0, 0), 256, List.of()),
+				TileCache.key(new Tile(2, 0, 0), 128, List.of()));
+		Assertions.assertNotEquals(
+				TileCache.key(new Tile(2, 0, 0), 256,
+						List.of(new Curve(Expression.parseInfixString("x"), Color.BLUE))),
+				TileCache.key(new Tile(2, 0, 0), 256,
+						List.of(new Curve(Expression.parseInfixString("x"), Color.RED))));
+		Assertions.assertEquals(64, key("x", 0).toString().length());
+	}
+
+	@Test
+	public void testByteBudget() {
+		TileCache cache = new TileCache(250);
+		for (int i = 0; i < 5; i++) {
+			cache.put(key("x", i), new byte[100]);
+		}
+		Assertions.assertEquals(2, cache.size());
+		Assertions.assertEquals(200, cache.getBytes());
+		Assertions.assertEquals(3, cache.getEvictions());
+		Assertions.assertNull(cache.get(key("x", 0)));
+		Assertions.assertNotNull(cache.get(key("x", 4)));
+		// zu große Kacheln werden nicht gespeichert
+		cache.put(key("x", 9), new byte[300]);
+		Assertions.assertNull(cache.get(key("x", 9)));
+		Assertions.assertEquals(1.0 / 3, cache.getHitRate(), 1e-12);
+	}
+
+	@Test
+	public void testLeastRecentlyUsed() {
+		TileCache cache = new TileCache(300);
+		cache.put(key("x", 0), new byte[] { 0 });
+		cache.put(key("x", 1), new byte[] { 1 });
+		cache.put(key("x", 2), new byte[] { 2 });
+		cache.get(key("x", 0));
+		cache.put(key("x", 3), new byte[299]);
+		Assertions.assertArrayEquals(new byte[] { 0 }, cache.get(key("x", 0)));
+		Assertions.assertNull(cache.get(key("x", 1)));
+		Assertions.assertNull(cache.get(key("x", 2)));
+	}
+
+	@Test
+	public void testFragmentation() {
+		TileCache cache = new TileCache(300);
+		cache.put(key("x", 0), new byte[100]);
+		cache.put(key("x", 1), new byte[100]);
+		cache.put(key("x", 2), new byte[100]);
+		cache.get(key("x", 1));
+		// nach 0 und 2 wären 200 Bytes frei, aber nicht am Stück; daher muss
+		// auch 1 weichen
+		byte[] large = new byte[150];
+		large[149] = 7;
+		cache.put(key("x", 3), large);
+		Assertions.assertEquals(1, cache.size());
+		Assertions.assertEquals(150, cache.getBytes());
+		Assertions.assertEquals(3, cache.getEvictions());
+		Assertions.assertArrayEquals(large, cache.get(key("x", 3)));
+		// freie Bereiche werden wieder zusammengefasst
+		cache.put(key("x", 3), new byte[300]);
+		Assertions.assertEquals(300, cache.getBytes());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new TileCache(1L << 31));
+	}
+
+	@Test
+	public void testSpill() throws IOException {
+		Path directory = Files.createTempDirectory("tilecache");
+		TileCache cache = new TileCache(100, directory, 150);
+		cache.put(key("x", 0), new byte[] { 1, 2, 3 });
+		cache.put(key("x", 1), new byte[100]);
+		Assertions.assertEquals(1, cache.size());
+		Assertions.assertEquals(3, cache.getSpillBytes());
+		Assertions.assertTrue(Files.exists(directory.resolve(key("x", 0) + ".png")));
+
+		// zurück in den Speicher, dafür wird die andere Kachel ausgelagert
+		Assertions.assertArrayEquals(new byte[] { 1, 2, 3 }, cache.get(key("x", 0)));
+		Assertions.assertEquals(1, cache.getSpillHits());
+		Assertions.assertFalse(Files.exists(directory.resolve(key("x", 0) + ".png")));
+		Assertions.assertEquals(100, cache.getSpillBytes());
+
+		// das Verzeichnis ist ebenfalls begrenzt
+		cache.put(key("x", 2), new byte[100]);
+		cache.put(key("x", 3), new byte[100]);
+		Assertions.assertTrue(cache.getSpillBytes() <= 150);
+		cache.clear();
+		Assertions.assertEquals(0, Files.list(directory).count());
+	}
+
+	@Test
+	public void testRenderer() {
+		TileRenderer renderer = new TileRenderer();
+		TileCache cache = new TileCache(1 << 20);
+		List<Curve> curves = List.of(new Curve(Expression.parseInfixString("sin(x)"), Color.BLUE));
+		byte[] first = renderer.renderPng(new Tile(1, 0, 0), curves, cache);
+		byte[] second = renderer.renderPng(new Tile(1, 0, 0),
+				List.of(new Curve(Expression.parseInfixString("SIN( x )"), Color.BLUE)), cache);
+		Assertions.assertArrayEquals(first, second);
+		Assertions.assertEquals(1, cache.getHits());
+		Assertions.assertEquals(1, cache.getMisses());
+	}
+}
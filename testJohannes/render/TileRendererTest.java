@@ -0,0 +1,107 @@
+package render;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+
+public class TileRendererTest {
+	private static final List<Curve> CURVES = List.of(new Curve(Expression.parseInfixString("sin(x)"), Color.BLUE),
+			new Curve(Expression.parseInfixString("x^2 + y^2 - 25"), Color.GREEN, true));
+
+	@Test
+	public void testTilesMatchOneImage() {
+		TileRenderer renderer = new TileRenderer(128, 16, 2, new PlotPainter());
+		try {
+			List<Tile> tiles = Tile.covering(2, -10, 10, -10, 10);
+			List<BufferedImage> images = renderer.renderAll(tiles, List.of());
+			Assertions.assertEquals(16, images.size());
+
+			// Gitter, Achsen und Beschriftungen der Kacheln ergeben zusammen das Bild
+			// des ganzen Ausschnitts
+			BufferedImage whole = new BufferedImage(512, 512, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = whole.createGraphics();
+			new PlotPainter().background(g, new Viewport(-10, 10, -10, 10, 512, 512));
+			g.dispose();
+			for (int i = 0; i < tiles.size(); i++) {
+				int ox = (int) (tiles.get(i).getX() + 2) * 128;
+				int oy = (int) (tiles.get(i).getY() + 2) * 128;
+				assertSameImage(whole.getSubimage(ox, oy, 128, 128), images.get(i));
+			}
+		} finally {
+			renderer.shutdown();
+		}
+	}
+
+	@Test
+	public void testBackgroundIsReused() {
+		TileRenderer renderer = new TileRenderer(64, 4, 2, new PlotPainter());
+		try {
+			List<Tile> tiles = Tile.covering(1, -10, 10, -10, 10);
+			List<BufferedImage> first = renderer.renderAll(tiles, CURVES);
+			Assertions.assertEquals(4, renderer.getBackgroundMisses());
+			List<BufferedImage> second = renderer.renderAll(tiles, CURVES);
+			Assertions.assertEquals(4, renderer.getBackgroundMisses());
+			Assertions.assertEquals(4, renderer.getBackgroundHits());
+			for (int i = 0; i < tiles.size(); i++) {
+				assertSameImage(first.get(i), second.get(i));
+			}
+			// Kurven werden nicht in den gespeicherten Hintergrund gezeichnet
+			BufferedImage empty = renderer.render(tiles.get(0), List.of());
+			Assertions.assertFalse(countColor(empty, Color.BLUE) > 0);
+			Assertions.assertTrue(countColor(first.get(0), Color.BLUE) > 0);
+			Assertions.assertTrue(countColor(first.get(0), Color.GREEN) > 0);
+		} finally {
+			renderer.shutdown();
+		}
+	}
+
+	@Test
+	public void testPng() throws IOException {
+		TileRenderer renderer = new TileRenderer();
+		Tile tile = new Tile(0, -1, -1);
+		BufferedImage image = renderer.render(tile, CURVES);
+		byte[] png = renderer.renderPng(tile, CURVES);
+		assertSameImage(image, ImageIO.read(new ByteArrayInputStream(png)));
+
+		Path directory = Files.createTempDirectory("tiles");
+		renderer.writeTiles(directory, Tile.covering(0, -10, 10, -10, 10), CURVES);
+		Path file = directory.resolve("0/-1/-1.png");
+		assertSameImage(image, ImageIO.read(file.toFile()));
+		Assertions.assertEquals(2, Files.list(directory.resolve("0/-1")).count());
+		Assertions.assertEquals(2, Files.list(directory.resolve("0/0")).count());
+	}
+
+	private static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+		Assertions.assertEquals(expected.getWidth(), actual.getWidth());
+		Assertions.assertEquals(expected.getHeight(), actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+
+	private static int countColor(BufferedImage image, Color c) {
+		int count = 0;
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				if (image.getRGB(x, y) == c.getRGB()) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,36 @@
+package render;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TileTest {
+
+	@Test
+	public void testViewport() {
+		Viewport v = new Tile(1, -1, 0).viewport(256);
+		Assertions.assertEquals(-10, v.getXMin());
+		Assertions.assertEquals(0, v.getXMax());
+		Assertions.assertEquals(-10, v.getYMin());
+		Assertions.assertEquals(0, v.getYMax());
+		Assertions.assertEquals(0, v.toPixelX(-10));
+		Assertions.assertEquals(256, v.toPixelY(-10));
+		Assertions.assertEquals(0, v.toPixelY(0));
+	}
+
+	@Test
+	public void testCovering() {
+		List<Tile> tiles = Tile.covering(1, -10, 10, -10, 10);
+		Assertions.assertEquals(List.of(new Tile(1, -1, -1), new Tile(1, 0, -1), new Tile(1, -1, 0), new Tile(1, 0, 0)),
+				tiles);
+		Assertions.assertEquals(9, Tile.covering(1, -10, 10.5, -10.5, 10).size());
+		Assertions.assertEquals("3/-4/2", new Tile(3, -4, 2).toString());
+	}
+
+	@Test
+	public void testInvalidZoom() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new Tile(-1, 0, 0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new Tile(Tile.MAX_ZOOM + 1, 0, 0));
+	}
+}
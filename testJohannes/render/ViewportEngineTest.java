@@ -0,0 +1,141 @@
+package render;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import expressions.ExpressionCache;
+
+public class ViewportEngineTest {
+	private static final List<String> FORMULAS = List.of("sin(8 + 3 - 5 * x)", "log(5 * (3 + x))", "tan(x)");
+	private static final List<Color> COLORS = List.of(Color.GREEN, Color.ORANGE, Color.BLUE);
+
+	private static ViewportEngine engine() {
+		ViewportEngine engine = new ViewportEngine(new ExpressionCache(16, 1 << 10, ExpressionCache.Form.OPTIMIZED),
+				new PlotPainter());
+		engine.setCurves(FORMULAS, COLORS);
+		return engine;
+	}
+
+	private static BufferedImage paint(ViewportEngine engine, Viewport v) {
+		BufferedImage image = new BufferedImage(v.getWidth(), v.getHeight(), BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		engine.paint(g, v);
+		g.dispose();
+		return image;
+	}
+
+	@Test
+	public void testPanEvaluatesOnlyNewRange() {
+		ViewportEngine engine = engine();
+		paint(engine, new Viewport(-10, 10, -10, 10, 1024, 786));
+		long full = engine.getEvaluations();
+		// 20 / 1024 Einheiten pro Pixel ergeben die Schrittweite 2^-7
+		Assertions.assertEquals(3 * (20 * 128 + 1), full);
+		paint(engine, new Viewport(-9, 11, -9.5, 10.5, 1024, 786));
+		Assertions.assertEquals(3 * 128, engine.getEvaluations() - full);
+	}
+
+	@Test
+	public void testZoomReusesSamples() {
+		ViewportEngine engine = engine();
+		paint(engine, new Viewport(-10, 10, -10, 10, 1024, 786));
+		long before = engine.getEvaluations();
+		// Vergrößern auf ein doppelt so feines Raster: jede zweite Stelle ist neu
+		paint(engine, new Viewport(-5, 5, -5, 5, 1024, 786));
+		Assertions.assertEquals(3 * 10 * 128, engine.getEvaluations() - before);
+		before = engine.getEvaluations();
+		// Verkleinern: nur die Stellen außerhalb von -5 bis 5 sind neu
+		paint(engine, new Viewport(-10, 10, -10, 10, 1024, 786));
+		Assertions.assertEquals(3 * 10 * 128, engine.getEvaluations() - before);
+		before = engine.getEvaluations();
+		// gleiches Raster im Inneren des alten Bereichs
+		paint(engine, new Viewport(-8, 8, -8, 8, 800, 600));
+		Assertions.assertEquals(0, engine.getEvaluations() - before);
+	}
+
+	@Test
+	public void testIncrementalMatchesFresh() {
+		ViewportEngine engine = engine();
+		Viewport[] views = { new Viewport(-10, 10, -10, 10, 640, 480), new Viewport(-9.3, 10.7, -10, 10, 640, 480),
+				new Viewport(-4.1, 5.2, -3, 4, 640, 480), new Viewport(-20, 25, -12, 9, 640, 480) };
+		for (Viewport v : views) {
+			BufferedImage incremental = paint(engine, v);
+			BufferedImage fresh = paint(engine(), v);
+			for (int y = 0; y < v.getHeight(); y++) {
+				for (int x = 0; x < v.getWidth(); x++) {
+					Assertions.assertEquals(fresh.getRGB(x, y), incremental.getRGB(x, y));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testParseOnlyChangedFormulas() {
+		ViewportEngine engine = engine();
+		Assertions.assertEquals(3, engine.getParses());
+		engine.setCurves(FORMULAS, List.of(Color.RED, Color.RED, Color.RED));
+		Assertions.assertEquals(3, engine.getParses());
+		engine.setCurves(List.of("sin(8 + 3 - 5 * x)", "x^2", "tan(x)"), COLORS);
+		Assertions.assertEquals(4, engine.getParses());
+		engine.setCurves(List.of("sin(8 + 3 - 5 * x)"), List.of(Color.RED));
+		Assertions.assertEquals(4, engine.getParses());
+	}
+
+	@Test
+	public void testPolesAreNotConnected() {
+		ViewportEngine engine = new ViewportEngine(new ExpressionCache(16, 1 << 10, ExpressionCache.Form.OPTIMIZED),
+				new PlotPainter());
+		engine.setCurves(List.of("tan(x)"), List.of(Color.BLUE));
+		Viewport v = new Viewport(-10, 10, -10, 10, 1024, 786);
+		BufferedImage image = paint(engine, v);
+		// ohne Unterbrechung wäre bei jeder Polstelle eine ganze Pixelspalte blau
+		int column = v.toPixelX(Math.PI / 2);
+		int blue = 0;
+		for (int y = 0; y < v.getHeight(); y++) {
+			for (int x = column - 1; x <= column + 1; x++) {
+				if (image.getRGB(x, y) == Color.BLUE.getRGB()) {
+					blue++;
+				}
+			}
+		}
+		Assertions.assertTrue(blue < v.getHeight(), "blue pixels: " + blue);
+	}
+
+	@Test
+	public void testFusedMatchesSeparateCurves() {
+		// CompiledExpressions kann der FusedEvaluator nicht zusammenfassen, hier
+		// wird also jede Kurve für sich aktualisiert
+		ViewportEngine separate = new ViewportEngine(
+				new ExpressionCache(16, 1 << 10, ExpressionCache.Form.COMPILED), new PlotPainter());
+		separate.setCurves(FORMULAS, COLORS);
+		ViewportEngine fused = engine();
+		Viewport[] views = { new Viewport(-10, 10, -10, 10, 640, 480), new Viewport(-9.3, 10.7, -10, 10, 640, 480),
+				new Viewport(-4.1, 5.2, -3, 4, 640, 480) };
+		for (Viewport v : views) {
+			assertSameImage(paint(separate, v), paint(fused, v));
+		}
+		Assertions.assertEquals(separate.getEvaluations(), fused.getEvaluations());
+		// eine neue Kurve liegt zuerst auf einem anderen Raster als die übrigen
+		List<String> more = List.of("sin(8 + 3 - 5 * x)", "log(5 * (3 + x))", "tan(x)", "sin(x) * x");
+		List<Color> colors = List.of(Color.GREEN, Color.ORANGE, Color.BLUE, Color.MAGENTA);
+		separate.setCurves(more, colors);
+		fused.setCurves(more, colors);
+		for (Viewport v : views) {
+			assertSameImage(paint(separate, v), paint(fused, v));
+		}
+		Assertions.assertEquals(separate.getEvaluations(), fused.getEvaluations());
+	}
+
+	private static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+}